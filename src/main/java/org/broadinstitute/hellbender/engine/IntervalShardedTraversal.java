@@ -0,0 +1,307 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.util.Locatable;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs the traversal of a variant walker that opts in via {@link VariantWalkerBase#getShardedTraversalThreads()} as
+ * shards of its traversal intervals on a thread pool, and concatenates the output of the shards in reference order.
+ *
+ * All shards run within the one instance of the tool: each traverses its intervals with driving variant, reference
+ * and Feature data sources of its own and per-site state of its own, writing to a temporary VCF that is appended to
+ * the tool's output after those of all earlier shards.
+ *
+ * Shards are cut to roughly equal territory, so that a single contig keeps all threads busy, and small contigs such
+ * as decoys and alts are binned together rather than getting a shard each. State that a tool carries from site to
+ * site is rebuilt at the start of a shard by first traversing its {@link Shard#getLeadIn() lead-in} without output;
+ * tools whose state cannot be rebuilt that way ask for shards that only end at contig boundaries instead.
+ */
+public final class IntervalShardedTraversal {
+    private static final Logger logger = LogManager.getLogger(IntervalShardedTraversal.class);
+
+    /** the conventional name of the argument tools return from {@link VariantWalkerBase#getShardedTraversalThreads()} */
+    public static final String WORKER_THREADS_LONG_NAME = "worker-threads";
+
+    // each thread gets several shards on average so that a slow shard doesn't leave the others idle at the end
+    @VisibleForTesting
+    static final int SHARDS_PER_THREAD = 4;
+
+    // smaller shards aren't worth opening a set of inputs for
+    @VisibleForTesting
+    static final int MIN_SHARD_SIZE = 1_000_000;
+
+    // how far back into the preceding shard a shard starts traversing; GVCF deletions are far shorter than this
+    @VisibleForTesting
+    static final int LEAD_IN_SIZE = 10_000;
+
+    private IntervalShardedTraversal() {}
+
+    /**
+     * A run of consecutive traversal intervals processed by one thread.
+     */
+    static final class Shard {
+        private final List<SimpleInterval> intervals;
+        private final List<SimpleInterval> leadIn;
+        // the last interval of the preceding shard if it is on the same contig as this one, otherwise null
+        private final SimpleInterval precedingInterval;
+        private final boolean isLastShard;
+
+        private Shard(final List<SimpleInterval> intervals, final List<SimpleInterval> leadIn, final SimpleInterval precedingInterval,
+                      final boolean isLastShard) {
+            this.intervals = Collections.unmodifiableList(intervals);
+            this.leadIn = Collections.unmodifiableList(leadIn);
+            this.precedingInterval = precedingInterval;
+            this.isLastShard = isLastShard;
+        }
+
+        /**
+         * @return the traversal intervals this shard produces output for
+         */
+        List<SimpleInterval> getIntervals() {
+            return intervals;
+        }
+
+        /**
+         * @return the traversal intervals of the preceding shards that are on the same contig and within
+         * {@link #LEAD_IN_SIZE} bases of the start of this shard, trimmed to that window
+         */
+        List<SimpleInterval> getLeadIn() {
+            return leadIn;
+        }
+
+        /**
+         * @return the lead-in of this shard followed by its intervals
+         */
+        List<SimpleInterval> getLeadInAndIntervals() {
+            final List<SimpleInterval> result = new ArrayList<>(leadIn.size() + intervals.size());
+            result.addAll(leadIn);
+            result.addAll(intervals);
+            return result;
+        }
+
+        /**
+         * @return whether this is the last shard of the traversal
+         */
+        boolean isLastShard() {
+            return isLastShard;
+        }
+
+        /**
+         * A locus, or a variant in a by-variant traversal, that starts at or before the end of the preceding shard
+         * is output by that shard, even if it also overlaps this one.
+         *
+         * @return true if {@code loc} belongs to a preceding shard
+         */
+        boolean startsInPrecedingShard(final Locatable loc) {
+            return precedingInterval != null && precedingInterval.getContig().equals(loc.getContig()) &&
+                    loc.getStart() <= precedingInterval.getEnd();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Shard shard = (Shard) o;
+            return intervals.equals(shard.intervals) && leadIn.equals(shard.leadIn) &&
+                    Objects.equals(precedingInterval, shard.precedingInterval) && isLastShard == shard.isLastShard;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(intervals, leadIn, precedingInterval, isLastShard);
+        }
+
+        @Override
+        public String toString() {
+            return "Shard{intervals=" + intervals + ", leadIn=" + leadIn + '}';
+        }
+    }
+
+    /**
+     * Split {@code intervals} into about {@link #SHARDS_PER_THREAD} shards per thread, but none smaller than
+     * {@link #MIN_SHARD_SIZE} bases unless they run out of intervals.
+     *
+     * @param intervals the traversal intervals, sorted in reference order
+     * @param numThreads the number of threads the shards will be processed on
+     * @param splitContigs whether shards may end within a contig
+     */
+    static List<Shard> makeShards(final List<SimpleInterval> intervals, final int numThreads, final boolean splitContigs) {
+        Utils.nonNull(intervals);
+        Utils.validateArg(numThreads > 0, "numThreads must be positive");
+        final long territory = intervals.stream().mapToLong(SimpleInterval::size).sum();
+        final long shardSize = Math.max(MIN_SHARD_SIZE, territory / ((long) numThreads * SHARDS_PER_THREAD) + 1);
+        return makeShardsOfSize(intervals, shardSize, splitContigs);
+    }
+
+    /**
+     * Group consecutive {@code intervals} into shards of {@code shardSize} bases. If {@code splitContigs} is set,
+     * intervals are cut so that every shard but the last has exactly {@code shardSize} bases; otherwise a shard is
+     * only ended at the first contig boundary after it reaches {@code shardSize} bases, so small contigs share a
+     * shard and large ones get one of their own.
+     */
+    @VisibleForTesting
+    static List<Shard> makeShardsOfSize(final List<SimpleInterval> intervals, final long shardSize, final boolean splitContigs) {
+        Utils.nonNull(intervals);
+        Utils.validateArg(shardSize > 0, "shardSize must be positive");
+
+        final List<List<SimpleInterval>> groups = new ArrayList<>();
+        List<SimpleInterval> current = new ArrayList<>();
+        long currentSize = 0;
+        for (final SimpleInterval interval : intervals) {
+            final boolean startsContig = !current.isEmpty() && !current.get(current.size() - 1).getContig().equals(interval.getContig());
+            if (currentSize >= shardSize && (splitContigs || startsContig)) {
+                groups.add(current);
+                current = new ArrayList<>();
+                currentSize = 0;
+            }
+            SimpleInterval remaining = interval;
+            while (splitContigs && currentSize + remaining.size() > shardSize) {
+                final int end = remaining.getStart() + (int) (shardSize - currentSize) - 1;
+                current.add(new SimpleInterval(remaining.getContig(), remaining.getStart(), end));
+                groups.add(current);
+                current = new ArrayList<>();
+                currentSize = 0;
+                remaining = new SimpleInterval(remaining.getContig(), end + 1, remaining.getEnd());
+            }
+            current.add(remaining);
+            currentSize += remaining.size();
+        }
+        if (!current.isEmpty()) {
+            groups.add(current);
+        }
+
+        final List<Shard> shards = new ArrayList<>(groups.size());
+        final List<SimpleInterval> preceding = new ArrayList<>();
+        for (final List<SimpleInterval> group : groups) {
+            shards.add(makeShard(group, preceding, shards.size() == groups.size() - 1));
+            preceding.addAll(group);
+        }
+        return shards;
+    }
+
+    private static Shard makeShard(final List<SimpleInterval> intervals, final List<SimpleInterval> preceding, final boolean isLastShard) {
+        final SimpleInterval first = intervals.get(0);
+        final SimpleInterval precedingInterval = preceding.isEmpty() ? null : preceding.get(preceding.size() - 1);
+        if (precedingInterval == null || !precedingInterval.getContig().equals(first.getContig())) {
+            return new Shard(intervals, Collections.emptyList(), null, isLastShard);
+        }
+
+        final int leadInStart = first.getStart() - LEAD_IN_SIZE;
+        final LinkedList<SimpleInterval> leadIn = new LinkedList<>();
+        for (int i = preceding.size() - 1; i >= 0; i--) {
+            final SimpleInterval interval = preceding.get(i);
+            if (!interval.getContig().equals(first.getContig()) || interval.getEnd() < leadInStart) {
+                break;
+            }
+            leadIn.addFirst(new SimpleInterval(interval.getContig(), Math.max(interval.getStart(), leadInStart), interval.getEnd()));
+        }
+        return new Shard(intervals, new ArrayList<>(leadIn), precedingInterval, isLastShard);
+    }
+
+    /**
+     * Traverse {@code shards} on up to {@code numThreads} threads, each into a temporary VCF, and add the records they
+     * produce to {@code writer} in the order of the shards. If a shard fails the whole run fails with its exception,
+     * so the output is never silently missing a shard.
+     *
+     * @param shards the shards to traverse, in reference order
+     * @param header the header of the tool's output
+     * @param shardTraversal traverses one shard, adding the records it produces to the given writer
+     * @param writer the tool's output writer, with its header already written
+     * @param progressMeter updated with each record added to {@code writer}
+     * @param numThreads the maximum number of shards to traverse at once
+     */
+    static void run(final List<Shard> shards, final VCFHeader header, final BiConsumer<Shard, ShardWriter> shardTraversal,
+                    final VariantContextWriter writer, final ProgressMeter progressMeter, final int numThreads) {
+        Utils.nonNull(shards);
+        Utils.nonNull(header);
+        Utils.nonNull(shardTraversal);
+        Utils.nonNull(writer);
+        Utils.nonNull(progressMeter);
+
+        logger.info(String.format("Processing %d shards on up to %d threads", shards.size(), numThreads));
+        final Iterator<File> shardOutputs = Utils.transformParallel(shards.iterator(),
+                shard -> traverseShard(shard, header, shardTraversal), numThreads);
+        while (shardOutputs.hasNext()) {
+            final File shardOutput = shardOutputs.next();
+            try (final VCFFileReader reader = new VCFFileReader(shardOutput, false)) {
+                for (final VariantContext vc : reader) {
+                    writer.add(vc);
+                    progressMeter.update(vc);
+                }
+            }
+            shardOutput.delete();
+        }
+    }
+
+    private static File traverseShard(final Shard shard, final VCFHeader header, final BiConsumer<Shard, ShardWriter> shardTraversal) {
+        final File output = IOUtils.createTempFile("shard", ".vcf.gz");
+        try (final ShardWriter shardWriter = new ShardWriter(GATKVariantContextUtils.createVCFWriter(output.toPath(), null, false))) {
+            // a copy of its own, since writers may modify the header they are given
+            shardWriter.writeHeader(new VCFHeader(header.getMetaDataInInputOrder(), header.getGenotypeSamples()));
+            shardTraversal.accept(shard, shardWriter);
+        }
+        return output;
+    }
+
+    /**
+     * The writer of the output of one shard, which drops the records added to it while it is discarding, so that
+     * the walker base classes can traverse the lead-in of a shard without output.
+     */
+    static final class ShardWriter implements VariantContextWriter {
+        private final VariantContextWriter writer;
+        private boolean discarding = false;
+
+        private ShardWriter(final VariantContextWriter writer) {
+            this.writer = writer;
+        }
+
+        void setDiscarding(final boolean discarding) {
+            this.discarding = discarding;
+        }
+
+        @Override
+        public void writeHeader(final VCFHeader header) {
+            writer.writeHeader(header);
+        }
+
+        @Override
+        public void setHeader(final VCFHeader header) {
+            writer.setHeader(header);
+        }
+
+        @Override
+        public void add(final VariantContext vc) {
+            if (!discarding) {
+                writer.add(vc);
+            }
+        }
+
+        @Override
+        public boolean checkError() {
+            return writer.checkError();
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+        }
+    }
+}
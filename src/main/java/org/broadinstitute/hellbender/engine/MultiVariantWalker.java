@@ -8,6 +8,7 @@ import org.broadinstitute.hellbender.cmdline.argumentcollections.MultiVariantInp
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -126,6 +127,52 @@ public abstract class MultiVariantWalker extends VariantWalkerBase {
                 });
     }
 
+    /**
+     * Traverse the driving variants overlapping {@code intervals} in the same way as {@link #traverse()}, but with
+     * driving variant, reference and Feature data sources opened for this call alone, passing each variant to
+     * {@code consumer} instead of {@link #apply}. Calls share no mutable state with each other or with the tool's own
+     * traversal. Reads are not available to such traversals, and they do not update the progress meter.
+     *
+     * @param intervals the intervals to traverse, sorted in reference order
+     * @param consumer receives the variants in order
+     */
+    final void traverseWithPrivateDataSources(final List<SimpleInterval> intervals, final VariantConsumer consumer) {
+        Utils.nonNull(intervals);
+        Utils.nonNull(consumer);
+        Utils.validate(!hasReads(), "traversals with private data sources do not support reads");
+
+        try (final MultiVariantDataSource privateDrivingVariants = new MultiVariantDataSource(drivingVariantsFeatureInputs,
+                     getDrivingVariantCacheLookAheadBases(), cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                     referenceArguments.getReferencePath());
+             final ReferenceDataSource privateReference = referenceArguments.getReferencePath() != null ?
+                     ReferenceDataSource.of(referenceArguments.getReferencePath()) : null;
+             final FeatureManager privateFeatures = new FeatureManager(this, DEFAULT_DRIVING_VARIANTS_LOOKAHEAD_BASES,
+                     cloudPrefetchBuffer, cloudIndexPrefetchBuffer, referenceArguments.getReferencePath())) {
+            drivingVariantsFeatureInputs.forEach(featureInput -> privateFeatures.addToFeatureSources(0, featureInput,
+                    VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, referenceArguments.getReferencePath()));
+            privateDrivingVariants.setIntervalsForTraversal(intervals);
+
+            final CountingReadFilter readFilter = makeReadFilter();
+            getTransformedVariantStream(privateDrivingVariants.spliterator(), makePreVariantFilterTransformer(),
+                    makeVariantFilter(), makePostVariantFilterTransformer())
+                    .forEachOrdered(variant -> {
+                        final SimpleInterval variantInterval = new SimpleInterval(variant);
+                        consumer.apply(variant,
+                                new ReadsContext(null, variantInterval, readFilter),
+                                new ReferenceContext(privateReference, variantInterval),
+                                new FeatureContext(privateFeatures, variantInterval));
+                    });
+        }
+    }
+
+    /**
+     * Receives the variants of a traversal with private data sources, with the same arguments as {@link #apply}.
+     */
+    @FunctionalInterface
+    interface VariantConsumer {
+        void apply(VariantContext variant, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext);
+    }
+
     /**
      * Process an individual variant. Must be implemented by tool authors.
      * In general, tool authors should simply stream their output from apply(), and maintain as little internal state
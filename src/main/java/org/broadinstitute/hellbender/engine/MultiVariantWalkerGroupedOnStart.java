@@ -4,12 +4,15 @@ import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.samtools.util.OverlapDetector;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 
 /**
@@ -20,11 +23,11 @@ import java.util.List;
  * As such, the argument '-ignore-variants-starting-outside-interval' has been provided to mimic GATK3's behavior
  * only presenting variants that start inside the requested interval regardless of whether there is a spanning variant.
  *
- * Client tools must implement apply(List<VariantContext> variantContexts, ReferenceContext referenceContext)
+ * Client tools must implement apply(List<VariantContext> variantContexts, ReferenceContext referenceContext), and tools
+ * that opt in to sharded traversal via {@link #getShardedTraversalThreads()} also implement {@link #makeShardConsumer}.
  */
 public abstract class MultiVariantWalkerGroupedOnStart extends MultiVariantWalker {
-    private List<VariantContext> currentVariants = new ArrayList<>();
-    private ReferenceContext spanningReferenceContext;
+    private StartPositionGrouper grouper;
     private OverlapDetector<SimpleInterval> overlapDetector;
 
     public static final String IGNORE_VARIANTS_THAT_START_OUTSIDE_INTERVAL = "ignore-variants-starting-outside-interval";
@@ -53,28 +56,7 @@ public abstract class MultiVariantWalkerGroupedOnStart extends MultiVariantWalke
      */
     @Override
     public final void apply(VariantContext variant, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext) {
-
-        // Filtering out variants that start outside of the specified intervals
-        if (ignoreIntervalsOutsideStart && !isWithinInterval(new SimpleInterval(variant.getContig(), variant.getStart(), variant.getStart()))) {
-            return;
-        }
-
-        // Collecting all the reads that start at a particular base into one.
-        if (currentVariants.isEmpty()) {
-            currentVariants.add(variant);
-        } else if (!currentVariants.get(0).contigsMatch(variant)
-                || currentVariants.get(0).getStart() < variant.getStart()) {
-            // Emptying any sites which should emit a new VC since the last one
-            apply(new ArrayList<>(currentVariants), spanningReferenceContext);
-            currentVariants.clear();
-            currentVariants.add(variant);
-        } else {
-            currentVariants.add(variant);
-        }
-        if (referenceContext.hasBackingDataSource()){
-            referenceContext.setWindow(1, 1);
-        }
-        spanningReferenceContext = getExpandedReferenceContext(currentVariants, spanningReferenceContext, referenceContext);
+        grouper.add(variant, referenceContext);
     }
 
     /**
@@ -91,6 +73,58 @@ public abstract class MultiVariantWalkerGroupedOnStart extends MultiVariantWalke
      */
     public abstract void apply(List<VariantContext> variantContexts, ReferenceContext referenceContext);
 
+    /**
+     * Create the consumer of the groups of variants of one shard of a sharded traversal, which takes the place of
+     * {@link #apply(List, ReferenceContext)} for that shard. Must be implemented by tools that opt in to sharded
+     * traversal via {@link #getShardedTraversalThreads()}.
+     *
+     * Shards are traversed concurrently, each with driving variant, reference and Feature data sources of its own, so
+     * the consumer must keep any per-site state of its own. Reads are not available to sharded traversals.
+     *
+     * @param writer where the consumer writes its output; output written for a group that starts in the lead-in of
+     *               the shard (see {@link #canShardWithinContigs()}) is dropped
+     * @return a new consumer for one shard
+     */
+    protected ShardConsumer makeShardConsumer(final VariantContextWriter writer) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support sharded traversal");
+    }
+
+    /**
+     * Receives the groups of variants of one shard of a sharded traversal, with the same arguments as
+     * {@link #apply(List, ReferenceContext)}.
+     */
+    @FunctionalInterface
+    protected interface ShardConsumer {
+        void apply(List<VariantContext> variantContexts, ReferenceContext referenceContext);
+
+        /**
+         * Called after the last group of the shard, which ends at the end of a contig unless shards may end within
+         * contigs, or at the end of the traversal if it is the last shard.
+         *
+         * @param isLastShard whether this is the last shard of the traversal
+         */
+        default void finishShard(final boolean isLastShard) {}
+    }
+
+    /**
+     * Traverse the variants overlapping {@code intervals} in the same way as {@link #traverse()}, but with driving
+     * variant, reference and Feature data sources opened for this call alone, passing each group of variants to
+     * {@code consumer} instead of {@link #apply(List, ReferenceContext)}. Calls share no mutable state with each other
+     * or with the tool's own traversal. Reads are not available to such traversals, and they do not update the
+     * progress meter.
+     *
+     * @param intervals the intervals to traverse, sorted in reference order
+     * @param consumer receives the groups of variants starting at the same position, in order
+     * @return false if there were no variants to group
+     */
+    private boolean traverseGroupsWithPrivateDataSources(final List<SimpleInterval> intervals,
+                                                         final BiConsumer<List<VariantContext>, ReferenceContext> consumer) {
+        final StartPositionGrouper privateGrouper = new StartPositionGrouper(consumer);
+        traverseWithPrivateDataSources(intervals,
+                (variant, readsContext, referenceContext, featureContext) -> privateGrouper.add(variant, referenceContext));
+        return privateGrouper.finish();
+    }
+
     /**
      * Helper method that ensures the reference context it returns is adequate to span the length of all the accumulated
      * VariantContexts. It makes the assumption that all variant contexts in currentVariants start at the same location and
@@ -118,16 +152,45 @@ public abstract class MultiVariantWalkerGroupedOnStart extends MultiVariantWalke
      */
     @Override
     public void traverse() {
-        beforeTraverse();
-        super.traverse();
-        afterTraverse();
+        if (getShardedTraversalThreads() > 1) {
+            traverseInShards();
+        } else {
+            beforeTraverse();
+            super.traverse();
+            afterTraverse();
+        }
+    }
+
+    private void traverseInShards() {
+        initializeOverlapDetector();
+        final AtomicBoolean hasData = new AtomicBoolean(false);
+        traverseShards((shard, writer) -> {
+            final ShardConsumer consumer = makeShardConsumer(writer);
+            final boolean shardHasData = traverseGroupsWithPrivateDataSources(shard.getLeadInAndIntervals(), (variantContexts, referenceContext) -> {
+                writer.setDiscarding(shard.startsInPrecedingShard(variantContexts.get(0)));
+                consumer.apply(variantContexts, referenceContext);
+            });
+            writer.setDiscarding(false);
+            consumer.finishShard(shard.isLastShard());
+            if (shardHasData) {
+                hasData.set(true);
+            }
+        });
+        warnIfNoData(hasData.get());
     }
 
     /**
      * Marked final so that tool authors don't override it. Tool authors should override {@link #onTraversalStart} instead.
      */
     private void beforeTraverse() {
-        overlapDetector = hasUserSuppliedIntervals() ? OverlapDetector.create(intervalArgumentCollection.getIntervals(getBestAvailableSequenceDictionary())) : null;
+        grouper = new StartPositionGrouper(this::apply);
+        initializeOverlapDetector();
+    }
+
+    private void initializeOverlapDetector() {
+        if (overlapDetector == null && hasUserSuppliedIntervals()) {
+            overlapDetector = OverlapDetector.create(intervalArgumentCollection.getIntervals(getBestAvailableSequenceDictionary()));
+        }
     }
 
     /**
@@ -143,11 +206,67 @@ public abstract class MultiVariantWalkerGroupedOnStart extends MultiVariantWalke
      */
     private void afterTraverse() {
         // Clearing the accumulator
-        if (currentVariants.isEmpty()) {
+        warnIfNoData(grouper.finish());
+    }
+
+    private void warnIfNoData(final boolean hasData) {
+        if (!hasData) {
             logger.warn("Error: The requested interval contained no data in source VCF files");
+        }
+    }
 
-        } else {
-            apply(currentVariants, spanningReferenceContext);
+    /**
+     * Collects the variants of one traversal that start at the same position and passes them to a consumer as a group.
+     */
+    private final class StartPositionGrouper {
+        private final BiConsumer<List<VariantContext>, ReferenceContext> consumer;
+        private final List<VariantContext> currentVariants = new ArrayList<>();
+        private ReferenceContext spanningReferenceContext;
+
+        private StartPositionGrouper(final BiConsumer<List<VariantContext>, ReferenceContext> consumer) {
+            this.consumer = consumer;
+        }
+
+        /**
+         * This method keeps track of all the variants it is passed and will feed all the variants that start at the same
+         * site to the consumer.
+         */
+        private void add(final VariantContext variant, final ReferenceContext referenceContext) {
+
+            // Filtering out variants that start outside of the specified intervals
+            if (ignoreIntervalsOutsideStart && !isWithinInterval(new SimpleInterval(variant.getContig(), variant.getStart(), variant.getStart()))) {
+                return;
+            }
+
+            // Collecting all the reads that start at a particular base into one.
+            if (currentVariants.isEmpty()) {
+                currentVariants.add(variant);
+            } else if (!currentVariants.get(0).contigsMatch(variant)
+                    || currentVariants.get(0).getStart() < variant.getStart()) {
+                // Emptying any sites which should emit a new VC since the last one
+                consumer.accept(new ArrayList<>(currentVariants), spanningReferenceContext);
+                currentVariants.clear();
+                currentVariants.add(variant);
+            } else {
+                currentVariants.add(variant);
+            }
+            if (referenceContext.hasBackingDataSource()){
+                referenceContext.setWindow(1, 1);
+            }
+            spanningReferenceContext = getExpandedReferenceContext(currentVariants, spanningReferenceContext, referenceContext);
+        }
+
+        /**
+         * Pass the last group of variants, if any, to the consumer.
+         *
+         * @return false if this grouper was never given any variants
+         */
+        private boolean finish() {
+            if (currentVariants.isEmpty()) {
+                return false;
+            }
+            consumer.accept(currentVariants, spanningReferenceContext);
+            return true;
         }
     }
 }
@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.engine;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeader;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -28,7 +29,8 @@ import java.util.stream.StreamSupport;
  * overlapping variants are traversed.
  *
  * VariantLocusWalker authors must implement the {@link #apply} method to process each variant, and may optionally implement
- * {@link #onTraversalStart}, {@link #onTraversalSuccess} and/or {@link #closeTool}.
+ * {@link #onTraversalStart}, {@link #onTraversalSuccess} and/or {@link #closeTool}. Tools that opt in to sharded traversal
+ * via {@link #getShardedTraversalThreads()} also implement {@link #makeShardConsumer}.
  */
 public abstract class VariantLocusWalker extends VariantWalkerBase {
 
@@ -123,6 +125,70 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
      */
     @Override
     public void traverse() {
+        if (getShardedTraversalThreads() > 1) {
+            traverseShards((shard, writer) -> {
+                final VariantLocusConsumer consumer = makeShardConsumer(writer);
+                traverseWithPrivateDataSources(shard.getLeadInAndIntervals(), (loc, variants, readsContext, referenceContext, featureContext) -> {
+                    writer.setDiscarding(shard.startsInPrecedingShard(loc));
+                    consumer.apply(loc, variants, readsContext, referenceContext, featureContext);
+                });
+            });
+        } else {
+            traverse(drivingVariants, reference, features, reads, getTraversalIntervals(),
+                    (loc, variants, readsContext, referenceContext, featureContext) -> {
+                        apply(loc, variants, readsContext, referenceContext, featureContext);
+                        progressMeter.update(loc);
+                    });
+        }
+    }
+
+    /**
+     * Create the consumer of the loci (or variants, in by-variant traversal) of one shard of a sharded traversal, which
+     * takes the place of {@link #apply} for that shard. Must be implemented by tools that opt in to sharded traversal
+     * via {@link #getShardedTraversalThreads()}.
+     *
+     * Shards are traversed concurrently, each with driving variant, reference and Feature data sources of its own, so
+     * the consumer must keep any per-site state of its own. Reads are not available to sharded traversals.
+     *
+     * @param writer where the consumer writes its output; output written for a locus of the lead-in of the shard
+     *               (see {@link #canShardWithinContigs()}) is dropped
+     * @return a new consumer for one shard
+     */
+    protected VariantLocusConsumer makeShardConsumer(final VariantContextWriter writer) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support sharded traversal");
+    }
+
+    /**
+     * Traverse {@code intervals} in the same way as {@link #traverse()}, but with driving variant, reference and
+     * Feature data sources opened for this call alone, passing each locus or variant to {@code consumer} instead of
+     * {@link #apply}. Calls share no mutable state with each other or with the tool's own traversal. Reads are not
+     * available to such traversals, and they do not update the progress meter.
+     *
+     * @param intervals the intervals to traverse, sorted in reference order
+     * @param consumer receives the loci (or variants, in by-variant traversal) in order
+     */
+    private void traverseWithPrivateDataSources(final List<SimpleInterval> intervals, final VariantLocusConsumer consumer) {
+        Utils.nonNull(intervals);
+        Utils.nonNull(consumer);
+        Utils.validate(!hasReads(), "traversals with private data sources do not support reads");
+
+        try (final FeatureDataSource<VariantContext> privateDrivingVariants = new FeatureDataSource<>(drivingVariantsFeatureInput,
+                     getDrivingVariantCacheLookAheadBases(), VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                     referenceArguments.getReferencePath());
+             final ReferenceDataSource privateReference = referenceArguments.getReferencePath() != null ?
+                     ReferenceDataSource.of(referenceArguments.getReferencePath()) : null;
+             final FeatureManager privateFeatures = new FeatureManager(this, DEFAULT_DRIVING_VARIANTS_LOOKAHEAD_BASES,
+                     cloudPrefetchBuffer, cloudIndexPrefetchBuffer, referenceArguments.getReferencePath())) {
+            privateFeatures.addToFeatureSources(0, drivingVariantsFeatureInput, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                    referenceArguments.getReferencePath());
+            privateDrivingVariants.setIntervalsForTraversal(intervals);
+            traverse(privateDrivingVariants, privateReference, privateFeatures, null, intervals, consumer);
+        }
+    }
+
+    private void traverse(final FeatureDataSource<VariantContext> drivingVariants, final ReferenceDataSource reference,
+                          final FeatureManager features, final ReadsDataSource reads, final List<SimpleInterval> traversalIntervals,
+                          final VariantLocusConsumer consumer) {
         final CountingReadFilter readFilter = makeReadFilter();
         final CountingVariantFilter variantFilter = makeVariantFilter();
         final VariantTransformer preTransformer  = makePreVariantFilterTransformer();
@@ -130,22 +196,20 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
 
         if (traverseByVariant) {
             // Process each variant in the input stream, one at a time.
-            getTransformedVariantStream( getSpliteratorForDrivingVariants(), preTransformer, variantFilter, postTransformer )
+            getTransformedVariantStream( drivingVariants.spliterator(), preTransformer, variantFilter, postTransformer )
                     .forEachOrdered(variant -> {
                         final SimpleInterval variantInterval = new SimpleInterval(variant);
-                        apply(variant,
+                        consumer.apply(variant,
                                 Collections.singletonList(variant),
                                 new ReadsContext(reads, variantInterval, readFilter),
                                 new ReferenceContext(reference, variantInterval),
                                 new FeatureContext(features, variantInterval));
-
-                        progressMeter.update(variantInterval);
                     });
         } else {
             // Traverse loci in shards. For any shard with overlapping variants, drop down to per-locus iteration,
             // calling apply for a single locus, only if there are overlapping variants, passing all such variants
             // as a group.
-            Utils.stream(new ShardedIntervalIterator(getTraversalIntervals().iterator(), getDrivingVariantCacheLookAheadBases()))
+            Utils.stream(new ShardedIntervalIterator(traversalIntervals.iterator(), getDrivingVariantCacheLookAheadBases()))
                     .forEachOrdered (shard -> {
                         if (drivingVariants.query(shard).hasNext()) {
                             getLocusStream(Collections.singletonList(new SimpleInterval(shard.getContig(), shard.getStart(), shard.getEnd())))
@@ -159,13 +223,11 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
                                                     postTransformer)
                                                     .collect(Collectors.toList());
                                             if (!filteredVariants.isEmpty()) {
-                                                apply(locus,
+                                                consumer.apply(locus,
                                                         filteredVariants,
                                                         new ReadsContext(reads, locus, readFilter),
                                                         new ReferenceContext(reference, locus),
                                                         new FeatureContext(features, locus));
-
-                                                progressMeter.update(locus);
                                             }
                                         }
                                     });
@@ -206,6 +268,14 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
      */
     public abstract void apply(Locatable loc, List<VariantContext> variants, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext );
 
+    /**
+     * Receives the loci or variants of one shard of a sharded traversal, with the same arguments as {@link #apply}.
+     */
+    @FunctionalInterface
+    protected interface VariantLocusConsumer {
+        void apply(Locatable loc, List<VariantContext> variants, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext);
+    }
+
     /**
      * Close all data sources.
      *
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeader;
 import org.broadinstitute.hellbender.engine.filters.CountingVariantFilter;
 import org.broadinstitute.hellbender.engine.filters.VariantFilter;
@@ -10,6 +11,7 @@ import org.broadinstitute.hellbender.transformers.VariantTransformer;
 import org.broadinstitute.hellbender.utils.IndexUtils;
 
 import java.util.Spliterator;
+import java.util.function.BiConsumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -116,6 +118,58 @@ public abstract class VariantWalkerBase extends WalkerBase {
         return DEFAULT_DRIVING_VARIANTS_LOOKAHEAD_BASES;
     }
 
+    /**
+     * Tools that can process shards of their traversal intervals concurrently opt in to sharded traversal by
+     * overriding this, usually to return an argument named {@link IntervalShardedTraversal#WORKER_THREADS_LONG_NAME}.
+     * Walker base classes that support sharded traversal ({@link VariantLocusWalker} and
+     * {@link MultiVariantWalkerGroupedOnStart}) then traverse the shards with a per-shard consumer the tool provides
+     * instead of calling its {@code apply} method, and write the output of the shards to
+     * {@link #getShardedTraversalOutputWriter()} in reference order.
+     *
+     * @return the number of threads to traverse shards of the traversal intervals on, or 1 (the default) to traverse
+     *         the intervals in one piece
+     */
+    protected int getShardedTraversalThreads() {
+        return 1;
+    }
+
+    /**
+     * Whether shards of a sharded traversal may end within a contig. If so, each shard first traverses a lead-in from
+     * the end of the preceding shard, dropping the output written while processing it, so that state carried from site
+     * to site is rebuilt. Tools whose state can't be rebuilt that way keep the default, and get shards that only end
+     * at contig boundaries.
+     */
+    protected boolean canShardWithinContigs() {
+        return false;
+    }
+
+    /**
+     * The header of the output of a sharded traversal. Must be overridden by tools that opt in to sharded traversal.
+     */
+    protected VCFHeader getShardedTraversalOutputHeader() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support sharded traversal");
+    }
+
+    /**
+     * The writer, with its header already written, that the output of the shards of a sharded traversal is added to.
+     * Must be overridden by tools that opt in to sharded traversal.
+     */
+    protected VariantContextWriter getShardedTraversalOutputWriter() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support sharded traversal");
+    }
+
+    /**
+     * Traverse the shards of the traversal intervals on {@link #getShardedTraversalThreads()} threads, for walker base
+     * classes that support sharded traversal.
+     *
+     * @param shardTraversal traverses one shard, writing its output to the given writer
+     */
+    final void traverseShards(final BiConsumer<IntervalShardedTraversal.Shard, IntervalShardedTraversal.ShardWriter> shardTraversal) {
+        final int numThreads = getShardedTraversalThreads();
+        IntervalShardedTraversal.run(IntervalShardedTraversal.makeShards(getTraversalIntervals(), numThreads, canShardWithinContigs()),
+                getShardedTraversalOutputHeader(), shardTraversal, getShardedTraversalOutputWriter(), progressMeter, numThreads);
+    }
+
     /**
      * Returns the pre-filter variant transformer (simple or composite) that will be applied to the variants before filtering.
      * The default implementation uses the {@link VariantTransformer#identity()}.
@@ -15,4 +15,7 @@ public class AssemblyRegionReadShardArgumentCollection implements Serializable {
 
     @Argument(fullName="read-shard-padding", shortName="read-shard-padding", doc = "Each read shard has this many bases of extra context on each side. Read shards must have as much or more padding than assembly regions.", optional = true)
     public int readShardPadding = DEFAULT_READSHARD_PADDING_SIZE;
+
+    @Argument(fullName="max-partitions-per-read-shard", shortName="max-partitions-per-read-shard", doc = "Read shards that overlap more than this many partitions of reads (as happens in regions of very high coverage) are split into smaller shards with the same padding, so that a few hot spots don't hold up the whole job. Set to 0 to disable.", optional = true, minValue = 0)
+    public int maxPartitionsPerReadShard = 0;
 }
@@ -135,13 +135,14 @@ public class GATKRegistrator implements KryoRegistrator {
         kryo.register(SAMFileHeader.SortOrder.class);
         kryo.register(SAMProgramRecord.class);
         kryo.register(SAMReadGroupRecord.class);
-        kryo.register(EmptyFragment.class, new FieldSerializer(kryo, EmptyFragment.class));
-        kryo.register(Fragment.class, new FieldSerializer(kryo, Fragment.class));
+        kryo.register(EmptyFragment.class, new EmptyFragment.Serializer());
+        kryo.register(Fragment.class, new Fragment.Serializer());
         kryo.register(Pair.class, new Pair.Serializer());
-        kryo.register(Passthrough.class, new FieldSerializer(kryo, Passthrough.class));
+        kryo.register(Passthrough.class, new Passthrough.Serializer());
         kryo.register(MarkDuplicatesSparkUtils.IndexPair.class, new FieldSerializer(kryo, MarkDuplicatesSparkUtils.IndexPair.class));
+        kryo.register(MarkDuplicatesSparkUtils.DuplicateGroup.class, new MarkDuplicatesSparkUtils.DuplicateGroup.Serializer());
         kryo.register(ReadsKey.class, new FieldSerializer(kryo, ReadsKey.class));
-        kryo.register(ReadsKey.KeyForFragment.class, new FieldSerializer(kryo, ReadsKey.KeyForFragment.class));
-        kryo.register(ReadsKey.KeyForPair.class, new FieldSerializer(kryo, ReadsKey.KeyForPair.class));
+        kryo.register(ReadsKey.KeyForFragment.class, new ReadsKey.KeyForFragment.Serializer());
+        kryo.register(ReadsKey.KeyForPair.class, new ReadsKey.KeyForPair.Serializer());
     }
 }
@@ -44,6 +44,9 @@ public abstract class LocusWalkerSpark extends GATKSparkTool {
     @Argument(fullName="read-shard-size", shortName="read-shard-size", doc = "Maximum size of each read shard, in bases.", optional = true)
     public int readShardSize = 10000;
 
+    @Argument(fullName="max-partitions-per-read-shard", shortName="max-partitions-per-read-shard", doc = "Read shards that overlap more than this many partitions of reads (as happens in regions of very high coverage) are split into smaller shards, so that a few hot spots don't hold up the whole job. Set to 0 to disable.", optional = true, minValue = 0)
+    public int maxPartitionsPerReadShard = 0;
+
     @Argument(doc = "whether to use the shuffle implementation or overlaps partitioning (the default)", shortName = "shuffle", fullName = "shuffle", optional = true)
     public boolean shuffle = false;
 
@@ -90,7 +93,7 @@ public abstract class LocusWalkerSpark extends GATKSparkTool {
         final List<ShardBoundary> intervalShards = intervals.stream()
                 .flatMap(interval -> Shard.divideIntervalIntoShards(interval, readShardSize, 0, sequenceDictionary).stream())
                 .collect(Collectors.toList());
-        JavaRDD<Shard<GATKRead>> shardedReads = SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, readShardSize, shuffle);
+        JavaRDD<Shard<GATKRead>> shardedReads = SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, readShardSize, shuffle, maxPartitionsPerReadShard);
         Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
         return shardedReads.flatMap(getAlignmentsFunction(referenceFileName, bFeatureManager, sequenceDictionary, getHeaderForReads(), getDownsamplingInfo(), emitEmptyLoci()));
     }
@@ -1,11 +1,14 @@
 package org.broadinstitute.hellbender.engine.spark;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.collect.*;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.samtools.util.OverlapDetector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.spark.Partitioner;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
@@ -37,6 +40,8 @@ import static org.broadinstitute.hellbender.utils.IntervalUtils.overlaps;
  * Utility methods for sharding {@link Locatable} objects (such as reads) for given intervals, without using a shuffle.
  */
 public class SparkSharder {
+    private static final Logger logger = LogManager.getLogger(SparkSharder.class);
+
     /**
      * Create an RDD of {@link Shard} from an RDD of coordinate sorted {@link Locatable} <i>without using a shuffle</i>.
      * Each shard contains the {@link Locatable} objects that overlap it (including overlapping only padding).
@@ -115,6 +120,83 @@ public class SparkSharder {
         });
     }
 
+    /**
+     * Create an RDD of {@link Shard} from an RDD of coordinate sorted {@link Locatable}, optionally using a shuffle, and
+     * splitting shards in high-coverage regions.
+     * The first locatable in each partition tells us how much of the genome each partition covers, and since partitions
+     * hold similar amounts of data, a shard whose padded interval overlaps many partitions lies in a hot spot (e.g., a
+     * centromere or an amplification) and would make the task that processes it much slower than the rest. Such shards
+     * are split at partition boundaries into smaller shards, each of which keeps the original shard's padding, so that
+     * downstream code sees the same context around every base.
+     * @param ctx the Spark Context
+     * @param locatables the RDD of {@link Locatable}, must be coordinate sorted
+     * @param locatableClass the class of the {@link Locatable} objects in the RDD
+     * @param sequenceDictionary the sequence dictionary to use to find contig lengths
+     * @param intervals the {@link ShardBoundary} objects to create shards for, must be coordinate sorted
+     * @param maxLocatableLength the maximum length of a {@link Locatable}, if any is larger than this size then an exception will be thrown
+     * @param useShuffle whether to use a shuffle or not
+     * @param maxPartitionsPerShard shards overlapping more than this many partitions are split; 0 means never split
+     * @param <L> the {@link Locatable} type
+     * @return an RDD of {@link Shard} of overlapping {@link Locatable} objects (including overlapping only padding)
+     */
+    public static <L extends Locatable> JavaRDD<Shard<L>> shard(JavaSparkContext ctx, JavaRDD<L> locatables, Class<L> locatableClass,
+                                                                SAMSequenceDictionary sequenceDictionary, List<ShardBoundary> intervals,
+                                                                int maxLocatableLength, boolean useShuffle, int maxPartitionsPerShard) {
+        Utils.validateArg(maxPartitionsPerShard >= 0, "maxPartitionsPerShard must be non-negative");
+        if (maxPartitionsPerShard == 0) {
+            return shard(ctx, locatables, locatableClass, sequenceDictionary, intervals, maxLocatableLength, useShuffle);
+        }
+        List<PartitionLocatable<SimpleInterval>> partitionReadExtents = computePartitionReadExtents(locatables, sequenceDictionary, maxLocatableLength);
+        List<ShardBoundary> splitIntervals = splitHotShards(intervals, partitionReadExtents, maxPartitionsPerShard);
+        if (useShuffle) {
+            return shard(ctx, locatables, locatableClass, sequenceDictionary, splitIntervals, maxLocatableLength, true);
+        }
+        List<ShardBoundary> paddedIntervals = splitIntervals.stream().map(ShardBoundary::paddedShardBoundary).collect(Collectors.toList());
+        return joinOverlapping(ctx, locatables, locatableClass, sequenceDictionary, ctx.parallelize(paddedIntervals), maxLocatableLength,
+                partitionReadExtents, shardsOf(sequenceDictionary, maxLocatableLength));
+    }
+
+    /**
+     * Split shards whose padded intervals overlap more than maxPartitionsPerShard partitions (as given by their read
+     * extents) at the starts of the partitions within them, so that the interval of each new shard contains the starts
+     * of at most maxPartitionsPerShard partitions. New shards have the same padding as the shard they're split from.
+     */
+    @VisibleForTesting
+    static List<ShardBoundary> splitHotShards(List<ShardBoundary> shards, List<PartitionLocatable<SimpleInterval>> partitionReadExtents,
+                                              int maxPartitionsPerShard) {
+        Utils.validateArg(maxPartitionsPerShard > 0, "maxPartitionsPerShard must be positive");
+        OverlapDetector<PartitionLocatable<SimpleInterval>> overlapDetector = OverlapDetector.create(partitionReadExtents);
+        List<ShardBoundary> splitShards = new ArrayList<>(shards.size());
+        int numHotShards = 0;
+        for (ShardBoundary shard : shards) {
+            SimpleInterval interval = shard.getInterval();
+            SimpleInterval paddedInterval = shard.getPaddedInterval();
+            Set<PartitionLocatable<SimpleInterval>> overlaps = overlapDetector.getOverlaps(paddedInterval);
+            long numPartitions = overlaps.stream().mapToInt(PartitionLocatable::getPartitionIndex).distinct().count();
+            if (numPartitions <= maxPartitionsPerShard) {
+                splitShards.add(shard);
+                continue;
+            }
+            numHotShards++;
+            int[] partitionStarts = overlaps.stream().mapToInt(PartitionLocatable::getStart)
+                    .filter(start -> start > interval.getStart() && start <= interval.getEnd()).distinct().sorted().toArray();
+            int leftPadding = interval.getStart() - paddedInterval.getStart();
+            int rightPadding = paddedInterval.getEnd() - interval.getEnd();
+            int start = interval.getStart();
+            for (int i = maxPartitionsPerShard - 1; i < partitionStarts.length; i += maxPartitionsPerShard) {
+                splitShards.add(new ShardBoundary(new SimpleInterval(interval.getContig(), start, partitionStarts[i] - 1),
+                        new SimpleInterval(interval.getContig(), start - leftPadding, partitionStarts[i] - 1 + rightPadding)));
+                start = partitionStarts[i];
+            }
+            splitShards.add(new ShardBoundary(new SimpleInterval(interval.getContig(), start, interval.getEnd()),
+                    new SimpleInterval(interval.getContig(), start - leftPadding, paddedInterval.getEnd())));
+        }
+        if (numHotShards > 0) {
+            logger.info(String.format("Split %d shards in high-coverage regions, giving %d shards in all.", numHotShards, splitShards.size()));
+        }
+        return splitShards;
+    }
+
     private static <L extends Locatable, SB extends ShardBoundary> JavaRDD<Shard<L>> shard(JavaSparkContext ctx, JavaRDD<L> locatables, Class<L> locatableClass,
                                                                 SAMSequenceDictionary sequenceDictionary, JavaRDD<SB> intervals,
                                                                 int maxLocatableLength, boolean useShuffle) {
@@ -151,34 +233,46 @@ public class SparkSharder {
                                                                                             SAMSequenceDictionary sequenceDictionary, List<I> intervals,
                                                                                             int maxLocatableLength, MapFunction<Tuple2<I, Iterable<L>>, T> f) {
         return joinOverlapping(ctx, locatables, locatableClass, sequenceDictionary, intervals, maxLocatableLength,
-                (FlatMapFunction2<Iterator<L>, Iterator<I>, T>) (locatablesIterator, shardsIterator) -> Iterators.transform(locatablesPerShard(locatablesIterator, shardsIterator, sequenceDictionary, maxLocatableLength), new Function<Tuple2<I,Iterable<L>>, T>() {
-                    @Nullable
-                    @Override
-                    public T apply(@Nullable Tuple2<I, Iterable<L>> input) {
-                        try {
-                            return f.call(input);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                }));
+                overlapsOf(sequenceDictionary, maxLocatableLength, f));
     }
 
     private static <L extends Locatable, I extends Locatable, T> JavaRDD<T> joinOverlapping(JavaSparkContext ctx, JavaRDD<L> locatables, Class<L> locatableClass,
                                                                                             SAMSequenceDictionary sequenceDictionary, JavaRDD<I> intervals,
                                                                                             int maxLocatableLength, MapFunction<Tuple2<I, Iterable<L>>, T> f) {
         return joinOverlapping(ctx, locatables, locatableClass, sequenceDictionary, intervals, maxLocatableLength,
-                (FlatMapFunction2<Iterator<L>, Iterator<I>, T>) (locatablesIterator, shardsIterator) -> Iterators.transform(locatablesPerShard(locatablesIterator, shardsIterator, sequenceDictionary, maxLocatableLength), new Function<Tuple2<I,Iterable<L>>, T>() {
-                    @Nullable
-                    @Override
-                    public T apply(@Nullable Tuple2<I, Iterable<L>> input) {
-                        try {
-                            return f.call(input);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                }));
+                overlapsOf(sequenceDictionary, maxLocatableLength, f));
+    }
+
+    /**
+     * Make a function that finds the locatables that overlap each interval and applies f to each interval and its locatables.
+     */
+    private static <L extends Locatable, I extends Locatable, T> FlatMapFunction2<Iterator<L>, Iterator<I>, T> overlapsOf(SAMSequenceDictionary sequenceDictionary,
+                                                                                                                         int maxLocatableLength, MapFunction<Tuple2<I, Iterable<L>>, T> f) {
+        return (FlatMapFunction2<Iterator<L>, Iterator<I>, T>) (locatablesIterator, shardsIterator) -> Iterators.transform(locatablesPerShard(locatablesIterator, shardsIterator, sequenceDictionary, maxLocatableLength), new Function<Tuple2<I,Iterable<L>>, T>() {
+            @Nullable
+            @Override
+            public T apply(@Nullable Tuple2<I, Iterable<L>> input) {
+                try {
+                    return f.call(input);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Make a function that gathers the locatables that overlap each shard boundary into a {@link Shard}.
+     */
+    private static <L extends Locatable> FlatMapFunction2<Iterator<L>, Iterator<ShardBoundary>, Shard<L>> shardsOf(SAMSequenceDictionary sequenceDictionary,
+                                                                                                                  int maxLocatableLength) {
+        return overlapsOf(sequenceDictionary, maxLocatableLength, new MapFunction<Tuple2<ShardBoundary, Iterable<L>>, Shard<L>>() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public Shard<L> call(Tuple2<ShardBoundary, Iterable<L>> value) {
+                return value._1().createShard(value._2());
+            }
+        });
     }
 
     /**
@@ -210,6 +304,14 @@ public class SparkSharder {
                                                                                             int maxLocatableLength, FlatMapFunction2<Iterator<L>, Iterator<I>, T> f) {
 
         List<PartitionLocatable<SimpleInterval>> partitionReadExtents = computePartitionReadExtents(locatables, sequenceDictionary, maxLocatableLength);
+        return joinOverlapping(ctx, locatables, locatableClass, sequenceDictionary, intervals, maxLocatableLength, partitionReadExtents, f);
+    }
+
+    private static <L extends Locatable, I extends Locatable, T> JavaRDD<T> joinOverlapping(JavaSparkContext ctx, JavaRDD<L> locatables, Class<L> locatableClass,
+                                                                                            SAMSequenceDictionary sequenceDictionary, JavaRDD<I> intervals,
+                                                                                            int maxLocatableLength, List<PartitionLocatable<SimpleInterval>> partitionReadExtents,
+                                                                                            FlatMapFunction2<Iterator<L>, Iterator<I>, T> f) {
+
         List<SimpleInterval> firstLocatablesList = partitionReadExtents.stream().map(PartitionLocatable::getLocatable).collect(Collectors.toList());
         Broadcast<List<SimpleInterval>> firstLocatablesBroadcast = ctx.broadcast(firstLocatablesList);
 
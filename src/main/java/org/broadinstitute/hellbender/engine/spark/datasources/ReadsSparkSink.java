@@ -24,6 +24,7 @@ import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.GATKReadToBDGAlignmentRecordConverter;
 import org.broadinstitute.hellbender.utils.read.HeaderlessSAMRecordCoordinateComparator;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
 import org.broadinstitute.hellbender.utils.read.ReadsWriteFormat;
 import org.broadinstitute.hellbender.utils.spark.SparkUtils;
 import org.disq_bio.disq.*;
@@ -200,6 +201,11 @@ public final class ReadsSparkSink {
      * @return a sorted RDD of reads
      */
     private static JavaRDD<SAMRecord> sortSamRecordsToMatchHeader(final JavaRDD<SAMRecord> reads, final SAMFileHeader header, final int numReducers) {
+        if ( header.getSortOrder() == SAMFileHeader.SortOrder.coordinate && ReadCoordinateComparator.canPackSortKeys(header) ) {
+            // sort on packed positions, and only compare whole records that share a position
+            final HeaderlessSAMRecordCoordinateComparator comparator = new HeaderlessSAMRecordCoordinateComparator(header);
+            return SparkUtils.sortUsingPackedKeys(reads, comparator::getPackedSortKey, comparator, numReducers);
+        }
         final Comparator<SAMRecord> comparator = getSAMRecordComparator(header);
         if ( comparator == null ) {
             return reads;
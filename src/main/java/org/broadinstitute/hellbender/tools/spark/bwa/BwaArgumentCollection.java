@@ -15,6 +15,9 @@ public class BwaArgumentCollection implements Serializable {
     public static final String SINGLE_END_ALIGNMENT_SHORT_NAME = "se";
     public static final String BWA_MEM_INDEX_IMAGE_FULL_NAME = "bwa-mem-index-image";
     public static final String BWA_MEM_INDEX_IMAGE_SHORT_NAME = "image";
+    public static final String SHARED_INDEX_IMAGE_DIR_FULL_NAME = "bwa-shared-index-image-dir";
+    public static final String BWA_THREADS_FULL_NAME = "bwa-threads";
+    public static final String BWA_BATCH_SIZE_FULL_NAME = "bwa-batch-size";
 
     /**
      * The BWA-MEM index image file name that you've distributed to each executor. The image file can be generated using
@@ -35,4 +38,36 @@ public class BwaArgumentCollection implements Serializable {
             shortName = SINGLE_END_ALIGNMENT_SHORT_NAME,
             optional = true)
     public boolean singleEndAlignment = false;
+
+    /**
+     * A directory on each node's local disk in which to share the automatically distributed index image among all
+     * the executors on the node.  The image is memory-mapped, so executors that open the same file share one copy of
+     * it in memory.  Without this, each executor maps its own copy.  (An image given with --bwa-mem-index-image is
+     * already shared, because all the executors open it by the same path.)  Shared images are named by their content
+     * digest and are left in the directory for later runs; delete them when no longer needed.
+     */
+    @Argument(doc = "Node-local directory in which to share the distributed BWA-MEM index image among executors",
+            fullName = SHARED_INDEX_IMAGE_DIR_FULL_NAME,
+            optional = true)
+    public String sharedIndexImageDir = null;
+
+    /**
+     * The number of threads BWA-MEM uses to align each batch of reads.
+     */
+    @Argument(doc = "Number of BWA-MEM threads per task",
+            fullName = BWA_THREADS_FULL_NAME,
+            minValue = 1,
+            optional = true)
+    public int bwaThreads = 1;
+
+    /**
+     * The number of reads to align at a time.  By default, each partition is aligned in one batch.  Smaller batches
+     * bound the memory used to hold reads and alignments, but note that BWA-MEM estimates the insert-size
+     * distribution for paired alignment from each batch, so batches should contain many thousands of pairs.
+     */
+    @Argument(doc = "Number of reads to align in each batch (0 to align each partition in one batch)",
+            fullName = BWA_BATCH_SIZE_FULL_NAME,
+            minValue = 0,
+            optional = true)
+    public int batchSize = 0;
 }
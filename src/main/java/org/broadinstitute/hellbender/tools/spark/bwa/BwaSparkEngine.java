@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.spark.bwa;
 
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMSequenceDictionary;
@@ -33,6 +34,9 @@ public final class BwaSparkEngine implements AutoCloseable {
     private final JavaSparkContext ctx;
     private final String indexFileName;
     private final boolean resolveIndexFileName;
+    private final String sharedIndexImageDir;
+    private final int bwaThreads;
+    private final int batchSize;
     private final Broadcast<SAMFileHeader> broadcastHeader;
 
     /**
@@ -48,9 +52,52 @@ public final class BwaSparkEngine implements AutoCloseable {
                           final String indexFileName,
                           SAMFileHeader inputHeader,
                           final SAMSequenceDictionary refDictionary) {
+        this(ctx, referenceFile, indexFileName, null, 1, 0, inputHeader, refDictionary);
+    }
+
+    /**
+     * @param ctx           the Spark context
+     * @param referenceFile the path to the reference file named <i>_prefix_.fa</i>, which is used to find the image file with name <i>_prefix_.fa.img</i>.
+     * @param bwaArgs       the image file name (if it already exists), and the sharing, threading, and batching options
+     * @param inputHeader   the SAM file header to use for reads
+     * @param refDictionary the sequence dictionary to use for reads if the SAM file header doesn't have one (or it's empty)
+     */
+    public BwaSparkEngine(final JavaSparkContext ctx,
+                          final String referenceFile,
+                          final BwaArgumentCollection bwaArgs,
+                          final SAMFileHeader inputHeader,
+                          final SAMSequenceDictionary refDictionary) {
+        this(ctx, referenceFile, bwaArgs.indexImageFile, bwaArgs.sharedIndexImageDir, bwaArgs.bwaThreads,
+                bwaArgs.batchSize, inputHeader, refDictionary);
+    }
+
+    /**
+     * @param ctx           the Spark context
+     * @param referenceFile the path to the reference file named <i>_prefix_.fa</i>, which is used to find the image file with name <i>_prefix_.fa.img</i>.
+     *                      Can be <code>null</code> if the indexFileName is provided.
+     * @param indexFileName the index image file name that already exists, or <code>null</code> to have the image file automatically distributed.
+     * @param sharedIndexImageDir a node-local directory in which executors share an automatically distributed image, or <code>null</code>.
+     * @param bwaThreads    the number of threads BWA uses in each task
+     * @param batchSize     the number of reads to align at a time, or 0 to align each partition in one batch
+     * @param inputHeader   the SAM file header to use for reads
+     * @param refDictionary the sequence dictionary to use for reads if the SAM file header doesn't have one (or it's empty)
+     */
+    public BwaSparkEngine(final JavaSparkContext ctx,
+                          final String referenceFile,
+                          final String indexFileName,
+                          final String sharedIndexImageDir,
+                          final int bwaThreads,
+                          final int batchSize,
+                          SAMFileHeader inputHeader,
+                          final SAMSequenceDictionary refDictionary) {
         Utils.nonNull(referenceFile);
         Utils.nonNull(inputHeader);
+        Utils.validateArg(bwaThreads > 0, "bwaThreads must be positive");
+        Utils.validateArg(batchSize >= 0, "batchSize must be non-negative");
         this.ctx = ctx;
+        this.sharedIndexImageDir = sharedIndexImageDir;
+        this.bwaThreads = bwaThreads;
+        this.batchSize = batchSize;
         if (indexFileName != null) {
             this.indexFileName = indexFileName;
             this.resolveIndexFileName = false;
@@ -100,8 +147,16 @@ public final class BwaSparkEngine implements AutoCloseable {
         final Broadcast<SAMFileHeader> broadcastHeader = this.broadcastHeader;
         final String indexFileName = this.indexFileName;
         final boolean resolveIndexFileName = this.resolveIndexFileName;
-        return unalignedReads.mapPartitions(itr ->
-                new ReadAligner(resolveIndexFileName ? SparkFiles.get(indexFileName) : indexFileName, broadcastHeader.value(), pairedAlignment).apply(itr));
+        final String sharedIndexImageDir = this.sharedIndexImageDir;
+        final int bwaThreads = this.bwaThreads;
+        final int batchSize = this.batchSize;
+        return unalignedReads.mapPartitions(itr -> {
+            final BwaMemIndex bwaMemIndex;
+            if ( !resolveIndexFileName ) bwaMemIndex = BwaMemIndexCache.getInstance(indexFileName);
+            else if ( sharedIndexImageDir == null ) bwaMemIndex = BwaMemIndexCache.getInstance(SparkFiles.get(indexFileName));
+            else bwaMemIndex = BwaMemIndexCache.getNodeSharedInstance(SparkFiles.get(indexFileName), sharedIndexImageDir);
+            return new ReadAligner(bwaMemIndex, broadcastHeader.value(), pairedAlignment, bwaThreads).apply(itr, batchSize);
+        });
     }
 
     @Override
@@ -114,24 +169,40 @@ public final class BwaSparkEngine implements AutoCloseable {
         private final BwaMemIndex bwaMemIndex;
         private final SAMFileHeader readsHeader;
         private final boolean alignsPairs;
+        private final int bwaThreads;
 
         // assumes 128Mb partitions, with reads needing about 100bytes each when BAM compressed
         private static final int READS_PER_PARTITION_GUESS = 1500000;
 
-        ReadAligner( final String indexFileName, final SAMFileHeader readsHeader, final boolean alignsPairs) {
-            this.bwaMemIndex = BwaMemIndexCache.getInstance(indexFileName);
+        ReadAligner( final BwaMemIndex bwaMemIndex, final SAMFileHeader readsHeader, final boolean alignsPairs,
+                     final int bwaThreads ) {
+            this.bwaMemIndex = bwaMemIndex;
             this.readsHeader = readsHeader;
             this.alignsPairs = alignsPairs;
+            this.bwaThreads = bwaThreads;
             if ( alignsPairs && readsHeader.getSortOrder() != SAMFileHeader.SortOrder.queryname ) {
                 throw new UserException("Input must be queryname sorted unless you use single-ended alignment mode.");
             }
         }
 
-        Iterator<GATKRead> apply( final Iterator<GATKRead> readItr ) {
-            final List<GATKRead> inputReads = new ArrayList<>(READS_PER_PARTITION_GUESS);
-            while ( readItr.hasNext() ) {
-                inputReads.add(readItr.next());
+        /**
+         * Aligns the reads batchSize at a time (or all at once, if batchSize is 0), lazily.
+         */
+        Iterator<GATKRead> apply( final Iterator<GATKRead> readItr, final int batchSize ) {
+            if ( batchSize == 0 ) {
+                final List<GATKRead> inputReads = new ArrayList<>(READS_PER_PARTITION_GUESS);
+                while ( readItr.hasNext() ) {
+                    inputReads.add(readItr.next());
+                }
+                return align(inputReads).iterator();
             }
+            // keep mates in the same batch
+            final int readsPerBatch = alignsPairs ? Math.max(2, batchSize & ~1) : batchSize;
+            return Iterators.concat(Iterators.transform(Iterators.partition(readItr, readsPerBatch),
+                                                        inputReads -> align(inputReads).iterator()));
+        }
+
+        private List<GATKRead> align( final List<GATKRead> inputReads ) {
             final int nReads = inputReads.size();
             if ( alignsPairs ) {
                 if ( (nReads & 1) != 0 ) {
@@ -157,6 +228,7 @@ public final class BwaSparkEngine implements AutoCloseable {
                 if (alignsPairs) {
                     aligner.alignPairs();
                 }
+                aligner.setNThreadsOption(bwaThreads);
                 allAlignments = aligner.alignSeqs(seqs);
             }
             final List<String> refNames = bwaMemIndex.getReferenceContigNames();
@@ -179,7 +251,7 @@ public final class BwaSparkEngine implements AutoCloseable {
                     outputReads.add(rec);
                 }
             }
-            return outputReads.iterator();
+            return outputReads;
         }
     }
 }
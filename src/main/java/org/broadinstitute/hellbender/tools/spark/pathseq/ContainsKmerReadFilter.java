@@ -7,6 +7,9 @@ import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Keep reads that do NOT contain one or more kmers from a set of SVKmerShorts
  */
@@ -46,6 +49,43 @@ public class ContainsKmerReadFilter extends ReadFilter {
         return true;
     }
 
+    /**
+     * Tests a batch of reads at once, giving the same results as {@link #test} on each read. The kmers of all the reads
+     * are looked up together so that the kmer collection can order its memory accesses, which is much faster than
+     * testing one read at a time when the collection is much larger than the CPU cache.
+     *
+     * @return array with the result of the test for each read
+     */
+    public boolean[] test(final List<GATKRead> reads) {
+        final int numReads = reads.size();
+        final int[] readKmerEnds = new int[numReads];
+        long[] maskedKmers = new long[Math.max(numReads, 16)];
+        int numKmers = 0;
+        for (int i = 0; i < numReads; i++) {
+            final SVKmerizer kmers = new SVKmerizer(reads.get(i).getBases(), kSize, 1, new SVKmerShort(kSize));
+            while (kmers.hasNext()) {
+                if (numKmers == maskedKmers.length) {
+                    maskedKmers = Arrays.copyOf(maskedKmers, 2 * numKmers);
+                }
+                maskedKmers[numKmers++] = PSKmerCollection.canonicalizeAndMask((SVKmerShort) kmers.next(), kSize, kmerLib.getMask());
+            }
+            readKmerEnds[i] = numKmers;
+        }
+
+        final boolean[] kmerFound = new boolean[numKmers];
+        kmerLib.containsEach(maskedKmers, numKmers, kmerFound);
+
+        final boolean[] result = new boolean[numReads];
+        for (int i = 0, k = 0; i < numReads; i++) {
+            int numKmersFound = 0;
+            for (; k < readKmerEnds[i]; k++) {
+                if (kmerFound[k]) numKmersFound++;
+            }
+            result[i] = numKmersFound < kmerCountThreshold;
+        }
+        return result;
+    }
+
     //Static variables can't be garbage collected until the object is unloaded
     public static void closeKmerLib() {
         kmerLib = null;
@@ -1,19 +1,24 @@
 package org.broadinstitute.hellbender.tools.spark.pathseq;
 
+import com.google.common.collect.Iterators;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.Function;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Wrapper for ContainsKmerReadFilter to avoid serializing the kmer filter in Spark
  */
 public class ContainsKmerReadFilterSpark implements Function<GATKRead, Boolean> {
     private static final long serialVersionUID = 1L;
+    private static final int READS_PER_BATCH = 10000;
     private final String kmerSetPath;
     private final int kmerCountThreshold;
     private transient ContainsKmerReadFilter filter; //Load lazily to avoid its serialization
@@ -36,6 +41,19 @@ public class ContainsKmerReadFilterSpark implements Function<GATKRead, Boolean>
         return filter.test(read);
     }
 
+    /**
+     * Filters a partition of reads, testing them in batches with {@link ContainsKmerReadFilter#test(List)}
+     */
+    public Iterator<GATKRead> apply(final Iterator<GATKRead> itr) {
+        if (filter == null) filter = new ContainsKmerReadFilter(kmerSetPath, kmerCountThreshold);
+        return Utils.stream(Iterators.partition(itr, READS_PER_BATCH))
+                .flatMap(batch -> {
+                    final boolean[] pass = filter.test(batch);
+                    return IntStream.range(0, batch.size()).filter(i -> pass[i]).mapToObj(batch::get);
+                })
+                .iterator();
+    }
+
     /**
      * Closes kmer library on all executors
      */
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.spark.pathseq;
 
 
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFlag;
 import org.broadinstitute.hellbender.exceptions.UserException;
@@ -67,12 +68,22 @@ public final class PSBwaAligner {
         aligner.setOutputScoreThresholdOption(bwaArgs.scoreThreshold);
         aligner.setNThreadsOption(bwaArgs.bwaThreads);
 
+        if (bwaArgs.batchSize > 0) {
+            //Align a batch at a time, keeping mates together
+            final int readsPerBatch = pairedAlignment ? Math.max(2, bwaArgs.batchSize & ~1) : bwaArgs.batchSize;
+            return Iterators.concat(Iterators.transform(Iterators.partition(itr, readsPerBatch),
+                    batch -> align(aligner, new ArrayList<>(batch), header)));
+        }
+
         //Get list of reads on the partition
         final List<GATKRead> reads = new ArrayList<>();
         while (itr.hasNext()) {
             reads.add(itr.next());
         }
+        return align(aligner, reads, header);
+    }
 
+    private Iterator<GATKRead> align(final BwaMemAligner aligner, final List<GATKRead> reads, final SAMFileHeader header) {
         final int numReads = reads.size();
         if (pairedAlignment && numReads % 2 != 0) {
             throw new UserException.BadInput("Expected paired reads but there are an odd number");
@@ -17,6 +17,10 @@ public final class PSBwaArgumentCollection implements Serializable {
     public static final String MAX_ALT_HITS_SHORT_NAME = MAX_ALT_HITS_LONG_NAME;
     public static final String SCORE_THRESHOLD_LONG_NAME = "bwa-score-threshold";
     public static final String SCORE_THRESHOLD_SHORT_NAME = SCORE_THRESHOLD_LONG_NAME;
+    public static final String BWA_THREADS_LONG_NAME = "microbe-bwa-threads";
+    public static final String BWA_THREADS_SHORT_NAME = BWA_THREADS_LONG_NAME;
+    public static final String BWA_BATCH_SIZE_LONG_NAME = "microbe-bwa-batch-size";
+    public static final String BWA_BATCH_SIZE_SHORT_NAME = BWA_BATCH_SIZE_LONG_NAME;
 
     @Argument(doc = "Microbe reference BWA index image file generated using BwaMemIndexImageCreator. If running on a Spark cluster, this must be distributed to local disk on each node.",
             fullName = MICROBE_BWA_IMAGE_LONG_NAME,
@@ -60,6 +64,28 @@ public final class PSBwaArgumentCollection implements Serializable {
             optional = true)
     public int scoreThreshold = 30;
 
-    public final int bwaThreads = 1;
+    /**
+     * The number of threads BWA-MEM uses to align each batch of reads in each task. Since all the tasks on a node
+     * share the memory-mapped image, running fewer tasks with more threads each doesn't save memory, but it does let
+     * small partitions keep more cores busy.
+     */
+    @Argument(doc = "Number of BWA-MEM threads per task for the microbe alignment",
+            fullName = BWA_THREADS_LONG_NAME,
+            shortName = BWA_THREADS_SHORT_NAME,
+            minValue = 1,
+            optional = true)
+    public int bwaThreads = 1;
+
+    /**
+     * The number of reads to align at a time. By default, each partition is aligned in one batch. Smaller batches
+     * bound the memory used to hold reads and alignments. With paired alignment, BWA-MEM estimates the insert-size
+     * distribution from each batch, so batches should contain many thousands of pairs.
+     */
+    @Argument(doc = "Number of reads to align in each batch for the microbe alignment (0 to align each partition in one batch)",
+            fullName = BWA_BATCH_SIZE_LONG_NAME,
+            shortName = BWA_BATCH_SIZE_SHORT_NAME,
+            minValue = 0,
+            optional = true)
+    public int batchSize = 0;
 
 }
\ No newline at end of file
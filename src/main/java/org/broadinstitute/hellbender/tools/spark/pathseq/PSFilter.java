@@ -186,7 +186,8 @@ public final class PSFilter implements AutoCloseable {
     private static JavaRDD<GATKRead> doKmerFiltering(final JavaRDD<GATKRead> reads, final String kmerLibPath,
                                                        final int countThresh) {
 
-        return reads.filter(new ContainsKmerReadFilterSpark(kmerLibPath, countThresh));
+        final ContainsKmerReadFilterSpark filter = new ContainsKmerReadFilterSpark(kmerLibPath, countThresh);
+        return reads.mapPartitions(filter::apply);
     }
 
     @VisibleForTesting
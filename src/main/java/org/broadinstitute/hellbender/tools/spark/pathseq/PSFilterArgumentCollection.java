@@ -67,6 +67,10 @@ public final class PSFilterArgumentCollection implements Serializable {
             optional = true)
     public boolean alignedInput = false;
 
+    /**
+     * Memory-mapped k-mer sets (built with PathSeqBuildKmers --memory-mapped) must be at this path on a local file
+     * system of every executor.
+     */
     @Argument(doc = "Path to host k-mer file generated with PathSeqBuildKmers. K-mer filtering is skipped if this is not specified.",
             fullName = KMER_FILE_PATH_LONG_NAME,
             shortName = KMER_FILE_PATH_SHORT_NAME,
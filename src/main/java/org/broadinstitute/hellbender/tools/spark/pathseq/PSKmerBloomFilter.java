@@ -47,6 +47,11 @@ public final class PSKmerBloomFilter extends PSKmerCollection {
         return kmerSet.contains(canonicalizeAndMask(rawKmer, kmerSize, kmerMask));
     }
 
+    @Override
+    void containsEach(final long[] maskedKmers, final int length, final boolean[] result) {
+        kmerSet.containsEach(maskedKmers, length, result);
+    }
+
     @Override
     public int kmerSize() {
         return kmerSize;
@@ -8,6 +8,13 @@ import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
 public abstract class PSKmerCollection {
 
     abstract boolean contains(final SVKmerShort val);
+
+    /**
+     * Tests the first {@code length} kmers of a batch, setting {@code result[i]} to whether the ith kmer is in the
+     * collection. Note the kmers should have been run through canonicalizeAndMask(). Implementations may answer the
+     * queries in whatever order accesses memory most efficiently.
+     */
+    abstract void containsEach(final long[] maskedKmers, final int length, final boolean[] result);
     abstract int kmerSize();
     abstract SVKmerShort getMask();
     abstract double getFalsePositiveProbability();
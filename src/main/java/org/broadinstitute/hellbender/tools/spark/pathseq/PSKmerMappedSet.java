@@ -0,0 +1,124 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
+import org.broadinstitute.hellbender.tools.spark.utils.LongIterator;
+import org.broadinstitute.hellbender.tools.spark.utils.MappedLongHashSet;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Kmer hash set class that encapsulates a memory-mapped set, kmer size, and kmer mask. Unlike {@link PSKmerSet}, the
+ * kmers are not loaded into the heap, and all executors on a node that open the same local file share one copy of it
+ * in the page cache.
+ */
+public final class PSKmerMappedSet extends PSKmerCollection implements AutoCloseable {
+
+    // header before the set: format identifier, kmer size and kmer mask
+    private static final long FORMAT_ID = 0x50534b4d_00000001L; // "PSKM" and version 1
+    private static final int HEADER_BYTES = 2 * Long.BYTES + Integer.BYTES;
+
+    private final MappedLongHashSet kmerSet;
+    private final int kmerSize;
+    private final SVKmerShort kmerMask;
+
+    private PSKmerMappedSet(final MappedLongHashSet kmerSet, final int kmerSize, final SVKmerShort kmerMask) {
+        this.kmerSet = kmerSet;
+        this.kmerSize = kmerSize;
+        this.kmerMask = kmerMask;
+    }
+
+    /**
+     * Creates an empty set in a new file that can hold up to the given number of kmers. It must be closed once all
+     * kmers have been added.
+     */
+    public static PSKmerMappedSet create(final Path path, final long numElements, final int kmerSize, final SVKmerShort kmerMask) {
+        Utils.nonNull(path);
+        Utils.nonNull(kmerMask);
+        final MappedLongHashSet kmerSet = MappedLongHashSet.create(path, HEADER_BYTES, numElements);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(FORMAT_ID).putInt(kmerSize).putLong(kmerMask.getLong()).flip();
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(path.toString(), e);
+        }
+        return new PSKmerMappedSet(kmerSet, kmerSize, kmerMask);
+    }
+
+    /**
+     * Memory-maps a set previously written with {@link #create} read-only.
+     */
+    public static PSKmerMappedSet open(final Path path) {
+        Utils.nonNull(path);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {}
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(path, e);
+        }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getLong() != FORMAT_ID) {
+            throw new UserException.MalformedFile(path, "Not a memory-mapped PathSeq kmer set");
+        }
+        final int kmerSize = header.getInt();
+        final SVKmerShort kmerMask = new SVKmerShort(header.getLong());
+        return new PSKmerMappedSet(MappedLongHashSet.open(path, HEADER_BYTES), kmerSize, kmerMask);
+    }
+
+    /**
+     * Note the value should have been run through PSKmerCollection's canonicalizeAndMask()
+     */
+    public boolean addMasked(final long maskedKmer) {
+        return kmerSet.add(maskedKmer);
+    }
+
+    /**
+     * Input should not be canonicalized/masked
+     */
+    @Override
+    public boolean contains(final SVKmerShort rawKmer) {
+        return kmerSet.contains(canonicalizeAndMask(rawKmer, kmerSize, kmerMask));
+    }
+
+    @Override
+    void containsEach(final long[] maskedKmers, final int length, final boolean[] result) {
+        kmerSet.containsEach(maskedKmers, length, result);
+    }
+
+    public LongIterator iterator() {
+        return kmerSet.iterator();
+    }
+
+    @Override
+    public int kmerSize() {
+        return kmerSize;
+    }
+
+    @Override
+    public SVKmerShort getMask() {
+        return kmerMask;
+    }
+
+    @Override
+    public double getFalsePositiveProbability() {
+        return 0;
+    }
+
+    public long setSize() {
+        return kmerSet.size();
+    }
+
+    @Override
+    public void close() {
+        kmerSet.close();
+    }
+}
@@ -44,6 +44,11 @@ public final class PSKmerSet extends PSKmerCollection {
         return kmerSet.contains(canonicalizeAndMask(rawKmer, kmerSize, kmerMask));
     }
 
+    @Override
+    void containsEach(final long[] maskedKmers, final int length, final boolean[] result) {
+        kmerSet.containsEach(maskedKmers, length, result);
+    }
+
     public LongIterator iterator() {
         return kmerSet.iterator();
     }
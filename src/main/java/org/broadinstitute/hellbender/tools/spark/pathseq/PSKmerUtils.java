@@ -13,6 +13,7 @@ import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
 import org.broadinstitute.hellbender.tools.spark.utils.LargeLongHopscotchSet;
 import org.broadinstitute.hellbender.tools.spark.utils.LongBloomFilter;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
 
 import java.io.IOException;
@@ -27,6 +28,7 @@ public class PSKmerUtils {
 
     public static final String HOPSCOTCH_SET_EXTENSION = ".hss";
     public static final String BLOOM_FILTER_EXTENSION = ".bfi";
+    public static final String MAPPED_SET_EXTENSION = ".mks";
     private static final Logger logger = LogManager.getLogger(PSKmerUtils.class);
 
     /**
@@ -101,6 +103,36 @@ public class PSKmerUtils {
         return bloomFilter;
     }
 
+    /**
+     * Writes a Collection of Lists of Longs's to a memory-mapped kmer set file at a local path
+     */
+    protected static void longArrayCollectionToMappedSet(final Collection<long[]> longs, final long numLongs,
+                                                         final int kmerSize, final SVKmerShort kmerMask, final String uri) {
+        String filePath = uri;
+        if (!hasExtension(uri, MAPPED_SET_EXTENSION)) {
+            filePath = filePath + MAPPED_SET_EXTENSION;
+        }
+        try (final PSKmerMappedSet kmerSet = PSKmerMappedSet.create(getLocalPath(filePath), numLongs, kmerSize, kmerMask)) {
+            final ProgressCounter counter = new ProgressCounter(numLongs, 1e6, "million kmers", logger);
+            for (final long[] array : longs) {
+                for (final long val : array) {
+                    kmerSet.addMasked(val);
+                }
+                counter.update(array.length);
+            }
+        }
+    }
+
+    /**
+     * Memory-mapped kmer sets can only be used on a local file system, e.g. by copying the file to each executor
+     */
+    private static java.nio.file.Path getLocalPath(final String uri) {
+        if (BucketUtils.isRemoteStorageUrl(uri)) {
+            throw new UserException.BadInput("Memory-mapped kmer sets (" + MAPPED_SET_EXTENSION + ") must be on a local file system: " + uri);
+        }
+        return IOUtils.getPath(uri);
+    }
+
     /**
      * Writes an object to a URI using Kryo serialization.
      */
@@ -113,7 +145,7 @@ public class PSKmerUtils {
 
     public static void writeKmerSet(final String uri, final PSKmerSet set) {
         String filePath = uri;
-        if (!uri.toLowerCase().endsWith(HOPSCOTCH_SET_EXTENSION.toLowerCase())) {
+        if (!hasExtension(uri, HOPSCOTCH_SET_EXTENSION)) {
             filePath = filePath + HOPSCOTCH_SET_EXTENSION;
         }
         writeKryoObject(set, filePath);
@@ -121,18 +153,28 @@ public class PSKmerUtils {
 
     public static void writeKmerBloomFilter(final String uri, final PSKmerBloomFilter bloomFilter) {
         String filePath = uri;
-        if (!uri.toLowerCase().endsWith(BLOOM_FILTER_EXTENSION.toLowerCase())) {
+        if (!hasExtension(uri, BLOOM_FILTER_EXTENSION)) {
             filePath = filePath + BLOOM_FILTER_EXTENSION;
         }
         writeKryoObject(bloomFilter, filePath);
     }
 
+    /**
+     * Whether a file name ends with a kmer set extension, ignoring case as the writers do
+     */
+    private static boolean hasExtension(final String uri, final String extension) {
+        return uri.regionMatches(true, uri.length() - extension.length(), extension, 0, extension.length());
+    }
+
     public static PSKmerCollection readKmerFilter(final String uri) {
+        if (hasExtension(uri, MAPPED_SET_EXTENSION)) {
+            return PSKmerMappedSet.open(getLocalPath(uri));
+        }
         final Input input = new Input(BucketUtils.openFile(uri));
         final Kryo kryo = new Kryo();
-        if (uri.endsWith(HOPSCOTCH_SET_EXTENSION)) {
+        if (hasExtension(uri, HOPSCOTCH_SET_EXTENSION)) {
             return kryo.readObject(input, PSKmerSet.class);
-        } else if (uri.endsWith(BLOOM_FILTER_EXTENSION)) {
+        } else if (hasExtension(uri, BLOOM_FILTER_EXTENSION)) {
             return kryo.readObject(input, PSKmerBloomFilter.class);
         }
         throw new UserException.BadInput("Unknown kmer set extension in file name " + uri);
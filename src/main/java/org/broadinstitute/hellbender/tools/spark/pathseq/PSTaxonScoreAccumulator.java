@@ -0,0 +1,204 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+
+/**
+ * Running totals of the abundance scores of every node in a taxonomy, for scoring a partition of alignment hits
+ * without allocating a {@link PSPathogenTaxonScore} (or boxing a taxonomic ID) per node per hit. Nodes are addressed by
+ * their {@link PSTaxonomyIndex} index, and each kind of score is held in a primitive array. Accumulators from
+ * different partitions are summed with {@link #merge}, and only nodes that were hit are serialized.
+ */
+@DefaultSerializer(PSTaxonScoreAccumulator.Serializer.class)
+public final class PSTaxonScoreAccumulator {
+
+    private final double[] selfScores;
+    private final double[] descendentScores;
+    private final int[] totalReads;
+    private final int[] unambiguousReads;
+    private final Set<Integer> invalidTaxIds;
+
+    //Scratch space for add(): the valid, distinct nodes of the current hit, and the stamps used to find them and
+    // the union of their paths without clearing anything between hits
+    private int[] hitNodes;
+    private int[] hitStamps;
+    private int[] pathStamps;
+    private int stamp;
+
+    public PSTaxonScoreAccumulator(final int numNodes) {
+        Utils.validateArg(numNodes >= 0, "Number of nodes must be non-negative");
+        selfScores = new double[numNodes];
+        descendentScores = new double[numNodes];
+        totalReads = new int[numNodes];
+        unambiguousReads = new int[numNodes];
+        invalidTaxIds = new HashSet<>();
+    }
+
+    private PSTaxonScoreAccumulator(final Kryo kryo, final Input input) {
+        this(input.readInt());
+        int numTouched = input.readInt();
+        int index = 0;
+        while (numTouched-- > 0) {
+            index += input.readVarInt(true);
+            selfScores[index] = input.readDouble();
+            descendentScores[index] = input.readDouble();
+            totalReads[index] = input.readVarInt(true);
+            unambiguousReads[index] = input.readVarInt(true);
+        }
+        int numInvalid = input.readInt();
+        while (numInvalid-- > 0) {
+            invalidTaxIds.add(input.readInt());
+        }
+    }
+
+    private void serialize(final Kryo kryo, final Output output) {
+        //Every node that was hit lies on the path of some hit, so it has a non-zero read count
+        output.writeInt(size());
+        int numTouched = 0;
+        for (final int reads : totalReads) {
+            if (reads != 0) numTouched++;
+        }
+        output.writeInt(numTouched);
+        int lastIndex = 0;
+        for (int index = 0; index < totalReads.length; index++) {
+            if (totalReads[index] == 0) continue;
+            output.writeVarInt(index - lastIndex, true);
+            output.writeDouble(selfScores[index]);
+            output.writeDouble(descendentScores[index]);
+            output.writeVarInt(totalReads[index], true);
+            output.writeVarInt(unambiguousReads[index], true);
+            lastIndex = index;
+        }
+        output.writeInt(invalidTaxIds.size());
+        for (final int taxId : invalidTaxIds) {
+            output.writeInt(taxId);
+        }
+    }
+
+    public int size() {
+        return totalReads.length;
+    }
+
+    /**
+     * Taxonomic IDs of hits that were ignored because they either could not be found in the tree or had a reference
+     * length of 0
+     */
+    public Set<Integer> getInvalidTaxIds() {
+        return Collections.unmodifiableSet(invalidTaxIds);
+    }
+
+    /**
+     * Scores one read (or pair) and adds its scores to the totals
+     */
+    public PSTaxonScoreAccumulator add(final PSPathogenAlignmentHit hit, final PSTaxonomyIndex index,
+                                       final boolean divideByGenomeLength) {
+        Utils.validateArg(index.size() == size(), "Accumulator and taxonomy index have different numbers of nodes");
+        if (hitNodes == null) {
+            hitNodes = new int[8];
+            hitStamps = new int[size()];
+            pathStamps = new int[size()];
+        }
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(hitStamps, 0);
+            Arrays.fill(pathStamps, 0);
+            stamp = 1;
+        }
+
+        //Get the distinct hits that are in the tree and have a reference
+        int numHits = 0;
+        for (final int taxId : hit.taxIDs) {
+            final int node = index.indexOf(taxId);
+            if (node == PSTaxonomyIndex.NO_NODE || index.getLengthOf(node) == 0) {
+                invalidTaxIds.add(taxId);
+            } else if (hitStamps[node] != stamp) {
+                hitStamps[node] = stamp;
+                if (numHits == hitNodes.length) hitNodes = Arrays.copyOf(hitNodes, 2 * numHits);
+                hitNodes[numHits++] = node;
+            }
+        }
+
+        //Number of genomes hit by this read and number of mates in the tuple (1 for single, 2 for pair)
+        if (numHits == 0) return this;
+
+        //Unambiguous read scores for the lowest common ancestor and its ancestors
+        for (int node = index.getLCA(hitNodes, numHits); node != PSTaxonomyIndex.NO_NODE; node = index.getParentOf(node)) {
+            unambiguousReads[node] += hit.numMates;
+        }
+
+        //Scores normalized by genome length and degree of ambiguity (number of hits)
+        //"reads" score is the number of reads that COULD belong to each node i.e. an upper-bound, so it's incremented
+        // once for each node in the union of the hits' paths
+        for (int i = 0; i < numHits; i++) {
+            final int hitNode = hitNodes[i];
+            double score = hit.numMates / (double) numHits;
+            if (divideByGenomeLength) score *= PSScorer.SCORE_GENOME_LENGTH_UNITS / index.getLengthOf(hitNode);
+            selfScores[hitNode] += score;
+            if (pathStamps[hitNode] != stamp) {
+                pathStamps[hitNode] = stamp;
+                totalReads[hitNode] += hit.numMates;
+            }
+            for (int node = index.getParentOf(hitNode); node != PSTaxonomyIndex.NO_NODE; node = index.getParentOf(node)) {
+                descendentScores[node] += score;
+                if (pathStamps[node] != stamp) {
+                    pathStamps[node] = stamp;
+                    totalReads[node] += hit.numMates;
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds another accumulator's totals to this one's and returns this one
+     */
+    public PSTaxonScoreAccumulator merge(final PSTaxonScoreAccumulator other) {
+        Utils.nonNull(other, "Cannot merge taxon scores with null");
+        Utils.validateArg(other.size() == size(), "Cannot merge taxon scores over different numbers of nodes");
+        for (int index = 0; index < totalReads.length; index++) {
+            if (other.totalReads[index] == 0) continue;
+            selfScores[index] += other.selfScores[index];
+            descendentScores[index] += other.descendentScores[index];
+            totalReads[index] += other.totalReads[index];
+            unambiguousReads[index] += other.unambiguousReads[index];
+        }
+        invalidTaxIds.addAll(other.invalidTaxIds);
+        return this;
+    }
+
+    /**
+     * Returns scores keyed by taxonomic ID for every node that was hit
+     */
+    public Map<Integer, PSPathogenTaxonScore> toTaxonScores(final PSTaxonomyIndex index) {
+        Utils.validateArg(index.size() == size(), "Accumulator and taxonomy index have different numbers of nodes");
+        final Map<Integer, PSPathogenTaxonScore> taxIdsToScores = new HashMap<>();
+        for (int node = 0; node < totalReads.length; node++) {
+            if (totalReads[node] == 0) continue;
+            final PSPathogenTaxonScore score = new PSPathogenTaxonScore();
+            score.setReferenceLength(index.getLengthOf(node));
+            score.addSelfScore(selfScores[node]);
+            score.addDescendentScore(descendentScores[node]);
+            score.addTotalReads(totalReads[node]);
+            score.addUnambiguousReads(unambiguousReads[node]);
+            taxIdsToScores.put(index.getTaxIdOf(node), score);
+        }
+        return taxIdsToScores;
+    }
+
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<PSTaxonScoreAccumulator> {
+        @Override
+        public void write(final Kryo kryo, final Output output, final PSTaxonScoreAccumulator accumulator) {
+            accumulator.serialize(kryo, output);
+        }
+
+        @Override
+        public PSTaxonScoreAccumulator read(final Kryo kryo, final Input input,
+                                            final Class<PSTaxonScoreAccumulator> klass) {
+            return new PSTaxonScoreAccumulator(kryo, input);
+        }
+    }
+}
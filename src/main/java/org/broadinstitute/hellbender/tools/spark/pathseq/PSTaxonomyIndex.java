@@ -0,0 +1,151 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Array-backed, read-only view of a {@link PSTree} for scoring. Each taxon is given a dense index (its rank among the
+ * tree's taxonomic IDs), and the parent, depth, and reference length of each node are held in primitive arrays, so
+ * that walking a path to the root or finding a lowest common ancestor doesn't touch any maps or boxed integers.
+ */
+@DefaultSerializer(PSTaxonomyIndex.Serializer.class)
+public final class PSTaxonomyIndex {
+
+    public static final int NO_NODE = -1;
+
+    private final int[] taxIds; //Sorted, so that a node's index is found by binary search
+    private final int[] parents; //Index of each node's parent, or NO_NODE for the root
+    private final int[] depths; //Number of ancestors of each node
+    private final long[] lengths;
+
+    public PSTaxonomyIndex(final PSTree tree) {
+        Utils.nonNull(tree);
+        taxIds = tree.getNodeIDs().stream().mapToInt(Integer::intValue).sorted().toArray();
+        parents = new int[taxIds.length];
+        lengths = new long[taxIds.length];
+        for (int i = 0; i < taxIds.length; i++) {
+            final int parentId = tree.getParentOf(taxIds[i]);
+            if (parentId == PSTree.NULL_NODE) {
+                parents[i] = NO_NODE;
+            } else {
+                parents[i] = indexOf(parentId);
+                if (parents[i] == NO_NODE) {
+                    throw new UserException.BadInput("Parent node " + parentId + " not found in tree while getting path");
+                }
+            }
+            lengths[i] = tree.getLengthOf(taxIds[i]);
+        }
+        depths = computeDepths(taxIds, parents);
+    }
+
+    private PSTaxonomyIndex(final Kryo kryo, final Input input) {
+        final int size = input.readInt();
+        taxIds = input.readInts(size);
+        parents = input.readInts(size);
+        lengths = input.readLongs(size);
+        depths = computeDepths(taxIds, parents);
+    }
+
+    private void serialize(final Kryo kryo, final Output output) {
+        output.writeInt(size());
+        output.writeInts(taxIds);
+        output.writeInts(parents);
+        output.writeLongs(lengths);
+    }
+
+    /**
+     * Fills in the depth of each node, memoizing as it goes so that each node is only visited once.
+     */
+    private static int[] computeDepths(final int[] taxIds, final int[] parents) {
+        final int[] depths = new int[parents.length];
+        Arrays.fill(depths, NO_NODE);
+        final int[] path = new int[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            int pathLength = 0;
+            int node = i;
+            while (node != NO_NODE && depths[node] == NO_NODE) {
+                if (pathLength == path.length) {
+                    throw new UserException.BadInput("The tree contains a cycle at node " + taxIds[node]);
+                }
+                path[pathLength++] = node;
+                node = parents[node];
+            }
+            int depth = node == NO_NODE ? -1 : depths[node];
+            while (pathLength > 0) {
+                depths[path[--pathLength]] = ++depth;
+            }
+        }
+        return depths;
+    }
+
+    public int size() {
+        return taxIds.length;
+    }
+
+    /**
+     * Returns the dense index of a taxonomic ID, or NO_NODE if it isn't in the tree
+     */
+    public int indexOf(final int taxId) {
+        final int index = Arrays.binarySearch(taxIds, taxId);
+        return index >= 0 ? index : NO_NODE;
+    }
+
+    public int getTaxIdOf(final int index) {
+        return taxIds[index];
+    }
+
+    public int getParentOf(final int index) {
+        return parents[index];
+    }
+
+    public int getDepthOf(final int index) {
+        return depths[index];
+    }
+
+    public long getLengthOf(final int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Get lowest common ancestor of the first numNodes node indices in the array.
+     * Climbs from each node in turn to meet the running ancestor at the same depth.
+     */
+    public int getLCA(final int[] nodes, final int numNodes) {
+        Utils.validateArg(numNodes > 0, "Queried lowest common ancestor of a null set");
+        int ancestor = nodes[0];
+        for (int i = 1; i < numNodes && ancestor != NO_NODE; i++) {
+            int node = nodes[i];
+            while (depths[node] > depths[ancestor]) node = parents[node];
+            while (depths[ancestor] > depths[node]) ancestor = parents[ancestor];
+            while (node != ancestor) {
+                node = parents[node];
+                ancestor = parents[ancestor];
+            }
+        }
+        //This should never happen if the tree structure has been checked
+        if (ancestor == NO_NODE) {
+            throw new GATKException.ShouldNeverReachHereException("Could not find common ancester of node set.");
+        }
+        return ancestor;
+    }
+
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<PSTaxonomyIndex> {
+        @Override
+        public void write(final Kryo kryo, final Output output, final PSTaxonomyIndex index) {
+            index.serialize(kryo, output);
+        }
+
+        @Override
+        public PSTaxonomyIndex read(final Kryo kryo, final Input input,
+                                    final Class<PSTaxonomyIndex> klass) {
+            return new PSTaxonomyIndex(kryo, input);
+        }
+    }
+}
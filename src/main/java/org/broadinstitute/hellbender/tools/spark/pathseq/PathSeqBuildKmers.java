@@ -29,6 +29,11 @@ import java.util.Collection;
  * read is < 1.5%, but the amount of memory used is reduced 4-fold compared to a hash table. For this reason, Bloom
  * filters are generally recommended.</p>
  *
+ * <p>Alternatively, the hash table can be written in a format that is memory-mapped by the PathSeq tools instead of
+ * being loaded into memory, by specifying --memory-mapped. Loading it is nearly instantaneous and takes no heap space,
+ * and executors on the same machine share a single copy of it through the operating system's page cache. The file must
+ * be present on a local file system of every machine that uses it.</p>
+ *
  * <p>Note that the file formats used for storing these k-mer data structures are only readable by the PathSeq tools.</p>
  *
  * <h3>Input</h3>
@@ -86,9 +91,11 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
     public static final String KMER_MASK_SHORT_NAME = "M";
     public static final String KMER_SPACING_LONG_NAME = "kmer-spacing";
     public static final String KMER_SPACING_SHORT_NAME = "SP";
+    public static final String MEMORY_MAPPED_LONG_NAME = "memory-mapped";
 
     @Argument(doc = "File for k-mer set output. Extension will be automatically added if not present ("
-            + PSKmerUtils.HOPSCOTCH_SET_EXTENSION + " for hash set or "
+            + PSKmerUtils.HOPSCOTCH_SET_EXTENSION + " for hash set, "
+            + PSKmerUtils.MAPPED_SET_EXTENSION + " for memory-mapped hash set or "
             + PSKmerUtils.BLOOM_FILTER_EXTENSION + " for Bloom filter)",
             shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
             fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME)
@@ -146,6 +153,24 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
             optional = true)
     public int kmerSpacing = 1;
 
+    /**
+     * The hash set is written to a local file in a format that is memory-mapped by the PathSeq tools rather than
+     * deserialized into the heap. It is built in the mapped file as well, so the heap only needs to hold the reference
+     * k-mers. Cannot be used with a Bloom filter.
+     */
+    @Argument(doc = "Write the k-mer hash set in a memory-mapped format",
+            fullName = MEMORY_MAPPED_LONG_NAME,
+            optional = true)
+    public boolean memoryMapped = false;
+
+    @Override
+    protected String[] customCommandLineValidation() {
+        if (memoryMapped && bloomFpp > 0) {
+            return new String[]{"--" + MEMORY_MAPPED_LONG_NAME + " cannot be used with --" + BLOOM_FILTER_FALSE_POSITIVE_P_LONG_NAME};
+        }
+        return null;
+    }
+
     /**
      * Get the list of distinct kmers in the reference, and write them to a file as a HopScotch set or Bloom filter.
      */
@@ -166,6 +191,9 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
             final PSKmerBloomFilter kmerBloomFilter = new PSKmerBloomFilter(bloomFilter, kmerSize, kmerMask, numLongs);
             logger.info("Theoretical Bloom filter false positive probability: " + kmerBloomFilter.getFalsePositiveProbability());
             PSKmerUtils.writeKmerBloomFilter(outputFile, kmerBloomFilter);
+        } else if (memoryMapped) {
+            logger.info("Building memory-mapped kmer hash set...");
+            PSKmerUtils.longArrayCollectionToMappedSet(maskedKmerCollection, numLongs, kmerSize, kmerMask, outputFile);
         } else {
             logger.info("Building kmer hash set...");
             final LargeLongHopscotchSet kmerHopscotchSet = PSKmerUtils.longArrayCollectionToSet(maskedKmerCollection, numLongs);
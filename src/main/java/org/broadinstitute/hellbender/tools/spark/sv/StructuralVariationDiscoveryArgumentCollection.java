@@ -96,6 +96,10 @@ public class StructuralVariationDiscoveryArgumentCollection implements Serializa
         @Argument(doc = "Maximum total bases in FASTQs that can be assembled.", fullName = "max-fastq-size")
         public int maxFASTQSize = 3000000;
 
+        @Argument(doc = "Maximum number of template names to assemble for an interval.  Intervals with more are"+
+                " downsampled to about this many.  0 means no limit.", fullName = "max-assembly-templates")
+        public int maxAssemblyTemplates = 0;
+
         @Argument(doc = "Exclusion interval padding.", fullName = "exclusion-interval-padding")
         public int exclusionIntervalPadding = 0;
 
@@ -256,6 +260,7 @@ public class StructuralVariationDiscoveryArgumentCollection implements Serializa
             ParamUtils.isPositive(cleanerMaxCopyNumber, "invalid value provided to cleanerMaxCopyNumber: " + cleanerMaxCopyNumber);
             ParamUtils.isPositive(assemblyToMappedSizeRatioGuess, "invalid value provided to assemblyToMappedSizeRatioGuess: " + assemblyToMappedSizeRatioGuess);
             ParamUtils.isPositive(maxFASTQSize, "invalid value provided to maxFASTQSize: " + maxFASTQSize);
+            ParamUtils.isPositiveOrZero(maxAssemblyTemplates, "invalid value provided to maxAssemblyTemplates: " + maxAssemblyTemplates);
             ParamUtils.isPositiveOrZero(exclusionIntervalPadding, "invalid value provided to exclusionIntervalPadding: " + exclusionIntervalPadding);
             ParamUtils.isPositive(externalEvidenceWeight, "invalid value provided to externalEvidenceWeight: " + externalEvidenceWeight);
             ParamUtils.isPositive(externalEvidenceUncertainty, "invalid value provided to externalEvidenceUncertainty: " + externalEvidenceUncertainty);
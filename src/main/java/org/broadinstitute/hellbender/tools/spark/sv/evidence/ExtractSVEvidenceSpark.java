@@ -12,6 +12,7 @@ import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.StructuralVariantDiscoveryProgramGroup;
 import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
 import org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscoveryArgumentCollection;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.FlatSVIntervalTree;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVInterval;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVIntervalTree;
 import org.broadinstitute.hellbender.tools.spark.utils.FlatMapGluer;
@@ -91,7 +92,8 @@ public final class ExtractSVEvidenceSpark extends GATKSparkTool {
 
         final SVIntervalTree<SVInterval> highCoverageSubintervalTree = findGenomewideHighCoverageIntervalsToIgnore(params,
                 readMetadata, ctx, getHeaderForReads(), unfilteredReads, filter, logger, broadcastMetadata);
-        final Broadcast<SVIntervalTree<SVInterval>> broadcastHighCoverageSubIntervals = ctx.broadcast(highCoverageSubintervalTree);
+        final Broadcast<FlatSVIntervalTree<SVInterval>> broadcastHighCoverageSubIntervals =
+                ctx.broadcast(new FlatSVIntervalTree<>(highCoverageSubintervalTree));
 
         unfilteredReads
             .mapPartitions(readItr -> {
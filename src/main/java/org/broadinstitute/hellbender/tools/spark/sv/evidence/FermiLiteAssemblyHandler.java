@@ -57,7 +57,7 @@ public final class FermiLiteAssemblyHandler implements FindBreakpointEvidenceSpa
         // bail if the assembly will be too large
         final int fastqSize = readsList.stream().mapToInt(FastqRead -> FastqRead.getBases().length).sum();
         if ( fastqSize > maxFastqSize ) {
-            return new AlignedAssemblyOrExcuse(intervalID, "no assembly -- too big (" + fastqSize + " bytes).");
+            return tooBigExcuse(intervalID, fastqSize);
         }
 
         // record the reads in the assembly as a FASTQ, if requested
@@ -111,6 +111,10 @@ public final class FermiLiteAssemblyHandler implements FindBreakpointEvidenceSpa
         }
     }
 
+    static AlignedAssemblyOrExcuse tooBigExcuse( final int intervalID, final long fastqSize ) {
+        return new AlignedAssemblyOrExcuse(intervalID, "no assembly -- too big (" + fastqSize + " bytes).");
+    }
+
     @VisibleForTesting
     static FermiLiteAssembly reviseAssembly( final FermiLiteAssembly initialAssembly,
                                              final boolean removeShadowedContigs,
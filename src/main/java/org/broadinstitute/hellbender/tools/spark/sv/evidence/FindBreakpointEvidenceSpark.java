@@ -28,6 +28,7 @@ import org.broadinstitute.hellbender.tools.spark.sv.evidence.BreakpointEvidence.
 import org.broadinstitute.hellbender.tools.spark.sv.utils.*;
 import org.broadinstitute.hellbender.tools.spark.utils.FlatMapGluer;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
+import org.broadinstitute.hellbender.tools.spark.utils.LongPairIntMultiMap;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.bwa.BwaMemIndexCache;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
@@ -177,15 +178,26 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
                     unfilteredReads, filter, logger);
         }
 
+        // the number of template names for an interval is our estimate of the work of assembling it
+        final int[] templateCounts = countTemplatesPerInterval(qNamesMultiMap, intervals.size());
+        if ( params.maxAssemblyTemplates > 0 ) {
+            final int nDownsampled =
+                    downsampleOversizedIntervals(qNamesMultiMap, templateCounts, params.maxAssemblyTemplates);
+            log("Downsampled template names for " + nDownsampled + " intervals with more than " +
+                    params.maxAssemblyTemplates + " templates.", logger);
+        }
+
         // write a FASTQ file for each interval
         final FermiLiteAssemblyHandler fermiLiteAssemblyHandler =
                 new FermiLiteAssemblyHandler(params.alignerIndexImageFile, params.maxFASTQSize,
                                                 params.fastqDir, params.writeGFAs,
                                                 params.popVariantBubbles, params.removeShadowedContigs,
                                                 params.expandAssemblyGraph, params.zDropoff);
-        alignedAssemblyOrExcuseList.addAll(
+        final List<AlignedAssemblyOrExcuse> assemblies =
                 handleAssemblies(ctx, qNamesMultiMap, unfilteredReads, filter, intervals.size(),
-                        params.includeMappingLocation, fermiLiteAssemblyHandler));
+                        params.includeMappingLocation, params.maxFASTQSize, fermiLiteAssemblyHandler);
+        logAssemblyTimes(assemblies, templateCounts, logger);
+        alignedAssemblyOrExcuseList.addAll(assemblies);
 
         alignedAssemblyOrExcuseList.sort(Comparator.comparingInt(AlignedAssemblyOrExcuse::getAssemblyId));
 
@@ -288,7 +300,8 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
         final SVIntervalTree<SVInterval> highCoverageSubintervalTree =
                 findGenomewideHighCoverageIntervalsToIgnore(params, readMetadata, ctx, header, unfilteredReads, filter, logger, broadcastMetadata);
 
-        final Broadcast<SVIntervalTree<SVInterval>> broadcastHighCoverageSubIntervals = ctx.broadcast(highCoverageSubintervalTree);
+        final Broadcast<FlatSVIntervalTree<SVInterval>> broadcastHighCoverageSubIntervals =
+                ctx.broadcast(new FlatSVIntervalTree<>(highCoverageSubintervalTree));
 
         final Broadcast<List<List<BreakpointEvidence>>> broadcastExternalEvidence = ctx.broadcast(externalEvidence);
         final Tuple2<List<SVInterval>, List<EvidenceTargetLink>> intervalsAndEvidenceTargetLinks =
@@ -499,11 +512,11 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
             final SVReadFilter filter,
             final Logger logger)
     {
-        final Tuple2<List<AlignedAssemblyOrExcuse>, HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval>> kmerIntervalsAndDispositions =
+        final Tuple2<List<AlignedAssemblyOrExcuse>, LongPairIntMultiMap> kmerIntervalsAndDispositions =
                 getKmerAndIntervalsSet(params, readMetadata, ctx, qNamesMultiMap, nIntervals,
                                         unfilteredReads, filter, logger);
 
-        final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmersAndIntervals =
+        final LongPairIntMultiMap kmersAndIntervals =
                 removeUbiquitousKmers(params, readMetadata, ctx, kmerIntervalsAndDispositions._2(), unfilteredReads, filter, logger);
 
         qNamesMultiMap.addAll(getAssemblyQNames(params, ctx, kmersAndIntervals, unfilteredReads, filter));
@@ -524,7 +537,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
      * _1 describes the intervals that have been killed for having too few kmers (as a map from intervalId onto an explanatory string),
      * and _2 describes the good kmers that we want to use in local assemblies (as a multimap from kmer onto intervalId).
      */
-    private static Tuple2<List<AlignedAssemblyOrExcuse>, HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval>> getKmerAndIntervalsSet(
+    private static Tuple2<List<AlignedAssemblyOrExcuse>, LongPairIntMultiMap> getKmerAndIntervalsSet(
             final FindBreakpointEvidenceSparkArgumentCollection params,
             final ReadMetadata readMetadata,
             final JavaSparkContext ctx,
@@ -545,13 +558,23 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
         final Tuple2<List<AlignedAssemblyOrExcuse>, List<KmerAndInterval>> kmerIntervalsAndDispositions =
                 getKmerIntervals(params, readMetadata, ctx, qNamesMultiMap, nIntervals, kmerKillSet,
                                     unfilteredReads, filter, logger);
-        final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMultiMap =
-                new HopscotchUniqueMultiMap<>(kmerIntervalsAndDispositions._2());
+        final LongPairIntMultiMap kmerMultiMap = toKmerMultiMap(kmerIntervalsAndDispositions._2());
         log("Discovered " + kmerMultiMap.size() + " kmers.", logger);
 
         return new Tuple2<>(kmerIntervalsAndDispositions._1(), kmerMultiMap);
     }
 
+    /**
+     * Multimap from kmer onto intervalId, holding the kmers' values in primitive arrays rather than as KmerAndIntervals.
+     */
+    @VisibleForTesting static LongPairIntMultiMap toKmerMultiMap( final Collection<KmerAndInterval> kmerAndIntervals ) {
+        final LongPairIntMultiMap kmerMultiMap = new LongPairIntMultiMap(kmerAndIntervals.size());
+        for ( final KmerAndInterval kmerAndInterval : kmerAndIntervals ) {
+            kmerMultiMap.add(kmerAndInterval.getValHigh(), kmerAndInterval.getValLow(), kmerAndInterval.getIntervalId());
+        }
+        return kmerMultiMap;
+    }
+
     /**
      * Functional interface that consumes the raw materials of an assembly to be aligned (i.e., a Tuple2 of assemblyId
      * and list of sequences) and returns an aligned assembly or an excuse for not producing one.
@@ -563,6 +586,8 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
     /**
      * Transform all the reads for a supplied set of template names in each interval into FASTQ records
      * for each interval, and do something with the list of FASTQ records for each interval (like write it to a file).
+     * Intervals whose reads total more than maxFastqSize bases aren't handed to the localAssemblyHandler:  they get
+     * an excuse instead, and their reads are dropped as soon as they're known to be too many.
      */
     @VisibleForTesting static List<AlignedAssemblyOrExcuse> handleAssemblies(
             final JavaSparkContext ctx,
@@ -571,13 +596,12 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
             final SVReadFilter filter,
             final int nIntervals,
             final boolean includeMappingLocation,
+            final int maxFastqSize,
             final LocalAssemblyHandler localAssemblyHandler ) {
 
-        final int[] counts = new int[nIntervals];
-        for ( final QNameAndInterval qNameAndInterval : qNamesMultiMap ) {
-            counts[qNameAndInterval.getIntervalId()] += 1;
-        }
-        final ComplexityPartitioner partitioner = new ComplexityPartitioner(counts);
+        // the biggest assemblies go into the earliest partitions, so that they're started first
+        final ComplexityPartitioner partitioner =
+                new ComplexityPartitioner(countTemplatesPerInterval(qNamesMultiMap, nIntervals));
 
         final Broadcast<HopscotchUniqueMultiMap<String, Integer, QNameAndInterval>> broadcastQNamesMultiMap =
                 ctx.broadcast(qNamesMultiMap);
@@ -586,11 +610,18 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
                 .mapPartitionsToPair(readItr ->
                         new ReadsForQNamesFinder(broadcastQNamesMultiMap.value(), nIntervals,
                                 includeMappingLocation, readItr, filter).iterator(), false)
-                .combineByKey(x -> x,
-                                SVUtils::concatenateLists,
-                                SVUtils::concatenateLists,
+                .combineByKey(reads -> new AssemblyReads(maxFastqSize).add(reads),
+                                AssemblyReads::add,
+                                AssemblyReads::merge,
                                 partitioner, false, null)
-                .map(localAssemblyHandler::apply)
+                .map(intervalAndReads -> {
+                    final int intervalId = intervalAndReads._1();
+                    final AssemblyReads assemblyReads = intervalAndReads._2();
+                    if ( assemblyReads.isTooBig() ) {
+                        return FermiLiteAssemblyHandler.tooBigExcuse(intervalId, assemblyReads.getFastqSize());
+                    }
+                    return localAssemblyHandler.apply(new Tuple2<>(intervalId, assemblyReads.getReads()));
+                })
                 .collect();
 
         SparkUtils.destroyBroadcast(broadcastQNamesMultiMap, "QNames multi map");
@@ -599,6 +630,100 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
         return intervalDispositions;
     }
 
+    /**
+     * The reads for an assembly, gathered until their total length exceeds a limit.  After that the reads are
+     * dropped, and only their total length is tracked, so that an interval with a huge pile of reads can't exhaust
+     * the executor's memory.
+     */
+    @VisibleForTesting static final class AssemblyReads implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int maxFastqSize;
+        private List<SVFastqUtils.FastqRead> reads;
+        private long fastqSize;
+
+        AssemblyReads( final int maxFastqSize ) {
+            this.maxFastqSize = maxFastqSize;
+            this.reads = new ArrayList<>();
+        }
+
+        public boolean isTooBig() { return reads == null; }
+        public long getFastqSize() { return fastqSize; }
+        public List<SVFastqUtils.FastqRead> getReads() { return reads; }
+
+        public AssemblyReads add( final List<SVFastqUtils.FastqRead> moreReads ) {
+            for ( final SVFastqUtils.FastqRead read : moreReads ) {
+                fastqSize += read.getBases().length;
+            }
+            if ( fastqSize > maxFastqSize ) reads = null;
+            else reads.addAll(moreReads);
+            return this;
+        }
+
+        public AssemblyReads merge( final AssemblyReads that ) {
+            if ( that.isTooBig() ) {
+                fastqSize += that.fastqSize;
+                reads = null;
+                return this;
+            }
+            return add(that.reads);
+        }
+    }
+
+    /**
+     * Returns the number of template names for each interval.
+     */
+    @VisibleForTesting static int[] countTemplatesPerInterval(
+            final HopscotchUniqueMultiMap<String, Integer, QNameAndInterval> qNamesMultiMap,
+            final int nIntervals ) {
+        final int[] counts = new int[nIntervals];
+        for ( final QNameAndInterval qNameAndInterval : qNamesMultiMap ) {
+            counts[qNameAndInterval.getIntervalId()] += 1;
+        }
+        return counts;
+    }
+
+    /**
+     * Removes template names from intervals that have more than maxTemplates of them, leaving about maxTemplates.
+     * The choice of names is pseudo-random, but reproducible, and the templateCounts are updated to match.
+     * Returns the number of intervals that were downsampled.
+     */
+    @VisibleForTesting static int downsampleOversizedIntervals(
+            final HopscotchUniqueMultiMap<String, Integer, QNameAndInterval> qNamesMultiMap,
+            final int[] templateCounts,
+            final int maxTemplates ) {
+        final int[] originalCounts = templateCounts.clone();
+        final int nDownsampled = (int)Arrays.stream(originalCounts).filter(count -> count > maxTemplates).count();
+        if ( nDownsampled > 0 ) {
+            qNamesMultiMap.removeIf(qNameAndInterval -> {
+                final int intervalId = qNameAndInterval.getIntervalId();
+                final int count = originalCounts[intervalId];
+                if ( count <= maxTemplates ) return false;
+                final long hash =
+                        SVUtils.fnvLong64(SVUtils.fnvLong64(qNameAndInterval.getQName().hashCode()), intervalId);
+                if ( Long.remainderUnsigned(hash, count) < maxTemplates ) return false;
+                templateCounts[intervalId] -= 1;
+                return true;
+            });
+        }
+        return nDownsampled;
+    }
+
+    private static final int N_SLOWEST_ASSEMBLIES_TO_LOG = 10;
+
+    private static void logAssemblyTimes( final List<AlignedAssemblyOrExcuse> assemblies,
+                                          final int[] templateCounts,
+                                          final Logger logger ) {
+        final long totalSeconds = assemblies.stream().mapToLong(AlignedAssemblyOrExcuse::getSecondsInAssembly).sum();
+        log("Spent " + totalSeconds + " seconds in " + assemblies.size() + " local assemblies.", logger);
+        assemblies.stream()
+                .filter(assembly -> assembly.getSecondsInAssembly() > 0)
+                .sorted(Comparator.comparingInt(AlignedAssemblyOrExcuse::getSecondsInAssembly).reversed())
+                .limit(N_SLOWEST_ASSEMBLIES_TO_LOG)
+                .forEach(assembly -> log("Assembly " + AlignedAssemblyOrExcuse.formatAssemblyID(assembly.getAssemblyId()) +
+                        " of " + templateCounts[assembly.getAssemblyId()] + " templates took " +
+                        assembly.getSecondsInAssembly() + " seconds.", logger));
+    }
+
     public static final class IntPair {
         private final int int1;
         private final int int2;
@@ -620,15 +745,15 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
      * For a set of interesting kmers, count occurrences of each over all reads, and remove those
      * that appear too frequently from the set.
      */
-    private static HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> removeUbiquitousKmers(
+    private static LongPairIntMultiMap removeUbiquitousKmers(
             final FindBreakpointEvidenceSparkArgumentCollection params,
             final ReadMetadata readMetadata,
             final JavaSparkContext ctx,
-            final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmersAndIntervals,
+            final LongPairIntMultiMap kmersAndIntervals,
             final JavaRDD<GATKRead> unfilteredReads,
             final SVReadFilter filter,
             final Logger logger ) {
-        final Broadcast<HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval>> broadcastKmersAndIntervals =
+        final Broadcast<LongPairIntMultiMap> broadcastKmersAndIntervals =
                 ctx.broadcast(kmersAndIntervals);
 
         final int kmersPerPartition = kmersAndIntervals.size();
@@ -660,11 +785,8 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
                         .collect();
 
         for ( final SVKmer kmer : ubiquitousKmers ) {
-            final Iterator<KmerAndInterval> entryItr = kmersAndIntervals.findEach(kmer);
-            while ( entryItr.hasNext() ) {
-                entryItr.next();
-                entryItr.remove();
-            }
+            final SVKmerLong kmerLong = (SVKmerLong)kmer;
+            kmersAndIntervals.removeEach(kmerLong.getValHigh(), kmerLong.getValLow());
         }
 
         SparkUtils.destroyBroadcast(broadcastKmersAndIntervals, "kmers and intervals");
@@ -680,10 +802,10 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
     @VisibleForTesting static List<QNameAndInterval> getAssemblyQNames(
             final FindBreakpointEvidenceSparkArgumentCollection params,
             final JavaSparkContext ctx,
-            final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMultiMap,
+            final LongPairIntMultiMap kmerMultiMap,
             final JavaRDD<GATKRead> unfilteredReads,
             final SVReadFilter filter ) {
-        final Broadcast<HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval>> broadcastKmersAndIntervals =
+        final Broadcast<LongPairIntMultiMap> broadcastKmersAndIntervals =
                 ctx.broadcast(kmerMultiMap);
 
         final int kSize = params.kSize;
@@ -951,7 +1073,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
             final List<SVInterval> intervals,
             final JavaRDD<GATKRead> unfilteredReads,
             final SVReadFilter filter,
-            final Broadcast<SVIntervalTree<SVInterval>> broadcastHighCoverageSubIntervals) {
+            final Broadcast<FlatSVIntervalTree<SVInterval>> broadcastHighCoverageSubIntervals) {
         final Broadcast<List<SVInterval>> broadcastIntervals = ctx.broadcast(intervals);
         final List<QNameAndInterval> qNameAndIntervalList =
                 unfilteredReads
@@ -981,7 +1103,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
             final SAMFileHeader header,
             final JavaRDD<GATKRead> unfilteredReads,
             final SVReadFilter filter,
-            final Logger logger, final Broadcast<SVIntervalTree<SVInterval>> highCoverageSubintervalTree) {
+            final Logger logger, final Broadcast<FlatSVIntervalTree<SVInterval>> highCoverageSubintervalTree) {
         // find all breakpoint evidence, then filter for pile-ups
         final int nContigs = header.getSequenceDictionary().getSequences().size();
         final int allowedOverhang = params.allowedShortFragmentOverhang;
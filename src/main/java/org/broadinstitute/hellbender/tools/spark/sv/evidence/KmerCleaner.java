@@ -1,43 +1,50 @@
 package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
-import org.broadinstitute.hellbender.tools.spark.utils.HopscotchSet;
-import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
+import org.broadinstitute.hellbender.tools.spark.utils.LongPairIntMap;
+import org.broadinstitute.hellbender.tools.spark.utils.LongPairIntMultiMap;
 import scala.Tuple2;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Eliminates dups, and removes over-represented kmers.
  */
 public final class KmerCleaner implements Iterable<KmerAndInterval> {
 
-    private final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMultiMap;
+    private final LongPairIntMultiMap kmerMultiMap;
 
     public KmerCleaner( final Iterator<Tuple2<KmerAndInterval, Integer>> kmerCountItr,
                         final int kmersPerPartitionGuess,
                         final int minKmerCount,
                         final int maxKmerCount,
                         final int maxIntervalsPerKmer ) {
-        kmerMultiMap = new HopscotchUniqueMultiMap<>(kmersPerPartitionGuess);
+        kmerMultiMap = new LongPairIntMultiMap(kmersPerPartitionGuess);
 
         // remove kmers with extreme counts that won't help in building a local assembly
         while ( kmerCountItr.hasNext() ) {
             final Tuple2<KmerAndInterval, Integer> kmerCount = kmerCountItr.next();
             final int count = kmerCount._2;
-            if ( count >= minKmerCount && count <= maxKmerCount ) kmerMultiMap.add(kmerCount._1);
+            if ( count >= minKmerCount && count <= maxKmerCount ) {
+                final KmerAndInterval kmerAndInterval = kmerCount._1;
+                kmerMultiMap.add(kmerAndInterval.getValHigh(), kmerAndInterval.getValLow(), kmerAndInterval.getIntervalId());
+            }
         }
 
-        final HopscotchSet<SVKmer> uniqueKmers = new HopscotchSet<>(kmerMultiMap.size());
-        kmerMultiMap.stream().map(KmerAndInterval::getKey).forEach(uniqueKmers::add);
-        uniqueKmers.stream()
-                .filter(kmer -> SVUtils.iteratorSize(kmerMultiMap.findEach(kmer)) > maxIntervalsPerKmer)
-                .forEach(kmerMultiMap::removeEach);
+        final LongPairIntMap intervalsPerKmer = new LongPairIntMap(kmerMultiMap.size());
+        kmerMultiMap.forEach((valHigh, valLow, intervalId) -> intervalsPerKmer.addTo(valHigh, valLow, 1));
+        intervalsPerKmer.forEach((valHigh, valLow, nIntervals) -> {
+            if ( nIntervals > maxIntervalsPerKmer ) kmerMultiMap.removeEach(valHigh, valLow);
+        });
     }
 
     @Override
     public Iterator<KmerAndInterval> iterator() {
-        return kmerMultiMap.iterator();
+        final List<KmerAndInterval> kmerAndIntervals = new ArrayList<>(kmerMultiMap.size());
+        kmerMultiMap.forEach((valHigh, valLow, intervalId) ->
+                kmerAndIntervals.add(new KmerAndInterval(new SVKmerLong(valHigh, valLow), intervalId)));
+        return kmerAndIntervals.iterator();
     }
 }
@@ -1,14 +1,15 @@
 package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 
 import org.broadinstitute.hellbender.tools.spark.sv.utils.KmerAndCount;
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
-import org.broadinstitute.hellbender.tools.spark.utils.HopscotchMap;
-import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
+import org.broadinstitute.hellbender.tools.spark.utils.LongPairIntMap;
+import org.broadinstitute.hellbender.tools.spark.utils.LongPairIntMultiMap;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Iterates over reads, kmerizing them, and counting up just the kmers that appear in a passed-in set.
@@ -17,28 +18,30 @@ import java.util.Iterator;
 public final class KmerCounter {
     private final int kSize;
     private final int kmersPerPartitionGuess;
-    private final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap;
+    private final LongPairIntMultiMap kmerMap;
 
     public KmerCounter( final int kSize, final int kmersPerPartitionGuess,
-                        final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap ) {
+                        final LongPairIntMultiMap kmerMap ) {
         this.kSize = kSize;
         this.kmerMap = kmerMap;
         this.kmersPerPartitionGuess = kmersPerPartitionGuess;
     }
 
     public Iterator<KmerAndCount> apply( final Iterator<GATKRead> readItr ) {
-        final HopscotchMap<SVKmer, Integer, KmerAndCount> counts = new HopscotchMap<>(kmersPerPartitionGuess);
+        final LongPairIntMap counts = new LongPairIntMap(kmersPerPartitionGuess);
         while ( readItr.hasNext() ) {
             final GATKRead read = readItr.next();
             SVKmerizer.canonicalStream(read.getBases(), kSize, new SVKmerLong())
                     .forEach(kmer -> {
-                        if ( kmerMap.contains(kmer) ) {
-                            final KmerAndCount kmerAndCount = counts.find(kmer);
-                            if ( kmerAndCount != null ) kmerAndCount.bumpCount();
-                            else counts.add(new KmerAndCount((SVKmerLong)kmer));
+                        final SVKmerLong kmerLong = (SVKmerLong)kmer;
+                        if ( kmerMap.contains(kmerLong.getValHigh(), kmerLong.getValLow()) ) {
+                            counts.addTo(kmerLong.getValHigh(), kmerLong.getValLow(), 1);
                         }
                     });
         }
-        return counts.iterator();
+        final List<KmerAndCount> kmerCounts = new ArrayList<>(counts.size());
+        counts.forEach((valHigh, valLow, count) ->
+                kmerCounts.add(new KmerAndCount(new SVKmerLong(valHigh, valLow), count)));
+        return kmerCounts.iterator();
     }
 }
@@ -1,9 +1,8 @@
 package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
-import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
+import org.broadinstitute.hellbender.tools.spark.utils.LongPairIntMultiMap;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.ArrayList;
@@ -18,9 +17,9 @@ import java.util.function.Function;
  */
 public final class QNameIntervalFinder implements Function<GATKRead,Iterator<QNameAndInterval>> {
     private final int kSize;
-    private final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap;
+    private final LongPairIntMultiMap kmerMap;
 
-    public QNameIntervalFinder( final int kSize, final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap ) {
+    public QNameIntervalFinder( final int kSize, final LongPairIntMultiMap kmerMap ) {
         this.kSize = kSize;
         this.kmerMap = kmerMap;
     }
@@ -30,13 +29,12 @@ public final class QNameIntervalFinder implements Function<GATKRead,Iterator<QNa
         final List<Integer> intervals = new ArrayList<>();
         SVKmerizer.canonicalStream(read.getBases(), kSize, new SVKmerLong())
                 .forEach(kmer -> {
-                    final Iterator<KmerAndInterval> kmerAndIntervalIterator = kmerMap.findEach(kmer);
-                    while ( kmerAndIntervalIterator.hasNext() ) {
-                        final Integer intervalId = kmerAndIntervalIterator.next().getValue();
+                    final SVKmerLong kmerLong = (SVKmerLong)kmer;
+                    kmerMap.findEach(kmerLong.getValHigh(), kmerLong.getValLow(), intervalId -> {
                         if ( !intervals.contains(intervalId) ) {
                             intervals.add(intervalId);
                         }
-                    }
+                    });
                 });
         final String qName = read.getName();
         return intervals.stream().map(intervalId -> new QNameAndInterval(qName, intervalId)).iterator();
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 
 import biz.k11i.xgboost.Predictor;
 import biz.k11i.xgboost.learner.ObjFunction;
+import biz.k11i.xgboost.util.FVec;
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.CigarElement;
 import htsjdk.samtools.CigarOperator;
@@ -44,6 +45,8 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
     private static final int DEFAULT_GOOD_MAPPING_QUALITY = 60;
     private static final double NON_READ_MAPPING_QUALITY = DEFAULT_GOOD_MAPPING_QUALITY; // alternatively could be Double.NaN
     private static final double NON_READ_CIGAR_LENGTHS = 0.0; // alternatively could be Double.NaN
+    private static final int NUM_FEATURES = 17;
+    private static final int INITIAL_FEATURE_MATRIX_ROWS = 16;
 
     private final PartitionCrossingChecker partitionCrossingChecker;
 
@@ -53,6 +56,12 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
 
     private final EvidenceOverlapChecker evidenceOverlapChecker;
     private final Map<BreakpointEvidence, UnscaledOverlapInfo> rawFeatureCache;
+    private final Map<String, IntHistogram.CDF> readGroupToTemplateSizeCDF;
+    private final double coverage;
+
+    // dense, row-major matrix of features for a block of evidence, and a view of one of its rows for the predictor
+    private double[] featureMatrix;
+    private final FeatureMatrixRow featureMatrixRow;
 
     private Iterator<SVIntervalTree.Entry<List<BreakpointEvidence>>> treeItr;
     private Iterator<BreakpointEvidence> listItr;
@@ -91,6 +100,10 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
 
         evidenceOverlapChecker = new EvidenceOverlapChecker(evidenceItr, readMetadata, params.minEvidenceMapQ);
         rawFeatureCache = new HashMap<>();
+        readGroupToTemplateSizeCDF = new HashMap<>();
+        coverage = readMetadata.getCoverage();
+        featureMatrix = new double[INITIAL_FEATURE_MATRIX_ROWS * NUM_FEATURES];
+        featureMatrixRow = new FeatureMatrixRow();
 
         listItr = null;
         treeItr = evidenceOverlapChecker.getTreeIterator();
@@ -167,9 +180,16 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
     }
 
     private boolean anyPassesFilter(final List<BreakpointEvidence> evidenceList) {
-        for(final BreakpointEvidence evidence : evidenceList) {
-            if(predictProbability(evidence) > thresholdProbability) {
-                return true;
+        // score in blocks of doubling size, so that we don't compute the features of a long list when an early
+        // piece of evidence passes
+        final int nEvidence = evidenceList.size();
+        int blockSize = 1;
+        for(int blockStart = 0; blockStart < nEvidence; blockStart += blockSize, blockSize *= 2) {
+            final int blockEnd = Math.min(nEvidence, blockStart + blockSize);
+            for(final double probability : predictProbabilities(evidenceList.subList(blockStart, blockEnd))) {
+                if(probability > thresholdProbability) {
+                    return true;
+                }
             }
         }
         return false;
@@ -180,11 +200,43 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
         return predictor.predictSingle(getFeatures(evidence));
     }
 
+    /**
+     * Score a block of BreakpointEvidence. The features of the whole block are computed into a dense matrix, and
+     * its rows are presented to the predictor through a single reusable FVec.
+     */
+    @VisibleForTesting
+    double[] predictProbabilities(final List<BreakpointEvidence> evidenceBlock) {
+        final int nRows = evidenceBlock.size();
+        if(featureMatrix.length < nRows * NUM_FEATURES) {
+            featureMatrix = new double[Math.max(nRows, 2 * featureMatrix.length / NUM_FEATURES) * NUM_FEATURES];
+        }
+        int offset = 0;
+        for(final BreakpointEvidence evidence : evidenceBlock) {
+            computeFeatures(evidence, featureMatrix, offset);
+            offset += NUM_FEATURES;
+        }
+        final double[] probabilities = new double[nRows];
+        for(int row = 0; row < nRows; ++row) {
+            featureMatrixRow.offset = row * NUM_FEATURES;
+            probabilities[row] = predictor.predictSingle(featureMatrixRow);
+        }
+        return probabilities;
+    }
+
     /**
      * Compute features vector for a piece of BreakpointEvidence
      */
     @VisibleForTesting
     EvidenceFeatures getFeatures(final BreakpointEvidence evidence) {
+        final double[] values = new double[NUM_FEATURES];
+        computeFeatures(evidence, values, 0);
+        return new EvidenceFeatures(values);
+    }
+
+    /**
+     * Write the features for a piece of BreakpointEvidence into features[offset] through features[offset+NUM_FEATURES-1]
+     */
+    private void computeFeatures(final BreakpointEvidence evidence, final double[] features, final int offset) {
         // create new struct for these two, use CigarOperator to update if it's ReadEvidence
         final CigarQualityInfo cigarQualityInfo = new CigarQualityInfo(evidence);
         final double evidenceType = evidenceTypeMap.get(evidence.getClass());
@@ -204,18 +256,24 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
 
         // either templateSize is defined (for ReadEvidence) or readCount (for TemplateSizeAnomaly).
         final double templateSizeOrReadCount = getTemplateSizeOrReadCount(evidence);
-        return new EvidenceFeatures(
-                new double[]{
-                        cigarQualityInfo.basesMatched, cigarQualityInfo.referenceLength, evidenceType, mappingQuality, templateSizeOrReadCount,
-                        individualOverlapInfo.numOverlap, individualOverlapInfo.totalOverlapMappingQuality,
-                        individualOverlapInfo.meanOverlapMappingQuality, individualOverlapInfo.numCoherent,
-                        individualOverlapInfo.totalCoherentMappingQuality,
-                        clusterOverlapInfo.numOverlap, clusterOverlapInfo.totalOverlapMappingQuality,
-                        clusterOverlapInfo.meanOverlapMappingQuality, clusterOverlapInfo.numCoherent,
-                        clusterOverlapInfo.totalCoherentMappingQuality,
-                        referenceGapOverlap, umapS100
-                }
-        );
+        int index = offset;
+        features[index++] = cigarQualityInfo.basesMatched;
+        features[index++] = cigarQualityInfo.referenceLength;
+        features[index++] = evidenceType;
+        features[index++] = mappingQuality;
+        features[index++] = templateSizeOrReadCount;
+        features[index++] = individualOverlapInfo.numOverlap;
+        features[index++] = individualOverlapInfo.totalOverlapMappingQuality;
+        features[index++] = individualOverlapInfo.meanOverlapMappingQuality;
+        features[index++] = individualOverlapInfo.numCoherent;
+        features[index++] = individualOverlapInfo.totalCoherentMappingQuality;
+        features[index++] = clusterOverlapInfo.numOverlap;
+        features[index++] = clusterOverlapInfo.totalOverlapMappingQuality;
+        features[index++] = clusterOverlapInfo.meanOverlapMappingQuality;
+        features[index++] = clusterOverlapInfo.numCoherent;
+        features[index++] = clusterOverlapInfo.totalCoherentMappingQuality;
+        features[index++] = referenceGapOverlap;
+        features[index] = umapS100;
     }
 
     /**
@@ -256,18 +314,22 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
     private double getTemplateSize(final ReadEvidence readEvidence) {
 
         final int templateSize = readEvidence.getTemplateSize();
-        final String readGroup = readEvidence.getReadGroup();
-        final String library = readMetadata.getReadGroupToLibraryMap().get(readGroup);
-        final LibraryStatistics libraryStatistics = readMetadata.getLibraryStatistics(library);
-        final IntHistogram.CDF templateSizeCDF = libraryStatistics.getCDF();
+        final IntHistogram.CDF templateSizeCDF =
+                readGroupToTemplateSizeCDF.computeIfAbsent(readEvidence.getReadGroup(), this::getTemplateSizeCDF);
         final int cdfBin = Integer.min(Math.abs(templateSize), templateSizeCDF.size() - 1);
         return templateSizeCDF.getFraction(cdfBin);
     }
 
+    private IntHistogram.CDF getTemplateSizeCDF(final String readGroup) {
+        final String library = readMetadata.getReadGroupToLibraryMap().get(readGroup);
+        final LibraryStatistics libraryStatistics = readMetadata.getLibraryStatistics(library);
+        return libraryStatistics.getCDF();
+    }
+
     /** for TemplateSizeAnomaly, return readCounts scaled by average genome coverage */
     private double getReadCounts(final TemplateSizeAnomaly templateSizeAnomaly) {
-        final Integer readCounts = templateSizeAnomaly.getReadCount();
-        return (double)(readCounts) / readMetadata.getCoverage();
+        final int readCounts = templateSizeAnomaly.getReadCount();
+        return readCounts / coverage;
     }
 
     private CoverageScaledOverlapInfo getIndividualOverlapInfo(final BreakpointEvidence evidence) {
@@ -281,7 +343,7 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
         return new CoverageScaledOverlapInfo(
                 evidenceFeatureCache.numOverlap, evidenceFeatureCache.numCoherent,
                 evidenceFeatureCache.totalOverlapMappingQuality, evidenceFeatureCache.totalCoherentMappingQuality,
-                evidenceFeatureCache.meanOverlapMappingQuality, readMetadata.getCoverage()
+                evidenceFeatureCache.meanOverlapMappingQuality, coverage
         );
     }
 
@@ -308,7 +370,7 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
         }
 
         return new CoverageScaledOverlapInfo(clusterNumOverlap, clusterNumCoherent, clusterOverlapMappingQuality,
-                clusterCoherentMappingQuality, clusterMeanOverlapMappingQuality, readMetadata.getCoverage());
+                clusterCoherentMappingQuality, clusterMeanOverlapMappingQuality, coverage);
     }
 
     /**
@@ -343,6 +405,15 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
                 new UnscaledOverlapInfo(numOverlap, numCoherent, totalOverlapMappingQuality, totalCoherentMappingQuality));
     }
 
+    /** A view of one row of the featureMatrix */
+    private final class FeatureMatrixRow implements FVec {
+        private static final long serialVersionUID = 1L;
+        private int offset;
+
+        @Override
+        public double fvalue(final int index) {return featureMatrix[offset + index];}
+    }
+
     private static class UnscaledOverlapInfo {
         final int numOverlap;
         final int numCoherent;
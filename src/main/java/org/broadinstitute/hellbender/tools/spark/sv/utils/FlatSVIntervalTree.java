@@ -0,0 +1,272 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable, array-backed copy of an SVIntervalTree for trees that are only queried after they're built
+ * (e.g., trees that are broadcast).
+ * The intervals are kept in sorted order in primitive arrays, and the tree structure is implicit:  the sorted array
+ * is treated as the in-order layout of a complete binary tree, and the only extra storage is the maximum end of each
+ * subtree.  (This is the layout used by Heng Li's cgranges.)  Queries walk indices rather than Node pointers.
+ * <p>
+ * Positions are compared as a single long, with the contig in the upper 32 bits, so that the tree needn't be
+ * partitioned by contig.
+ */
+@DefaultSerializer(FlatSVIntervalTree.Serializer.class)
+public final class FlatSVIntervalTree<V> implements Iterable<SVIntervalTree.Entry<V>> {
+    // below this level, a subtree is small enough that a linear scan beats walking it
+    private static final int LINEAR_SCAN_LEVEL = 3;
+
+    private final int[] contigs;
+    private final int[] starts;
+    private final int[] ends;
+    private final Object[] values;
+    private final long[] maxEnds; // greatest packed end in the subtree rooted at each index
+    private final int rootLevel;
+
+    /**
+     * Make a frozen copy of a tree.
+     */
+    public FlatSVIntervalTree( final SVIntervalTree<V> tree ) {
+        Utils.nonNull(tree);
+        final int size = tree.size();
+        contigs = new int[size];
+        starts = new int[size];
+        ends = new int[size];
+        values = new Object[size];
+        int idx = 0;
+        for ( final SVIntervalTree.Entry<V> entry : tree ) {
+            final SVInterval interval = entry.getInterval();
+            contigs[idx] = interval.getContig();
+            starts[idx] = interval.getStart();
+            ends[idx] = interval.getEnd();
+            values[idx] = entry.getValue();
+            idx += 1;
+        }
+        maxEnds = new long[size];
+        rootLevel = buildIndex();
+    }
+
+    private FlatSVIntervalTree( final Kryo kryo, final Input input ) {
+        final int size = input.readInt();
+        contigs = new int[size];
+        starts = new int[size];
+        ends = new int[size];
+        values = new Object[size];
+        int contig = 0;
+        int start = 0;
+        for ( int idx = 0; idx != size; ++idx ) {
+            final int contigDelta = input.readVarInt(true);
+            contig += contigDelta;
+            start = contigDelta == 0 ? start + input.readVarInt(true) : input.readVarInt(false);
+            contigs[idx] = contig;
+            starts[idx] = start;
+            ends[idx] = start + input.readVarInt(false);
+            values[idx] = kryo.readClassAndObject(input);
+        }
+        maxEnds = new long[size];
+        rootLevel = buildIndex();
+    }
+
+    private void serialize( final Kryo kryo, final Output output ) {
+        // intervals are sorted, so contigs and (within a contig) starts are written as non-negative deltas
+        output.writeInt(size());
+        int contig = 0;
+        int start = 0;
+        for ( int idx = 0; idx != size(); ++idx ) {
+            final int contigDelta = contigs[idx] - contig;
+            output.writeVarInt(contigDelta, true);
+            if ( contigDelta == 0 ) output.writeVarInt(starts[idx] - start, true);
+            else output.writeVarInt(starts[idx], false);
+            output.writeVarInt(ends[idx] - starts[idx], false);
+            kryo.writeClassAndObject(output, values[idx]);
+            contig = contigs[idx];
+            start = starts[idx];
+        }
+    }
+
+    public int size() { return contigs.length; }
+
+    /**
+     * Check the tree against a probe interval to see if there's an overlapping interval.
+     */
+    public boolean hasOverlapper( final SVInterval interval ) {
+        return !visitOverlappers(interval, idx -> false);
+    }
+
+    /**
+     * Find the earliest interval in the tree that overlaps the specified interval.
+     *
+     * @return The earliest overlapping interval, or null if there is none.
+     */
+    public SVIntervalTree.Entry<V> minOverlapper( final SVInterval interval ) {
+        final int[] minIdx = { -1 };
+        visitOverlappers(interval, idx -> { minIdx[0] = idx; return false; });
+        return minIdx[0] < 0 ? null : new FlatEntry(minIdx[0]);
+    }
+
+    /**
+     * Return an iterator over all intervals overlapping the specified interval, in sorted order.
+     */
+    public Iterator<SVIntervalTree.Entry<V>> overlappers( final SVInterval interval ) {
+        final IndexList overlappers = new IndexList();
+        visitOverlappers(interval, overlappers);
+        return new EntryIterator(overlappers.indices, overlappers.size);
+    }
+
+    /**
+     * Return an iterator over the entire tree, in sorted order.
+     */
+    @Override
+    public Iterator<SVIntervalTree.Entry<V>> iterator() {
+        return new EntryIterator(null, size());
+    }
+
+    private static long pack( final int contig, final int position ) {
+        // positions span less than 2^32 values, so this keeps each contig's positions apart from the next's
+        return ((long)contig << 32) + position;
+    }
+
+    private long packedStart( final int idx ) { return pack(contigs[idx], starts[idx]); }
+    private long packedEnd( final int idx ) { return pack(contigs[idx], ends[idx]); }
+
+    /**
+     * Fills in maxEnds, and returns the level of the root.
+     * The nodes at level k are those whose index has exactly k trailing 1 bits, and a node at index x and level k has
+     * children at x - 2^(k-1) and x + 2^(k-1).  Nodes past the end of the array are missing, but their subtrees may
+     * not be, so the max end of a missing right child is taken from the last node of its subtree that does exist.
+     */
+    private int buildIndex() {
+        final int size = size();
+        if ( size == 0 ) return -1;
+        int lastIdx = 0;
+        long lastMaxEnd = 0;
+        for ( int idx = 0; idx < size; idx += 2 ) {
+            lastIdx = idx;
+            lastMaxEnd = maxEnds[idx] = packedEnd(idx);
+        }
+        int level;
+        for ( level = 1; (1L << level) <= size; ++level ) {
+            final int halfStep = 1 << (level - 1);
+            for ( int idx = (halfStep << 1) - 1; idx < size; idx += halfStep << 2 ) {
+                final long leftMaxEnd = maxEnds[idx - halfStep];
+                final long rightMaxEnd = idx + halfStep < size ? maxEnds[idx + halfStep] : lastMaxEnd;
+                maxEnds[idx] = Math.max(packedEnd(idx), Math.max(leftMaxEnd, rightMaxEnd));
+            }
+            lastIdx = ((lastIdx >> level) & 1) != 0 ? lastIdx - halfStep : lastIdx + halfStep;
+            if ( lastIdx < size && maxEnds[lastIdx] > lastMaxEnd ) lastMaxEnd = maxEnds[lastIdx];
+        }
+        return level - 1;
+    }
+
+    /**
+     * Presents the index of each interval that overlaps the probe to the visitor, in sorted order, until the
+     * visitor returns false.  Returns false if the visitor stopped the traversal.
+     */
+    private boolean visitOverlappers( final SVInterval interval, final IntPredicate visitor ) {
+        if ( rootLevel < 0 ) return true;
+        return visitSubtree((1 << rootLevel) - 1, rootLevel,
+                pack(interval.getContig(), interval.getStart()), pack(interval.getContig(), interval.getEnd()), visitor);
+    }
+
+    private boolean visitSubtree( final int nodeIdx, final int level, final long start, final long end,
+                                  final IntPredicate visitor ) {
+        final int size = size();
+        if ( level <= LINEAR_SCAN_LEVEL ) {
+            final int firstIdx = nodeIdx >> level << level;
+            final int lastIdx = Math.min(size, firstIdx + (1 << (level + 1)) - 1);
+            for ( int idx = firstIdx; idx < lastIdx && packedStart(idx) < end; ++idx ) {
+                if ( start < packedEnd(idx) && !visitor.test(idx) ) return false;
+            }
+            return true;
+        }
+        final int halfStep = 1 << (level - 1);
+        final int leftIdx = nodeIdx - halfStep;
+        // a missing left child (past the end of the array) may still have descendants that exist
+        if ( (leftIdx >= size || maxEnds[leftIdx] > start) && !visitSubtree(leftIdx, level - 1, start, end, visitor) ) {
+            return false;
+        }
+        if ( nodeIdx < size && packedStart(nodeIdx) < end ) {
+            if ( start < packedEnd(nodeIdx) && !visitor.test(nodeIdx) ) return false;
+            return visitSubtree(nodeIdx + halfStep, level - 1, start, end, visitor);
+        }
+        return true;
+    }
+
+    private static final class IndexList implements IntPredicate {
+        private int[] indices = new int[8];
+        private int size;
+
+        @Override
+        public boolean test( final int idx ) {
+            if ( size == indices.length ) indices = Arrays.copyOf(indices, 2 * size);
+            indices[size++] = idx;
+            return true;
+        }
+    }
+
+    private final class FlatEntry implements SVIntervalTree.Entry<V> {
+        private final int idx;
+
+        FlatEntry( final int idx ) { this.idx = idx; }
+
+        @Override
+        public SVInterval getInterval() {
+            // the interval was validated when it was put into the original tree
+            return new SVInterval(contigs[idx], starts[idx], ends[idx],
+                    SVInterval.SVIntervalConstructorArgsValidator.ACCEPTS_ALL);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() { return (V)values[idx]; }
+
+        @Override
+        public V setValue( final V value ) {
+            throw new UnsupportedOperationException("FlatSVIntervalTree is immutable");
+        }
+    }
+
+    private final class EntryIterator implements Iterator<SVIntervalTree.Entry<V>> {
+        private final int[] indices; // null to iterate over every index
+        private final int size;
+        private int position;
+
+        EntryIterator( final int[] indices, final int size ) {
+            this.indices = indices;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() { return position < size; }
+
+        @Override
+        public SVIntervalTree.Entry<V> next() {
+            if ( !hasNext() ) throw new NoSuchElementException("FlatSVIntervalTree iterator is exhausted.");
+            final int idx = indices == null ? position : indices[position];
+            position += 1;
+            return new FlatEntry(idx);
+        }
+    }
+
+    public static final class Serializer<T> extends com.esotericsoftware.kryo.Serializer<FlatSVIntervalTree<T>> {
+        @Override
+        public void write( final Kryo kryo, final Output output, final FlatSVIntervalTree<T> tree ) {
+            tree.serialize(kryo, output);
+        }
+
+        @Override
+        public FlatSVIntervalTree<T> read( final Kryo kryo, final Input input, final Class<FlatSVIntervalTree<T>> klass ) {
+            return new FlatSVIntervalTree<>(kryo, input);
+        }
+    }
+}
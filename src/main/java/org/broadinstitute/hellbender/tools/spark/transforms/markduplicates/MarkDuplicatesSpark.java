@@ -218,50 +218,69 @@ public final class MarkDuplicatesSpark extends GATKSparkTool {
         // Here we combine the original bam with the repartitioned unmarked readnames to produce our marked reads
         return sortedReadsForMarking.zipPartitions(repartitionedReadNames, (readsIter, readNamesIter)  -> {
             final Map<String,Integer> namesOfNonDuplicateReadsAndOpticalCounts = new HashMap<>();
-            readNamesIter.forEachRemaining(tup -> { if (namesOfNonDuplicateReadsAndOpticalCounts.putIfAbsent(tup._1,tup._2)!=null) {
-                throw new GATKException(String.format("Detected multiple mark duplicate records objects corresponding to read with name '%s', this could be the result of the file sort order being incorrect or that a previous tool has let readnames span multiple partitions",tup._1()));
-            }
-                });
+            readNamesIter.forEachRemaining(tup -> addNonDuplicateName(namesOfNonDuplicateReadsAndOpticalCounts, tup._1, tup._2));
 
             return Utils.stream(readsIter)
-                    .peek(read -> read.setIsDuplicate(false))
-                    .peek(read -> read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, (String) null))
-                    .peek(read -> {
-                        // Handle reads that have been marked as non-duplicates (which also get tagged with optical duplicate summary statistics)
-                        if (namesOfNonDuplicateReadsAndOpticalCounts.containsKey(read.getName())) {
-                            // If its an optical duplicate, mark it. (Note: we only expect these to exist if optical duplicate marking is on)
-                            if (namesOfNonDuplicateReadsAndOpticalCounts.get(read.getName()) == OPTICAL_DUPLICATE_MARKER) {
-                                read.setIsDuplicate(true);
-                                read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_SEQUENCING);
-
-                            // Otherwise treat it normally as a non-duplicate.
-                            } else {
-                                read.setIsDuplicate(false);
-                                if (markUnmappedMates || !read.isUnmapped()) {
-                                    int dupCount = namesOfNonDuplicateReadsAndOpticalCounts.replace(read.getName(), NO_OPTICAL_MARKER);
-                                    if (dupCount > -1) {
-                                        read.setTransientAttribute(MarkDuplicatesSparkUtils.OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME, dupCount);
-                                    }
-                                }
-                            }
-                            // Mark unmapped read pairs as non-duplicates
-                        } else if (ReadUtils.readAndMateAreUnmapped(read)) {
-                            read.setIsDuplicate(false);
-                            // Everything else is a duplicate
-                        } else {
-                            if (markUnmappedMates || !read.isUnmapped()) {
-                                read.setIsDuplicate(true);
-                                if (taggingPolicy == MarkDuplicates.DuplicateTaggingPolicy.All) {
-                                    read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_LIBRARY);
-                                }
-                            } else {
-                                read.setIsDuplicate(false);
-                            }
-                        }
-                    }).iterator();
+                    .peek(read -> markRead(read, namesOfNonDuplicateReadsAndOpticalCounts, markUnmappedMates, taggingPolicy))
+                    .iterator();
         });
     }
 
+    /**
+     * Records the name of a non-duplicate read template along with its optical duplicate count or marker.
+     *
+     * @throws GATKException if the same name was already recorded, which means the template was split across partitions
+     */
+    public static void addNonDuplicateName(final Map<String, Integer> namesOfNonDuplicateReadsAndOpticalCounts, final String name, final int opticalCount) {
+        if (namesOfNonDuplicateReadsAndOpticalCounts.putIfAbsent(name, opticalCount) != null) {
+            throw new GATKException(String.format("Detected multiple mark duplicate records objects corresponding to read with name '%s', this could be the result of the file sort order being incorrect or that a previous tool has let readnames span multiple partitions", name));
+        }
+    }
+
+    /**
+     * Sets the duplicate flag and "DT" tag of a read given the names of the non-duplicate templates in its partition.
+     *
+     * NOTE: the optical duplicate count for a template is consumed by the first read of the template that is seen, so
+     *       the map is modified by this method.
+     */
+    public static void markRead(final GATKRead read, final Map<String,Integer> namesOfNonDuplicateReadsAndOpticalCounts,
+                                final boolean markUnmappedMates, final MarkDuplicates.DuplicateTaggingPolicy taggingPolicy) {
+        read.setIsDuplicate(false);
+        read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, (String) null);
+
+        // Handle reads that have been marked as non-duplicates (which also get tagged with optical duplicate summary statistics)
+        if (namesOfNonDuplicateReadsAndOpticalCounts.containsKey(read.getName())) {
+            // If its an optical duplicate, mark it. (Note: we only expect these to exist if optical duplicate marking is on)
+            if (namesOfNonDuplicateReadsAndOpticalCounts.get(read.getName()) == OPTICAL_DUPLICATE_MARKER) {
+                read.setIsDuplicate(true);
+                read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_SEQUENCING);
+
+            // Otherwise treat it normally as a non-duplicate.
+            } else {
+                read.setIsDuplicate(false);
+                if (markUnmappedMates || !read.isUnmapped()) {
+                    int dupCount = namesOfNonDuplicateReadsAndOpticalCounts.replace(read.getName(), NO_OPTICAL_MARKER);
+                    if (dupCount > -1) {
+                        read.setTransientAttribute(MarkDuplicatesSparkUtils.OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME, dupCount);
+                    }
+                }
+            }
+            // Mark unmapped read pairs as non-duplicates
+        } else if (ReadUtils.readAndMateAreUnmapped(read)) {
+            read.setIsDuplicate(false);
+            // Everything else is a duplicate
+        } else {
+            if (markUnmappedMates || !read.isUnmapped()) {
+                read.setIsDuplicate(true);
+                if (taggingPolicy == MarkDuplicates.DuplicateTaggingPolicy.All) {
+                    read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_LIBRARY);
+                }
+            } else {
+                read.setIsDuplicate(false);
+            }
+        }
+    }
+
     public static JavaRDD<GATKRead> mark(final JavaRDD<GATKRead> reads, final SAMFileHeader header,
                                          final OpticalDuplicateFinder finder,
                                          final MarkDuplicatesSparkArgumentCollection mdArgs,
@@ -1,6 +1,9 @@
 package org.broadinstitute.hellbender.tools.spark.transforms.markduplicates;
 
 import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.serializers.FieldSerializer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.*;
@@ -24,6 +27,7 @@ import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.*;
 import org.broadinstitute.hellbender.utils.spark.SparkUtils;
 import picard.sam.markduplicates.util.OpticalDuplicateFinder;
 import picard.sam.markduplicates.util.ReadEnds;
+import picard.sam.util.PhysicalLocation;
 import scala.Tuple2;
 
 import java.io.Serializable;
@@ -85,8 +89,7 @@ public class MarkDuplicatesSparkUtils {
             return index;
         }
 
-        @VisibleForTesting
-        IndexPair(T value, int index) {
+        public IndexPair(T value, int index) {
             this.value = value;
             this.index = index;
         }
@@ -108,11 +111,11 @@ public class MarkDuplicatesSparkUtils {
      *   (c) Label each read with alignment information: Library, reference index,
      *       stranded unclipped start and reverse strand.
      *   (d) Unmapped Pairs, Templates of entirely non-primary reads, etc are passed through as unmarked reads
-     * (4) GroupByKey: Group MarkDuplicatesSparkRecord that share alignment information. These pairs
-     *     are duplicates of each other.
+     * (4) CombineByKey: Aggregate MarkDuplicatesSparkRecord that share alignment information into a compact
+     *     {@link DuplicateGroup}. These pairs are duplicates of each other, so only the best scoring fragment and pair,
+     *     and the physical locations needed for optical duplicate detection, are retained through the shuffle.
      * (5) markDuplicatePairs:
-     *   (a) For each group created by (4), sort the pairs by score and mark all but the
-     *       highest scoring as duplicates.
+     *   (a) For each group created by (4), emit the highest scoring fragment or pair as the non-duplicate.
      *   (b) Determine which duplicates are optical duplicates and increase the overall count.
      */
     static JavaPairRDD<IndexPair<String>, Integer> transformToDuplicateNames(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy, final OpticalDuplicateFinder finder, final JavaRDD<GATKRead>  reads, final int numReducers, final boolean markOpticalDups) {
@@ -125,77 +128,99 @@ public class MarkDuplicatesSparkUtils {
         final Broadcast<Map<String, Byte>> libraryIndex = JavaSparkContext.fromSparkContext(reads.context()).broadcast( constructLibraryIndex(header));
 
         // Place all the reads into a single RDD of MarkDuplicatesSparkRecord objects
-        final JavaPairRDD<ReadsKey, MarkDuplicatesSparkRecord> pairedEnds = keyedReads.flatMapToPair(keyedRead -> {
-            final List<Tuple2<ReadsKey, MarkDuplicatesSparkRecord>> out = Lists.newArrayList();
-            final IndexPair<?>[] hadNonPrimaryRead = {null};
-
-            final List<IndexPair<GATKRead>> primaryReads = Utils.stream(keyedRead._2())
-                    ////// Making The Fragments //////
-                    // Make a PairedEnd object with no second read for each fragment (and an empty one for each paired read)
-                    .peek(readWithIndex -> {
-                        final GATKRead read = readWithIndex.getValue();
-                        if (!(read.isSecondaryAlignment()||read.isSupplementaryAlignment())) {
-                            PairedEnds fragment = (ReadUtils.readHasMappedMate(read)) ?
-                                    MarkDuplicatesSparkRecord.newEmptyFragment(read, header, libraryIndex.getValue()) :
-                                    MarkDuplicatesSparkRecord.newFragment(read, header, readWithIndex.getIndex(), scoringStrategy, libraryIndex.getValue());
-
-                            out.add(new Tuple2<>(fragment.key(), fragment));
-                        } else {
-                            hadNonPrimaryRead[0] = readWithIndex;
-                        }
-                    })
-                    .filter(indexPair -> !(indexPair.getValue().isSecondaryAlignment()||indexPair.getValue().isSupplementaryAlignment()))
-                    .collect(Collectors.toList());
-
-            // Catching the case where there are only secondary and supplementary reads in the readname group
-            if (primaryReads.isEmpty()) {
-                final MarkDuplicatesSparkRecord pass = MarkDuplicatesSparkRecord.getPassthrough((GATKRead)hadNonPrimaryRead[0].getValue(), hadNonPrimaryRead[0].getIndex());
-                out.add(new Tuple2<>(pass.key(), pass));
-                return out.iterator();
-
-                // Mark duplicates cant properly handle templates with more than two reads in a pair
-            } else if (primaryReads.size()>2) {
-                throw new UserException.UnimplementedFeature(String.format("MarkDuplicatesSpark only supports singleton fragments and pairs. We found the following group with >2 primary reads: ( %d number of reads)." +
-                        " \n%s.", primaryReads.size(), primaryReads.stream().map(Object::toString).collect(Collectors.joining("\n"))));
-            }
+        final JavaPairRDD<ReadsKey, MarkDuplicatesSparkRecord> pairedEnds = keyedReads.flatMapToPair(keyedRead ->
+                makeRecordsForTemplate(header, scoringStrategy, keyedRead._2(), headerReadGroupIndexMap.getValue(), libraryIndex.getValue()).iterator());
 
-            ////// Making The Paired Reads //////
-            // Write each paired read with a mapped mate as a pair
-            final List<IndexPair<GATKRead>> mappedPair = primaryReads.stream()
-                    .filter(readWithIndex -> ReadUtils.readHasMappedMate(readWithIndex.getValue()))
-                    .collect(Collectors.toList());
-
-            // If there are two primary reads in the group pass them as a pair
-            if (mappedPair.size()==2) {
-                final GATKRead firstRead = mappedPair.get(0).getValue();
-                final IndexPair<GATKRead> secondRead = mappedPair.get(1);
-                final Pair pair = MarkDuplicatesSparkRecord.newPair(firstRead, secondRead.getValue(), header, secondRead.getIndex(), scoringStrategy, libraryIndex.getValue());
-                // Validate and add the read group to the pair
-                final Short readGroup = headerReadGroupIndexMap.getValue().get(firstRead.getReadGroup());
-                if (readGroup != null) {
-                    pair.setReadGroup(readGroup);
-                } else {
-                    throw (firstRead.getReadGroup()==null) ?
-                            new UserException.ReadMissingReadGroup(firstRead) :
-                            new UserException.HeaderMissingReadGroup(firstRead);
-                }
-                out.add(new Tuple2<>(pair.key(), pair));
+        final JavaPairRDD<ReadsKey, DuplicateGroup> duplicateGroups = pairedEnds.combineByKey(
+                record -> new DuplicateGroup().add(record, finder),
+                (group, record) -> group.add(record, finder),
+                (group1, group2) -> group1.merge(group2, finder));
 
-                // If there is one paired read in the template this probably means the bam is missing its mate, don't duplicate mark it
-            } else if (mappedPair.size()==1) {
-                final IndexPair<GATKRead> firstRead = mappedPair.get(0);
-                final MarkDuplicatesSparkRecord pass = MarkDuplicatesSparkRecord.getPassthrough(firstRead.getValue(), firstRead.getIndex());
-                out.add(new Tuple2<>(pass.key(), pass));
-            }
-            // If mappedPair is empty here, it probably means that we had a fragment with an unmapped mate, which has already been built
-            // and added to out. So we just pass through and return.
+        return markDuplicateRecords(duplicateGroups, finder, markOpticalDups);
+    }
+
+    /**
+     * Converts the reads of a single template (reads sharing a read group and read name) into the
+     * MarkDuplicatesSparkRecords used for duplicate marking, keyed by their alignment information:
+     *   - a Fragment for each primary read with an unmapped mate, and an EmptyFragment for each primary read with a mapped mate
+     *   - a Pair if the template has two primary reads with mapped mates
+     *   - a Passthrough if the template contains only non-primary reads or a primary read whose mapped mate is missing
+     *
+     * This contains no Spark specific logic so it can be shared with non-Spark implementations of MarkDuplicates.
+     *
+     * @param template mapped reads of the template, tagged with the index of the partition they came from
+     * @param headerReadGroupIndexMap read group indexes, see {@link #getHeaderReadGroupIndexMap(SAMFileHeader)}
+     * @param libraryIndex library indexes, see {@link #constructLibraryIndex(SAMFileHeader)}
+     */
+    public static List<Tuple2<ReadsKey, MarkDuplicatesSparkRecord>> makeRecordsForTemplate(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy,
+                                                                                     final Iterable<IndexPair<GATKRead>> template,
+                                                                                     final Map<String, Short> headerReadGroupIndexMap,
+                                                                                     final Map<String, Byte> libraryIndex) {
+        final List<Tuple2<ReadsKey, MarkDuplicatesSparkRecord>> out = Lists.newArrayList();
+        final IndexPair<?>[] hadNonPrimaryRead = {null};
+
+        final List<IndexPair<GATKRead>> primaryReads = Utils.stream(template)
+                ////// Making The Fragments //////
+                // Make a PairedEnd object with no second read for each fragment (and an empty one for each paired read)
+                .peek(readWithIndex -> {
+                    final GATKRead read = readWithIndex.getValue();
+                    if (!(read.isSecondaryAlignment()||read.isSupplementaryAlignment())) {
+                        PairedEnds fragment = (ReadUtils.readHasMappedMate(read)) ?
+                                MarkDuplicatesSparkRecord.newEmptyFragment(read, header, libraryIndex) :
+                                MarkDuplicatesSparkRecord.newFragment(read, header, readWithIndex.getIndex(), scoringStrategy, libraryIndex);
+
+                        out.add(new Tuple2<>(fragment.key(), fragment));
+                    } else {
+                        hadNonPrimaryRead[0] = readWithIndex;
+                    }
+                })
+                .filter(indexPair -> !(indexPair.getValue().isSecondaryAlignment()||indexPair.getValue().isSupplementaryAlignment()))
+                .collect(Collectors.toList());
 
-            return out.iterator();
-        });
+        // Catching the case where there are only secondary and supplementary reads in the readname group
+        if (primaryReads.isEmpty()) {
+            final MarkDuplicatesSparkRecord pass = MarkDuplicatesSparkRecord.getPassthrough((GATKRead)hadNonPrimaryRead[0].getValue(), hadNonPrimaryRead[0].getIndex());
+            out.add(new Tuple2<>(pass.key(), pass));
+            return out;
 
-        final JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> keyedPairs = pairedEnds.groupByKey(); //TODO evaluate replacing this with a smart aggregate by key.
+            // Mark duplicates cant properly handle templates with more than two reads in a pair
+        } else if (primaryReads.size()>2) {
+            throw new UserException.UnimplementedFeature(String.format("MarkDuplicatesSpark only supports singleton fragments and pairs. We found the following group with >2 primary reads: ( %d number of reads)." +
+                    " \n%s.", primaryReads.size(), primaryReads.stream().map(Object::toString).collect(Collectors.joining("\n"))));
+        }
 
-        return markDuplicateRecords(keyedPairs, finder, markOpticalDups);
+        ////// Making The Paired Reads //////
+        // Write each paired read with a mapped mate as a pair
+        final List<IndexPair<GATKRead>> mappedPair = primaryReads.stream()
+                .filter(readWithIndex -> ReadUtils.readHasMappedMate(readWithIndex.getValue()))
+                .collect(Collectors.toList());
+
+        // If there are two primary reads in the group pass them as a pair
+        if (mappedPair.size()==2) {
+            final GATKRead firstRead = mappedPair.get(0).getValue();
+            final IndexPair<GATKRead> secondRead = mappedPair.get(1);
+            final Pair pair = MarkDuplicatesSparkRecord.newPair(firstRead, secondRead.getValue(), header, secondRead.getIndex(), scoringStrategy, libraryIndex);
+            // Validate and add the read group to the pair
+            final Short readGroup = headerReadGroupIndexMap.get(firstRead.getReadGroup());
+            if (readGroup != null) {
+                pair.setReadGroup(readGroup);
+            } else {
+                throw (firstRead.getReadGroup()==null) ?
+                        new UserException.ReadMissingReadGroup(firstRead) :
+                        new UserException.HeaderMissingReadGroup(firstRead);
+            }
+            out.add(new Tuple2<>(pair.key(), pair));
+
+            // If there is one paired read in the template this probably means the bam is missing its mate, don't duplicate mark it
+        } else if (mappedPair.size()==1) {
+            final IndexPair<GATKRead> firstRead = mappedPair.get(0);
+            final MarkDuplicatesSparkRecord pass = MarkDuplicatesSparkRecord.getPassthrough(firstRead.getValue(), firstRead.getIndex());
+            out.add(new Tuple2<>(pass.key(), pass));
+        }
+        // If mappedPair is empty here, it probably means that we had a fragment with an unmapped mate, which has already been built
+        // and added to out. So we just pass through and return.
+
+        return out;
     }
 
     /**
@@ -217,7 +242,7 @@ public class MarkDuplicatesSparkUtils {
     /**
      * Method which generates a map of the readgroups from the header so they can be serialized as indexes
      */
-    private static Map<String, Short> getHeaderReadGroupIndexMap(final SAMFileHeader header) {
+    public static Map<String, Short> getHeaderReadGroupIndexMap(final SAMFileHeader header) {
         final List<SAMReadGroupRecord> readGroups = header.getReadGroups();
         if (readGroups.size() > 65535) {
             throw new GATKException("Detected too many read groups in the header, currently MarkDuplicatesSpark only supports up to 65535 unique readgroup IDs but " + readGroups.size() + " were found");
@@ -260,119 +285,370 @@ public class MarkDuplicatesSparkUtils {
      */
     private static JavaPairRDD<String, Iterable<IndexPair<GATKRead>>> spanReadsByKey(final JavaRDD<IndexPair<GATKRead>> reads) {
         JavaPairRDD<String, IndexPair<GATKRead>> nameReadPairs = reads.mapToPair(read -> new Tuple2<>(read.getValue().getName(), read));
-        return SparkUtils.spanByKey(nameReadPairs).flatMapToPair(namedRead -> {
-            // for each name, separate reads by key (group name)
-            List<Tuple2<String, Iterable<IndexPair<GATKRead>>>> out = Lists.newArrayList();
-            ListMultimap<String, IndexPair<GATKRead>> multi = LinkedListMultimap.create();
-            for (IndexPair<GATKRead> read : namedRead._2()) {
-                multi.put(ReadsKey.keyForRead(read.getValue()), read);
-            }
-            for (String key : multi.keySet()) {
-                // list from Multimap is not serializable by Kryo, so put in a new array list
-                out.add(new Tuple2<>(key, Lists.newArrayList(multi.get(key))));
-            }
-            return out.iterator();
-        });
+        return SparkUtils.spanByKey(nameReadPairs).flatMapToPair(namedRead -> splitByReadsKey(namedRead._2()).iterator());
+    }
+
+    /**
+     * Separates reads sharing a read name into templates keyed by their group name (read group and read name).
+     */
+    public static List<Tuple2<String, Iterable<IndexPair<GATKRead>>>> splitByReadsKey(final Iterable<IndexPair<GATKRead>> readsWithSameName) {
+        List<Tuple2<String, Iterable<IndexPair<GATKRead>>>> out = Lists.newArrayList();
+        ListMultimap<String, IndexPair<GATKRead>> multi = LinkedListMultimap.create();
+        for (IndexPair<GATKRead> read : readsWithSameName) {
+            multi.put(ReadsKey.keyForRead(read.getValue()), read);
+        }
+        for (String key : multi.keySet()) {
+            // list from Multimap is not serializable by Kryo, so put in a new array list
+            out.add(new Tuple2<>(key, Lists.newArrayList(multi.get(key))));
+        }
+        return out;
     }
 
 
     /**
-     * Primary landing point for MarkDuplicateSparkRecords:
-     *  - Handles separating out hashed keys into into groups by start position/readgroup
-     *  - Further separates out MarkDuplicatesSparkRecord by their record objects
-     *  - Farms out to methods which handles each group
-     *  - Collects the results and returns an iterator
+     * Compact per-key state used to aggregate the MarkDuplicatesSparkRecords that share a {@link ReadsKey} without
+     * materializing the whole duplicate set the way groupByKey() would. Only what is needed to emit the non-duplicates
+     * is retained:
+     *  - the best scoring fragment, which is dropped entirely once an EmptyFragment is seen since every fragment at a
+     *    site containing a mapped pair is a duplicate
+     *  - the best scoring pair
+     *  - when an optical duplicate finder is provided, an {@link OpticalDuplicateCandidate} for every pair, which holds
+     *    only the name, read group, tile, x, y and orientation of the pair needed to count optical duplicates
+     *  - the passthroughs, which are all emitted as non-duplicates
+     *
+     * Note: This class is intended for internal MarkDuplicatesSpark purposes, it is only exposed so it can
+     *       be accessed by {@link org.broadinstitute.hellbender.engine.spark.GATKRegistrator} for kryo serialization
+     *       and by the non-Spark MarkDuplicatesGATK, which shares this duplicate marking logic
      */
-    @SuppressWarnings("unchecked")
-    private static JavaPairRDD<IndexPair<String>, Integer> markDuplicateRecords(final JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> keyedPairs,
-                                                                                final OpticalDuplicateFinder finder, final boolean markOpticalDups) {
-        return keyedPairs.flatMapToPair(keyedPair -> {
-            Iterable<MarkDuplicatesSparkRecord> pairGroups = keyedPair._2();
-
-            final List<Tuple2<IndexPair<String>, Integer>> nonDuplicates = Lists.newArrayList();
-            final Map<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> stratifiedByType = splitByType(pairGroups);
-
-            // Each key corresponds to either fragments or paired ends, not a mixture of both.
-            final List<MarkDuplicatesSparkRecord> emptyFragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.EMPTY_FRAGMENT);
-            final List<MarkDuplicatesSparkRecord> fragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.FRAGMENT);
-            final List<Pair> pairs = (List<Pair>)(List)stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PAIR);
-            final List<MarkDuplicatesSparkRecord> passthroughs = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PASSTHROUGH);
-
-            //empty MarkDuplicatesSparkRecord signify that a pair has a mate somewhere else
-            // If there are any non-fragment placeholders at this site, mark everything as duplicates, otherwise compute the best score
-            if (Utils.isNonEmpty(fragments) && !Utils.isNonEmpty(emptyFragments)) {
-                final Tuple2<IndexPair<String>, Integer> bestFragment = handleFragments(fragments, finder);
-                nonDuplicates.add(bestFragment);
+    @DefaultSerializer(DuplicateGroup.Serializer.class)
+    public static final class DuplicateGroup {
+        private Fragment bestFragment = null;
+        private boolean hasEmptyFragment = false;
+        private Pair bestPair = null;
+        private List<OpticalDuplicateCandidate> opticalDuplicateCandidates = new ArrayList<>();
+        // the index in opticalDuplicateCandidates of the candidate made from bestPair, if there are any candidates
+        private int bestCandidateIndex = -1;
+        private List<Passthrough> passthroughs = new ArrayList<>();
+
+        /**
+         * Adds a single record to this group, keeping only the state required to mark the group.
+         *
+         * @param record record sharing the key of this group
+         * @param finder optical duplicate finder used to populate physical locations for tiebreaking, may be null
+         * @return this group
+         */
+        public DuplicateGroup add(final MarkDuplicatesSparkRecord record, final OpticalDuplicateFinder finder) {
+            switch (record.getType()) {
+                case EMPTY_FRAGMENT:
+                    hasEmptyFragment = true;
+                    bestFragment = null;
+                    break;
+                case FRAGMENT:
+                    if (!hasEmptyFragment) {
+                        addLocationInformation((Fragment) record, finder);
+                        bestFragment = best(bestFragment, (Fragment) record);
+                    }
+                    break;
+                case PAIR:
+                    addPair((Pair) record, finder);
+                    break;
+                case PASSTHROUGH:
+                    passthroughs.add((Passthrough) record);
+                    break;
+                default:
+                    throw new GATKException.ShouldNeverReachHereException("Unexpected MarkDuplicatesSparkRecord type " + record.getType());
             }
+            return this;
+        }
 
-            if (Utils.isNonEmpty(pairs)) {
-                nonDuplicates.addAll(handlePairs(pairs, finder, markOpticalDups));
+        /**
+         * Merges the state of another group sharing the same key into this one. The transient physical location
+         * fields do not survive serialization so they are repopulated for the records being compared.
+         *
+         * @param other group to merge into this one
+         * @param finder optical duplicate finder used to populate physical locations for tiebreaking, may be null
+         * @return this group
+         */
+        public DuplicateGroup merge(final DuplicateGroup other, final OpticalDuplicateFinder finder) {
+            hasEmptyFragment |= other.hasEmptyFragment;
+            if (hasEmptyFragment) {
+                bestFragment = null;
+            } else if (other.bestFragment != null) {
+                if (bestFragment != null) {
+                    addLocationInformation(bestFragment, finder);
+                }
+                addLocationInformation(other.bestFragment, finder);
+                bestFragment = best(bestFragment, other.bestFragment);
             }
+            if (other.bestPair != null) {
+                if (bestPair != null) {
+                    addLocationInformation(bestPair, finder);
+                }
+                addLocationInformation(other.bestPair, finder);
+                if (best(bestPair, other.bestPair) != bestPair) {
+                    bestPair = other.bestPair;
+                    bestCandidateIndex = other.bestCandidateIndex < 0 ? -1 : opticalDuplicateCandidates.size() + other.bestCandidateIndex;
+                }
+            }
+            opticalDuplicateCandidates.addAll(other.opticalDuplicateCandidates);
+            passthroughs.addAll(other.passthroughs);
+            return this;
+        }
+
+        private void addPair(final Pair pair, final OpticalDuplicateFinder finder) {
+            if (bestPair != null) {
+                addLocationInformation(bestPair, finder);
+            }
+            addLocationInformation(pair, finder);
+            final boolean isBest = best(bestPair, pair) == pair;
+            if (isBest) {
+                bestPair = pair;
+            }
+            // only the location of the other pairs is needed, to count the optical duplicates of the best one
+            if (finder != null) {
+                if (isBest) {
+                    bestCandidateIndex = opticalDuplicateCandidates.size();
+                }
+                opticalDuplicateCandidates.add(new OpticalDuplicateCandidate(pair));
+            }
+        }
+
+        private static void addLocationInformation(final TransientFieldPhysicalLocation location, final OpticalDuplicateFinder finder) {
+            if (finder != null) {
+                finder.addLocationInformation(location.getName(), location);
+            }
+        }
+
+        private static <T extends TransientFieldPhysicalLocation> T best(final T current, final T candidate) {
+            return current == null || PAIRED_ENDS_SCORE_COMPARATOR.compare(candidate, current) > 0 ? candidate : current;
+        }
+
+        @VisibleForTesting
+        Fragment getBestFragment() {
+            return bestFragment;
+        }
 
-            if (Utils.isNonEmpty(passthroughs)) {
-                nonDuplicates.addAll(handlePassthroughs(passthroughs));
+        @VisibleForTesting
+        Pair getBestPair() {
+            return bestPair;
+        }
+
+        @VisibleForTesting
+        List<OpticalDuplicateCandidate> getOpticalDuplicateCandidates() {
+            return Collections.unmodifiableList(opticalDuplicateCandidates);
+        }
+
+        @VisibleForTesting
+        OpticalDuplicateCandidate getBestOpticalDuplicateCandidate() {
+            return bestCandidateIndex < 0 ? null : opticalDuplicateCandidates.get(bestCandidateIndex);
+        }
+
+        @VisibleForTesting
+        List<Passthrough> getPassthroughs() {
+            return Collections.unmodifiableList(passthroughs);
+        }
+
+        /**
+         * Serializer which writes the records of the group back to back with their own compact serializers, avoiding
+         * the per-element class information that serializing the lists directly would carry through the shuffle
+         */
+        public static final class Serializer extends com.esotericsoftware.kryo.Serializer<DuplicateGroup> {
+            @Override
+            public void write(final Kryo kryo, final Output output, final DuplicateGroup group) {
+                output.writeBoolean(group.hasEmptyFragment);
+                kryo.writeObjectOrNull(output, group.bestFragment, Fragment.class);
+                kryo.writeObjectOrNull(output, group.bestPair, Pair.class);
+                output.writeInt(group.opticalDuplicateCandidates.size(), true);
+                for (final OpticalDuplicateCandidate candidate : group.opticalDuplicateCandidates) {
+                    candidate.serialize(output);
+                }
+                output.writeInt(group.bestCandidateIndex + 1, true);
+                output.writeInt(group.passthroughs.size(), true);
+                for (final Passthrough passthrough : group.passthroughs) {
+                    kryo.writeObject(output, passthrough);
+                }
             }
 
-            return nonDuplicates.iterator();
-        });
+            @Override
+            public DuplicateGroup read(final Kryo kryo, final Input input, final Class<DuplicateGroup> klass) {
+                final DuplicateGroup group = new DuplicateGroup();
+                group.hasEmptyFragment = input.readBoolean();
+                group.bestFragment = kryo.readObjectOrNull(input, Fragment.class);
+                group.bestPair = kryo.readObjectOrNull(input, Pair.class);
+                final int numCandidates = input.readInt(true);
+                group.opticalDuplicateCandidates = new ArrayList<>(numCandidates);
+                for (int i = 0; i < numCandidates; i++) {
+                    group.opticalDuplicateCandidates.add(new OpticalDuplicateCandidate(input));
+                }
+                group.bestCandidateIndex = input.readInt(true) - 1;
+                final int numPassthroughs = input.readInt(true);
+                group.passthroughs = new ArrayList<>(numPassthroughs);
+                for (int i = 0; i < numPassthroughs; i++) {
+                    group.passthroughs.add(kryo.readObject(input, Passthrough.class));
+                }
+                return group;
+            }
+        }
     }
 
     /**
-     * split MarkDuplicatesSparkRecord into groups by their type
+     * The physical location of a {@link Pair} in a {@link DuplicateGroup}, which is all that is needed to decide
+     * whether it is an optical duplicate of the best pair of the group.  Unlike a Pair, its location is parsed from the
+     * read name once and then carried through the shuffle, and it holds nothing that is only needed for scoring.
+     *
+     * Note: This class is intended for internal MarkDuplicatesSpark purposes
      */
-    private static Map<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> splitByType(Iterable<MarkDuplicatesSparkRecord> duplicateGroup) {
-        final EnumMap<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> byType = new EnumMap<>(MarkDuplicatesSparkRecord.Type.class);
-        for(MarkDuplicatesSparkRecord pair: duplicateGroup) {
-            byType.compute(pair.getType(), (key, value) -> {
-                if (value == null) {
-                    final ArrayList<MarkDuplicatesSparkRecord> pairedEnds = new ArrayList<>();
-                    pairedEnds.add(pair);
-                    return pairedEnds;
-                } else {
-                    value.add(pair);
-                    return value;
-                }
-            });
+    static final class OpticalDuplicateCandidate implements PhysicalLocation {
+        private final String name;
+        private final int partitionIndex;
+        private final byte orientation;
+        private short readGroup;
+        private short tile = -1;
+        private short x = -1;
+        private short y = -1;
+        private short libraryId = -1;
+
+        private OpticalDuplicateCandidate(final Pair pair) {
+            name = pair.getName();
+            partitionIndex = pair.getPartitionIndex();
+            orientation = pair.getOrientationForOpticalDuplicates();
+            readGroup = pair.getReadGroup();
+            tile = pair.getTile();
+            x = (short) pair.getX();
+            y = (short) pair.getY();
+            libraryId = pair.getLibraryId();
+        }
+
+        private OpticalDuplicateCandidate(final Input input) {
+            name = input.readString();
+            partitionIndex = input.readInt(true);
+            orientation = input.readByte();
+            readGroup = input.readShort();
+            tile = input.readShort();
+            x = input.readShort();
+            y = input.readShort();
+            libraryId = input.readShort();
+        }
+
+        private void serialize(final Output output) {
+            output.writeAscii(name);
+            output.writeInt(partitionIndex, true);
+            output.writeByte(orientation);
+            output.writeShort(readGroup);
+            output.writeShort(tile);
+            output.writeShort(x);
+            output.writeShort(y);
+            output.writeShort(libraryId);
+        }
+
+        String getName() { return name; }
+
+        int getPartitionIndex() { return partitionIndex; }
+
+        byte getOrientation() { return orientation; }
+
+        @Override
+        public short getReadGroup() { return readGroup; }
+
+        @Override
+        public void setReadGroup(final short readGroup) { this.readGroup = readGroup; }
+
+        @Override
+        public short getTile() { return tile; }
+
+        @Override
+        public void setTile(final short tile) { this.tile = tile; }
+
+        @Override
+        public int getX() { return x; }
+
+        // NOTE picard in practice compresses the pixel values to signed shorts for space purposes despite the api using an integer
+        @Override
+        public void setX(final int x) { this.x = (short) x; }
+
+        @Override
+        public int getY() { return y; }
+
+        // NOTE picard in practice compresses the pixel values to signed shorts for space purposes despite the api using an integer
+        @Override
+        public void setY(final int y) { this.y = (short) y; }
+
+        @Override
+        public short getLibraryId() { return libraryId; }
+
+        @Override
+        public void setLibraryId(final short libraryId) { this.libraryId = libraryId; }
+    }
+
+    /**
+     * Primary landing point for the aggregated MarkDuplicateSparkRecords, see {@link #markDuplicateGroup}.
+     */
+    private static JavaPairRDD<IndexPair<String>, Integer> markDuplicateRecords(final JavaPairRDD<ReadsKey, DuplicateGroup> duplicateGroups,
+                                                                                final OpticalDuplicateFinder finder, final boolean markOpticalDups) {
+        return duplicateGroups.flatMapToPair(keyedGroup -> markDuplicateGroup(keyedGroup._2(), finder, markOpticalDups).iterator());
+    }
+
+    /**
+     * Resolves a single aggregated {@link DuplicateGroup} into the names of its non-duplicate reads:
+     *  - Emits the best fragment of the group, unless the group also contained mapped pairs
+     *  - Farms out to methods which handle the pairs and passthroughs of the group
+     *  - Collects the results and returns them, tagged with their optical duplicate counts or markers
+     */
+    public static List<Tuple2<IndexPair<String>, Integer>> markDuplicateGroup(final DuplicateGroup group, final OpticalDuplicateFinder finder, final boolean markOpticalDups) {
+        final List<Tuple2<IndexPair<String>, Integer>> nonDuplicates = Lists.newArrayList();
+
+        // The group only retains a best fragment if there were no non-fragment placeholders at this site
+        final Fragment bestFragment = group.getBestFragment();
+        if (bestFragment != null) {
+            nonDuplicates.add(new Tuple2<>(new IndexPair<>(bestFragment.getName(), bestFragment.getPartitionIndex()), MarkDuplicatesSpark.NO_OPTICAL_MARKER));
+        }
+
+        if (group.bestPair != null) {
+            nonDuplicates.addAll(handlePairs(group, finder, markOpticalDups));
         }
-        return byType;
+
+        if (!group.passthroughs.isEmpty()) {
+            nonDuplicates.addAll(handlePassthroughs(group.passthroughs));
+        }
+
+        return nonDuplicates;
     }
 
-    private static List<Tuple2<IndexPair<String>,Integer>> handlePassthroughs(List<MarkDuplicatesSparkRecord> passthroughs) {
+    private static List<Tuple2<IndexPair<String>,Integer>> handlePassthroughs(List<Passthrough> passthroughs) {
         // Emit the passthrough reads as non-duplicates.
         return passthroughs.stream()
                 .map(pair -> new Tuple2<>(new IndexPair<>(pair.getName(), pair.getPartitionIndex()), MarkDuplicatesSpark.NO_OPTICAL_MARKER))
                 .collect(Collectors.toList());
     }
 
-    private static List<Tuple2<IndexPair<String>, Integer>> handlePairs(final List<Pair> pairs, final OpticalDuplicateFinder finder, final boolean markOpticalDups) {
+    private static List<Tuple2<IndexPair<String>, Integer>> handlePairs(final DuplicateGroup group, final OpticalDuplicateFinder finder, final boolean markOpticalDups) {
+        final Pair bestPair = group.bestPair;
+        final List<OpticalDuplicateCandidate> candidates = group.opticalDuplicateCandidates;
         // save ourselves the trouble when there are no optical duplicates to worry about
-        if (pairs.size() == 1) {
-            return Collections.singletonList(new Tuple2<>(new IndexPair<>(pairs.get(0).getName(), pairs.get(0).getPartitionIndex()), 0));
+        if (candidates.size() <= 1) {
+            return Collections.singletonList(new Tuple2<>(new IndexPair<>(bestPair.getName(), bestPair.getPartitionIndex()), 0));
         }
 
         List<Tuple2<IndexPair<String>, Integer>> output = new ArrayList<>();
 
-        final Pair bestPair = pairs.stream()
-                .peek(pair -> finder.addLocationInformation(pair.getName(), pair))
-                .max(PAIRED_ENDS_SCORE_COMPARATOR)
-                .orElseThrow(() -> new GATKException.ShouldNeverReachHereException("There was no best pair because the stream was empty, but it shouldn't have been empty."));
+        final OpticalDuplicateCandidate bestCandidate = candidates.get(group.bestCandidateIndex);
 
         // Split by orientation and count duplicates in each group separately.
-        final Map<Byte, List<Pair>> groupByOrientation = pairs.stream()
-                .collect(Collectors.groupingBy(Pair::getOrientationForOpticalDuplicates));
+        final Map<Byte, List<OpticalDuplicateCandidate>> groupByOrientation = candidates.stream()
+                .collect(Collectors.groupingBy(OpticalDuplicateCandidate::getOrientation));
         final int numOpticalDuplicates;
         if (groupByOrientation.containsKey(ReadEnds.FR) && groupByOrientation.containsKey(ReadEnds.RF)) {
-            final List<Pair> peFR = new ArrayList<>(groupByOrientation.get(ReadEnds.FR));
-            final List<Pair> peRF = new ArrayList<>(groupByOrientation.get(ReadEnds.RF));
-            numOpticalDuplicates = countOpticalDuplicates(finder, peFR, bestPair, markOpticalDups? output : null) + countOpticalDuplicates(finder, peRF, bestPair, markOpticalDups? output : null);
+            final List<OpticalDuplicateCandidate> peFR = new ArrayList<>(groupByOrientation.get(ReadEnds.FR));
+            final List<OpticalDuplicateCandidate> peRF = new ArrayList<>(groupByOrientation.get(ReadEnds.RF));
+            numOpticalDuplicates = countOpticalDuplicates(finder, peFR, bestCandidate, markOpticalDups? output : null) + countOpticalDuplicates(finder, peRF, bestCandidate, markOpticalDups? output : null);
         } else {
-            numOpticalDuplicates = countOpticalDuplicates(finder, pairs, bestPair, markOpticalDups? output : null);
+            numOpticalDuplicates = countOpticalDuplicates(finder, candidates, bestCandidate, markOpticalDups? output : null);
         }
         output.add(new Tuple2<>(new IndexPair<>(bestPair.getName(), bestPair.getPartitionIndex()), numOpticalDuplicates));
         return output;
     }
 
-    private static int countOpticalDuplicates(OpticalDuplicateFinder finder, List<Pair> scored, Pair best, List<Tuple2<IndexPair<String>,Integer>> opticalDuplicateList) {
+    private static int countOpticalDuplicates(OpticalDuplicateFinder finder, List<OpticalDuplicateCandidate> scored, OpticalDuplicateCandidate best, List<Tuple2<IndexPair<String>,Integer>> opticalDuplicateList) {
         final boolean[] opticalDuplicateFlags = finder.findOpticalDuplicates(scored, best);
         int numOpticalDuplicates = 0;
         for (int i = 0; i < opticalDuplicateFlags.length; i++) {
@@ -386,31 +662,12 @@ public class MarkDuplicatesSparkUtils {
         return numOpticalDuplicates;
     }
 
-    /**
-     * If there are fragments with no non-fragments overlapping at a site, select the best one according to PAIRED_ENDS_SCORE_COMPARATOR
-     */
-    private static Tuple2<IndexPair<String>, Integer> handleFragments(List<MarkDuplicatesSparkRecord> duplicateFragmentGroup, OpticalDuplicateFinder finder) {
-        return duplicateFragmentGroup.stream()
-                .map(f -> (Fragment)f)
-                .peek(f -> finder.addLocationInformation(f.getName(), f))
-                .max(PAIRED_ENDS_SCORE_COMPARATOR)
-                .map(best -> new Tuple2<>(new IndexPair<>(best.getName(), best.getPartitionIndex()), -1))
-                .orElse(null);
-    }
-
     static JavaPairRDD<String, GATKDuplicationMetrics> generateMetrics(final SAMFileHeader header, final JavaRDD<GATKRead> reads) {
         return reads.mapToPair(read -> {
                     final String library = LibraryIdGenerator.getLibraryName(header, read.getReadGroup());
                     GATKDuplicationMetrics metrics = new GATKDuplicationMetrics();
                     metrics.LIBRARY = library;
-                    metrics.updateMetrics(read);
-                    // NOTE: we use the SAMRecord transientAttribute field here specifically to prevent the already
-                    // serialized read from being parsed again here for performance reasons.
-                    if (read.getTransientAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME)!=null) {
-                        // NOTE: there is a safety check above in getReadsGroupedByName()
-                        metrics.READ_PAIR_OPTICAL_DUPLICATES +=
-                                (int)(read.getTransientAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME));
-                    }
+                    updateMetricsForRead(metrics, read);
                     return new Tuple2<>(library, metrics);
                 })
                 .foldByKey(new GATKDuplicationMetrics(), (metricsSum, m) -> {
@@ -421,19 +678,38 @@ public class MarkDuplicatesSparkUtils {
                     }
                     return metricsSum;
                 })
-                .mapValues(metrics -> {
-                    final GATKDuplicationMetrics copy = metrics.copy();
-                    // Divide these by 2 because they are counted for each read
-                    // when they should be counted by pair.
-                    copy.READ_PAIRS_EXAMINED = metrics.READ_PAIRS_EXAMINED / 2;
-                    copy.READ_PAIR_DUPLICATES = metrics.READ_PAIR_DUPLICATES / 2;
-
-                    copy.calculateDerivedFields();
-                    if (copy.ESTIMATED_LIBRARY_SIZE == null) {
-                        copy.ESTIMATED_LIBRARY_SIZE = 0L;
-                    }
-                    return copy;
-                });
+                .mapValues(MarkDuplicatesSparkUtils::finalizeMetrics);
+    }
+
+    /**
+     * Adds a single duplicate marked read to the metrics for its library.
+     */
+    public static void updateMetricsForRead(final GATKDuplicationMetrics metrics, final GATKRead read) {
+        metrics.updateMetrics(read);
+        // NOTE: we use the SAMRecord transientAttribute field here specifically to prevent the already
+        // serialized read from being parsed again here for performance reasons.
+        if (read.getTransientAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME)!=null) {
+            // NOTE: there is a safety check above in getReadsGroupedByName()
+            metrics.READ_PAIR_OPTICAL_DUPLICATES +=
+                    (int)(read.getTransientAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME));
+        }
+    }
+
+    /**
+     * Returns a copy of the summed metrics for a library with the per pair counts and derived fields filled in.
+     */
+    public static GATKDuplicationMetrics finalizeMetrics(final GATKDuplicationMetrics metrics) {
+        final GATKDuplicationMetrics copy = metrics.copy();
+        // Divide these by 2 because they are counted for each read
+        // when they should be counted by pair.
+        copy.READ_PAIRS_EXAMINED = metrics.READ_PAIRS_EXAMINED / 2;
+        copy.READ_PAIR_DUPLICATES = metrics.READ_PAIR_DUPLICATES / 2;
+
+        copy.calculateDerivedFields();
+        if (copy.ESTIMATED_LIBRARY_SIZE == null) {
+            copy.ESTIMATED_LIBRARY_SIZE = 0L;
+        }
+        return copy;
     }
 
     /**
@@ -442,9 +718,17 @@ public class MarkDuplicatesSparkUtils {
      * @param result metrics object, potentially pre-initialized with headers,
      */
     public static void saveMetricsRDD(final MetricsFile<GATKDuplicationMetrics, Double> result, final SAMFileHeader header, final JavaPairRDD<String, GATKDuplicationMetrics> metricsRDD, final String metricsOutputPath) {
+        saveMetrics(result, header, metricsRDD.collectAsMap(), metricsOutputPath);
+    }
+
+    /**
+     * Saves the finalized metrics for each library to a file.
+     * Note: the SamFileHeader is needed in order to include libraries that didn't have any duplicates.
+     * @param result metrics object, potentially pre-initialized with headers,
+     */
+    public static void saveMetrics(final MetricsFile<GATKDuplicationMetrics, Double> result, final SAMFileHeader header, final Map<String, GATKDuplicationMetrics> nonEmptyMetricsByLibrary, final String metricsOutputPath) {
         final LibraryIdGenerator libraryIdGenerator = new LibraryIdGenerator(header);
 
-        final Map<String, GATKDuplicationMetrics> nonEmptyMetricsByLibrary = metricsRDD.collectAsMap();           //Unknown Library
         final Map<String, GATKDuplicationMetrics> emptyMapByLibrary = libraryIdGenerator.getMetricsByLibraryMap();//with null
 
         final List<String> sortedListOfLibraryNames = new ArrayList<>(Sets.union(emptyMapByLibrary.keySet(), nonEmptyMetricsByLibrary.keySet()));
@@ -112,6 +112,45 @@ public final class LargeLongHopscotchSet implements Serializable {
         return sets.get(setIndexOf(hash)).contains(key, hash);
     }
 
+    /**
+     * Tests the first {@code length} values, setting {@code result[i]} to whether the ith value is in the set.
+     * Rather than in their given order, the queries are answered one partition at a time and in bucket order within
+     * each partition, so that a large batch reads each partition's memory once, sequentially, instead of missing
+     * the cache on nearly every query.
+     */
+    public void containsEach(final long[] vals, final int length, final boolean[] result) {
+        Utils.validateArg(length >= 0 && length <= vals.length && length <= result.length, "Invalid batch length");
+        final int[] hashes = new int[length];
+        final int[] partitionStarts = new int[numSets + 1];
+        for (int i = 0; i < length; i++) {
+            hashes[i] = longHash(vals[i]);
+            partitionStarts[setIndexOf(hashes[i]) + 1]++;
+        }
+        for (int s = 0; s < numSets; s++) {
+            partitionStarts[s + 1] += partitionStarts[s];
+        }
+
+        // group the queries by partition, each one as its bucket index in the high bits and query index in the low bits
+        final long[] queries = new long[length];
+        final int[] nextQuery = Arrays.copyOf(partitionStarts, numSets);
+        for (int i = 0; i < length; i++) {
+            final int setIndex = setIndexOf(hashes[i]);
+            queries[nextQuery[setIndex]++] = ((long) sets.get(setIndex).bucketIndexOf(hashes[i]) << 32) | i;
+        }
+
+        for (int s = 0; s < numSets; s++) {
+            final int start = partitionStarts[s];
+            final int end = partitionStarts[s + 1];
+            if (start == end) continue;
+            Arrays.sort(queries, start, end);
+            final LongHopscotchSet set = sets.get(s);
+            for (int q = start; q < end; q++) {
+                final int i = (int) queries[q];
+                result[i] = vals[i] >= 0 && set.contains(vals[i], hashes[i]);
+            }
+        }
+    }
+
     public boolean containsAll(final long[] vals) {
         for (final long val : vals) {
             if (!contains(val))
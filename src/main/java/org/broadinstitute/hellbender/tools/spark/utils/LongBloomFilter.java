@@ -41,6 +41,10 @@ public final class LongBloomFilter {
 
     private final static long HASH_SEED_2 = 0x6cebe6dca7f118a6L;
 
+    // batched queries are ordered by bit index to the nearest 4096 bits (512 bytes), which leaves room for the query
+    // index next to it in a long for filters of up to 2^43 bits
+    private final static int BATCH_ORDER_SHIFT = 12;
+
     public LongBloomFilter(final long numElements, final double fpp) {
         Utils.validateArg(numElements > 0, "Number of elements must be greater than 0");
         Utils.validateArg(fpp > 0 && fpp < 1, "False positive probability must be between 0 and 1");
@@ -161,6 +165,49 @@ public final class LongBloomFilter {
         return true;
     }
 
+    /**
+     * Tests the first {@code length} values, setting {@code result[i]} to whether the ith value may be in the set.
+     * Rather than probing every hash of one value before moving to the next, the queries are answered in rounds, one
+     * per hash function, and each round probes the still undecided queries in bit index order.  Each round then reads
+     * the filter sequentially instead of missing the cache on nearly every probe, and as most absent values are ruled
+     * out by their first probes, later rounds are small.
+     */
+    public void containsEach(final long[] vals, final int length, final boolean[] result) {
+        Utils.validateArg(length >= 0 && length <= vals.length && length <= result.length, "Invalid batch length");
+        final long[] hash1 = new long[length];
+        final long[] hash2 = new long[length];
+        for (int i = 0; i < length; i++) {
+            hash1[i] = SVUtils.fnvLong64(vals[i]);
+            hash2[i] = SVUtils.fnvLong64(HASH_SEED_2, vals[i]);
+            result[i] = true;
+        }
+
+        // each undecided query as the coarse bit index of its next probe in the high bits and its index in the low bits
+        final long[] probes = new long[length];
+        int numProbes = length;
+        for (int i = 0; i < length; i++) {
+            probes[i] = i;
+        }
+        for (int h = 0; h < numHashes && numProbes > 0; h++) {
+            for (int p = 0; p < numProbes; p++) {
+                final int i = (int) probes[p];
+                probes[p] = ((applyHashFunction(h, hash1[i], hash2[i]) >>> BATCH_ORDER_SHIFT) << 32) | i;
+            }
+            Arrays.sort(probes, 0, numProbes);
+            int numUndecided = 0;
+            for (int p = 0; p < numProbes; p++) {
+                final int i = (int) probes[p];
+                final long bitIndex = applyHashFunction(h, hash1[i], hash2[i]);
+                if ((bucketMask(bitIndex) & buckets[bitIndexToBucketArray(bitIndex)][bitIndexToBucketIndex(bitIndex)]) == 0) {
+                    result[i] = false;
+                } else {
+                    probes[numUndecided++] = i;
+                }
+            }
+            numProbes = numUndecided;
+        }
+    }
+
     public void addAll(final long[] entryValues) {
         for (final long val : entryValues) {
             add(val);
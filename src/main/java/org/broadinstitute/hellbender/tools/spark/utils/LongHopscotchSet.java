@@ -202,6 +202,13 @@ public final class LongHopscotchSet implements Serializable {
         return size;
     }
 
+    /**
+     * Returns the index of the bucket where an entry with the given hash value would be looked up first
+     */
+    public final int bucketIndexOf(final int hashValue) {
+        return hashToIndex(hashValue);
+    }
+
     private int valueToIndex(final long entryVal) {
         return hashToIndex(longHash(entryVal));
     }
@@ -0,0 +1,11 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+/**
+ * Consumer-like interface for the entries of collections keyed on a pair of primitive long's
+ */
+@FunctionalInterface
+public interface LongPairIntConsumer {
+
+    void accept( long keyHigh, long keyLow, int value );
+
+}
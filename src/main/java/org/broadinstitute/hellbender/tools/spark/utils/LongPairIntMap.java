@@ -0,0 +1,204 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.annotations.VisibleForTesting;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+
+/**
+ * Map from a pair of longs onto an int, for uses like counting 128-bit kmers (e.g., SVKmerLong's two values).
+ * Does the job of a HopscotchMap&lt;SVKmer, Integer, KmerAndCount&gt; without an object per entry: keys and values
+ * are held in parallel primitive arrays, and collisions are resolved by linear probing.
+ * <p>
+ * The high long of each key must be non-negative! We set its MSB to say that a bucket is not empty.
+ */
+@DefaultSerializer(LongPairIntMap.Serializer.class)
+public final class LongPairIntMap implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @VisibleForTesting
+    static final double LOAD_FACTOR = .75;
+    private static final long USED_BUCKET = Long.MIN_VALUE;
+    private int capacity;
+    private int size;
+    private long[] keysHigh; // MSB set if the bucket is in use
+    private long[] keysLow;
+    private int[] values;
+
+    /**
+     * make a small LongPairIntMap
+     */
+    public LongPairIntMap() {
+        this(12000);
+    }
+
+    /**
+     * make a LongPairIntMap that can hold a specified number of entries without resizing
+     */
+    public LongPairIntMap( final int numElements ) {
+        allocate(SetSizeUtils.getLegalSizeAbove(numElements, LOAD_FACTOR));
+    }
+
+    private LongPairIntMap( final Kryo kryo, final Input stream ) {
+        allocate(stream.readInt());
+        int nElements = stream.readInt();
+        while ( nElements-- > 0 ) {
+            final long keyHigh = stream.readLong();
+            final long keyLow = stream.readLong();
+            put(keyHigh, keyLow, stream.readInt());
+        }
+    }
+
+    private void serialize( final Kryo kryo, final Output stream ) {
+        stream.writeInt(capacity);
+        stream.writeInt(size);
+        forEach((keyHigh, keyLow, value) -> {
+            stream.writeLong(keyHigh);
+            stream.writeLong(keyLow);
+            stream.writeInt(value);
+        });
+    }
+
+    public int size() { return size; }
+
+    public int capacity() { return capacity; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public boolean containsKey( final long keyHigh, final long keyLow ) {
+        return keyHigh >= 0 && bucketOf(keyHigh, keyLow) >= 0;
+    }
+
+    /**
+     * Returns the value associated with the key, or defaultValue if the key isn't in the map
+     */
+    public int get( final long keyHigh, final long keyLow, final int defaultValue ) {
+        if ( keyHigh < 0 ) return defaultValue;
+        final int bucket = bucketOf(keyHigh, keyLow);
+        return bucket >= 0 ? values[bucket] : defaultValue;
+    }
+
+    /**
+     * Associates a value with the key, replacing any previous value
+     */
+    public void put( final long keyHigh, final long keyLow, final int value ) {
+        values[insertionBucketOf(keyHigh, keyLow)] = value;
+    }
+
+    /**
+     * Adds delta to the value associated with the key (which is treated as 0 if the key is new), and returns the sum
+     */
+    public int addTo( final long keyHigh, final long keyLow, final int delta ) {
+        final int bucket = insertionBucketOf(keyHigh, keyLow);
+        values[bucket] += delta;
+        return values[bucket];
+    }
+
+    public void clear() {
+        for ( int idx = 0; idx != capacity; ++idx ) {
+            keysHigh[idx] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Passes each key and its value to the consumer, in no particular order
+     */
+    public void forEach( final LongPairIntConsumer consumer ) {
+        for ( int idx = 0; idx != capacity; ++idx ) {
+            final long keyHigh = keysHigh[idx];
+            if ( keyHigh != 0 ) consumer.accept(keyHigh & ~USED_BUCKET, keysLow[idx], values[idx]);
+        }
+    }
+
+    /**
+     * Returns the index of the bucket holding the key, or -1 if there is none
+     */
+    private int bucketOf( final long keyHigh, final long keyLow ) {
+        final long entryHigh = keyHigh | USED_BUCKET;
+        int bucket = homeBucket(keyHigh, keyLow, capacity);
+        long current;
+        while ( (current = keysHigh[bucket]) != 0 ) {
+            if ( current == entryHigh && keysLow[bucket] == keyLow ) return bucket;
+            if ( ++bucket == capacity ) bucket = 0;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the bucket holding the key, claiming an empty bucket with a value of 0 if there is none
+     */
+    private int insertionBucketOf( final long keyHigh, final long keyLow ) {
+        Utils.validateArg(keyHigh >= 0, "Tried to add a key with a negative high value to LongPairIntMap");
+        final long entryHigh = keyHigh | USED_BUCKET;
+        int bucket = homeBucket(keyHigh, keyLow, capacity);
+        long current;
+        while ( (current = keysHigh[bucket]) != 0 ) {
+            if ( current == entryHigh && keysLow[bucket] == keyLow ) return bucket;
+            if ( ++bucket == capacity ) bucket = 0;
+        }
+        if ( size + 1 > capacity * LOAD_FACTOR ) {
+            resize();
+            return insertionBucketOf(keyHigh, keyLow);
+        }
+        keysHigh[bucket] = entryHigh;
+        keysLow[bucket] = keyLow;
+        values[bucket] = 0;
+        size += 1;
+        return bucket;
+    }
+
+    private void allocate( final int newCapacity ) {
+        capacity = newCapacity;
+        size = 0;
+        keysHigh = new long[capacity];
+        keysLow = new long[capacity];
+        values = new int[capacity];
+    }
+
+    private void resize() {
+        final int oldCapacity = capacity;
+        final long[] oldKeysHigh = keysHigh;
+        final long[] oldKeysLow = keysLow;
+        final int[] oldValues = values;
+        allocate(SetSizeUtils.getLegalSizeAbove(oldCapacity));
+        for ( int idx = 0; idx != oldCapacity; ++idx ) {
+            final long entryHigh = oldKeysHigh[idx];
+            if ( entryHigh != 0 ) {
+                int bucket = homeBucket(entryHigh & ~USED_BUCKET, oldKeysLow[idx], capacity);
+                while ( keysHigh[bucket] != 0 ) {
+                    if ( ++bucket == capacity ) bucket = 0;
+                }
+                keysHigh[bucket] = entryHigh;
+                keysLow[bucket] = oldKeysLow[idx];
+                values[bucket] = oldValues[idx];
+                size += 1;
+            }
+        }
+    }
+
+    /**
+     * The same hash that SVKmerLong uses, reduced to a bucket index.
+     */
+    static int homeBucket( final long keyHigh, final long keyLow, final int capacity ) {
+        final int hash = (int)SVUtils.fnvLong64(SVUtils.fnvLong64(keyHigh), keyLow);
+        return (hash & Integer.MAX_VALUE) % capacity;
+    }
+
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<LongPairIntMap> {
+        @Override
+        public void write( final Kryo kryo, final Output output, final LongPairIntMap map ) {
+            map.serialize(kryo, output);
+        }
+
+        @Override
+        public LongPairIntMap read( final Kryo kryo, final Input input, final Class<LongPairIntMap> klass ) {
+            return new LongPairIntMap(kryo, input);
+        }
+    }
+}
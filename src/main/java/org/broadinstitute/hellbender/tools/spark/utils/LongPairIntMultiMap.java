@@ -0,0 +1,246 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.annotations.VisibleForTesting;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.function.IntConsumer;
+
+/**
+ * Multimap from a pair of longs onto ints, in which each key/value pair appears at most once.
+ * Does the job of a HopscotchUniqueMultiMap&lt;SVKmer, Integer, KmerAndInterval&gt; without an object per entry:
+ * each entry is a (keyHigh, keyLow, value) triple held in parallel primitive arrays, and collisions are resolved by
+ * linear probing, so that all the values for a key lie in the run of occupied buckets that follows its home bucket.
+ * <p>
+ * The high long of each key must be non-negative! We set its MSB to say that a bucket is not empty.
+ */
+@DefaultSerializer(LongPairIntMultiMap.Serializer.class)
+public final class LongPairIntMultiMap implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @VisibleForTesting
+    static final double LOAD_FACTOR = .75;
+    private static final long USED_BUCKET = Long.MIN_VALUE;
+    private int capacity;
+    private int size;
+    private long[] keysHigh; // MSB set if the bucket is in use
+    private long[] keysLow;
+    private int[] values;
+
+    /**
+     * make a small LongPairIntMultiMap
+     */
+    public LongPairIntMultiMap() {
+        this(12000);
+    }
+
+    /**
+     * make a LongPairIntMultiMap that can hold a specified number of entries without resizing
+     */
+    public LongPairIntMultiMap( final int numElements ) {
+        allocate(SetSizeUtils.getLegalSizeAbove(numElements, LOAD_FACTOR));
+    }
+
+    private LongPairIntMultiMap( final Kryo kryo, final Input stream ) {
+        allocate(stream.readInt());
+        int nElements = stream.readInt();
+        while ( nElements-- > 0 ) {
+            final long keyHigh = stream.readLong();
+            final long keyLow = stream.readLong();
+            add(keyHigh, keyLow, stream.readInt());
+        }
+    }
+
+    private void serialize( final Kryo kryo, final Output stream ) {
+        stream.writeInt(capacity);
+        stream.writeInt(size);
+        forEach((keyHigh, keyLow, value) -> {
+            stream.writeLong(keyHigh);
+            stream.writeLong(keyLow);
+            stream.writeInt(value);
+        });
+    }
+
+    public int size() { return size; }
+
+    public int capacity() { return capacity; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * Adds a key/value pair, unless it's already present.  Returns true if the pair was added.
+     */
+    public boolean add( final long keyHigh, final long keyLow, final int value ) {
+        Utils.validateArg(keyHigh >= 0, "Tried to add a key with a negative high value to LongPairIntMultiMap");
+        final long entryHigh = keyHigh | USED_BUCKET;
+        int bucket = LongPairIntMap.homeBucket(keyHigh, keyLow, capacity);
+        long current;
+        while ( (current = keysHigh[bucket]) != 0 ) {
+            if ( current == entryHigh && keysLow[bucket] == keyLow && values[bucket] == value ) return false;
+            if ( ++bucket == capacity ) bucket = 0;
+        }
+        if ( size + 1 > capacity * LOAD_FACTOR ) {
+            resize();
+            return add(keyHigh, keyLow, value);
+        }
+        keysHigh[bucket] = entryHigh;
+        keysLow[bucket] = keyLow;
+        values[bucket] = value;
+        size += 1;
+        return true;
+    }
+
+    public boolean contains( final long keyHigh, final long keyLow ) {
+        return keyHigh >= 0 && findBucket(keyHigh, keyLow) >= 0;
+    }
+
+    public boolean contains( final long keyHigh, final long keyLow, final int value ) {
+        if ( keyHigh < 0 ) return false;
+        final long entryHigh = keyHigh | USED_BUCKET;
+        int bucket = LongPairIntMap.homeBucket(keyHigh, keyLow, capacity);
+        long current;
+        while ( (current = keysHigh[bucket]) != 0 ) {
+            if ( current == entryHigh && keysLow[bucket] == keyLow && values[bucket] == value ) return true;
+            if ( ++bucket == capacity ) bucket = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Passes each value associated with the key to the consumer
+     */
+    public void findEach( final long keyHigh, final long keyLow, final IntConsumer consumer ) {
+        if ( keyHigh < 0 ) return;
+        final long entryHigh = keyHigh | USED_BUCKET;
+        int bucket = LongPairIntMap.homeBucket(keyHigh, keyLow, capacity);
+        long current;
+        while ( (current = keysHigh[bucket]) != 0 ) {
+            if ( current == entryHigh && keysLow[bucket] == keyLow ) consumer.accept(values[bucket]);
+            if ( ++bucket == capacity ) bucket = 0;
+        }
+    }
+
+    /**
+     * Returns the number of values associated with the key
+     */
+    public int count( final long keyHigh, final long keyLow ) {
+        final int[] count = new int[1];
+        findEach(keyHigh, keyLow, value -> count[0] += 1);
+        return count[0];
+    }
+
+    /**
+     * Removes all the values associated with the key.  Returns the number of entries removed.
+     */
+    public int removeEach( final long keyHigh, final long keyLow ) {
+        if ( keyHigh < 0 ) return 0;
+        int nRemoved = 0;
+        int bucket;
+        while ( (bucket = findBucket(keyHigh, keyLow)) >= 0 ) {
+            removeAtBucket(bucket);
+            nRemoved += 1;
+        }
+        return nRemoved;
+    }
+
+    public void clear() {
+        for ( int idx = 0; idx != capacity; ++idx ) {
+            keysHigh[idx] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Passes each key/value pair to the consumer, in no particular order
+     */
+    public void forEach( final LongPairIntConsumer consumer ) {
+        for ( int idx = 0; idx != capacity; ++idx ) {
+            final long keyHigh = keysHigh[idx];
+            if ( keyHigh != 0 ) consumer.accept(keyHigh & ~USED_BUCKET, keysLow[idx], values[idx]);
+        }
+    }
+
+    /**
+     * Returns the index of the first bucket holding the key, or -1 if there is none
+     */
+    private int findBucket( final long keyHigh, final long keyLow ) {
+        final long entryHigh = keyHigh | USED_BUCKET;
+        int bucket = LongPairIntMap.homeBucket(keyHigh, keyLow, capacity);
+        long current;
+        while ( (current = keysHigh[bucket]) != 0 ) {
+            if ( current == entryHigh && keysLow[bucket] == keyLow ) return bucket;
+            if ( ++bucket == capacity ) bucket = 0;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties a bucket, then moves later entries in its run back into the hole whenever that keeps them reachable
+     * from their home bucket, so that lookups can continue to stop at the first empty bucket.
+     */
+    private void removeAtBucket( final int bucket ) {
+        int hole = bucket;
+        int next = bucket;
+        while ( true ) {
+            if ( ++next == capacity ) next = 0;
+            final long entryHigh = keysHigh[next];
+            if ( entryHigh == 0 ) break;
+            final int home = LongPairIntMap.homeBucket(entryHigh & ~USED_BUCKET, keysLow[next], capacity);
+            // the entry can move if its home doesn't lie cyclically in (hole, next]
+            final boolean homeInRange = hole < next ? home > hole && home <= next : home > hole || home <= next;
+            if ( !homeInRange ) {
+                keysHigh[hole] = entryHigh;
+                keysLow[hole] = keysLow[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keysHigh[hole] = 0;
+        size -= 1;
+    }
+
+    private void allocate( final int newCapacity ) {
+        capacity = newCapacity;
+        size = 0;
+        keysHigh = new long[capacity];
+        keysLow = new long[capacity];
+        values = new int[capacity];
+    }
+
+    private void resize() {
+        final int oldCapacity = capacity;
+        final long[] oldKeysHigh = keysHigh;
+        final long[] oldKeysLow = keysLow;
+        final int[] oldValues = values;
+        allocate(SetSizeUtils.getLegalSizeAbove(oldCapacity));
+        for ( int idx = 0; idx != oldCapacity; ++idx ) {
+            final long entryHigh = oldKeysHigh[idx];
+            if ( entryHigh != 0 ) {
+                int bucket = LongPairIntMap.homeBucket(entryHigh & ~USED_BUCKET, oldKeysLow[idx], capacity);
+                while ( keysHigh[bucket] != 0 ) {
+                    if ( ++bucket == capacity ) bucket = 0;
+                }
+                keysHigh[bucket] = entryHigh;
+                keysLow[bucket] = oldKeysLow[idx];
+                values[bucket] = oldValues[idx];
+                size += 1;
+            }
+        }
+    }
+
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<LongPairIntMultiMap> {
+        @Override
+        public void write( final Kryo kryo, final Output output, final LongPairIntMultiMap multiMap ) {
+            multiMap.serialize(kryo, output);
+        }
+
+        @Override
+        public LongPairIntMultiMap read( final Kryo kryo, final Input input, final Class<LongPairIntMultiMap> klass ) {
+            return new LongPairIntMultiMap(kryo, input);
+        }
+    }
+}
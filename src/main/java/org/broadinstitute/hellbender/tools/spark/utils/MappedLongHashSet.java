@@ -0,0 +1,253 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of non-negative longs stored as an open-addressing hash table (with linear probing) in a file, which is
+ * memory-mapped rather than loaded into the heap. Opened read-only, the set is safe to query from any number of
+ * threads, and processes that open the same file share its pages through the operating system's page cache.
+ * <p>
+ * The table may start at an offset in the file, so that callers can store their own header before it. Its layout is
+ * a header of three little-endian longs (a format identifier, the capacity and the number of elements) followed by
+ * one little-endian long per bucket. Empty buckets are 0 and used buckets have their most significant bit set,
+ * which is why only non-negative values may be added.
+ * <p>
+ * The number of buckets is fixed when the set is created, so the expected number of elements must be known up front.
+ */
+public final class MappedLongHashSet implements AutoCloseable {
+
+    @VisibleForTesting
+    static final double LOAD_FACTOR = .75;
+    public static final int HEADER_BYTES = 3 * Long.BYTES;
+    private static final long FORMAT_ID = 0x4d4c4853_00000001L; // "MLHS" and version 1
+    private static final long USED_BUCKET = Long.MIN_VALUE;
+
+    // each mapped chunk holds 2^27 buckets (1 GiB), below the 2 GiB limit of a MappedByteBuffer
+    private static final int LOG2_BUCKETS_PER_CHUNK = 27;
+    private static final long BUCKET_IN_CHUNK_MASK = (1L << LOG2_BUCKETS_PER_CHUNK) - 1;
+
+    // batched queries are ordered by bucket to the nearest 256 buckets (2 KiB), which leaves room for the query index
+    // next to it in a long for sets of up to 2^39 buckets
+    private static final int BATCH_ORDER_SHIFT = 8;
+
+    private final Path path;
+    private final long capacity;
+    private final MappedByteBuffer[] mappedChunks;
+    private final LongBuffer[] chunks;
+    private final MappedByteBuffer header;
+    private final boolean writable;
+    private long size;
+
+    private MappedLongHashSet(final Path path, final FileChannel channel, final long offset, final long capacity,
+                              final long size, final boolean writable) throws IOException {
+        this.path = path;
+        this.capacity = capacity;
+        this.size = size;
+        this.writable = writable;
+        final FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        header = channel.map(mode, offset, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        final int numChunks = (int) ((capacity + BUCKET_IN_CHUNK_MASK) >>> LOG2_BUCKETS_PER_CHUNK);
+        mappedChunks = new MappedByteBuffer[numChunks];
+        chunks = new LongBuffer[numChunks];
+        for (int i = 0; i < numChunks; i++) {
+            final long firstBucket = (long) i << LOG2_BUCKETS_PER_CHUNK;
+            final long bucketsInChunk = Math.min(capacity - firstBucket, 1L << LOG2_BUCKETS_PER_CHUNK);
+            mappedChunks[i] = channel.map(mode, offset + HEADER_BYTES + firstBucket * Long.BYTES, bucketsInChunk * Long.BYTES);
+            chunks[i] = mappedChunks[i].order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+    }
+
+    /**
+     * Creates a new, empty set able to hold the given number of elements, replacing any contents of the file. Bytes
+     * before {@code offset} are left zeroed for the caller to fill. The set must be closed for its size to be saved.
+     */
+    public static MappedLongHashSet create(final Path path, final long offset, final long numElements) {
+        Utils.nonNull(path);
+        Utils.validateArg(offset >= 0, "Offset must not be negative");
+        Utils.validateArg(numElements > 0, "Number of elements must be greater than 0");
+        final long capacity = Math.max((long) Math.ceil(numElements / LOAD_FACTOR), numElements + 1);
+        try (final RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(0);
+            file.setLength(offset + HEADER_BYTES + capacity * Long.BYTES);
+            final MappedLongHashSet set = new MappedLongHashSet(path, file.getChannel(), offset, capacity, 0, true);
+            set.header.putLong(0, FORMAT_ID);
+            set.header.putLong(Long.BYTES, capacity);
+            return set;
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(path.toString(), e);
+        }
+    }
+
+    /**
+     * Maps a set previously written with {@link #create} read-only.
+     */
+    public static MappedLongHashSet open(final Path path, final long offset) {
+        Utils.nonNull(path);
+        Utils.validateArg(offset >= 0, "Offset must not be negative");
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, offset + header.position()) >= 0) {}
+            if (header.hasRemaining() || header.getLong(0) != FORMAT_ID) {
+                throw new UserException.MalformedFile(path, "Not a memory-mapped hash set");
+            }
+            final long capacity = header.getLong(Long.BYTES);
+            final long size = header.getLong(2 * Long.BYTES);
+            if (capacity <= 0 || size < 0 || size > capacity || channel.size() < offset + HEADER_BYTES + capacity * Long.BYTES) {
+                throw new UserException.MalformedFile(path, "Memory-mapped hash set is truncated or corrupt");
+            }
+            return new MappedLongHashSet(path, channel, offset, capacity, size, false);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(path, e);
+        }
+    }
+
+    public boolean add(final long entryValue) {
+        Utils.validateArg(entryValue >= 0, "Tried to add negative entry to MappedLongHashSet");
+        Utils.validate(writable, "Tried to add to a read-only MappedLongHashSet");
+        final long entry = entryValue | USED_BUCKET;
+        long bucket = bucketOf(entryValue);
+        for (long probes = 0; probes < capacity; probes++) {
+            final long current = get(bucket);
+            if (current == entry) {
+                return false;
+            } else if (current == 0) {
+                chunks[(int) (bucket >>> LOG2_BUCKETS_PER_CHUNK)].put((int) (bucket & BUCKET_IN_CHUNK_MASK), entry);
+                size++;
+                return true;
+            }
+            if (++bucket == capacity) bucket = 0;
+        }
+        throw new IllegalStateException("MappedLongHashSet is full, capacity is " + capacity);
+    }
+
+    public boolean contains(final long key) {
+        return contains(key, bucketOf(key));
+    }
+
+    private boolean contains(final long key, final long firstBucket) {
+        if (key < 0) return false;
+        final long entry = key | USED_BUCKET;
+        long bucket = firstBucket;
+        for (long probes = 0; probes < capacity; probes++) {
+            final long current = get(bucket);
+            if (current == entry) {
+                return true;
+            } else if (current == 0) {
+                return false;
+            }
+            if (++bucket == capacity) bucket = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Tests the first {@code length} values, setting {@code result[i]} to whether the ith value is in the set.
+     * Rather than in their given order, the queries are answered in bucket order, so that a large batch reads the
+     * mapped file sequentially, touching each page once, instead of faulting in a random page per query.
+     */
+    public void containsEach(final long[] vals, final int length, final boolean[] result) {
+        Utils.validateArg(length >= 0 && length <= vals.length && length <= result.length, "Invalid batch length");
+        final long[] buckets = new long[length];
+
+        // each query as its coarse bucket in the high bits and its index in the low bits
+        final long[] queries = new long[length];
+        for (int i = 0; i < length; i++) {
+            buckets[i] = bucketOf(vals[i]);
+            queries[i] = ((buckets[i] >>> BATCH_ORDER_SHIFT) << 32) | i;
+        }
+        Arrays.sort(queries);
+        for (final long query : queries) {
+            final int i = (int) query;
+            result[i] = contains(vals[i], buckets[i]);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public LongIterator iterator() {
+        return new MappedLongHashSetIterator();
+    }
+
+    /**
+     * Saves the size of a writable set and flushes it to disk. Read-only sets need not be closed: the mapping is
+     * released once the set is garbage-collected.
+     */
+    @Override
+    public void close() {
+        if (writable) {
+            for (final MappedByteBuffer chunk : mappedChunks) {
+                chunk.force();
+            }
+            header.putLong(2 * Long.BYTES, size);
+            header.force();
+        }
+    }
+
+    private long bucketOf(final long value) {
+        return Long.remainderUnsigned(SVUtils.fnvLong64(value), capacity);
+    }
+
+    private long get(final long bucket) {
+        return chunks[(int) (bucket >>> LOG2_BUCKETS_PER_CHUNK)].get((int) (bucket & BUCKET_IN_CHUNK_MASK));
+    }
+
+    private final class MappedLongHashSetIterator implements LongIterator {
+        private long bucket = -1;
+
+        private MappedLongHashSetIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return bucket < capacity;
+        }
+
+        @Override
+        public long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("MappedLongHashSetIterator is exhausted.");
+            }
+            final long result = get(bucket) & Long.MAX_VALUE;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            do {
+                bucket++;
+            } while (bucket < capacity && get(bucket) == 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedLongHashSet(" + path + ", size=" + size + ", capacity=" + capacity + ")";
+    }
+}
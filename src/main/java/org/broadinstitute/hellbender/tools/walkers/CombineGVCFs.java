@@ -9,6 +9,7 @@ import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import htsjdk.variant.vcf.VCFStandardHeaderLines;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
@@ -16,6 +17,7 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.DbsnpArgumentCollection;
 import org.broadinstitute.hellbender.cmdline.programgroups.ShortVariantDiscoveryProgramGroup;
+import org.broadinstitute.hellbender.engine.IntervalShardedTraversal;
 import org.broadinstitute.hellbender.engine.MultiVariantWalkerGroupedOnStart;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.exceptions.UserException;
@@ -77,8 +79,10 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
 
     private VariantAnnotatorEngine annotationEngine;
     private VariantContextWriter vcfWriter;
+    private VCFHeader vcfHeader;
     private SAMSequenceDictionary sequenceDictionary;
-    private ReferenceConfidenceVariantContextMerger referenceConfidenceVariantContextMerger;
+    // combines the sites of the unsharded traversal
+    private GVCFBlockCombiner combiner;
 
     public static final String BP_RES_LONG_NAME = "convert-to-base-pair-resolution";
     public static final String BREAK_BANDS_LONG_NAME = "break-bands-at-multiples-of";
@@ -132,91 +136,59 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
     @ArgumentCollection
     protected DbsnpArgumentCollection dbsnp = new DbsnpArgumentCollection();
 
-    // State that gets accumulated between calls of apply()
-    private final LinkedList<VariantContext> variantContextsOverlappingCurrentMerge = new LinkedList<>();
-    private final Set<String> samples = new HashSet<>();
-    private SimpleInterval prevPos = null;
-    private byte refAfterPrevPos;
-    private ReferenceContext storedReferenceContext;
+    /**
+     * If greater than 1, split the requested intervals (or the whole reference) into shards of whole contigs, binning
+     * small contigs together, and combine this many shards at once, each with its own input readers and merger. The
+     * output is the same as that of a single thread.
+     * Shards are not cut within a contig because reference blocks are merged across sites, so at most one thread
+     * works on each contig.
+     * Each shard queries its intervals from the inputs, so file inputs must be indexed.
+     */
+    @Advanced
+    @Argument(fullName = IntervalShardedTraversal.WORKER_THREADS_LONG_NAME,
+            doc = "Number of threads to combine shards of the intervals on", optional = true, minValue = 1)
+    private int workerThreads = 1;
 
     @Override
-    public void apply(List<VariantContext> variantContexts, ReferenceContext referenceContext) {
-        // Check that the input variant contexts do not contain MNPs as these may not be properly merged
-        for (final VariantContext ctx : variantContexts) {
-            if (GATKVariantContextUtils.isUnmixedMnpIgnoringNonRef(ctx)) {
-                throw new UserException.BadInput(String.format(
-                        "Combining gVCFs containing MNPs is not supported. %1s contained a MNP at %2s:%3d",
-                        ctx.getSource(), ctx.getContig(), ctx.getStart()));
-            }
-        }
-
-        // If we need to stop at an intermediate site since the last apply, do so (caused by gvcfBlocks, contexts ending, etc...)
-        if (!variantContextsOverlappingCurrentMerge.isEmpty()) {
-            Locatable last = prevPos!=null && prevPos.getContig().equals(variantContextsOverlappingCurrentMerge.get(0).getContig()) ?  prevPos : variantContextsOverlappingCurrentMerge.get(0);
-            // If on a different contig, close out all the queued states on the current contig
-            int end = last.getContig().equals(referenceContext.getWindow().getContig())
-                    ? referenceContext.getInterval().getStart() - 1
-                    : variantContextsOverlappingCurrentMerge.stream().mapToInt(VariantContext::getEnd).max().getAsInt();
-
-            createIntermediateVariants( new SimpleInterval(last.getContig(), last.getStart(), end));
-        }
+    protected int getShardedTraversalThreads() {
+        return workerThreads;
+    }
 
-        mergeWithNewVCs(variantContexts, referenceContext);
+    @Override
+    protected VCFHeader getShardedTraversalOutputHeader() {
+        return vcfHeader;
+    }
 
-        // Update the stored reference if it has a later stop position than the current stored reference
-        if ( (storedReferenceContext == null) ||
-                (!referenceContext.getWindow().contigsMatch(storedReferenceContext.getWindow()) ) ||
-                (storedReferenceContext.getWindow().getEnd() < referenceContext.getWindow().getEnd())) {
-            storedReferenceContext = referenceContext;
-        }
+    @Override
+    protected VariantContextWriter getShardedTraversalOutputWriter() {
+        return vcfWriter;
     }
 
-    /**
-     * calculates if there are any sites in the provided interval where we should expect the tool to create
-     * a new variant context object by calling endPreviousStates() and closes them by providing appropriate reference
-     * information and an empty list of new variant contexts.
-     *
-     */
-    @VisibleForTesting
-    void createIntermediateVariants(SimpleInterval intervalToClose) {
-        resizeReferenceIfNeeded(intervalToClose);
-
-        // Break up the GVCF according to the provided reference blocking scheme
-        // The values returned from getIntermediateStopSites represent a proposed set of stop sites that may include
-        // intervals that are outside the actual interval being closed. These sites are filtered out below.
-        // Note: Precomputing these is really inefficient when large reference blocks are closed with
-        // fine band resolution because it results in very large collections of stop sites (tens or hundreds of millions)
-        // that must subsequently be sorted.
-        final Set<Integer> sitesToStop = getIntermediateStopSites(intervalToClose, multipleAtWhichToBreakBands);
-
-        // If any variant contexts ended (or were spanning deletions) the last context compute where we should stop them
-        for (VariantContext vc : variantContextsOverlappingCurrentMerge) {
-
-            // Asking if the number of alleles > 2 is a shorthand for a variant being present, as we expect <non-ref>
-            // symbolic alleles to be present in all VariantContext. This might also be the case if we saw a spanning
-            // deletion that reads into the current site, as we would expect ReferenceConfidenceVariantContextMerger to
-            // insert symbolic alleles for those spanning variants.
-            if (vc.getNAlleles() > 2) {
-                for (int i = vc.getStart(); i <= vc.getEnd(); i++ ) {
-                    sitesToStop.add(i);
-                }
-            } else if (vc.getEnd() <= intervalToClose.getEnd()) {
-                sitesToStop.add(vc.getEnd());
+    // Each shard gets a combiner of its own. A shard ends at a contig boundary, where the unsharded traversal closes
+    // the blocks of the contig, or at the end of the traversal, where it finishes off the last blocks.
+    @Override
+    protected ShardConsumer makeShardConsumer(final VariantContextWriter writer) {
+        final GVCFBlockCombiner shardCombiner = new GVCFBlockCombiner(writer);
+        return new ShardConsumer() {
+            @Override
+            public void apply(final List<VariantContext> variantContexts, final ReferenceContext referenceContext) {
+                shardCombiner.apply(variantContexts, referenceContext);
             }
-        }
 
-        List<Integer> stoppedLocs = new ArrayList<>(sitesToStop);
-        stoppedLocs.sort(Comparator.naturalOrder());
-
-        // For each stopped loc that is within the interval being closed, create a fake QueuedContextState and pass it to endPreviousStats
-        for (int stoppedLoc : stoppedLocs) {
-            SimpleInterval loc = new SimpleInterval(intervalToClose.getContig(), stoppedLoc, stoppedLoc);
-            if (( stoppedLoc <= intervalToClose.getEnd() && stoppedLoc>= intervalToClose.getStart()) && isWithinInterval(loc)) {
-                byte[] refBases = Arrays.copyOfRange(storedReferenceContext.getBases(), stoppedLoc - storedReferenceContext.getWindow().getStart(), stoppedLoc - storedReferenceContext.getWindow().getStart() + 2);
-                endPreviousStates(loc, refBases, Collections.emptyList(), true);
+            @Override
+            public void finishShard(final boolean isLastShard) {
+                if (isLastShard) {
+                    shardCombiner.finish();
+                } else {
+                    shardCombiner.closeContig();
+                }
             }
-        }
+        };
+    }
 
+    @Override
+    public void apply(List<VariantContext> variantContexts, ReferenceContext referenceContext) {
+        combiner.apply(variantContexts, referenceContext);
     }
 
     // Get any intermediate stop sites based on the break band multiple.
@@ -238,18 +210,6 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
         return sitesToStop;
     }
 
-    /**
-     * Resize {@link #storedReferenceContext} to cover at least as much as intervalToClose
-     * @param intervalToClose
-     */
-    private void resizeReferenceIfNeeded(SimpleInterval intervalToClose) {
-        final int leftEdge = storedReferenceContext.getInterval().getStart() - intervalToClose.getStart();
-        final int rightEdge = intervalToClose.getEnd() - storedReferenceContext.getInterval().getEnd();
-
-        storedReferenceContext.setWindow(Math.max(1, leftEdge), Math.max(1, rightEdge));
-    }
-
-
     @Override
     public void onTraversalStart() {
         if (somaticInput) {
@@ -261,7 +221,7 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
 
         vcfWriter = getVCFWriter();
 
-        referenceConfidenceVariantContextMerger = new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants(), somaticInput, dropSomaticFilteringAnnotations);
+        combiner = new GVCFBlockCombiner(vcfWriter);
 
         //now that we have all the VCF headers, initialize the annotations (this is particularly important to turn off RankSumTest dithering in integration tests)'
         sequenceDictionary = getBestAvailableSequenceDictionary();
@@ -304,195 +264,337 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
         VariantContextWriter writer = createVCFWriter(outputFile);
 
         final Set<String> sampleNameSet = new IndexedSampleList(samples).asSetOfSamples();
-        final VCFHeader vcfHeader = new VCFHeader(headerLines, new TreeSet<>(sampleNameSet));
+        vcfHeader = new VCFHeader(headerLines, new TreeSet<>(sampleNameSet));
         writer.writeHeader(vcfHeader);
 
         return writer;
     }
 
+    private static Set<String> getSamples(List<VariantContext> variantContexts) {
+        Set<String> output = new HashSet<>();
+        for (final VariantContext vc : variantContexts) {
+            output.addAll(vc.getSampleNames());
+        }
+        return output;
+    }
+
     /**
-     * Method which calls endPreviousStates at the appropriate places on the given a new startingStates object
-     * and an OverallState object corresponding to the currently accumulated reads.
+     * Does the given list of VariantContexts contain any with an alternate allele other than <NON_REF>?
      *
-     * @param variantContexts list of variant contexts with the same start position to be reduced
-     * @param referenceContext ReferenceContext object overlapping the provided VariantContexts
+     * @param VCs  list of VariantContexts
+     * @return true if there are one or more variantContexts that contain a true alternate allele, false otherwise
      */
-    public void mergeWithNewVCs(final List<VariantContext> variantContexts, final ReferenceContext referenceContext) {
-        if ( !variantContexts.isEmpty() ) {
-            if ( ! okayToSkipThisSite(variantContexts, referenceContext) ) {
-                SimpleInterval loc = referenceContext.getInterval();
-                if (loc.getStart()-1 > 0) {
-                    endPreviousStates(new SimpleInterval(loc.getContig(), loc.getStart() - 1, loc.getStart() - 1),
-                            Arrays.copyOfRange(referenceContext.getBases(), 1, referenceContext.getWindow().getLengthOnReference()),
-                            variantContexts,
-                            false);
-                }
-            }
-            variantContextsOverlappingCurrentMerge.addAll(variantContexts);
-            for(final VariantContext vc : variantContextsOverlappingCurrentMerge){
-                samples.addAll(vc.getSampleNames());
+    private static boolean containsTrueAltAllele(final List<VariantContext> VCs) {
+
+        for ( final VariantContext vc : VCs ) {
+            if ( vc.getNAlleles() > 2 ) {
+                return true;
             }
         }
+        return false;
     }
 
-    /**
-     * Is it okay to skip the given position?
-     *
-     * @param variantContexts  the query variant contexts representing the current position
-     * @param referenceContext  Reference context object overlapping the variant contexts
-     * @return true if it is okay to skip this position, false otherwise
-     */
-    private boolean okayToSkipThisSite(List<VariantContext> variantContexts, ReferenceContext referenceContext) {
-        Set<String> intersection = new HashSet<>(getSamples(variantContexts));
-        intersection.retainAll(samples);
+    @Override
+    public Object onTraversalSuccess() {
+        if (workerThreads > 1) {
+            // the shards have already finished off their blocks
+            return null;
+        }
+
+        if (!combiner.hasData()) {
+            logger.warn("Error: The requested interval contained no data in source VCF files");
+            return null;
+        }
 
-        //if there's a starting VC with a sample that's already in a current VC, don't skip this position
-        return prevPos != null && referenceContext.getInterval().getStart() == prevPos.getStart() + 1 && intersection.isEmpty();
+        combiner.finish();
+        return null;
     }
 
-    private Set<String> getSamples(List<VariantContext> variantContexts) {
-        Set<String> output = new HashSet<>();
-        for (final VariantContext vc : variantContexts) {
-            output.addAll(vc.getSampleNames());
+    @Override
+    public void closeTool(){
+        if (vcfWriter != null) {
+            vcfWriter.close();
         }
-        return output;
     }
 
     /**
-     * Disrupt the VariantContexts so that they all stop at the given pos, write them out, and put the remainder back in the list.
-     * @param pos   the position for the starting variantContexts
-     * @param variantContexts the current variant contexts with the same starting position
-     * @param forceOutputAtCurrentPosition  indicates whether we output a variant at the current position, independent of VCF start/end, i.e. in BP resolution mode
+     * Merges the groups of variant contexts of one traversal, in order, into reference blocks and variant sites,
+     * writing them to its own writer. The state accumulated between sites lives here so that shards of the traversal
+     * can be combined concurrently.
      */
-    private void endPreviousStates(final SimpleInterval pos, final byte[] refBases, final List<VariantContext> variantContexts, boolean forceOutputAtCurrentPosition) {
-        Set<String> newSamples = getSamples(variantContexts);
+    private final class GVCFBlockCombiner {
+        private final VariantContextWriter writer;
+        private final ReferenceConfidenceVariantContextMerger referenceConfidenceVariantContextMerger;
+
+        // State that gets accumulated between calls of apply()
+        private final LinkedList<VariantContext> variantContextsOverlappingCurrentMerge = new LinkedList<>();
+        private final Set<String> samples = new HashSet<>();
+        private SimpleInterval prevPos = null;
+        private byte refAfterPrevPos;
+        private ReferenceContext storedReferenceContext;
+
+        private GVCFBlockCombiner(final VariantContextWriter writer) {
+            this.writer = writer;
+            referenceConfidenceVariantContextMerger = new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants(), somaticInput, dropSomaticFilteringAnnotations);
+        }
 
-        final byte refBase = refBases[0];
-        //if we're in BP resolution mode or a VC ends at the current position then the reference for the next output VC (refNextBase)
-        // will be advanced one base
-        final byte refNextBase = (forceOutputAtCurrentPosition) ? (refBases.length > 1 ? refBases[1] : (byte)'N' ): refBase;
+        private void apply(List<VariantContext> variantContexts, ReferenceContext referenceContext) {
+            // Check that the input variant contexts do not contain MNPs as these may not be properly merged
+            for (final VariantContext ctx : variantContexts) {
+                if (GATKVariantContextUtils.isUnmixedMnpIgnoringNonRef(ctx)) {
+                    throw new UserException.BadInput(String.format(
+                            "Combining gVCFs containing MNPs is not supported. %1s contained a MNP at %2s:%3d",
+                            ctx.getSource(), ctx.getContig(), ctx.getStart()));
+                }
+            }
 
-        final List<VariantContext> stoppedVCs = new ArrayList<>(variantContextsOverlappingCurrentMerge.size());
+            // If we need to stop at an intermediate site since the last apply, do so (caused by gvcfBlocks, contexts ending, etc...)
+            if (!variantContextsOverlappingCurrentMerge.isEmpty()) {
+                Locatable last = getLastMergedPosition();
+                // If on a different contig, close out all the queued states on the current contig
+                int end = last.getContig().equals(referenceContext.getWindow().getContig())
+                        ? referenceContext.getInterval().getStart() - 1
+                        : variantContextsOverlappingCurrentMerge.stream().mapToInt(VariantContext::getEnd).max().getAsInt();
 
-        for (int i = variantContextsOverlappingCurrentMerge.size() - 1; i >= 0; i-- ) {
-            final VariantContext vc = variantContextsOverlappingCurrentMerge.get(i);
-            //the VC for the previous state will be stopped if its position is previous to the current position or it we've moved to a new contig
-            if ( vc.getStart() <= pos.getStart() || !vc.contigsMatch(pos)) {
+                createIntermediateVariants( new SimpleInterval(last.getContig(), last.getStart(), end));
+            }
 
-                stoppedVCs.add(vc);
+            mergeWithNewVCs(variantContexts, referenceContext);
 
-                // if it was ending anyways, then remove it from the future state
-                // or if ending vc is the same sample as a starting VC, then remove it from the future state
-                if((vc.getEnd() == pos.getStart()) || (variantContexts.size() > 0 && !forceOutputAtCurrentPosition && newSamples.containsAll(vc.getSampleNames()))) {
-                    samples.removeAll(vc.getSampleNames());
-                    variantContextsOverlappingCurrentMerge.remove(i);
-                }
+            // Update the stored reference if it has a later stop position than the current stored reference
+            if ( (storedReferenceContext == null) ||
+                    (!referenceContext.getWindow().contigsMatch(storedReferenceContext.getWindow()) ) ||
+                    (storedReferenceContext.getWindow().getEnd() < referenceContext.getWindow().getEnd())) {
+                storedReferenceContext = referenceContext;
             }
         }
 
-        //output the stopped variantContexts if there is no previous output (state.prevPos == null) or our current position is past
-        // the last write position (state.prevPos)
-        //NOTE: BP resolution with have current position == state.prevPos because it gets output via a different control flow
-        if ( !stoppedVCs.isEmpty() &&  (prevPos == null || IntervalUtils.isAfter(pos,prevPos,sequenceDictionary) )) {
-            final SimpleInterval closingSpot = new SimpleInterval(stoppedVCs.get(0).getContig(), pos.getStart(), pos.getStart());
+        private Locatable getLastMergedPosition() {
+            return prevPos!=null && prevPos.getContig().equals(variantContextsOverlappingCurrentMerge.get(0).getContig()) ?  prevPos : variantContextsOverlappingCurrentMerge.get(0);
+        }
 
-            // we need the specialized merge if the site contains anything other than ref blocks
-            final VariantContext mergedVC;
-            if ( containsTrueAltAllele(stoppedVCs) ) {
-                mergedVC = referenceConfidenceVariantContextMerger.merge(stoppedVCs, closingSpot, refBase, false, false);
-            } else {
-                mergedVC = referenceBlockMerge(stoppedVCs, pos.getStart());
+        /**
+         * Close out all the queued states on the current contig, as {@link #apply} does when the next site is on
+         * another contig.
+         */
+        private void closeContig() {
+            if (!variantContextsOverlappingCurrentMerge.isEmpty()) {
+                final Locatable last = getLastMergedPosition();
+                createIntermediateVariants(new SimpleInterval(last.getContig(), last.getStart(),
+                        variantContextsOverlappingCurrentMerge.stream().mapToInt(VariantContext::getEnd).max().getAsInt()));
             }
-
-            vcfWriter.add(mergedVC);
-            prevPos = closingSpot;
-            refAfterPrevPos = refNextBase;
         }
-    }
 
-    /**
-     * Combine a list of reference block VariantContexts.
-     * We can't use GATKVariantContextUtils.simpleMerge() because it is just too slow for this sort of thing.
-     *
-     * @param vcs   the variant contexts to merge
-     * @param end   the end of this block (inclusive)
-     * @return a new merged VariantContext
-     */
-    private VariantContext referenceBlockMerge(final List<VariantContext> vcs, final int end) {
-
-        final VariantContext first = vcs.get(0);
-
-        // ref allele and start
-        final Allele refAllele;
-        final int start;
-        if ( prevPos == null || !prevPos.getContig().equals(first.getContig()) || first.getStart() >= prevPos.getStart() + 1) {
-            start = first.getStart();
-            refAllele = first.getReference();
-        } else {
-            start = prevPos.getStart() + 1;
-            refAllele = Allele.create(refAfterPrevPos, true);
+        private boolean hasData() {
+            return storedReferenceContext != null;
         }
 
-        // attributes
-        final Map<String, Object> attrs = new HashMap<>(1);
-        if ( !useBpResolution && end != start ) {
-            attrs.put(VCFConstants.END_KEY, Integer.toString(end));
+        /**
+         * Finish off the last blocks at the end of the traversal.
+         */
+        private void finish() {
+            if ( !variantContextsOverlappingCurrentMerge.isEmpty() ) {
+                // finish off the last blocks
+                final SimpleInterval lastInterval = new SimpleInterval(
+                        variantContextsOverlappingCurrentMerge.get(0).getContig(),
+                        variantContextsOverlappingCurrentMerge.get(0).getStart(),
+                        variantContextsOverlappingCurrentMerge.stream().map(VariantContext::getEnd).max(Comparator.naturalOrder()).get());
+                createIntermediateVariants(lastInterval);
+                // there shouldn't be any state left unless the user cut in the middle of a gVCF block
+                if ( !variantContextsOverlappingCurrentMerge.isEmpty() ) {
+                    logger.warn("You have asked for an interval that cuts in the middle of one or more gVCF blocks. Please note that this will cause you to lose records that don't end within your interval.");
+                }
+            }
         }
 
-        // genotypes
-        final GenotypesContext genotypes = GenotypesContext.create();
-        for (final VariantContext vc : vcs) {
-            for (final Genotype g : vc.getGenotypes()) {
-                genotypes.add(new GenotypeBuilder(g).alleles(GATKVariantContextUtils.noCallAlleles(g.getPloidy())).make());
+        /**
+         * calculates if there are any sites in the provided interval where we should expect the tool to create
+         * a new variant context object by calling endPreviousStates() and closes them by providing appropriate reference
+         * information and an empty list of new variant contexts.
+         *
+         */
+        private void createIntermediateVariants(SimpleInterval intervalToClose) {
+            resizeReferenceIfNeeded(intervalToClose);
+
+            // Break up the GVCF according to the provided reference blocking scheme
+            // The values returned from getIntermediateStopSites represent a proposed set of stop sites that may include
+            // intervals that are outside the actual interval being closed. These sites are filtered out below.
+            // Note: Precomputing these is really inefficient when large reference blocks are closed with
+            // fine band resolution because it results in very large collections of stop sites (tens or hundreds of millions)
+            // that must subsequently be sorted.
+            final Set<Integer> sitesToStop = getIntermediateStopSites(intervalToClose, multipleAtWhichToBreakBands);
+
+            // If any variant contexts ended (or were spanning deletions) the last context compute where we should stop them
+            for (VariantContext vc : variantContextsOverlappingCurrentMerge) {
+
+                // Asking if the number of alleles > 2 is a shorthand for a variant being present, as we expect <non-ref>
+                // symbolic alleles to be present in all VariantContext. This might also be the case if we saw a spanning
+                // deletion that reads into the current site, as we would expect ReferenceConfidenceVariantContextMerger to
+                // insert symbolic alleles for those spanning variants.
+                if (vc.getNAlleles() > 2) {
+                    for (int i = vc.getStart(); i <= vc.getEnd(); i++ ) {
+                        sitesToStop.add(i);
+                    }
+                } else if (vc.getEnd() <= intervalToClose.getEnd()) {
+                    sitesToStop.add(vc.getEnd());
+                }
             }
-        }
-        return new VariantContextBuilder("", first.getContig(), start, end, Arrays.asList(refAllele, Allele.NON_REF_ALLELE)).attributes(attrs).genotypes(genotypes).make();
-    }
 
-    /**
-     * Does the given list of VariantContexts contain any with an alternate allele other than <NON_REF>?
-     *
-     * @param VCs  list of VariantContexts
-     * @return true if there are one or more variantContexts that contain a true alternate allele, false otherwise
-     */
-    private static boolean containsTrueAltAllele(final List<VariantContext> VCs) {
+            List<Integer> stoppedLocs = new ArrayList<>(sitesToStop);
+            stoppedLocs.sort(Comparator.naturalOrder());
 
-        for ( final VariantContext vc : VCs ) {
-            if ( vc.getNAlleles() > 2 ) {
-                return true;
+            // For each stopped loc that is within the interval being closed, create a fake QueuedContextState and pass it to endPreviousStats
+            for (int stoppedLoc : stoppedLocs) {
+                SimpleInterval loc = new SimpleInterval(intervalToClose.getContig(), stoppedLoc, stoppedLoc);
+                if (( stoppedLoc <= intervalToClose.getEnd() && stoppedLoc>= intervalToClose.getStart()) && isWithinInterval(loc)) {
+                    byte[] refBases = Arrays.copyOfRange(storedReferenceContext.getBases(), stoppedLoc - storedReferenceContext.getWindow().getStart(), stoppedLoc - storedReferenceContext.getWindow().getStart() + 2);
+                    endPreviousStates(loc, refBases, Collections.emptyList(), true);
+                }
             }
+
         }
-        return false;
-    }
 
-    @Override
-    public Object onTraversalSuccess() {
+        /**
+         * Resize {@link #storedReferenceContext} to cover at least as much as intervalToClose
+         * @param intervalToClose
+         */
+        private void resizeReferenceIfNeeded(SimpleInterval intervalToClose) {
+            final int leftEdge = storedReferenceContext.getInterval().getStart() - intervalToClose.getStart();
+            final int rightEdge = intervalToClose.getEnd() - storedReferenceContext.getInterval().getEnd();
 
-        if (storedReferenceContext == null) {
-            logger.warn("Error: The requested interval contained no data in source VCF files");
-            return null;
+            storedReferenceContext.setWindow(Math.max(1, leftEdge), Math.max(1, rightEdge));
         }
 
-        if ( !variantContextsOverlappingCurrentMerge.isEmpty() ) {
-            // finish off the last blocks
-            final SimpleInterval lastInterval = new SimpleInterval(
-                    variantContextsOverlappingCurrentMerge.get(0).getContig(),
-                    variantContextsOverlappingCurrentMerge.get(0).getStart(),
-                    variantContextsOverlappingCurrentMerge.stream().map(VariantContext::getEnd).max(Comparator.naturalOrder()).get());
-                createIntermediateVariants(lastInterval);
-            // there shouldn't be any state left unless the user cut in the middle of a gVCF block
-            if ( !variantContextsOverlappingCurrentMerge.isEmpty() ) {
-                logger.warn("You have asked for an interval that cuts in the middle of one or more gVCF blocks. Please note that this will cause you to lose records that don't end within your interval.");
+
+        /**
+         * Method which calls endPreviousStates at the appropriate places on the given a new startingStates object
+         * and an OverallState object corresponding to the currently accumulated reads.
+         *
+         * @param variantContexts list of variant contexts with the same start position to be reduced
+         * @param referenceContext ReferenceContext object overlapping the provided VariantContexts
+         */
+        private void mergeWithNewVCs(final List<VariantContext> variantContexts, final ReferenceContext referenceContext) {
+            if ( !variantContexts.isEmpty() ) {
+                if ( ! okayToSkipThisSite(variantContexts, referenceContext) ) {
+                    SimpleInterval loc = referenceContext.getInterval();
+                    if (loc.getStart()-1 > 0) {
+                        endPreviousStates(new SimpleInterval(loc.getContig(), loc.getStart() - 1, loc.getStart() - 1),
+                                Arrays.copyOfRange(referenceContext.getBases(), 1, referenceContext.getWindow().getLengthOnReference()),
+                                variantContexts,
+                                false);
+                    }
+                }
+                variantContextsOverlappingCurrentMerge.addAll(variantContexts);
+                for(final VariantContext vc : variantContextsOverlappingCurrentMerge){
+                    samples.addAll(vc.getSampleNames());
+                }
             }
         }
 
-        return null;
-    }
+        /**
+         * Is it okay to skip the given position?
+         *
+         * @param variantContexts  the query variant contexts representing the current position
+         * @param referenceContext  Reference context object overlapping the variant contexts
+         * @return true if it is okay to skip this position, false otherwise
+         */
+        private boolean okayToSkipThisSite(List<VariantContext> variantContexts, ReferenceContext referenceContext) {
+            Set<String> intersection = new HashSet<>(getSamples(variantContexts));
+            intersection.retainAll(samples);
+
+            //if there's a starting VC with a sample that's already in a current VC, don't skip this position
+            return prevPos != null && referenceContext.getInterval().getStart() == prevPos.getStart() + 1 && intersection.isEmpty();
+        }
 
-    @Override
-    public void closeTool(){
-        if (vcfWriter != null) {
-            vcfWriter.close();
+        /**
+         * Disrupt the VariantContexts so that they all stop at the given pos, write them out, and put the remainder back in the list.
+         * @param pos   the position for the starting variantContexts
+         * @param variantContexts the current variant contexts with the same starting position
+         * @param forceOutputAtCurrentPosition  indicates whether we output a variant at the current position, independent of VCF start/end, i.e. in BP resolution mode
+         */
+        private void endPreviousStates(final SimpleInterval pos, final byte[] refBases, final List<VariantContext> variantContexts, boolean forceOutputAtCurrentPosition) {
+            Set<String> newSamples = getSamples(variantContexts);
+
+            final byte refBase = refBases[0];
+            //if we're in BP resolution mode or a VC ends at the current position then the reference for the next output VC (refNextBase)
+            // will be advanced one base
+            final byte refNextBase = (forceOutputAtCurrentPosition) ? (refBases.length > 1 ? refBases[1] : (byte)'N' ): refBase;
+
+            final List<VariantContext> stoppedVCs = new ArrayList<>(variantContextsOverlappingCurrentMerge.size());
+
+            for (int i = variantContextsOverlappingCurrentMerge.size() - 1; i >= 0; i-- ) {
+                final VariantContext vc = variantContextsOverlappingCurrentMerge.get(i);
+                //the VC for the previous state will be stopped if its position is previous to the current position or it we've moved to a new contig
+                if ( vc.getStart() <= pos.getStart() || !vc.contigsMatch(pos)) {
+
+                    stoppedVCs.add(vc);
+
+                    // if it was ending anyways, then remove it from the future state
+                    // or if ending vc is the same sample as a starting VC, then remove it from the future state
+                    if((vc.getEnd() == pos.getStart()) || (variantContexts.size() > 0 && !forceOutputAtCurrentPosition && newSamples.containsAll(vc.getSampleNames()))) {
+                        samples.removeAll(vc.getSampleNames());
+                        variantContextsOverlappingCurrentMerge.remove(i);
+                    }
+                }
+            }
+
+            //output the stopped variantContexts if there is no previous output (state.prevPos == null) or our current position is past
+            // the last write position (state.prevPos)
+            //NOTE: BP resolution with have current position == state.prevPos because it gets output via a different control flow
+            if ( !stoppedVCs.isEmpty() &&  (prevPos == null || IntervalUtils.isAfter(pos,prevPos,sequenceDictionary) )) {
+                final SimpleInterval closingSpot = new SimpleInterval(stoppedVCs.get(0).getContig(), pos.getStart(), pos.getStart());
+
+                // we need the specialized merge if the site contains anything other than ref blocks
+                final VariantContext mergedVC;
+                if ( containsTrueAltAllele(stoppedVCs) ) {
+                    mergedVC = referenceConfidenceVariantContextMerger.merge(stoppedVCs, closingSpot, refBase, false, false);
+                } else {
+                    mergedVC = referenceBlockMerge(stoppedVCs, pos.getStart());
+                }
+
+                writer.add(mergedVC);
+                prevPos = closingSpot;
+                refAfterPrevPos = refNextBase;
+            }
+        }
+
+        /**
+         * Combine a list of reference block VariantContexts.
+         * We can't use GATKVariantContextUtils.simpleMerge() because it is just too slow for this sort of thing.
+         *
+         * @param vcs   the variant contexts to merge
+         * @param end   the end of this block (inclusive)
+         * @return a new merged VariantContext
+         */
+        private VariantContext referenceBlockMerge(final List<VariantContext> vcs, final int end) {
+
+            final VariantContext first = vcs.get(0);
+
+            // ref allele and start
+            final Allele refAllele;
+            final int start;
+            if ( prevPos == null || !prevPos.getContig().equals(first.getContig()) || first.getStart() >= prevPos.getStart() + 1) {
+                start = first.getStart();
+                refAllele = first.getReference();
+            } else {
+                start = prevPos.getStart() + 1;
+                refAllele = Allele.create(refAfterPrevPos, true);
+            }
+
+            // attributes
+            final Map<String, Object> attrs = new HashMap<>(1);
+            if ( !useBpResolution && end != start ) {
+                attrs.put(VCFConstants.END_KEY, Integer.toString(end));
+            }
+
+            // genotypes
+            final GenotypesContext genotypes = GenotypesContext.create();
+            for (final VariantContext vc : vcs) {
+                for (final Genotype g : vc.getGenotypes()) {
+                    genotypes.add(new GenotypeBuilder(g).alleles(GATKVariantContextUtils.noCallAlleles(g.getPloidy())).make());
+                }
+            }
+            return new VariantContextBuilder("", first.getContig(), start, end, Arrays.asList(refAllele, Allele.NON_REF_ALLELE)).attributes(attrs).genotypes(genotypes).make();
         }
     }
 }
@@ -166,6 +166,20 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
     @ArgumentCollection
     private final DbsnpArgumentCollection dbsnp = new DbsnpArgumentCollection();
 
+    /**
+     * If greater than 1, split the requested intervals (or the whole reference) into shards of roughly equal size,
+     * binning small contigs together, and genotype this many shards at once, each with its own input readers and
+     * genotyping engine. Output is written in reference order as if genotyped by a single thread, except that QD
+     * values jittered for exceeding the maximum may differ from run to run.
+     * Each shard queries its intervals from the inputs, so file inputs must be indexed.
+     */
+    @Advanced
+    @Argument(fullName = IntervalShardedTraversal.WORKER_THREADS_LONG_NAME,
+            doc = "Number of threads to genotype shards of the intervals on", optional = true, minValue = 1)
+    private int workerThreads = 1;
+
+    private SampleList samples;
+
     // the genotyping engine
     private GenotypingEngine<?> genotypingEngine;
     // the annotation engine
@@ -233,7 +247,7 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
         intervals = hasUserSuppliedIntervals() ? intervalArgumentCollection.getIntervals(getBestAvailableSequenceDictionary()) :
                 Collections.emptyList();
 
-        final SampleList samples = new IndexedSampleList(inputVCFHeader.getGenotypeSamples()); //todo should this be getSampleNamesInOrder?
+        samples = new IndexedSampleList(inputVCFHeader.getGenotypeSamples()); //todo should this be getSampleNamesInOrder?
 
         annotationEngine = new VariantAnnotatorEngine(makeVariantAnnotations(), dbsnp.dbsnp, Collections.emptyList(), false, keepCombined);
 
@@ -249,10 +263,9 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
             }
         }
 
-        // We only want the engine to generate the AS_QUAL key if we are using AlleleSpecific annotations.
-        genotypingEngine = new MinimalGenotypingEngine(createUAC(), samples, new GeneralPloidyFailOverAFCalculatorProvider(genotypeArgs), annotationEngine.isRequestedReducibleRawKey(GATKVCFConstants.AS_QUAL_KEY));
+        genotypingEngine = makeGenotypingEngine();
 
-        merger = new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants(), somaticInput);
+        merger = makeMerger();
 
         if ( includeNonVariants ) {
             // Save INFO header names that require alt alleles
@@ -268,6 +281,15 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
         setupVCFWriter(inputVCFHeader, samples);
     }
 
+    private GenotypingEngine<?> makeGenotypingEngine() {
+        // We only want the engine to generate the AS_QUAL key if we are using AlleleSpecific annotations.
+        return new MinimalGenotypingEngine(createUAC(), samples, new GeneralPloidyFailOverAFCalculatorProvider(genotypeArgs), annotationEngine.isRequestedReducibleRawKey(GATKVCFConstants.AS_QUAL_KEY));
+    }
+
+    private ReferenceConfidenceVariantContextMerger makeMerger() {
+        return new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants(), somaticInput);
+    }
+
     private static boolean annotationShouldBeSkippedForHomRefSites(VariantAnnotation annotation) {
         return annotation instanceof RankSumTest || annotation instanceof RMSMappingQuality || annotation instanceof AS_RMSMappingQuality;
     }
@@ -301,22 +323,70 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
         vcfWriter.writeHeader(outputHeader);
     }
 
+    @Override
+    protected int getShardedTraversalThreads() {
+        return workerThreads;
+    }
+
+    // the genotyping engine's upstream deletions are brought up to date by genotyping the lead-in of each shard
+    @Override
+    protected boolean canShardWithinContigs() {
+        return true;
+    }
+
+    @Override
+    protected VCFHeader getShardedTraversalOutputHeader() {
+        return outputHeader;
+    }
+
+    @Override
+    protected VariantContextWriter getShardedTraversalOutputWriter() {
+        return vcfWriter;
+    }
+
+    // Each shard gets a genotyping engine and merger of its own, since the engine carries the upstream deletions from
+    // site to site and neither is thread-safe.
+    @Override
+    protected VariantLocusConsumer makeShardConsumer(final VariantContextWriter writer) {
+        final GenotypingEngine<?> shardGenotypingEngine = makeGenotypingEngine();
+        final ReferenceConfidenceVariantContextMerger shardMerger = makeMerger();
+        return (loc, variants, readsContext, referenceContext, featureContext) -> {
+            final VariantContext result = genotypeLocus(loc, variants, referenceContext, featureContext, shardGenotypingEngine, shardMerger);
+            if (result != null) {
+                writer.add(result);
+            }
+        };
+    }
+
     @Override
     public void apply(final Locatable loc, List<VariantContext> variants, ReadsContext reads, ReferenceContext ref, FeatureContext features) {
+        final VariantContext result = genotypeLocus(loc, variants, ref, features, genotypingEngine, merger);
+        if (result != null) {
+            vcfWriter.add(result);
+        }
+    }
 
+    /**
+     * Merge and re-genotype the variants at one locus
+     * @return the record to output for the locus, or null if there is none
+     */
+    private VariantContext genotypeLocus(final Locatable loc, final List<VariantContext> variants, final ReferenceContext ref,
+                                         final FeatureContext features, final GenotypingEngine<?> genotyper,
+                                         final ReferenceConfidenceVariantContextMerger gvcfMerger) {
         final List<VariantContext> variantsToProcess = getVariantSubsetToProcess(loc, variants);
 
         ref.setWindow(10, 10); //TODO this matches the gatk3 behavior but may be unnecessary
-        final VariantContext mergedVC = merger.merge(variantsToProcess, loc, includeNonVariants ? ref.getBase() : null, !includeNonVariants, false);
+        final VariantContext mergedVC = gvcfMerger.merge(variantsToProcess, loc, includeNonVariants ? ref.getBase() : null, !includeNonVariants, false);
         final VariantContext regenotypedVC = somaticInput ? regenotypeSomaticVC(mergedVC, ref, features, includeNonVariants) :
-                regenotypeVC(mergedVC, ref, features, includeNonVariants);
+                regenotypeVC(mergedVC, ref, features, includeNonVariants, genotyper);
         if (regenotypedVC != null) {
             final SimpleInterval variantStart = new SimpleInterval(regenotypedVC.getContig(), regenotypedVC.getStart(), regenotypedVC.getStart());
             if (!GATKVariantContextUtils.isSpanningDeletionOnly(regenotypedVC) &&
                     (!onlyOutputCallsStartingInIntervals || intervals.stream().anyMatch(interval -> interval.contains (variantStart)))) {
-                vcfWriter.add(regenotypedVC);
+                return regenotypedVC;
             }
         }
+        return null;
     }
 
     // If includeNonVariants is set, we're using group-by-locus traversal. To match GATK3 GenotypeGVCFs,
@@ -347,14 +417,15 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
      * Re-genotype (and re-annotate) a combined genomic VC
      * @return a new VariantContext or null if the site turned monomorphic and we don't want such sites
      */
-    private VariantContext regenotypeVC(final VariantContext originalVC, final ReferenceContext ref, final FeatureContext features, boolean includeNonVariants) {
+    private VariantContext regenotypeVC(final VariantContext originalVC, final ReferenceContext ref, final FeatureContext features, boolean includeNonVariants,
+                                        final GenotypingEngine<?> genotyper) {
         Utils.nonNull(originalVC);
 
         final VariantContext result;
 
         if ( originalVC.isVariant()  && originalVC.getAttributeAsInt(VCFConstants.DEPTH_KEY,0) > 0 ) {
             // only re-genotype polymorphic sites
-            final VariantContext regenotypedVC = calculateGenotypes(originalVC);
+            final VariantContext regenotypedVC = calculateGenotypes(originalVC, genotyper);
             if (regenotypedVC == null || (!isProperlyPolymorphic(regenotypedVC) && !includeNonVariants)) {
                 return null;
             }
@@ -397,7 +468,7 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
         }
     }
 
-    private VariantContext calculateGenotypes(VariantContext vc){
+    private VariantContext calculateGenotypes(VariantContext vc, final GenotypingEngine<?> genotyper){
         /*
          * Query the VariantContext for the appropriate model.  If type == MIXED, one would want to use model = BOTH.
          * However GenotypingEngine.getAlleleFrequencyPriors throws an exception if you give it anything but a SNP or INDEL model.
@@ -405,7 +476,7 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
         final GenotypeLikelihoodsCalculationModel model = vc.getType() == VariantContext.Type.INDEL
                 ? GenotypeLikelihoodsCalculationModel.INDEL
                 : GenotypeLikelihoodsCalculationModel.SNP;
-        return genotypingEngine.calculateGenotypes(vc, model, null);
+        return genotyper.calculateGenotypes(vc, model, null);
     }
 
     /**
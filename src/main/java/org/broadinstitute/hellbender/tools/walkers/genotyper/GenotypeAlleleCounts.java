@@ -146,7 +146,7 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
      *
      * <p>
      *     This method must not be invoked on cached genotype-allele-counts that are meant to remain constant,
-     *     such as the ones contained in {@link GenotypeLikelihoodCalculators#genotypeTableByPloidy}.
+     *     such as the ones contained in the genotype tables shared by {@link GenotypeLikelihoodCalculators}.
      * </p>
      *
      * @param times the number of times to increase.
@@ -165,7 +165,7 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
      *
      * <p>
      *     This method must not be invoked on cached genotype-allele-counts that are meant to remain constant,
-     *     such as the ones contained in {@link GenotypeLikelihoodCalculators#genotypeTableByPloidy}
+     *     such as the ones contained in the genotype tables shared by {@link GenotypeLikelihoodCalculators}
      * </p>
      */
     protected void increase() {
@@ -305,7 +305,7 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
      * Gets the log10 combination count, computing it if uninitialized.  Note that the invoked MathUtils method uses fast cached
      * log10 values of integers for any reasonable ploidy.
      *
-     * This method should be invoked on instances of {@link GenotypeAlleleCounts} cached in {@link GenotypeLikelihoodCalculators::genotypeTableByPloidy}.
+     * This method should be invoked on instances of {@link GenotypeAlleleCounts} cached in the genotype tables shared by {@link GenotypeLikelihoodCalculators}.
      * Such usage allows the result of this computation to be cached once for an entire run of HaplotypeCaller.
      * @return
      */
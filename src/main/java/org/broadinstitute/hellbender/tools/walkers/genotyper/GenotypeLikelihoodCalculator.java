@@ -23,7 +23,7 @@ public final class GenotypeLikelihoodCalculator {
      * Offset table for this calculator.
      *
      * <p>
-     *     This is a shallow copy of {@link GenotypeLikelihoodCalculators#alleleFirstGenotypeOffsetByPloidy} when the calculator was created
+     *     This is a shallow copy of the offset table shared by {@link GenotypeLikelihoodCalculators} when the calculator was created
      *     thus it follows the same format as that array. Please refer to its documentation.
      * </p>
      *
@@ -41,6 +41,19 @@ public final class GenotypeLikelihoodCalculator {
      */
     private final GenotypeAlleleCounts[] genotypeAlleleCounts;
 
+    /**
+     * Allele components of the first genotypes of this calculator ploidy, shared with (and immutable in)
+     * {@link GenotypeLikelihoodCalculators}.
+     *
+     * <p>The components of genotype <i>g</i> are found in {@link #genotypeComponents} between
+     * <code>genotypeComponentOffsets[g]</code> (inclusive) and <code>genotypeComponentOffsets[g + 1]</code> (exclusive),
+     * each encoded as <code>allele * (ploidy + 1) + count</code>, that is the index of its likelihoods in
+     * {@link #readAlleleLikelihoodByAlleleCount} divided by the read count. There are entries for
+     * <code>genotypeComponentOffsets.length - 1</code> genotypes which may be fewer than {@link #genotypeCount}.</p>
+     */
+    private final int[] genotypeComponentOffsets;
+    private final int[] genotypeComponents;
+
     /**
      * Number of genotypes given this calculator {@link #ploidy} and {@link #alleleCount}.
      */
@@ -137,15 +150,25 @@ public final class GenotypeLikelihoodCalculator {
      */
     private double[] readGenotypeLikelihoodComponents;
 
+    /**
+     * Buffer field use as a temporal container for the components of genotypes that are not precomputed in
+     * {@link #genotypeComponents}, in the same encoding.
+     */
+    private final int[] genotypeComponentsBuffer;
+
     /**
      * Creates a new calculator providing its ploidy and number of genotyping alleles.
      */
     protected GenotypeLikelihoodCalculator(final int ploidy, final int alleleCount,
                                            final int[][] alleleFirstGenotypeOffsetByPloidy,
-                                           final GenotypeAlleleCounts[][] genotypeTableByPloidy) {
+                                           final GenotypeAlleleCounts[][] genotypeTableByPloidy,
+                                           final int[] genotypeComponentOffsets,
+                                           final int[] genotypeComponents) {
         Utils.validateArg(ploidy > 0, () -> "ploidy must be at least 1 but was " + ploidy);
         this.alleleFirstGenotypeOffsetByPloidy = alleleFirstGenotypeOffsetByPloidy;
         genotypeAlleleCounts = genotypeTableByPloidy[ploidy];
+        this.genotypeComponentOffsets = genotypeComponentOffsets;
+        this.genotypeComponents = genotypeComponents;
         this.alleleCount = alleleCount;
         this.ploidy = ploidy;
         genotypeCount = this.alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
@@ -154,6 +177,7 @@ public final class GenotypeLikelihoodCalculator {
         // The number of possible components is limited by distinct allele count and ploidy.
         maximumDistinctAllelesInGenotype = Math.min(ploidy, alleleCount);
         genotypeAllelesAndCounts = new int[maximumDistinctAllelesInGenotype * 2];
+        genotypeComponentsBuffer = new int[maximumDistinctAllelesInGenotype];
     }
 
     /**
@@ -293,24 +317,27 @@ public final class GenotypeLikelihoodCalculator {
      * @return never {@code null}.
      */
     private double[][] genotypeLikelihoodByRead(final double[] readLikelihoodComponentsByAlleleCount, final int readCount) {
+        final int precomputedGenotypeCount = Math.min(genotypeCount, genotypeComponentOffsets.length - 1);
+        for (int genotypeIndex = 0; genotypeIndex < precomputedGenotypeCount; genotypeIndex++) {
+            final int from = genotypeComponentOffsets[genotypeIndex];
+            genotypeLikelihoodByRead(genotypeComponents, from, genotypeComponentOffsets[genotypeIndex + 1] - from,
+                    readLikelihoodsByGenotypeIndex[genotypeIndex], readLikelihoodComponentsByAlleleCount, readCount);
+        }
+        if (precomputedGenotypeCount == genotypeCount) {
+            return readLikelihoodsByGenotypeIndex;
+        }
 
         // Here we don't use the convenience of {@link #genotypeAlleleCountsAt(int)} within the loop to spare instantiations of
         // GenotypeAlleleCounts class when we are dealing with many genotypes.
-        GenotypeAlleleCounts alleleCounts = genotypeAlleleCounts[0];
-
-        for (int genotypeIndex = 0; genotypeIndex < genotypeCount; genotypeIndex++) {
-            final double[] readLikelihoods = this.readLikelihoodsByGenotypeIndex[genotypeIndex];
+        GenotypeAlleleCounts alleleCounts = genotypeAlleleCountsAt(precomputedGenotypeCount);
+        for (int genotypeIndex = precomputedGenotypeCount; genotypeIndex < genotypeCount; genotypeIndex++) {
             final int componentCount = alleleCounts.distinctAlleleCount();
-            switch (componentCount) {
-                case 1: //
-                    singleComponentGenotypeLikelihoodByRead(alleleCounts, readLikelihoods, readLikelihoodComponentsByAlleleCount, readCount);
-                    break;
-                case 2:
-                    twoComponentGenotypeLikelihoodByRead(alleleCounts,readLikelihoods,readLikelihoodComponentsByAlleleCount, readCount);
-                    break;
-                default:
-                    manyComponentGenotypeLikelihoodByRead(alleleCounts,readLikelihoods,readLikelihoodComponentsByAlleleCount, readCount);
+            alleleCounts.copyAlleleCounts(genotypeAllelesAndCounts, 0);
+            for (int c = 0, cc = 0; c < componentCount; c++, cc += 2) {
+                genotypeComponentsBuffer[c] = genotypeAllelesAndCounts[cc] * (ploidy + 1) + genotypeAllelesAndCounts[cc + 1];
             }
+            genotypeLikelihoodByRead(genotypeComponentsBuffer, 0, componentCount,
+                    readLikelihoodsByGenotypeIndex[genotypeIndex], readLikelihoodComponentsByAlleleCount, readCount);
             if (genotypeIndex < genotypeCount - 1) {
                 alleleCounts = nextGenotypeAlleleCounts(alleleCounts);
             }
@@ -318,6 +345,26 @@ public final class GenotypeLikelihoodCalculator {
         return readLikelihoodsByGenotypeIndex;
     }
 
+    /**
+     * Calculates the likelihood component of each read on a genotype given its allele components, encoded as
+     * in {@link #genotypeComponents}.
+     */
+    private void genotypeLikelihoodByRead(final int[] components, final int from, final int componentCount,
+                                          final double[] likelihoodByRead,
+                                          final double[] readLikelihoodComponentsByAlleleCount,
+                                          final int readCount) {
+        switch (componentCount) {
+            case 1:
+                singleComponentGenotypeLikelihoodByRead(components[from], likelihoodByRead, readLikelihoodComponentsByAlleleCount, readCount);
+                break;
+            case 2:
+                twoComponentGenotypeLikelihoodByRead(components[from], components[from + 1], likelihoodByRead, readLikelihoodComponentsByAlleleCount, readCount);
+                break;
+            default:
+                manyComponentGenotypeLikelihoodByRead(components, from, componentCount, likelihoodByRead, readLikelihoodComponentsByAlleleCount, readCount);
+        }
+    }
+
     private GenotypeAlleleCounts nextGenotypeAlleleCounts(final GenotypeAlleleCounts alleleCounts) {
         final int index = alleleCounts.index();
         final GenotypeAlleleCounts result;
@@ -338,21 +385,16 @@ public final class GenotypeLikelihoodCalculator {
      * General genotype likelihood component by read calculator. It does not make any assumption in the exact
      * number of alleles present in the genotype.
      */
-    private void manyComponentGenotypeLikelihoodByRead(final GenotypeAlleleCounts genotypeAlleleCounts,
+    private void manyComponentGenotypeLikelihoodByRead(final int[] components, final int from, final int componentCount,
                                                        final double[] likelihoodByRead,
                                                        final double[]readLikelihoodComponentsByAlleleCount,
                                                        final int readCount) {
 
         // First we collect the allele likelihood component for all reads and place it
         // in readGenotypeLikelihoodComponents for the final calculation per read.
-        genotypeAlleleCounts.copyAlleleCounts(genotypeAllelesAndCounts,0);
-        final int componentCount = genotypeAlleleCounts.distinctAlleleCount();
-        final int alleleDataSize = (ploidy + 1) * readCount;
-        for (int c = 0,cc = 0; c < componentCount; c++) {
-            final int alleleIndex = genotypeAllelesAndCounts[cc++];
-            final int alleleCount = genotypeAllelesAndCounts[cc++];
+        for (int c = 0; c < componentCount; c++) {
             // alleleDataOffset will point to the index of the first read likelihood for that allele and allele count.
-            int alleleDataOffset = alleleDataSize * alleleIndex + alleleCount * readCount;
+            int alleleDataOffset = components[from + c] * readCount;
             for (int r = 0, readDataOffset = c; r < readCount; r++, readDataOffset += maximumDistinctAllelesInGenotype) {
                 readGenotypeLikelihoodComponents[readDataOffset] = readLikelihoodComponentsByAlleleCount[alleleDataOffset++];
             }
@@ -368,16 +410,12 @@ public final class GenotypeLikelihoodCalculator {
      * Calculates the likelihood component by read for a given genotype allele count assuming that there are
      * exactly two alleles present in the genotype (with arbitrary non-zero counts each).
      */
-    private void twoComponentGenotypeLikelihoodByRead(final GenotypeAlleleCounts genotypeAlleleCounts,
+    private void twoComponentGenotypeLikelihoodByRead(final int component0, final int component1,
                                                       final double[] likelihoodByRead,
                                                       final double[] readLikelihoodComponentsByAlleleCount,
                                                       final int readCount) {
-        final int allele0 = genotypeAlleleCounts.alleleIndexAt(0);
-        final int freq0 = genotypeAlleleCounts.alleleCountAt(0);
-        final int allele1 = genotypeAlleleCounts.alleleIndexAt(1);
-        final int freq1 = ploidy - freq0; // no need to get it from genotypeAlleleCounts.
-        int allele0LnLkOffset = readCount * ((ploidy + 1) * allele0 + freq0);
-        int allele1LnLkOffset = readCount * ((ploidy + 1) * allele1 + freq1);
+        int allele0LnLkOffset = readCount * component0;
+        int allele1LnLkOffset = readCount * component1;
         for (int r = 0; r < readCount; r++) {
             final double lnLk0 = readLikelihoodComponentsByAlleleCount[allele0LnLkOffset++];
             final double lnLk1 = readLikelihoodComponentsByAlleleCount[allele1LnLkOffset++];
@@ -389,15 +427,10 @@ public final class GenotypeLikelihoodCalculator {
      * Calculates the likelihood component by read for a given genotype allele count assuming that there are
      * exactly one allele present in the genotype.
      */
-    private void singleComponentGenotypeLikelihoodByRead(final GenotypeAlleleCounts genotypeAlleleCounts,
+    private void singleComponentGenotypeLikelihoodByRead(final int component,
                                                          final double[] likelihoodByRead, final double[] readLikelihoodComponentsByAlleleCount, final int readCount) {
-        final int allele = genotypeAlleleCounts.alleleIndexAt(0);
         // the count of the only component must be = ploidy.
-        int offset = (allele * (ploidy + 1) + ploidy) * readCount;
-        for (int r = 0; r < readCount; r++) {
-            likelihoodByRead[r] =
-                    readLikelihoodComponentsByAlleleCount[offset++];
-        }
+        System.arraycopy(readLikelihoodComponentsByAlleleCount, component * readCount, likelihoodByRead, 0, readCount);
     }
 
     /**
@@ -9,8 +9,9 @@ import org.apache.logging.log4j.Logger;
 import java.util.Arrays;
 
 /**
- * Genotype likelihood calculator utility. This class is thread-safe since access to shared mutable state is
- * synchronized.
+ * Genotype likelihood calculator utility. This class is thread-safe: the genotype tables are immutable and shared by
+ * all instances, and are only replaced (under a lock) when a larger ploidy or allele count is first requested, so
+ * lookups never block.
  *
  * <p>
  *     This class provide genotype likelihood calculators with any number of alleles able given an arbitrary ploidy and allele
@@ -22,18 +23,16 @@ public final class GenotypeLikelihoodCalculators {
     private static final Logger logger = LogManager.getLogger(GenotypeLikelihoodCalculators.class);
 
     /**
-     * The current maximum ploidy supported by the tables.
-     * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #genotypeTableByPloidy}. Feel free
-     *     to change it to anything reasonable that is non-negative.
-     * </p>
+     * Maximum possible number of genotypes that this calculator can handle.
      */
-    private int maximumPloidy = 2; // its initial value is the initial capacity of the shared tables.
+    public static final int MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY = 1000;
 
     /**
-     * Maximum possible number of genotypes that this calculator can handle.
+     * Maximum number of genotypes per ploidy whose allele components are precomputed in
+     * {@link GenotypeTables#genotypeComponentOffsetsByPloidy}; the likelihoods of genotypes beyond this index
+     * are calculated by enumerating {@link GenotypeAlleleCounts} on the fly.
      */
-    public static final int MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY = 1000;
+    static final int MAXIMUM_PRECOMPUTED_GENOTYPE_PER_PLOIDY = 10000;
 
     /**
      * Mark to indicate genotype-count overflow due to a large number of allele and ploidy;
@@ -41,35 +40,99 @@ public final class GenotypeLikelihoodCalculators {
     static final int GENOTYPE_COUNT_OVERFLOW = -1;
 
     /**
-     * The current maximum allele index supported by the tables.
+     * The tables shared by all instances, holding the largest capacity requested so far in terms of maximum-allele
+     * and maximum-ploidy.
      * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #alleleFirstGenotypeOffsetByPloidy} table.
-     *     Feel free to change it to anything reasonable that is non-negative.
+     *     Its initial capacity (ploidy 2, allele 1) can be changed to anything reasonable that is non-negative.
      * </p>
      */
-    private int maximumAllele = 1; // its initial value is the initial capacity of the shared tables.
+    private static volatile GenotypeTables tables = new GenotypeTables(2, 1);
 
-    /**
-     * Shared copy of the offset table as described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
-     *
-     * This reference holds the largest requested so far in terms of maximum-allele and maximum-ploidy.
-     */
-    private int[][] alleleFirstGenotypeOffsetByPloidy =
-            buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
+    public GenotypeLikelihoodCalculators(){
 
+    }
 
     /**
-     * Shared table of genotypes give the ploidy sorted by their index in the likelihood array.
-     *
-     * <p>
-     *  Its format is described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
-     * </p>
+     * Immutable set of genotype tables that support up to a maximum ploidy and allele.
      */
-    private GenotypeAlleleCounts[][] genotypeTableByPloidy =
-            buildGenotypeAlleleCountsTable(maximumPloidy,maximumAllele,alleleFirstGenotypeOffsetByPloidy);
+    private static final class GenotypeTables {
+
+        /**
+         * The maximum ploidy supported by the tables.
+         */
+        private final int maximumPloidy;
+
+        /**
+         * The maximum allele index supported by the tables.
+         */
+        private final int maximumAllele;
+
+        /**
+         * The offset table as described in {@link #buildAlleleFirstGenotypeOffsetTable(int, int)}.
+         */
+        private final int[][] alleleFirstGenotypeOffsetByPloidy;
+
+        /**
+         * Table of genotypes given the ploidy sorted by their index in the likelihood array, as described in
+         * {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
+         */
+        private final GenotypeAlleleCounts[][] genotypeTableByPloidy;
+
+        /**
+         * Allele components of the genotypes of each ploidy, as described in {@link #buildGenotypeComponentTables}.
+         */
+        private final int[][] genotypeComponentOffsetsByPloidy;
+        private final int[][] genotypeComponentsByPloidy;
+
+        private GenotypeTables(final int maximumPloidy, final int maximumAllele) {
+            this.maximumPloidy = maximumPloidy;
+            this.maximumAllele = maximumAllele;
+            alleleFirstGenotypeOffsetByPloidy = buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
+            genotypeTableByPloidy = buildGenotypeAlleleCountsTable(maximumPloidy, maximumAllele, alleleFirstGenotypeOffsetByPloidy);
+            genotypeComponentOffsetsByPloidy = new int[maximumPloidy + 1][];
+            genotypeComponentsByPloidy = new int[maximumPloidy + 1][];
+            for (int ploidy = 0; ploidy <= maximumPloidy; ploidy++) {
+                buildGenotypeComponentTables(ploidy, alleleFirstGenotypeOffsetByPloidy[ploidy][maximumAllele]);
+            }
+        }
 
-    public GenotypeLikelihoodCalculators(){
+        private boolean hasCapacity(final int ploidy, final int alleleCount) {
+            return ploidy <= maximumPloidy && alleleCount <= maximumAllele;
+        }
 
+        /**
+         * Lays out the allele components of the first genotypes of a ploidy in two primitive arrays, so that the
+         * likelihood calculation does not need to walk {@link GenotypeAlleleCounts} objects.
+         * <p>
+         *     The components of genotype <i>g</i> are the elements of the components array between
+         *     <code>offsets[g]</code> (inclusive) and <code>offsets[g + 1]</code> (exclusive), one per distinct allele
+         *     in increasing allele index order, each encoded as <code>allele * (ploidy + 1) + count</code>.
+         *     As genotypes with fewer alleles always come first, the same arrays serve any allele count.
+         * </p>
+         */
+        private void buildGenotypeComponentTables(final int ploidy, final int genotypeCount) {
+            final int length = genotypeCount == GENOTYPE_COUNT_OVERFLOW ? MAXIMUM_PRECOMPUTED_GENOTYPE_PER_PLOIDY
+                    : Math.min(genotypeCount, MAXIMUM_PRECOMPUTED_GENOTYPE_PER_PLOIDY);
+            final int[] offsets = new int[length + 1];
+            int[] components = new int[length * Math.min(ploidy, 2) + 1];
+            final int[] alleleCountsBuffer = new int[ploidy << 1];
+            final GenotypeAlleleCounts alleleCounts = GenotypeAlleleCounts.first(ploidy);
+            int next = 0;
+            for (int genotypeIndex = 0; genotypeIndex < length; genotypeIndex++) {
+                final int distinctAlleleCount = alleleCounts.distinctAlleleCount();
+                if (next + distinctAlleleCount > components.length) {
+                    components = Arrays.copyOf(components, Math.max(components.length << 1, next + distinctAlleleCount));
+                }
+                alleleCounts.copyAlleleCounts(alleleCountsBuffer, 0);
+                for (int i = 0; i < distinctAlleleCount; i++) {
+                    components[next++] = alleleCountsBuffer[i << 1] * (ploidy + 1) + alleleCountsBuffer[(i << 1) + 1];
+                }
+                offsets[genotypeIndex + 1] = next;
+                alleleCounts.increase();
+            }
+            genotypeComponentOffsetsByPloidy[ploidy] = offsets;
+            genotypeComponentsByPloidy[ploidy] = Arrays.copyOf(components, next);
+        }
     }
 
     /**
@@ -258,47 +321,43 @@ public final class GenotypeLikelihoodCalculators {
      *
      * @return never {@code null}.
      */
-    public synchronized GenotypeLikelihoodCalculator getInstance(final int ploidy, final int alleleCount) {
-        checkPloidyAndMaximumAllele(ploidy, alleleCount);
-
-        if (calculateGenotypeCountUsingTables(ploidy, alleleCount) == GENOTYPE_COUNT_OVERFLOW) {
-            final double largeGenotypeCount = Math.pow(10, MathUtils.log10BinomialCoefficient(ploidy + alleleCount - 1, alleleCount - 1));
-            throw new IllegalArgumentException(String.format("the number of genotypes is too large for ploidy %d and allele %d: approx. %.0f", ploidy, alleleCount, largeGenotypeCount));
-        }
+    public GenotypeLikelihoodCalculator getInstance(final int ploidy, final int alleleCount) {
+        // check for overflow before expanding the shared tables, which may take a lot of memory for large ploidies or allele counts.
+        genotypeCount(ploidy, alleleCount);
+        final GenotypeTables tables = ensureCapacity(alleleCount, ploidy);
 
         // At this point the tables must have at least the requested capacity, likely to be much more.
-        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, alleleFirstGenotypeOffsetByPloidy, genotypeTableByPloidy);
+        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, tables.alleleFirstGenotypeOffsetByPloidy, tables.genotypeTableByPloidy,
+                tables.genotypeComponentOffsetsByPloidy[ploidy], tables.genotypeComponentsByPloidy[ploidy]);
     }
 
     /**
-     * Update of shared tables.
+     * Returns shared tables with at least the requested capacity, replacing the current ones if they are too small.
      *
      * @param requestedMaximumAllele the new requested maximum allele maximum.
      * @param requestedMaximumPloidy the new requested ploidy maximum.
      */
-    private synchronized void ensureCapacity(final int requestedMaximumAllele, final int requestedMaximumPloidy) {
-
-        final boolean needsToExpandAlleleCapacity = requestedMaximumAllele > maximumAllele;
-        final boolean needsToExpandPloidyCapacity = requestedMaximumPloidy > maximumPloidy;
-
-        if (!needsToExpandAlleleCapacity && !needsToExpandPloidyCapacity) {
-            return;
+    private static GenotypeTables ensureCapacity(final int requestedMaximumAllele, final int requestedMaximumPloidy) {
+        final GenotypeTables current = tables;
+        if (current.hasCapacity(requestedMaximumPloidy, requestedMaximumAllele)) {
+            return current;
         }
 
-        final int newMaximumPloidy = Math.max(maximumPloidy, requestedMaximumPloidy);
-        final int newMaximumAllele = Math.max(maximumAllele, requestedMaximumAllele);
+        synchronized (GenotypeLikelihoodCalculators.class) {
+            // another thread may have expanded the tables while we waited for the lock
+            final GenotypeTables latest = tables;
+            if (latest.hasCapacity(requestedMaximumPloidy, requestedMaximumAllele)) {
+                return latest;
+            }
 
-        logger.debug("Expanding capacity ploidy:" + maximumPloidy + "->" + newMaximumPloidy + " allele:" +  maximumAllele +"->" + newMaximumAllele );
+            final int newMaximumPloidy = Math.max(latest.maximumPloidy, requestedMaximumPloidy);
+            final int newMaximumAllele = Math.max(latest.maximumAllele, requestedMaximumAllele);
 
-        // Update tables first.
-        alleleFirstGenotypeOffsetByPloidy = buildAlleleFirstGenotypeOffsetTable(newMaximumPloidy,newMaximumAllele);
-        genotypeTableByPloidy = buildGenotypeAlleleCountsTable(newMaximumPloidy,newMaximumAllele,alleleFirstGenotypeOffsetByPloidy);
+            logger.debug("Expanding capacity ploidy:" + latest.maximumPloidy + "->" + newMaximumPloidy + " allele:" +  latest.maximumAllele +"->" + newMaximumAllele );
 
-        if (needsToExpandAlleleCapacity) {
-            maximumAllele = requestedMaximumAllele;
-        }
-        if (needsToExpandPloidyCapacity) {
-            maximumPloidy = requestedMaximumPloidy;
+            final GenotypeTables expanded = new GenotypeTables(newMaximumPloidy, newMaximumAllele);
+            tables = expanded;
+            return expanded;
         }
     }
 
@@ -339,7 +398,7 @@ public final class GenotypeLikelihoodCalculators {
      */
     public int genotypeCount(final int ploidy, final int alleleCount) {
 
-        final int result = calculateGenotypeCountUsingTables(ploidy, alleleCount);
+        final int result = calculateGenotypeCount(ploidy, alleleCount);
         if (result == GENOTYPE_COUNT_OVERFLOW) {
             final double largeGenotypeCount = Math.pow(10, MathUtils.log10BinomialCoefficient(ploidy + alleleCount - 1, alleleCount - 1));
             throw new IllegalArgumentException(String.format("the number of genotypes is too large for ploidy %d and allele %d: approx. %.0f", ploidy, alleleCount, largeGenotypeCount));
@@ -383,9 +442,28 @@ public final class GenotypeLikelihoodCalculators {
         throw new GATKException("Code should never reach here.");
     }
 
-    private synchronized int calculateGenotypeCountUsingTables(int ploidy, int alleleCount) {
+    /**
+     * Looks up the genotype count in the shared tables if they are large enough, otherwise calculates it
+     * without expanding them.
+     *
+     * @return {@link #GENOTYPE_COUNT_OVERFLOW} if the number of genotypes is larger than {@link Integer#MAX_VALUE}.
+     */
+    private static int calculateGenotypeCount(int ploidy, int alleleCount) {
         checkPloidyAndMaximumAllele(ploidy, alleleCount);
-        ensureCapacity(alleleCount, ploidy);
-        return alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
+        final GenotypeTables current = tables;
+        if (current.hasCapacity(ploidy, alleleCount)) {
+            return current.alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
+        } else if (alleleCount == 0) {
+            return 0;
+        }
+        // binomial(ploidy + alleleCount - 1, ploidy) built up as binomial(alleleCount - 1 + i, i) for increasing i.
+        long result = 1;
+        for (int i = 1; i <= ploidy; i++) {
+            result = result * (alleleCount - 1L + i) / i;
+            if (result > Integer.MAX_VALUE) {
+                return GENOTYPE_COUNT_OVERFLOW;
+            }
+        }
+        return (int) result;
     }
 }
\ No newline at end of file
@@ -210,7 +210,8 @@ public final class AssemblyBasedCallerUtils {
 
         switch ( likelihoodArgs.likelihoodEngineImplementation) {
             case PairHMM:
-                return new PairHMMLikelihoodCalculationEngine((byte) likelihoodArgs.gcpHMM, likelihoodArgs.pairHMMNativeArgs.getPairHMMArgs(), likelihoodArgs.pairHMM, log10GlobalReadMismappingRate, likelihoodArgs.pcrErrorModel, likelihoodArgs.BASE_QUALITY_SCORE_THRESHOLD);
+                return new PairHMMLikelihoodCalculationEngine((byte) likelihoodArgs.gcpHMM, likelihoodArgs.pairHMMNativeArgs.getPairHMMArgs(), likelihoodArgs.pairHMM, log10GlobalReadMismappingRate, likelihoodArgs.pcrErrorModel, likelihoodArgs.BASE_QUALITY_SCORE_THRESHOLD,
+                        likelihoodArgs.pairHMMGapFreePrescreen, likelihoodArgs.verifyPairHMMGapFreePrescreen);
             case Random:
                 return new RandomLikelihoodCalculationEngine();
             default:
@@ -307,6 +308,30 @@ public final class AssemblyBasedCallerUtils {
         }
     }
 
+    /**
+     * Rebuilds the assembly result set of a region from haplotypes assembled earlier for the same reads, reference
+     * and arguments, doing everything {@link #assembleReads} does to the region but the assembly itself.
+     *
+     * @param haplotypes the haplotypes of the earlier assembly result set, in order
+     */
+    public static AssemblyResultSet restoreAssemblyResult(final AssemblyRegion region,
+                                                          final List<Haplotype> haplotypes,
+                                                          final AssemblyBasedCallerArgumentCollection argumentCollection,
+                                                          final SAMFileHeader header,
+                                                          final SampleList sampleList,
+                                                          final ReferenceSequenceFile referenceReader,
+                                                          final boolean correctOverlappingBaseQualities) {
+        finalizeRegion(region, argumentCollection.assemblerArgs.errorCorrectReads, argumentCollection.dontUseSoftClippedBases, (byte)(argumentCollection.minBaseQualityScore - 1), header, sampleList, correctOverlappingBaseQualities);
+
+        final AssemblyResultSet assemblyResultSet = new AssemblyResultSet();
+        assemblyResultSet.setRegionForGenotyping(region);
+        assemblyResultSet.setFullReferenceWithPadding(region.getAssemblyRegionReference(referenceReader, REFERENCE_PADDING_FOR_ASSEMBLY));
+        assemblyResultSet.setPaddedReferenceLoc(getPaddedReferenceLoc(region, REFERENCE_PADDING_FOR_ASSEMBLY, referenceReader));
+        haplotypes.forEach(assemblyResultSet::add);
+        assemblyResultSet.setDebug(argumentCollection.assemblerArgs.debugAssembly);
+        return assemblyResultSet;
+    }
+
     @VisibleForTesting
     static void addGivenAlleles(final int assemblyRegionStart, final List<VariantContext> givenAlleles, final int maxMnpDistance,
                                 final SmithWatermanAligner aligner, final Haplotype refHaplotype, final AssemblyResultSet assemblyResultSet) {
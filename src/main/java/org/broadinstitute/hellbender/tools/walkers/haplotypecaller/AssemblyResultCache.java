@@ -0,0 +1,331 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.TextCigarCodec;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * On-disk cache of the assembled haplotypes and read likelihoods of each assembly region, so that re-running the
+ * {@link HaplotypeCaller} on the same reads with different genotyping or annotation arguments skips the assembly and
+ * the PairHMM.
+ *
+ * Each region gets a key digesting its span, its reads, its padded reference, the given alleles and every argument
+ * that affects assembly or likelihoods.  Its assembled haplotypes are stored under that key, and its read likelihoods
+ * under a second key that also digests the trimmed haplotypes and genotyping span, as trimming depends on arguments
+ * that don't affect assembly.  Entries that can't be read or don't fit the region are recomputed and overwritten.
+ */
+final class AssemblyResultCache {
+    private static final Logger logger = LogManager.getLogger(AssemblyResultCache.class);
+
+    // bump whenever the file format, or the meaning of anything in the keys, changes
+    private static final int VERSION = 1;
+    private static final String ASSEMBLY_EXTENSION = ".assembly";
+    private static final String LIKELIHOODS_EXTENSION = ".likelihoods";
+
+    private final Path directory;
+    private final byte[] argumentsDigest;
+
+    /**
+     * Create a cache in a directory, creating the directory if needed
+     *
+     * @param directory where the cache files are
+     * @param hcArgs the arguments of the run, whose assembly and likelihood arguments are part of every key
+     */
+    AssemblyResultCache(final String directory, final HaplotypeCallerArgumentCollection hcArgs) {
+        Utils.nonNull(directory, "directory is null");
+        Utils.nonNull(hcArgs, "hcArgs is null");
+        this.directory = IOUtils.getPath(directory);
+        try {
+            Files.createDirectories(this.directory);
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(directory, "could not create the assembly result cache directory", e);
+        }
+        argumentsDigest = digestArguments(hcArgs);
+    }
+
+    /**
+     * The key of a region, which must be computed before the region is finalized
+     */
+    String regionKey(final AssemblyRegion region, final List<VariantContext> givenAlleles, final SAMFileHeader header,
+                     final ReferenceSequenceFile referenceReader) {
+        final MessageDigest digest = newDigest();
+        digest.update(argumentsDigest);
+        update(digest, region.getSpan() + " " + region.getExtendedSpan());
+        digest.update(region.getAssemblyRegionReference(referenceReader, AssemblyBasedCallerUtils.REFERENCE_PADDING_FOR_ASSEMBLY));
+        for ( final GATKRead read : region.getReads() ) {
+            update(digest, ReadUtils.getSampleName(read, header));
+            update(digest, read.getSAMString());
+        }
+        for ( final VariantContext vc : givenAlleles ) {
+            update(digest, vc.getContig() + ":" + vc.getStart() + " " + vc.getAlleles());
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * The key of the likelihoods of a region, given its key and the trimmed assembly result
+     */
+    String likelihoodsKey(final String regionKey, final AssemblyResultSet assemblyResult) {
+        final MessageDigest digest = newDigest();
+        update(digest, regionKey);
+        update(digest, assemblyResult.getRegionForGenotyping().getExtendedSpan().toString());
+        for ( final Haplotype haplotype : assemblyResult.getHaplotypeList() ) {
+            update(digest, haplotype.getBaseString());
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * Get the assembled haplotypes of a region
+     *
+     * @return the haplotypes in the order of the original assembly result set, or {@code null} if they are not cached
+     */
+    List<Haplotype> getHaplotypes(final String regionKey) {
+        final Path path = directory.resolve(regionKey + ASSEMBLY_EXTENSION);
+        if ( !Files.exists(path) ) {
+            return null;
+        }
+        try ( final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path))) ) {
+            checkVersion(in);
+            final int haplotypeCount = in.readInt();
+            final List<Haplotype> haplotypes = new ArrayList<>(haplotypeCount);
+            for ( int h = 0; h < haplotypeCount; h++ ) {
+                final boolean isReference = in.readBoolean();
+                final Haplotype haplotype = new Haplotype(readBytes(in), isReference);
+                haplotype.setGenomeLocation(new SimpleInterval(in.readUTF(), in.readInt(), in.readInt()));
+                final String cigar = in.readUTF();
+                if ( !cigar.isEmpty() ) {
+                    haplotype.setCigar(TextCigarCodec.decode(cigar));
+                }
+                haplotype.setAlignmentStartHapwrtRef(in.readInt());
+                haplotype.setScore(in.readDouble());
+                haplotypes.add(haplotype);
+            }
+            return haplotypes;
+        } catch ( final IOException | RuntimeException e ) {
+            logger.warn("Ignoring unreadable assembly result cache entry " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store the assembled haplotypes of a region
+     */
+    void putHaplotypes(final String regionKey, final List<Haplotype> haplotypes) {
+        write(directory.resolve(regionKey + ASSEMBLY_EXTENSION), out -> {
+            out.writeInt(haplotypes.size());
+            for ( final Haplotype haplotype : haplotypes ) {
+                out.writeBoolean(haplotype.isReference());
+                writeBytes(out, haplotype.getBases());
+                out.writeUTF(haplotype.getGenomeLocation().getContig());
+                out.writeInt(haplotype.getGenomeLocation().getStart());
+                out.writeInt(haplotype.getGenomeLocation().getEnd());
+                out.writeUTF(haplotype.getCigar() == null ? "" : haplotype.getCigar().toString());
+                out.writeInt(haplotype.getAlignmentStartHapwrtRef());
+                out.writeDouble(haplotype.getScore());
+            }
+        });
+    }
+
+    /**
+     * Get the read likelihoods of a region, as computed by {@link ReadLikelihoodCalculationEngine#computeReadLikelihoods}
+     *
+     * @param likelihoodsKey the key from {@link #likelihoodsKey}
+     * @param samples the samples
+     * @param haplotypes the trimmed haplotypes
+     * @param perSampleReadList the reads the likelihoods would be computed for
+     * @return the likelihoods of the reads that were kept, or {@code null} if they are not cached
+     */
+    ReadLikelihoods<Haplotype> getLikelihoods(final String likelihoodsKey, final SampleList samples, final List<Haplotype> haplotypes,
+                                              final Map<String, List<GATKRead>> perSampleReadList) {
+        final Path path = directory.resolve(likelihoodsKey + LIKELIHOODS_EXTENSION);
+        if ( !Files.exists(path) ) {
+            return null;
+        }
+        try ( final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path))) ) {
+            checkVersion(in);
+            checkCount(in.readInt(), haplotypes.size(), "haplotypes");
+            checkCount(in.readInt(), samples.numberOfSamples(), "samples");
+            final Map<String, List<GATKRead>> keptReads = new LinkedHashMap<>(samples.numberOfSamples());
+            final List<double[]> values = new ArrayList<>(samples.numberOfSamples());
+            for ( int s = 0; s < samples.numberOfSamples(); s++ ) {
+                final List<GATKRead> reads = perSampleReadList.getOrDefault(samples.getSample(s), Collections.emptyList());
+                checkCount(in.readInt(), reads.size(), "reads");
+                final List<GATKRead> sampleKeptReads = new ArrayList<>();
+                for ( int r = in.readInt(); r > 0; r-- ) {
+                    sampleKeptReads.add(reads.get(in.readInt()));
+                }
+                final double[] sampleValues = new double[haplotypes.size() * sampleKeptReads.size()];
+                for ( int i = 0; i < sampleValues.length; i++ ) {
+                    sampleValues[i] = in.readDouble();
+                }
+                keptReads.put(samples.getSample(s), sampleKeptReads);
+                values.add(sampleValues);
+            }
+
+            final ReadLikelihoods<Haplotype> result = new ReadLikelihoods<>(samples, new IndexedAlleleList<>(haplotypes), keptReads);
+            for ( int s = 0; s < samples.numberOfSamples(); s++ ) {
+                final LikelihoodMatrix<Haplotype> matrix = result.sampleMatrix(s);
+                final int readCount = matrix.numberOfReads();
+                for ( int h = 0; h < haplotypes.size(); h++ ) {
+                    for ( int r = 0; r < readCount; r++ ) {
+                        matrix.set(h, r, values.get(s)[h * readCount + r]);
+                    }
+                }
+            }
+            return result;
+        } catch ( final IOException | RuntimeException e ) {
+            logger.warn("Ignoring unreadable assembly result cache entry " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store the read likelihoods of a region
+     *
+     * @param likelihoodsKey the key from {@link #likelihoodsKey}
+     * @param likelihoods the likelihoods, holding a subset of the reads in perSampleReadList
+     * @param perSampleReadList the reads the likelihoods were computed for
+     */
+    void putLikelihoods(final String likelihoodsKey, final ReadLikelihoods<Haplotype> likelihoods,
+                        final Map<String, List<GATKRead>> perSampleReadList) {
+        write(directory.resolve(likelihoodsKey + LIKELIHOODS_EXTENSION), out -> {
+            out.writeInt(likelihoods.numberOfAlleles());
+            out.writeInt(likelihoods.numberOfSamples());
+            for ( int s = 0; s < likelihoods.numberOfSamples(); s++ ) {
+                final List<GATKRead> reads = perSampleReadList.getOrDefault(likelihoods.getSample(s), Collections.emptyList());
+                final Map<GATKRead, Integer> readIndices = new IdentityHashMap<>(reads.size());
+                for ( int r = 0; r < reads.size(); r++ ) {
+                    readIndices.put(reads.get(r), r);
+                }
+                final LikelihoodMatrix<Haplotype> matrix = likelihoods.sampleMatrix(s);
+                out.writeInt(reads.size());
+                out.writeInt(matrix.numberOfReads());
+                for ( final GATKRead read : matrix.reads() ) {
+                    out.writeInt(readIndices.get(read));
+                }
+                for ( int h = 0; h < matrix.numberOfAlleles(); h++ ) {
+                    for ( int r = 0; r < matrix.numberOfReads(); r++ ) {
+                        out.writeDouble(matrix.get(h, r));
+                    }
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes an entry to a temporary file and then moves it in place, so that an interrupted run never leaves a
+     * truncated entry behind
+     */
+    private void write(final Path path, final EntryWriter writer) {
+        try {
+            final Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try ( final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary))) ) {
+                out.writeInt(VERSION);
+                writer.write(out);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(path.toString(), "could not write an assembly result cache entry", e);
+        }
+    }
+
+    /**
+     * Digests the arguments that affect the assembled haplotypes or the read likelihoods
+     */
+    private static byte[] digestArguments(final HaplotypeCallerArgumentCollection hcArgs) {
+        final MessageDigest digest = newDigest();
+        update(digest, String.valueOf(VERSION));
+        final ByteArrayOutputStream assemblerArgs = new ByteArrayOutputStream();
+        try ( final ObjectOutputStream out = new ObjectOutputStream(assemblerArgs) ) {
+            out.writeObject(hcArgs.assemblerArgs);
+        } catch ( final IOException e ) {
+            throw new IllegalStateException("could not serialize the assembler arguments", e);
+        }
+        digest.update(assemblerArgs.toByteArray());
+        final LikelihoodEngineArgumentCollection likelihoodArgs = hcArgs.likelihoodArgs;
+        update(digest, String.join(" ", String.valueOf(likelihoodArgs.likelihoodEngineImplementation),
+                String.valueOf(likelihoodArgs.BASE_QUALITY_SCORE_THRESHOLD), String.valueOf(likelihoodArgs.gcpHMM),
+                String.valueOf(likelihoodArgs.pairHMM), String.valueOf(likelihoodArgs.pairHMMGapFreePrescreen),
+                String.valueOf(likelihoodArgs.pcrErrorModel), String.valueOf(likelihoodArgs.phredScaledGlobalReadMismappingRate),
+                String.valueOf(hcArgs.dontUseSoftClippedBases), String.valueOf(hcArgs.minBaseQualityScore),
+                String.valueOf(hcArgs.smithWatermanImplementation), String.valueOf(hcArgs.maxMnpDistance),
+                String.valueOf(hcArgs.doNotCorrectOverlappingBaseQualities)));
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch ( final NoSuchAlgorithmException e ) {
+            throw new IllegalStateException("MD5 digest algorithm not present", e);
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        // the length keeps consecutive values from running into each other
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(String.valueOf(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static String toHex(final MessageDigest digest) {
+        final String hex = new BigInteger(1, digest.digest()).toString(16);
+        return String.join("", Collections.nCopies(32 - hex.length(), "0")) + hex;
+    }
+
+    private static void checkVersion(final DataInputStream in) throws IOException {
+        final int version = in.readInt();
+        if ( version != VERSION ) {
+            throw new IOException("unsupported version " + version);
+        }
+    }
+
+    private static void checkCount(final int cached, final int expected, final String what) throws IOException {
+        if ( cached != expected ) {
+            throw new IOException("cached entry has " + cached + " " + what + " but " + expected + " were expected");
+        }
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
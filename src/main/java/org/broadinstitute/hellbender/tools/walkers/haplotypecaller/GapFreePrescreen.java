@@ -0,0 +1,230 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMMModel;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes the PairHMM likelihoods of reads that align to every haplotype without gaps, so that the PairHMM itself
+ * only has to be run on the remaining reads.
+ *
+ * A read is placed on a haplotype by its first and last {@link #ANCHOR_LENGTH} bases, which must each occur exactly
+ * once in the haplotype, at positions that agree on a single gap-free placement with at most {@link #MAX_MISMATCHES}
+ * mismatches in between.  The log10 likelihood of such a read is that of its gap-free alignment under the PairHMM
+ * model: the uniform start over the haplotype, the transition into the match state and from match to match at every
+ * later base, and the match or mismatch prior of every base.
+ *
+ * The PairHMM sums the probabilities of all alignments of the read, so this is a lower bound of its result.  With
+ * unique anchors, the other alignments that don't need a long run of mismatches are those with gaps in tandem repeats:
+ * a gap of one repeat unit in a repeat at either end of the read (which just shifts the rest of the read along the
+ * repeat), or a pair of opposite gaps within one repeat.  Their total probability relative to the gap-free alignment
+ * is bounded by the {@link #alternativeAlignmentWeight alternative alignment weight}, computed from the read's own
+ * indel and gap continuation qualities, and reads for which that bound exceeds {@link #MAX_ALTERNATIVE_WEIGHT} are left
+ * to the PairHMM.  This matters with the PCR indel error models, which lower the indel qualities in repeats: under the
+ * default CONSERVATIVE model a read starting or ending in a homopolymer of ten or more bases needs the PairHMM.  For the
+ * remaining reads the likelihoods computed here are within {@link #MAX_LOG10_DIFFERENCE} of those of the PairHMM.
+ */
+final class GapFreePrescreen {
+    /** the length of the kmers at either end of the read used to place it; 16 bases pack into 32 bits */
+    static final int ANCHOR_LENGTH = 16;
+
+    /** reads with more mismatches than this against any haplotype are left to the PairHMM */
+    static final int MAX_MISMATCHES = 2;
+
+    /** how much the likelihoods computed here may differ from those of the PairHMM */
+    static final double MAX_LOG10_DIFFERENCE = 1e-3;
+
+    /**
+     * the largest alternative alignment weight of a read whose likelihoods are computed here, which is half of
+     * {@link #MAX_LOG10_DIFFERENCE} in log10 space, leaving the other half for the alignments the weight leaves out
+     */
+    static final double MAX_ALTERNATIVE_WEIGHT = Math.pow(10.0, MAX_LOG10_DIFFERENCE / 2) - 1.0;
+
+    /** the longest repeat unit in which gaps are counted; longer gaps cost more than this many gap continuations */
+    static final int MAX_REPEAT_UNIT_LENGTH = 8;
+
+    private static final double LOG10_TRISTATE_CORRECTION = Math.log10(3.0);
+    private static final int NO_POSITION = -1;
+
+    private final List<Haplotype> haplotypes;
+
+    /** for each haplotype, the sorted (packed anchor << 32 | position) of every anchor in it */
+    private final long[][] anchorsByHaplotype;
+
+    private long[] packedAnchors = new long[0];
+
+    /**
+     * Create a new prescreen for a set of haplotypes
+     *
+     * @param haplotypes the haplotypes, in the order of the likelihoods computed by {@link #computeLog10Likelihoods}
+     */
+    GapFreePrescreen(final List<Haplotype> haplotypes) {
+        this.haplotypes = Utils.nonNull(haplotypes, "haplotypes is null");
+        anchorsByHaplotype = new long[haplotypes.size()][];
+        for ( int h = 0; h < haplotypes.size(); h++ ) {
+            final byte[] bases = haplotypes.get(h).getBases();
+            final int numAnchors = packAnchors(bases);
+            final long[] anchors = new long[numAnchors];
+            int size = 0;
+            for ( int position = 0; position < numAnchors; position++ ) {
+                if ( packedAnchors[position] != PackedKmerUtils.UNPACKABLE ) {
+                    anchors[size++] = (packedAnchors[position] << 32) | position;
+                }
+            }
+            anchorsByHaplotype[h] = Arrays.copyOf(anchors, size);
+            Arrays.sort(anchorsByHaplotype[h]);
+        }
+    }
+
+    /**
+     * Compute the log10 likelihood of a read given each haplotype, if it aligns to all of them without gaps
+     *
+     * @param read the read, with the base, insertion and deletion qualities given to the PairHMM
+     * @param overallGCP the gap continuation penalties of the read
+     * @param log10Likelihoods where to store the likelihood of the read given each haplotype
+     * @return whether the read aligns to every haplotype without gaps; if not, log10Likelihoods is left in an
+     *         undefined state and the read needs the PairHMM
+     */
+    boolean computeLog10Likelihoods(final GATKRead read, final byte[] overallGCP, final double[] log10Likelihoods) {
+        final byte[] readBases = read.getBases();
+        final int readLength = readBases.length;
+        if ( readLength < ANCHOR_LENGTH ) {
+            return false;
+        }
+        final int lastAnchor = packAnchors(readBases) - 1;
+        final long firstPackedAnchor = packedAnchors[0];
+        final long lastPackedAnchor = packedAnchors[lastAnchor];
+        if ( firstPackedAnchor == PackedKmerUtils.UNPACKABLE || lastPackedAnchor == PackedKmerUtils.UNPACKABLE ) {
+            return false;
+        }
+
+        final byte[] readQuals = read.getBaseQualities();
+        final int[] offsets = new int[haplotypes.size()];
+        for ( int h = 0; h < haplotypes.size(); h++ ) {
+            final int offset = uniquePosition(anchorsByHaplotype[h], firstPackedAnchor);
+            if ( offset == NO_POSITION || uniquePosition(anchorsByHaplotype[h], lastPackedAnchor) != offset + lastAnchor ) {
+                return false;
+            }
+            offsets[h] = offset;
+        }
+
+        final byte[] readInsQuals = ReadUtils.getBaseInsertionQualities(read);
+        final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read);
+        if ( alternativeAlignmentWeight(readBases, readInsQuals, readDelQuals, overallGCP) > MAX_ALTERNATIVE_WEIGHT ) {
+            return false;
+        }
+
+        // everything but the mismatches is the same for all haplotypes
+        double log10AllMatching = QualityUtils.qualToProbLog10(overallGCP[0]);
+        for ( int i = 0; i < readLength; i++ ) {
+            log10AllMatching += QualityUtils.qualToProbLog10(readQuals[i]);
+            if ( i > 0 ) {
+                log10AllMatching += PairHMMModel.matchToMatchProbLog10(readInsQuals[i], readDelQuals[i]);
+            }
+        }
+
+        for ( int h = 0; h < haplotypes.size(); h++ ) {
+            final byte[] haplotypeBases = haplotypes.get(h).getBases();
+            double log10Likelihood = log10AllMatching - Math.log10(haplotypeBases.length);
+            int mismatches = 0;
+            // the anchors match exactly, so only the bases between them can differ
+            for ( int i = ANCHOR_LENGTH; i < lastAnchor; i++ ) {
+                final byte readBase = readBases[i];
+                final byte haplotypeBase = haplotypeBases[offsets[h] + i];
+                if ( readBase != haplotypeBase && readBase != 'N' && haplotypeBase != 'N' ) {
+                    if ( ++mismatches > MAX_MISMATCHES ) {
+                        return false;
+                    }
+                    log10Likelihood += QualityUtils.qualToErrorProbLog10(readQuals[i]) - LOG10_TRISTATE_CORRECTION
+                            - QualityUtils.qualToProbLog10(readQuals[i]);
+                }
+            }
+            log10Likelihoods[h] = log10Likelihood;
+        }
+        return true;
+    }
+
+    /**
+     * An upper bound of the total probability, relative to that of the gap-free alignment, of the alignments of a
+     * read with gaps that only cost their gap penalties.  A gap of length u inside a run of the read that repeats with
+     * period u leaves the rest of the run aligned to the same bases, shifted by one unit, so:
+     * <ul>
+     *     <li>for a run at either end of the read, a single gap at any of its positions gives such an alignment,
+     *     each with about the probability of opening the gap at that position times that of continuing it for the
+     *     rest of the unit,</li>
+     *     <li>for a run of at least two units, an insertion and a deletion at any two of its positions give such
+     *     an alignment, and these add up to less than the square of the sum of the single gap probabilities.</li>
+     * </ul>
+     * Runs with every unit length up to {@link #MAX_REPEAT_UNIT_LENGTH} are counted, whether or not the haplotypes
+     * continue them past the end of the read.
+     */
+    @VisibleForTesting
+    static double alternativeAlignmentWeight(final byte[] readBases, final byte[] readInsQuals, final byte[] readDelQuals,
+                                             final byte[] overallGCP) {
+        final int readLength = readBases.length;
+        double weight = 0.0;
+        for ( int unit = 1; unit <= MAX_REPEAT_UNIT_LENGTH && unit < readLength; unit++ ) {
+            // readBases[runStart, end) is the current maximal run in which each base equals the one a unit before it
+            int runStart = 0;
+            for ( int end = unit; end <= readLength; end++ ) {
+                if ( end < readLength && readBases[end] == readBases[end - unit] ) {
+                    continue;
+                }
+                final boolean terminal = runStart == 0 || end == readLength;
+                if ( terminal || end - runStart >= 2 * unit ) {
+                    double gapWeight = 0.0;
+                    for ( int i = runStart; i < end; i++ ) {
+                        gapWeight += (QualityUtils.qualToErrorProb(readInsQuals[i]) + QualityUtils.qualToErrorProb(readDelQuals[i]))
+                                * Math.pow(QualityUtils.qualToErrorProb(overallGCP[i]), unit - 1);
+                    }
+                    weight += (terminal ? gapWeight : 0.0) + gapWeight * gapWeight;
+                }
+                // the next run starts with the last unit of this one
+                runStart = end - unit + 1;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Packs each anchor of bases into {@link #packedAnchors}, growing it as needed
+     *
+     * @return the number of anchors in bases
+     */
+    private int packAnchors(final byte[] bases) {
+        if ( packedAnchors.length < bases.length ) {
+            packedAnchors = new long[bases.length];
+        }
+        return PackedKmerUtils.packKmers(bases, ANCHOR_LENGTH, packedAnchors);
+    }
+
+    /**
+     * The position of a packed anchor in a haplotype, or {@link #NO_POSITION} if it occurs there zero or several times
+     */
+    private static int uniquePosition(final long[] anchors, final long packedAnchor) {
+        // find the first entry of the anchor, which is the smallest value with the anchor in its upper half
+        final long key = packedAnchor << 32;
+        int low = 0;
+        int high = anchors.length;
+        while ( low < high ) {
+            final int mid = (low + high) >>> 1;
+            if ( anchors[mid] < key ) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if ( low == anchors.length || anchors[low] >>> 32 != packedAnchor
+                || (low + 1 < anchors.length && anchors[low + 1] >>> 32 == packedAnchor) ) {
+            return NO_POSITION;
+        }
+        return (int)anchors[low];
+    }
+}
@@ -24,6 +24,8 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
     public static final String GQ_BAND_LONG_NAME = "gvcf-gq-bands";
     public static final String GQ_BAND_SHORT_NAME = "GQB";
     public static final String CORRECT_OVERLAPPING_BASE_QUALITIES_LONG_NAME = "correct-overlapping-quality";
+    public static final String ASSEMBLY_RESULT_CACHE_LONG_NAME = "assembly-result-cache";
+    public static final String ACTIVITY_PRESCREEN_MIN_ALT_EVIDENCE_LONG_NAME = "activity-prescreen-min-alt-evidence";
 
 
     @ArgumentCollection
@@ -105,6 +107,18 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
     @Argument(fullName = "use-alleles-trigger", doc = "Use additional trigger on variants found in an external alleles file", optional = true)
     public boolean USE_ALLELES_TRIGGER = false;
 
+    /**
+     * Before evaluating the activity of a site with the reference confidence model, the HaplotypeCaller counts the bases
+     * in its pileup that would count as evidence against the reference (mismatches, deletions, and bases next to
+     * insertions, deletions or soft clips, ignoring bases below the minimum base quality).  Sites with fewer such bases
+     * than this are inactive without further evaluation.  With the default of 1, only sites without any such evidence
+     * are skipped, which the model never finds active at the default minimum base quality.  Higher values skip
+     * more sites with some noise at the cost of sensitivity, and 0 turns the prescreen off.
+     */
+    @Advanced
+    @Argument(fullName = ACTIVITY_PRESCREEN_MIN_ALT_EVIDENCE_LONG_NAME, doc = "Minimum number of non-reference bases at a site for its activity to be evaluated", optional = true)
+    public int activityPrescreenMinAltEvidence = 1;
+
     /**
      * If set, certain "early exit" optimizations in HaplotypeCaller, which aim to save compute and time by skipping
      * calculations if an ActiveRegion is determined to contain no variants, will be disabled. This is most likely to be useful if
@@ -147,4 +161,15 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
 
     @Argument(fullName = CORRECT_OVERLAPPING_BASE_QUALITIES_LONG_NAME)
     public boolean doNotCorrectOverlappingBaseQualities = false;
+
+    /**
+     * Directory holding the assembled haplotypes and read likelihoods of each assembly region.  Regions whose reads,
+     * reference and assembly and likelihood arguments match those of an earlier run with the same directory reuse its
+     * results instead of repeating the assembly and the PairHMM, which speeds up re-running with different genotyping
+     * or annotation arguments.  Regions are only reused if they are identical, so changing anything that affects the
+     * active regions, such as the intervals or the activity arguments, makes them miss.
+     */
+    @Advanced
+    @Argument(fullName = ASSEMBLY_RESULT_CACHE_LONG_NAME, doc = "Directory in which to cache assembly and likelihood results for later runs on the same reads", optional = true)
+    public String assemblyResultCacheDirectory = null;
 }
@@ -36,6 +36,8 @@ import org.broadinstitute.hellbender.utils.genotyper.SampleList;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
@@ -79,6 +81,9 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
     private ReadLikelihoodCalculationEngine likelihoodCalculationEngine = null;
 
+    // caches assembly and likelihood results on disk for later runs, if requested
+    private AssemblyResultCache assemblyResultCache = null;
+
     private HaplotypeCallerGenotypingEngine genotypingEngine = null;
 
     private VariantAnnotatorEngine annotationEngine = null;
@@ -212,6 +217,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         haplotypeBAMWriter = AssemblyBasedCallerUtils.createBamWriter(hcArgs, createBamOutIndex, createBamOutMD5, readsHeader);
         assemblyEngine = hcArgs.createReadThreadingAssembler();
         likelihoodCalculationEngine = AssemblyBasedCallerUtils.createLikelihoodCalculationEngine(hcArgs.likelihoodArgs);
+        assemblyResultCache = hcArgs.assemblyResultCacheDirectory == null ? null : new AssemblyResultCache(hcArgs.assemblyResultCacheDirectory, hcArgs);
 
         trimmer.initialize(hcArgs.assemblerArgs, readsHeader.getSequenceDictionary(),
                 hcArgs.standardArgs.genotypingOutputMode == GenotypingOutputMode.GENOTYPE_GIVEN_ALLELES, emitReferenceConfidence());
@@ -460,6 +466,11 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
             return new ActivityProfileState(ref.getInterval(), 0.0);
         }
 
+        if ( countAltEvidence(context.getBasePileup(), ref.getBase(), hcArgs.activityPrescreenMinAltEvidence) < hcArgs.activityPrescreenMinAltEvidence ) {
+            // too little evidence against the reference for the full model to be worth evaluating
+            return new ActivityProfileState(ref.getInterval(), 0.0, ActivityProfileState.Type.NONE, 0.0);
+        }
+
         final int ploidy = activeRegionEvaluationGenotyperEngine.getConfiguration().genotypeArgs.samplePloidy;
         final List<Allele> noCall = GATKVariantContextUtils.noCallAlleles(ploidy); // used to noCall all genotypes until the exact model is applied
 
@@ -498,6 +509,28 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         return new ActivityProfileState(ref.getInterval(), isActiveProb, averageHQSoftClips.mean() > AVERAGE_HQ_SOFTCLIPS_HQ_BASES_THRESHOLD ? ActivityProfileState.Type.HIGH_QUALITY_SOFT_CLIPS : ActivityProfileState.Type.NONE, averageHQSoftClips.mean() );
     }
 
+    /**
+     * Count the elements of a pileup that {@link ReferenceConfidenceModel#calcGenotypeLikelihoodsOfRefVsAny} would
+     * count as non-reference in {@link #isActive}, stopping once enough have been seen
+     *
+     * @param pileup the pileup of all samples
+     * @param refBase the reference base at the pileup locus
+     * @param enough the count beyond which counting is not needed
+     * @return the number of non-reference elements, or {@code enough} if there are at least that many
+     */
+    private int countAltEvidence(final ReadPileup pileup, final byte refBase, final int enough) {
+        int count = 0;
+        for ( final PileupElement element : pileup ) {
+            if ( count >= enough ) {
+                break;
+            }
+            if ( (element.isDeletion() || element.getQual() > hcArgs.minBaseQualityScore) && ReferenceConfidenceModel.isAltBeforeAssembly(element, refBase) ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Generate variant calls for an assembly region
      *
@@ -539,7 +572,17 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         }
 
         // run the local assembler, getting back a collection of information on how we should proceed
-        final AssemblyResultSet untrimmedAssemblyResult =  AssemblyBasedCallerUtils.assembleReads(region, givenAlleles, hcArgs, readsHeader, samplesList, logger, referenceReader, assemblyEngine, aligner, !hcArgs.doNotCorrectOverlappingBaseQualities);
+        final String cacheKey = assemblyResultCache == null ? null : assemblyResultCache.regionKey(region, givenAlleles, readsHeader, referenceReader);
+        final List<Haplotype> cachedHaplotypes = cacheKey == null ? null : assemblyResultCache.getHaplotypes(cacheKey);
+        final AssemblyResultSet untrimmedAssemblyResult;
+        if ( cachedHaplotypes != null ) {
+            untrimmedAssemblyResult = AssemblyBasedCallerUtils.restoreAssemblyResult(region, cachedHaplotypes, hcArgs, readsHeader, samplesList, referenceReader, !hcArgs.doNotCorrectOverlappingBaseQualities);
+        } else {
+            untrimmedAssemblyResult = AssemblyBasedCallerUtils.assembleReads(region, givenAlleles, hcArgs, readsHeader, samplesList, logger, referenceReader, assemblyEngine, aligner, !hcArgs.doNotCorrectOverlappingBaseQualities);
+            if ( cacheKey != null ) {
+                assemblyResultCache.putHaplotypes(cacheKey, untrimmedAssemblyResult.getHaplotypeList());
+            }
+        }
         
         final SortedSet<VariantContext> allVariationEvents = untrimmedAssemblyResult.getVariationEvents(hcArgs.maxMnpDistance);
 
@@ -587,8 +630,17 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         final Map<String,List<GATKRead>> reads = AssemblyBasedCallerUtils.splitReadsBySample(samplesList, readsHeader, regionForGenotyping.getReads());
 
         // Calculate the likelihoods: CPU intensive part.
-        final ReadLikelihoods<Haplotype> readLikelihoods =
-                likelihoodCalculationEngine.computeReadLikelihoods(assemblyResult, samplesList, reads);
+        final String likelihoodsCacheKey = cacheKey == null ? null : assemblyResultCache.likelihoodsKey(cacheKey, assemblyResult);
+        final ReadLikelihoods<Haplotype> cachedLikelihoods = likelihoodsCacheKey == null ? null : assemblyResultCache.getLikelihoods(likelihoodsCacheKey, samplesList, haplotypes, reads);
+        final ReadLikelihoods<Haplotype> readLikelihoods;
+        if ( cachedLikelihoods != null ) {
+            readLikelihoods = cachedLikelihoods;
+        } else {
+            readLikelihoods = likelihoodCalculationEngine.computeReadLikelihoods(assemblyResult, samplesList, reads);
+            if ( likelihoodsCacheKey != null ) {
+                assemblyResultCache.putLikelihoods(likelihoodsCacheKey, readLikelihoods, reads);
+            }
+        }
 
         // Realign reads to their best haplotype.
         final Map<GATKRead, GATKRead> readRealignments = AssemblyBasedCallerUtils.realignReadsToTheirBestHaplotype(readLikelihoods, assemblyResult.getReferenceHaplotype(), assemblyResult.getPaddedReferenceLoc(), aligner);
@@ -700,6 +752,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
     public void shutdown() {
         likelihoodCalculationEngine.close();
         aligner.close();
+        assemblyEngine.shutdown();
         if ( haplotypeBAMWriter.isPresent() ) {
             haplotypeBAMWriter.get().close();
         }
@@ -49,6 +49,7 @@ public class HaplotypeCallerReadThreadingAssemblerArgumentCollection extends Rea
         assemblyEngine.setRecoverDanglingBranches(!doNotRecoverDanglingBranches);
         assemblyEngine.setRecoverAllDanglingBranches(recoverAllDanglingBranches);
         assemblyEngine.setMinDanglingBranchLength(minDanglingBranchLength);
+        assemblyEngine.setNumAssemblyThreads(assemblyThreads);
 
         if ( graphOutput != null ) {
             assemblyEngine.setGraphWriter(new File(graphOutput));
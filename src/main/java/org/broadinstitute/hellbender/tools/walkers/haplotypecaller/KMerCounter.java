@@ -103,6 +103,11 @@ public final class KMerCounter {
             this.kmer = kmer;
         }
 
+        CountedKmer(final Kmer kmer, final int count) {
+            this.kmer = kmer;
+            this.count = count;
+        }
+
         public Kmer getKmer() {
             return kmer;
         }
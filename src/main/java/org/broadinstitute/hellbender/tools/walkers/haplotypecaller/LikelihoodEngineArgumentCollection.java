@@ -38,6 +38,20 @@ public final class LikelihoodEngineArgumentCollection implements Serializable {
     @Argument(fullName = "pair-hmm-implementation", shortName = "pairHMM", doc = "The PairHMM implementation to use for genotype likelihood calculations", optional = true)
     public PairHMM.Implementation pairHMM = PairHMM.Implementation.FASTEST_AVAILABLE;
 
+    /**
+     * Most reads align to every haplotype without gaps and with few mismatches.  With this argument, such reads are
+     * placed on each haplotype by the kmers at their ends, and their likelihoods are computed directly from their
+     * gap-free alignment instead of by the PairHMM, which is only run on the remaining reads.  The results can differ
+     * from those of the PairHMM by a small fraction of a log10 unit.
+     */
+    @Advanced
+    @Argument(fullName = "pair-hmm-gap-free-prescreen", doc = "Compute the likelihoods of reads that align to every haplotype without gaps without running the PairHMM", optional = true)
+    public boolean pairHMMGapFreePrescreen = false;
+
+    @Hidden
+    @Argument(fullName = "verify-pair-hmm-gap-free-prescreen", doc = "Run the PairHMM on every read and fail if the likelihoods computed by the gap-free prescreen differ from its results", optional = true)
+    public boolean verifyPairHMMGapFreePrescreen = false;
+
     /**
      * When calculating the likelihood of variants, we can try to correct for PCR errors that cause indel artifacts.
      * The correction is based on the reference context, and acts specifically around repetitive sequences that tend
@@ -0,0 +1,142 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+
+/**
+ * Counts the kmers of a set of reads, like {@link KMerCounter}, without creating a {@link Kmer} for each occurrence.
+ *
+ * Kmers that {@link PackedKmerUtils} can pack are counted in a {@link PackedKmerUtils.Table} of primitive keys and
+ * counts.  Any other kmer (a longer one, or one with any other base) is counted by an ordinary {@link KMerCounter}.
+ */
+final class PackedKMerCounter extends PackedKmerUtils.Table {
+    private final int kmerLength;
+    private int[] counts = new int[capacity()];
+    private final KMerCounter unpackedKmers;
+
+    /**
+     * Create a new kmer counter
+     *
+     * @param kmerLength the length of kmers we'll be counting, must be >= 1
+     */
+    PackedKMerCounter(final int kmerLength) {
+        Utils.validateArg( kmerLength > 0, () -> "kmerLength must be > 0 but got " + kmerLength);
+        this.kmerLength = kmerLength;
+        this.unpackedKmers = new KMerCounter(kmerLength);
+    }
+
+    int getKmerLength() {
+        return kmerLength;
+    }
+
+    /**
+     * Writes the packed value of each kmer of bases, or {@link PackedKmerUtils#UNPACKABLE}, into packedKmers
+     *
+     * @see PackedKmerUtils#packKmers
+     */
+    int packKmers(final byte[] bases, final long[] packedKmers) {
+        return PackedKmerUtils.packKmers(bases, kmerLength, packedKmers);
+    }
+
+    /**
+     * Add one occurrence of each kmer of bases
+     *
+     * @param bases the bases, which must not be modified afterwards
+     * @param packedKmers scratch space for {@link #packKmers}
+     */
+    void addKmers(final byte[] bases, final long[] packedKmers) {
+        final int numKmers = packKmers(bases, packedKmers);
+        for ( int offset = 0; offset < numKmers; offset++ ) {
+            if ( packedKmers[offset] == PackedKmerUtils.UNPACKABLE ) {
+                unpackedKmers.addKmer(new Kmer(bases, offset, kmerLength), 1);
+            } else {
+                counts[addPackedKmer(packedKmers[offset])]++;
+            }
+        }
+    }
+
+    /**
+     * Get the count of kmer in this kmer counter
+     */
+    int getKmerCount(final Kmer kmer) {
+        Utils.nonNull(kmer, "kmer cannot be null");
+        if ( kmer.length() != kmerLength ) {
+            return 0;
+        }
+        final long packedKmer = PackedKmerUtils.pack(kmer.bases(), 0, kmerLength);
+        if ( packedKmer == PackedKmerUtils.UNPACKABLE ) {
+            return unpackedKmers.getKmerCount(kmer);
+        }
+        final int bucket = bucketOf(packedKmer);
+        return bucket < 0 ? 0 : counts[bucket];
+    }
+
+    /**
+     * The counter holding the kmers that can't be packed
+     */
+    KMerCounter getUnpackedKmers() {
+        return unpackedKmers;
+    }
+
+    /**
+     * Get a new collection of all the counted kmers.  This creates every kmer, so it's meant for debugging and testing.
+     */
+    Collection<KMerCounter.CountedKmer> getCountedKmers() {
+        final List<KMerCounter.CountedKmer> result = new ArrayList<>(numPackedKmers() + unpackedKmers.getCountedKmers().size());
+        for ( int bucket = 0; bucket < capacity(); bucket++ ) {
+            if ( kmerAt(bucket) != PackedKmerUtils.UNPACKABLE ) {
+                result.add(new KMerCounter.CountedKmer(new Kmer(unpack(kmerAt(bucket))), counts[bucket]));
+            }
+        }
+        result.addAll(unpackedKmers.getCountedKmers());
+        return result;
+    }
+
+    /**
+     * The count of the packed kmer in a bucket
+     */
+    int countAt(final int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Get the bases of a packed kmer
+     */
+    byte[] unpack(final long packedKmer) {
+        return PackedKmerUtils.unpack(packedKmer, kmerLength);
+    }
+
+    /**
+     * Get the base at index (counting from the first base) of a packed kmer
+     */
+    byte baseAt(final long packedKmer, final int index) {
+        return PackedKmerUtils.baseAt(packedKmer, kmerLength, index);
+    }
+
+    @Override
+    protected void rehashValues(final int[] newBuckets, final int newCapacity) {
+        final int[] oldCounts = counts;
+        counts = new int[newCapacity];
+        for ( int i = 0; i < oldCounts.length; i++ ) {
+            if ( newBuckets[i] >= 0 ) {
+                counts[newBuckets[i]] = oldCounts[i];
+            }
+        }
+    }
+
+    @Override
+    protected void moveValue(final int fromBucket, final int toBucket) {
+        counts[toBucket] = counts[fromBucket];
+    }
+
+    @Override
+    protected void clearValue(final int bucket) {
+        counts[bucket] = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PackedKMerCounter{counting " + (numPackedKmers() + unpackedKmers.getCountedKmers().size()) + " distinct kmers}";
+    }
+}
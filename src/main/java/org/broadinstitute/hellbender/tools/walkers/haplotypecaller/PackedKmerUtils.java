@@ -0,0 +1,291 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Packing of kmers into longs, and an open-addressing table of packed kmers to build kmer collections on.
+ *
+ * <p>
+ *     A kmer of {@link #MAX_PACKED_KMER_LENGTH} or fewer upper-case A/C/G/T bases is packed two bits per base into a
+ *     long, with the first base in the highest bits, so that kmers can be compared and looked up without creating a
+ *     {@link Kmer} or hashing its bases.  Any other kmer (a longer one, or one with any other base) packs to
+ *     {@link #UNPACKABLE}, and is left to an ordinary collection of {@link Kmer}s.
+ * </p>
+ */
+public final class PackedKmerUtils {
+    /** the longest kmer that fits in a long, leaving the sign bit free */
+    public static final int MAX_PACKED_KMER_LENGTH = 31;
+
+    /** the packed value of a kmer that can't be packed */
+    public static final long UNPACKABLE = -1L;
+
+    private static final long LOW_BIT_OF_EACH_BASE = 0x5555555555555555L;
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    private PackedKmerUtils() {}
+
+    /**
+     * Packs the kmer of kmerLength bases starting at start in sequence, returning {@link #UNPACKABLE} if it can't
+     * be packed.
+     */
+    public static long pack(final byte[] sequence, final int start, final int kmerLength) {
+        final RollingKmer rollingKmer = new RollingKmer(kmerLength);
+        long packed = UNPACKABLE;
+        for ( int i = start; i < start + kmerLength; i++ ) {
+            packed = rollingKmer.next(sequence[i]);
+        }
+        return packed;
+    }
+
+    /**
+     * Writes the packed value of each kmer of bases, or {@link #UNPACKABLE}, into packedKmers
+     *
+     * @param bases the bases whose kmers are packed
+     * @param kmerLength the length of the kmers
+     * @param packedKmers where the kmer starting at each offset is written, must hold at least
+     *                    bases.length - kmerLength + 1 values
+     * @return the number of kmers in bases
+     */
+    public static int packKmers(final byte[] bases, final int kmerLength, final long[] packedKmers) {
+        final int numKmers = Math.max(bases.length - kmerLength + 1, 0);
+        Utils.validateArg(packedKmers.length >= numKmers, "packedKmers is too short");
+        final RollingKmer rollingKmer = new RollingKmer(kmerLength);
+        for ( int i = 0; i < bases.length; i++ ) {
+            final long packed = rollingKmer.next(bases[i]);
+            if ( i + 1 >= kmerLength ) {
+                packedKmers[i + 1 - kmerLength] = packed;
+            }
+        }
+        return numKmers;
+    }
+
+    /**
+     * Returns the bases of a packed kmer of the given length
+     */
+    public static byte[] unpack(final long packedKmer, final int kmerLength) {
+        final byte[] bases = new byte[kmerLength];
+        for ( int i = 0; i < kmerLength; i++ ) {
+            bases[i] = baseAt(packedKmer, kmerLength, i);
+        }
+        return bases;
+    }
+
+    /**
+     * Get the base at index (counting from the first base) of a packed kmer of the given length
+     */
+    public static byte baseAt(final long packedKmer, final int kmerLength, final int index) {
+        return BASES[(int)(packedKmer >>> (2 * (kmerLength - 1 - index))) & 3];
+    }
+
+    /**
+     * Get a mask with the low bit of each base at which two packed kmers differ set, so that the number of differing
+     * bases is its bit count, and the base at index (counting from the first base) differs if bit
+     * 2 * (kmerLength - 1 - index) is set
+     */
+    public static long differingBases(final long packedKmer, final long otherPackedKmer) {
+        final long differingBits = packedKmer ^ otherPackedKmer;
+        return (differingBits | (differingBits >>> 1)) & LOW_BIT_OF_EACH_BASE;
+    }
+
+    private static int code(final byte base) {
+        switch ( base ) {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+
+    /**
+     * The packed value of the kmer ending at the last base seen in a sequence, updated as each new base is seen by
+     * shifting the new base in and the oldest base out.
+     */
+    public static final class RollingKmer {
+        private final int kmerLength;
+        private final long mask; // 0 if kmers of this length can't be packed
+        private long packed;
+        private int validBases; // number of packable bases at the end of the window, up to kmerLength
+
+        public RollingKmer(final int kmerLength) {
+            Utils.validateArg(kmerLength > 0, () -> "kmerLength must be > 0 but got " + kmerLength);
+            this.kmerLength = kmerLength;
+            this.mask = kmerLength <= MAX_PACKED_KMER_LENGTH ? (1L << (2 * kmerLength)) - 1 : 0L;
+        }
+
+        /**
+         * Adds the next base of the sequence, and returns the packed value of the kmer that ends with it, or
+         * {@link #UNPACKABLE} if that kmer can't be packed or fewer than kmerLength bases have been seen.
+         */
+        public long next(final byte base) {
+            final int code = code(base);
+            if ( code < 0 || mask == 0 ) {
+                validBases = 0;
+                packed = 0;
+                return UNPACKABLE;
+            }
+            packed = ((packed << 2) | code) & mask;
+            if ( validBases < kmerLength ) {
+                validBases++;
+            }
+            return validBases == kmerLength ? packed : UNPACKABLE;
+        }
+    }
+
+    /**
+     * An open-addressing table of packed kmers with linear probing, which subclasses extend with arrays of per-kmer
+     * values indexed by bucket.
+     *
+     * The table is addressed by bucket, so that a caller can also keep its own per-kmer data in an array of
+     * {@link #capacity()} entries, as long as no kmers are added in the meantime.
+     */
+    public abstract static class Table {
+        private static final double LOAD_FACTOR = .5;
+        private static final int MIN_CAPACITY = 64;
+        private static final long USED_BUCKET = Long.MIN_VALUE;
+
+        private long[] keys = new long[MIN_CAPACITY]; // packed kmer with the MSB set if the bucket is in use
+        private int numPackedKmers;
+
+        /**
+         * The number of buckets in the table, which subclasses must also allocate for their values on construction
+         */
+        public final int capacity() {
+            return keys.length;
+        }
+
+        /**
+         * The number of kmers in the table
+         */
+        public final int numPackedKmers() {
+            return numPackedKmers;
+        }
+
+        /**
+         * The packed kmer in a bucket, or {@link #UNPACKABLE} if the bucket is empty
+         */
+        public final long kmerAt(final int bucket) {
+            return keys[bucket] == 0 ? UNPACKABLE : keys[bucket] & ~USED_BUCKET;
+        }
+
+        /**
+         * The bucket holding a packed kmer, or -1 if it isn't in the table
+         */
+        public final int bucketOf(final long packedKmer) {
+            final long entry = packedKmer | USED_BUCKET;
+            int bucket = homeBucket(packedKmer);
+            long current;
+            while ( (current = keys[bucket]) != 0 ) {
+                if ( current == entry ) {
+                    return bucket;
+                }
+                bucket = (bucket + 1) & (keys.length - 1);
+            }
+            return -1;
+        }
+
+        /**
+         * Get the bucket of a packed kmer, adding it to the table if it isn't there yet, in which case the value in
+         * its bucket is the one an empty bucket holds.  Adding a kmer may move every other kmer to a new bucket.
+         */
+        protected final int addPackedKmer(final long packedKmer) {
+            final long entry = packedKmer | USED_BUCKET;
+            int bucket = homeBucket(packedKmer);
+            long current;
+            while ( (current = keys[bucket]) != 0 ) {
+                if ( current == entry ) {
+                    return bucket;
+                }
+                bucket = (bucket + 1) & (keys.length - 1);
+            }
+            if ( numPackedKmers + 1 > keys.length * LOAD_FACTOR ) {
+                resize();
+                return addPackedKmer(packedKmer);
+            }
+            keys[bucket] = entry;
+            numPackedKmers++;
+            return bucket;
+        }
+
+        /**
+         * Empties a bucket, then moves later entries in its run back into the hole whenever that keeps them reachable
+         * from their home bucket, so that lookups can continue to stop at the first empty bucket.
+         */
+        protected final void removeAtBucket(final int bucket) {
+            final int mask = keys.length - 1;
+            int hole = bucket;
+            int next = bucket;
+            while ( true ) {
+                next = (next + 1) & mask;
+                final long entry = keys[next];
+                if ( entry == 0 ) {
+                    break;
+                }
+                final int home = homeBucket(entry & ~USED_BUCKET);
+                // the entry can move if its home doesn't lie cyclically in (hole, next]
+                if ( ((next - home) & mask) >= ((next - hole) & mask) ) {
+                    keys[hole] = entry;
+                    moveValue(next, hole);
+                    hole = next;
+                }
+            }
+            keys[hole] = 0;
+            clearValue(hole);
+            numPackedKmers--;
+        }
+
+        /**
+         * Removes every kmer from the table; subclasses clear their values
+         */
+        protected final void clearPackedKmers() {
+            if ( numPackedKmers > 0 ) {
+                Arrays.fill(keys, 0L);
+                numPackedKmers = 0;
+            }
+        }
+
+        /**
+         * Reallocates the values for a table of newCapacity buckets, moving the value in each old bucket to
+         * newBuckets[bucket], or dropping it if that is -1
+         */
+        protected abstract void rehashValues(final int[] newBuckets, final int newCapacity);
+
+        /**
+         * Moves the value in one bucket to another
+         */
+        protected abstract void moveValue(final int fromBucket, final int toBucket);
+
+        /**
+         * Sets the value in a bucket back to the one an empty bucket holds
+         */
+        protected abstract void clearValue(final int bucket);
+
+        private int homeBucket(final long packedKmer) {
+            // a variant of the murmur3 finalizer, so that kmers differing only in their first bases are spread out
+            long hash = packedKmer * 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 32;
+            return (int)hash & (keys.length - 1);
+        }
+
+        private void resize() {
+            final long[] oldKeys = keys;
+            keys = new long[2 * oldKeys.length];
+            final int mask = keys.length - 1;
+            final int[] newBuckets = new int[oldKeys.length];
+            for ( int i = 0; i < oldKeys.length; i++ ) {
+                newBuckets[i] = -1;
+                if ( oldKeys[i] != 0 ) {
+                    int bucket = homeBucket(oldKeys[i] & ~USED_BUCKET);
+                    while ( keys[bucket] != 0 ) {
+                        bucket = (bucket + 1) & mask;
+                    }
+                    keys[bucket] = oldKeys[i];
+                    newBuckets[i] = bucket;
+                }
+            }
+            rehashValues(newBuckets, keys.length);
+        }
+    }
+}
@@ -43,6 +43,12 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
 
     private final PairHMM pairHMM;
 
+    private final boolean useGapFreePrescreen;
+    private final boolean verifyGapFreePrescreen;
+    private GapFreePrescreen gapFreePrescreen;
+    private long prescreenedReadCount = 0;
+    private long pairHMMReadCount = 0;
+
     @VisibleForTesting
     static boolean writeLikelihoodsToFile = false;
 
@@ -126,6 +132,31 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
                                               final double log10globalReadMismappingRate,
                                               final PCRErrorModel pcrErrorModel,
                                               final byte baseQualityScoreThreshold) {
+        this( constantGCP, arguments, hmmType, log10globalReadMismappingRate, pcrErrorModel, baseQualityScoreThreshold, false, false );
+    }
+
+    /**
+     * Create a new PairHMMLikelihoodCalculationEngine using provided parameters and hmm to do its calculations
+     *
+     * @param constantGCP the gap continuation penalty to use with the PairHMM
+     * @param hmmType the type of the HMM to use
+     * @param log10globalReadMismappingRate the global mismapping probability, in log10(prob) units.
+     * @param pcrErrorModel model to correct for PCR indel artifacts
+     * @param baseQualityScoreThreshold Base qualities below this threshold will be reduced to the minimum usable base
+     *                                  quality.
+     * @param useGapFreePrescreen whether to compute the likelihoods of reads that align to every haplotype without gaps
+     *                            directly, running the PairHMM only on the other reads
+     * @param verifyGapFreePrescreen whether to run the PairHMM on every read anyway, and fail if its likelihoods differ
+     *                               from those computed by the prescreen
+     */
+    public PairHMMLikelihoodCalculationEngine(final byte constantGCP,
+                                              final PairHMMNativeArguments arguments,
+                                              final PairHMM.Implementation hmmType,
+                                              final double log10globalReadMismappingRate,
+                                              final PCRErrorModel pcrErrorModel,
+                                              final byte baseQualityScoreThreshold,
+                                              final boolean useGapFreePrescreen,
+                                              final boolean verifyGapFreePrescreen) {
         Utils.nonNull(hmmType, "hmmType is null");
         Utils.nonNull(pcrErrorModel, "pcrErrorModel is null");
         if (constantGCP < 0){
@@ -147,6 +178,8 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
             throw new IllegalArgumentException("baseQualityScoreThreshold must be greater than or equal to " + QualityUtils.MIN_USABLE_Q_SCORE + " (QualityUtils.MIN_USABLE_Q_SCORE)");
         }
         this.baseQualityScoreThreshold = baseQualityScoreThreshold;
+        this.useGapFreePrescreen = useGapFreePrescreen || verifyGapFreePrescreen;
+        this.verifyGapFreePrescreen = verifyGapFreePrescreen;
     }
 
     private PrintStream makeLikelihoodStream() {
@@ -162,6 +195,9 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         if ( likelihoodsStream != null ) {
             likelihoodsStream.close();
         }
+        if ( useGapFreePrescreen ) {
+            logger.info(String.format("Gap-free prescreen computed the likelihoods of %d reads, leaving %d reads to the PairHMM", prescreenedReadCount, pairHMMReadCount));
+        }
         pairHMM.close();
     }
 
@@ -175,6 +211,7 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         final AlleleList<Haplotype> haplotypes = new IndexedAlleleList<>(haplotypeList);
 
         initializePairHMM(haplotypeList, perSampleReadList);
+        gapFreePrescreen = useGapFreePrescreen ? new GapFreePrescreen(haplotypeList) : null;
 
         // Add likelihoods for each sample's reads to our result
         final ReadLikelihoods<Haplotype> result = new ReadLikelihoods<>(samples, haplotypes, perSampleReadList);
@@ -248,12 +285,76 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
 
         final Map<GATKRead, byte[]> gapContinuationPenalties = buildGapContinuationPenalties(processedReads, constantGCP);
 
-        // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
-        pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+        if ( gapFreePrescreen == null ) {
+            // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
+            pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+        } else {
+            computeReadLikelihoodsWithPrescreen(likelihoods, processedReads, gapContinuationPenalties);
+        }
 
         writeDebugLikelihoods(likelihoods);
     }
 
+    /**
+     * Computes the likelihoods of the reads that align to every haplotype without gaps with the prescreen, and those
+     * of the other reads with the PairHMM.  When verifying the prescreen, the PairHMM is run on every read and its
+     * likelihoods are kept.
+     */
+    private void computeReadLikelihoodsWithPrescreen(final LikelihoodMatrix<Haplotype> likelihoods,
+                                                     final List<GATKRead> processedReads,
+                                                     final Map<GATKRead, byte[]> gapContinuationPenalties) {
+        final int haplotypeCount = likelihoods.numberOfAlleles();
+        final int readCount = processedReads.size();
+        final double[][] prescreenedLikelihoods = new double[readCount][];
+        final List<GATKRead> pairHMMProcessedReads = new ArrayList<>(readCount);
+        final List<GATKRead> pairHMMReads = new ArrayList<>(readCount);
+        for ( int r = 0; r < readCount; r++ ) {
+            final GATKRead processedRead = processedReads.get(r);
+            final double[] readLikelihoods = new double[haplotypeCount];
+            if ( gapFreePrescreen.computeLog10Likelihoods(processedRead, gapContinuationPenalties.get(processedRead), readLikelihoods) ) {
+                prescreenedLikelihoods[r] = readLikelihoods;
+            } else {
+                pairHMMProcessedReads.add(processedRead);
+                pairHMMReads.add(likelihoods.getRead(r));
+            }
+        }
+        prescreenedReadCount += readCount - pairHMMReads.size();
+        pairHMMReadCount += pairHMMReads.size();
+
+        if ( verifyGapFreePrescreen || pairHMMReads.size() == readCount ) {
+            pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+        } else if ( !pairHMMReads.isEmpty() ) {
+            // run the PairHMM on a matrix holding just the reads the prescreen couldn't handle
+            final String sample = "pairHMMReads";
+            final ReadLikelihoods<Haplotype> pairHMMLikelihoods = new ReadLikelihoods<>(SampleList.singletonSampleList(sample),
+                    new IndexedAlleleList<>(likelihoods.alleles()), Collections.singletonMap(sample, pairHMMReads));
+            final LikelihoodMatrix<Haplotype> pairHMMMatrix = pairHMMLikelihoods.sampleMatrix(0);
+            pairHMM.computeLog10Likelihoods(pairHMMMatrix, pairHMMProcessedReads, gapContinuationPenalties);
+            for ( int r = 0, pairHMMRead = 0; r < readCount; r++ ) {
+                if ( prescreenedLikelihoods[r] == null ) {
+                    for ( int h = 0; h < haplotypeCount; h++ ) {
+                        likelihoods.set(h, r, pairHMMMatrix.get(h, pairHMMRead));
+                    }
+                    pairHMMRead++;
+                }
+            }
+        }
+
+        for ( int r = 0; r < readCount; r++ ) {
+            if ( prescreenedLikelihoods[r] == null ) {
+                continue;
+            }
+            for ( int h = 0; h < haplotypeCount; h++ ) {
+                if ( !verifyGapFreePrescreen ) {
+                    likelihoods.set(h, r, prescreenedLikelihoods[r][h]);
+                } else if ( Math.abs(likelihoods.get(h, r) - prescreenedLikelihoods[r][h]) > GapFreePrescreen.MAX_LOG10_DIFFERENCE ) {
+                    throw new GATKException(String.format("Gap-free prescreen likelihood %f of read %s given haplotype %s differs from the PairHMM likelihood %f",
+                            prescreenedLikelihoods[r][h], processedReads.get(r).getName(), likelihoods.getAllele(h).getBaseString(), likelihoods.get(h, r)));
+                }
+            }
+        }
+    }
+
     /**
      * Pre-processing of the reads to be evaluated at the current location from the current sample.
      * We apply the PCR Error Model, and cap the minimum base, insertion, and deletion qualities of each read.
@@ -55,10 +55,16 @@ public final class ReadErrorCorrector {
     /**
      * A map of for each kmer to its num occurrences in addKmers
      */
-    final KMerCounter countsByKMer;
+    final PackedKMerCounter countsByKMer;
 
-    private final Map<Kmer,Kmer> kmerCorrectionMap = new HashMap<>();
-    private final Map<Kmer,Pair<int[],byte[]>> kmerDifferingBases = new HashMap<>();
+    /**
+     * For each bucket of countsByKMer, the packed kmer its kmer is corrected to, or NO_CORRECTION
+     */
+    private long[] kmerCorrections = new long[0];
+    /**
+     * Differing positions and bases of the corrections of kmers that can't be packed
+     */
+    private final Map<Kmer,Pair<int[],byte[]>> unpackedKmerCorrections = new HashMap<>();
     private final int kmerLength;
     private final boolean debug;
     private final boolean trimLowQualityBases;
@@ -78,6 +84,15 @@ public final class ReadErrorCorrector {
     private static final boolean DONT_CORRECT_IN_LONG_HOMOPOLYMERS = false;
     private static final int MAX_HOMOPOLYMER_THRESHOLD = 12;
 
+    private static final long NO_CORRECTION = PackedKmerUtils.UNPACKABLE;
+    private static final byte NO_CORRECTION_BASE = 0;
+    private static final byte CONFLICTING_CORRECTION_BASES = -1;
+
+    // scratch space reused across reads: the packed kmers of the current read, and the consensus correction at each
+    // offset (NO_CORRECTION_BASE, a base, or CONFLICTING_CORRECTION_BASES)
+    private long[] packedKmers = new long[0];
+    private byte[] consensusCorrections = new byte[0];
+
     // debug counter structure
     private final ReadErrorCorrectionStats readErrorCorrectionStats = new ReadErrorCorrectionStats();
 
@@ -102,7 +117,7 @@ public final class ReadErrorCorrector {
         Utils.validateArg(qualityOfCorrectedBases >= 2 && qualityOfCorrectedBases <= QualityUtils.MAX_REASONABLE_Q_SCORE,
                 () -> "qualityOfCorrectedBases must be >= 2 and <= MAX_REASONABLE_Q_SCORE but got " + qualityOfCorrectedBases);
 
-        countsByKMer = new KMerCounter(kmerLength);
+        countsByKMer = new PackedKMerCounter(kmerLength);
         this.kmerLength = kmerLength;
         this.maxMismatchesToCorrect = maxMismatchesToCorrect;
         this.qualityOfCorrectedBases = qualityOfCorrectedBases;
@@ -138,9 +153,8 @@ public final class ReadErrorCorrector {
         }
 
         final byte[] readBases = read.getBases();
-        for (int offset = 0; offset <= readBases.length-kmerLength; offset++ )  {
-            countsByKMer.addKmer(new Kmer(readBases,offset,kmerLength),1);
-        }
+        ensureScratchCapacity(readBases.length);
+        countsByKMer.addKmers(readBases, packedKmers);
     }
 
     /**
@@ -190,12 +204,12 @@ public final class ReadErrorCorrector {
         final byte[] correctedBases = inputRead.getBases();
         final byte[] correctedQuals = inputRead.getBaseQualities();
 
-        // array to store list of possible corrections for read
-        final CorrectionSet correctionSet = buildCorrectionMap(correctedBases);
+        // fill consensusCorrections with the possible corrections for read
+        buildCorrectionMap(correctedBases);
 
         for (int offset = 0; offset < correctedBases.length; offset++) {
-            final Byte b = correctionSet.getConsensusCorrection(offset);
-            if (b != null && b != correctedBases[offset]) {
+            final byte b = consensusCorrections[offset];
+            if (b != NO_CORRECTION_BASE && b != CONFLICTING_CORRECTION_BASES && b != correctedBases[offset]) {
                 correctedBases[offset] = b;
                 correctedQuals[offset] = qualityOfCorrectedBases;
                 corrected = true;
@@ -233,31 +247,61 @@ public final class ReadErrorCorrector {
      * a) See whether the kmer has been mapped to a corrected kmer.
      * b) If so, get list of differing positions and corresponding bases.
      * c) Add then list of new bases to index in correction list.
-     * Correction list is of read size, and holds a list of bases to correct.
+     * Correction list is of read size, and holds in consensusCorrections the strict consensus of the bases to correct
+     * to at each offset, as in {@link CorrectionSet#getConsensusCorrection}.
      * @param correctedBases                        Bases to attempt to correct
-     * @return                                      CorrectionSet object.
      */
-    private CorrectionSet buildCorrectionMap(final byte[] correctedBases) {
+    private void buildCorrectionMap(final byte[] correctedBases) {
         Utils.nonNull(correctedBases);
-        // array to store list of possible corrections for read
-        final CorrectionSet correctionSet = new CorrectionSet(correctedBases.length);
-
-        for (int offset = 0; offset <= correctedBases.length-kmerLength; offset++ )  {
-            final Kmer kmer = new Kmer(correctedBases,offset,kmerLength);
-            final Kmer newKmer = kmerCorrectionMap.get(kmer);
-            if (newKmer != null && !newKmer.equals(kmer)){
-                final Pair<int[],byte[]> differingPositions = kmerDifferingBases.get(kmer);
-                final int[] differingIndeces = differingPositions.getLeft();
-                final byte[] differingBases = differingPositions.getRight();
-
-                for (int k=0; k < differingIndeces.length; k++) {
-                    // get list of differing positions for corrected kmer
-                    // for each of these, add correction candidate to correction set
-                    correctionSet.add(offset + differingIndeces[k],differingBases[k]);
+        ensureScratchCapacity(correctedBases.length);
+        Arrays.fill(consensusCorrections, 0, correctedBases.length, NO_CORRECTION_BASE);
+
+        final int numKmers = countsByKMer.packKmers(correctedBases, packedKmers);
+        for (int offset = 0; offset < numKmers; offset++ )  {
+            final long packedKmer = packedKmers[offset];
+            if (packedKmer != PackedKmerUtils.UNPACKABLE) {
+                final long newKmer = kmerCorrections[countsByKMer.bucketOf(packedKmer)];
+                if (newKmer != NO_CORRECTION) {
+                    // for each differing position, add the base of the corrected kmer as a correction candidate
+                    for (long differingBases = PackedKmerUtils.differingBases(packedKmer, newKmer); differingBases != 0; differingBases &= differingBases - 1) {
+                        final int index = kmerLength - 1 - Long.numberOfTrailingZeros(differingBases) / 2;
+                        addCorrection(offset + index, countsByKMer.baseAt(newKmer, index));
+                    }
+                }
+            } else if (!unpackedKmerCorrections.isEmpty()) {
+                final Pair<int[],byte[]> differingPositions = unpackedKmerCorrections.get(new Kmer(correctedBases,offset,kmerLength));
+                if (differingPositions != null) {
+                    final int[] differingIndeces = differingPositions.getLeft();
+                    final byte[] differingBases = differingPositions.getRight();
+                    for (int k=0; k < differingIndeces.length; k++) {
+                        addCorrection(offset + differingIndeces[k], differingBases[k]);
+                    }
                 }
             }
         }
-        return correctionSet;
+    }
+
+    /**
+     * Add a candidate correction at offset to consensusCorrections, which holds the base if every candidate there so
+     * far has been that base, and CONFLICTING_CORRECTION_BASES if they disagree.
+     */
+    private void addCorrection(final int offset, final byte base) {
+        if (!BaseUtils.isRegularBase(base)) {
+            return; // no irregular base correction
+        }
+        final byte consensus = consensusCorrections[offset];
+        if (consensus == NO_CORRECTION_BASE) {
+            consensusCorrections[offset] = base;
+        } else if (consensus != base) {
+            consensusCorrections[offset] = CONFLICTING_CORRECTION_BASES;
+        }
+    }
+
+    private void ensureScratchCapacity(final int readLength) {
+        if (consensusCorrections.length < readLength) {
+            packedKmers = new long[readLength];
+            consensusCorrections = new byte[readLength];
+        }
     }
 
 
@@ -289,65 +333,134 @@ public final class ReadErrorCorrector {
      *
      */
     private void computeKmerCorrectionMap() {
-        for (final KMerCounter.CountedKmer storedKmer : countsByKMer.getCountedKmers()) {
+        if (kmerCorrections.length != countsByKMer.capacity()) {
+            kmerCorrections = new long[countsByKMer.capacity()];
+        }
+        Arrays.fill(kmerCorrections, NO_CORRECTION);
+        unpackedKmerCorrections.clear();
+
+        // packed kmers: solid kmers map to themselves, so they need no entry
+        for (int bucket = 0; bucket < kmerCorrections.length; bucket++) {
+            final long packedKmer = countsByKMer.kmerAt(bucket);
+            if (packedKmer == PackedKmerUtils.UNPACKABLE) {
+                continue;
+            }
+            final int count = countsByKMer.countAt(bucket);
+            if (count >= minObservationsForKmerToBeSolid) {
+                readErrorCorrectionStats.numSolidKmers++;
+            }
+            else if (count <= maxObservationsForKmerToBeCorrectable) {
+                // loop now thru all other kmers to find nearest neighbor
+                kmerCorrections[bucket] = findNearestPackedNeighbor(packedKmer, maxMismatchesToCorrect);
+                if (kmerCorrections[bucket] != NO_CORRECTION) {
+                    readErrorCorrectionStats.numCorrectedKmers++;
+                } else {
+                    readErrorCorrectionStats.numUncorrectableKmers++;
+                }
+            }
+        }
+
+        // kmers that can't be packed are compared against every kmer, packed or not
+        List<Kmer> allKmers = null;
+        for (final KMerCounter.CountedKmer storedKmer : countsByKMer.getUnpackedKmers().getCountedKmers()) {
             if (storedKmer.getCount() >= minObservationsForKmerToBeSolid) {
-                // this kmer is good: map to itself
-                kmerCorrectionMap.put(storedKmer.getKmer(),storedKmer.getKmer());
-                kmerDifferingBases.put(storedKmer.getKmer(), Pair.of(new int[0],new byte[0])); // dummy empty array
                 readErrorCorrectionStats.numSolidKmers++;
             }
             else if (storedKmer.getCount() <= maxObservationsForKmerToBeCorrectable) {
-                // loop now thru all other kmers to find nearest neighbor
-                final Pair<Kmer,Pair<int[],byte[]>> nearestNeighbor = findNearestNeighbor(storedKmer.getKmer(),countsByKMer,maxMismatchesToCorrect);
+                if (allKmers == null) {
+                    allKmers = new ArrayList<>();
+                    for (final KMerCounter.CountedKmer countedKmer : countsByKMer.getCountedKmers()) {
+                        allKmers.add(countedKmer.getKmer());
+                    }
+                }
+                final Pair<int[],byte[]> nearestNeighbor = findNearestNeighbor(storedKmer.getKmer(), allKmers, maxMismatchesToCorrect);
 
                 // check if nearest neighbor lies in a close vicinity. If so, log the new bases and the correction map
                 if (nearestNeighbor != null) { // ok, found close neighbor
-                    kmerCorrectionMap.put(storedKmer.getKmer(), nearestNeighbor.getLeft());
-                    kmerDifferingBases.put(storedKmer.getKmer(), nearestNeighbor.getRight());
+                    unpackedKmerCorrections.put(storedKmer.getKmer(), nearestNeighbor);
                     readErrorCorrectionStats.numCorrectedKmers++;
-//                    if (debug)
-//                        logger.info("Original kmer:" + storedKmer + "\tCorrected kmer:" + nearestNeighbor.first + "\tDistance:" + dist);
                 }
                 else {
                     readErrorCorrectionStats.numUncorrectableKmers++;
                 }
+            }
+        }
+    }
+
+    /**
+     * Finds nearest neighbor of a given packed k-mer among the other packed k-mers, up to a given distance.
+     * Rather than comparing against every counted k-mer, this enumerates the Hamming neighbors of the k-mer in order of
+     * increasing distance and looks each one up in the counter, so a distance of 2 costs 3k + 9k(k-1)/2 lookups.
+     * If many k-mers share same closest distance, the first one enumerated is picked.
+     * @param packedKmer                  K-mer of interest
+     * @param maxDistance                 Maximum distance to search
+     * @return                            The closest packed k-mer in Hamming distance, or NO_CORRECTION if there's none
+     *                                    up to the given distance
+     */
+    private long findNearestPackedNeighbor(final long packedKmer, final int maxDistance) {
+        for (int distance = 1; distance <= Math.min(maxDistance, kmerLength); distance++) {
+            final long neighbor = findPackedNeighborAtDistance(packedKmer, distance, 0);
+            if (neighbor != NO_CORRECTION) {
+                return neighbor;
+            }
+        }
+        return NO_CORRECTION;
+    }
 
+    /**
+     * Looks up every k-mer that differs from packedKmer at exactly distance of the bases from firstIndex on
+     * @return the first such k-mer that has been counted, or NO_CORRECTION if there's none
+     */
+    private long findPackedNeighborAtDistance(final long packedKmer, final int distance, final int firstIndex) {
+        for (int index = firstIndex; index <= kmerLength - distance; index++) {
+            final int shift = 2 * (kmerLength - 1 - index);
+            final long code = (packedKmer >>> shift) & 3;
+            for (long otherCode = 0; otherCode < 4; otherCode++) {
+                if (otherCode == code) {
+                    continue;
+                }
+                final long candidateKmer = (packedKmer & ~(3L << shift)) | (otherCode << shift);
+                final long neighbor = distance == 1 ?
+                        (countsByKMer.bucketOf(candidateKmer) < 0 ? NO_CORRECTION : candidateKmer) :
+                        findPackedNeighborAtDistance(candidateKmer, distance - 1, index + 1);
+                if (neighbor != NO_CORRECTION) {
+                    return neighbor;
+                }
             }
-         }
+        }
+        return NO_CORRECTION;
     }
 
     /**
      * Finds nearest neighbor of a given k-mer, among a list of counted K-mers, up to a given distance.
      * If many k-mers share same closest distance, an arbitrary k-mer is picked
      * @param kmer                        K-mer of interest
-     * @param countsByKMer                KMerCounter storing set of counted k-mers (may include kmer of interest)
+     * @param candidateKmers              the counted k-mers (may include kmer of interest)
      * @param maxDistance                 Maximum distance to search
-     * @return                            Pair of values: closest K-mer in Hamming distance and list of differing bases.
+     * @return                            Pair of values: the positions at which the closest K-mer in Hamming distance
+     *                                      differs, and its bases there.
      *                                      If no neighbor can be found up to given distance, returns null
      */
-    private Pair<Kmer,Pair<int[],byte[]>> findNearestNeighbor(final Kmer kmer,
-                                                             final KMerCounter  countsByKMer,
-                                                             final int maxDistance) {
+    private static Pair<int[],byte[]> findNearestNeighbor(final Kmer kmer,
+                                                          final Collection<Kmer> candidateKmers,
+                                                          final int maxDistance) {
         Utils.nonNull(kmer, "KMER");
-        Utils.nonNull(countsByKMer, "countsByKMer");
-        Utils.validateArg(maxDistance >= 1, "countsByKMer");
+        Utils.nonNull(candidateKmers, "candidateKmers");
+        Utils.validateArg(maxDistance >= 1, "maxDistance must be >= 1");
 
         int minimumDistance = Integer.MAX_VALUE;
-        Kmer closestKmer = null;
+        Pair<int[],byte[]> closestDifferingPositions = null;
 
         final int[] differingIndeces = new int[maxDistance+1];
         final byte[] differingBases = new byte[maxDistance+1];
 
-        final int[] closestDifferingIndices = new int[maxDistance+1];
-        final byte[] closestDifferingBases = new byte[maxDistance+1];
-
-        for (final KMerCounter.CountedKmer candidateKmer : countsByKMer.getCountedKmers()) {
+        for (final Kmer candidateKmer : candidateKmers) {
             // skip if candidate set includes test kmer
-            if (candidateKmer.getKmer().equals(kmer)) {
+            if (candidateKmer.equals(kmer)) {
                 continue;
             }
 
-            final int hammingDistance  = kmer.getDifferingPositions(candidateKmer.getKmer(), maxDistance, differingIndeces, differingBases);
+            final int hammingDistance  = kmer.getDifferingPositions(candidateKmer, maxDistance, differingIndeces, differingBases);
             if (hammingDistance < 0) // can't compare kmer? skip
             {
                 continue;
@@ -355,12 +468,10 @@ public final class ReadErrorCorrector {
 
             if (hammingDistance < minimumDistance)  {
                 minimumDistance = hammingDistance;
-                closestKmer = candidateKmer.getKmer();
-                System.arraycopy(differingBases,0,closestDifferingBases,0,differingBases.length);
-                System.arraycopy(differingIndeces,0,closestDifferingIndices,0,differingIndeces.length);
+                closestDifferingPositions = Pair.of(Arrays.copyOf(differingIndeces, hammingDistance), Arrays.copyOf(differingBases, hammingDistance));
             }
         }
-        return Pair.of(closestKmer, Pair.of(closestDifferingIndices,closestDifferingBases));
+        return closestDifferingPositions;
     }
 
 
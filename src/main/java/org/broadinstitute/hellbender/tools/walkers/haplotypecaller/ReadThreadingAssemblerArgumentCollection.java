@@ -152,6 +152,15 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     @Argument(fullName="max-unpruned-variants", doc = "Maximum number of variants in graph the adaptive pruner will allow", optional = true)
     public int maxUnprunedVariants = 100;
 
+    /**
+     * Graphs for the different kmer sizes of an assembly region (including the larger sizes tried when there are
+     * cycles) are independent, so they can be assembled concurrently.  This bounds the number of threads each
+     * assembler uses to do so; the results are the same as with a single thread.
+     */
+    @Advanced
+    @Argument(fullName="assembly-threads", doc = "Number of threads used to assemble the graphs for different kmer sizes of each region concurrently", optional = true, minValue = 1)
+    public int assemblyThreads = 1;
+
     @Advanced
     @Argument(fullName="debug-assembly", shortName="debug", doc="Print out verbose debug information about each assembly region", optional = true)
     public boolean debugAssembly;
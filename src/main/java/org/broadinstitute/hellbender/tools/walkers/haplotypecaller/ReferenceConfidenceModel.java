@@ -195,6 +195,7 @@ public class ReferenceConfidenceModel {
         final String sampleName = readLikelihoods.getSample(0);
 
         final int globalRefOffset = refSpan.getStart() - activeRegion.getExtendedSpan().getStart();
+        final RefVsAnyRun run = reusesRefVsAnyLikelihoods() ? new RefVsAnyRun(ploidy) : null;
         // Note, we use an indexed for-loop here because this method has a large impact on the profile of HaplotypeCaller runtime in GVCF mode
         final int refPileupsSize = refPileups.size();
         for (int i = 0; i < refPileupsSize; i++) {
@@ -213,7 +214,7 @@ public class ReferenceConfidenceModel {
                 }
             } else {
                 // otherwise emit a reference confidence variant context
-                results.add(makeReferenceConfidenceVariantContext(ploidy, ref, sampleName, globalRefOffset, pileup, curPos, offset, applyPriors, currentPriors));
+                results.add(makeReferenceConfidenceVariantContext(ploidy, ref, sampleName, globalRefOffset, pileup, curPos, offset, applyPriors, currentPriors, run));
             }
         }
 
@@ -237,10 +238,24 @@ public class ReferenceConfidenceModel {
                                                                  final int offset,
                                                                  final boolean applyPriors,
                                                                  final List<VariantContext> VCpriors) {
+        return makeReferenceConfidenceVariantContext(ploidy, ref, sampleName, globalRefOffset, pileup, curPos, offset, applyPriors, VCpriors, null);
+    }
+
+    private VariantContext makeReferenceConfidenceVariantContext(final int ploidy,
+                                                                 final byte[] ref,
+                                                                 final String sampleName,
+                                                                 final int globalRefOffset,
+                                                                 final ReadPileup pileup,
+                                                                 final Locatable curPos,
+                                                                 final int offset,
+                                                                 final boolean applyPriors,
+                                                                 final List<VariantContext> VCpriors,
+                                                                 final RefVsAnyRun run) {
         // Assume infinite population on a single sample.
         final int refOffset = offset + globalRefOffset;
         final byte refBase = ref[refOffset];
-        final ReferenceConfidenceResult homRefCalc = calcGenotypeLikelihoodsOfRefVsAny(ploidy, pileup, refBase, BASE_QUAL_THRESHOLD, null, true);
+        final ReferenceConfidenceResult homRefCalc = run == null ? calcGenotypeLikelihoodsOfRefVsAny(ploidy, pileup, refBase, BASE_QUAL_THRESHOLD, null, true)
+                : run.calcGenotypeLikelihoodsOfRefVsAny(pileup, refBase);
 
         final Allele refAllele = Allele.create(refBase, true);
         final List<Allele> refSiteAlleles = Arrays.asList(refAllele, Allele.NON_REF_ALLELE);
@@ -388,6 +403,13 @@ public class ReferenceConfidenceModel {
 
     private void applyPileupElementRefVsNonRefLikelihoodAndCount(final byte refBase, final int likelihoodCount, final double log10Ploidy, final RefVsAnyResult result, final PileupElement element, final byte qual, final MathUtils.RunningAverage hqSoftClips, final boolean readsWereRealigned) {
         final boolean isAlt = readsWereRealigned ? isAltAfterAssembly(element, refBase) : isAltBeforeAssembly(element, refBase);
+        applyRefVsNonRefLikelihoodAndCount(likelihoodCount, log10Ploidy, result, isAlt, qual);
+        if (isAlt && hqSoftClips != null && element.isNextToSoftClip()) {
+            hqSoftClips.add(AlignmentUtils.calcNumHighQualitySoftClips(element.getRead(), HQ_BASE_QUALITY_SOFTCLIP_THRESHOLD));
+        }
+    }
+
+    private static void applyRefVsNonRefLikelihoodAndCount(final int likelihoodCount, final double log10Ploidy, final RefVsAnyResult result, final boolean isAlt, final byte qual) {
         final double referenceLikelihood;
         final double nonRefLikelihood;
         if (isAlt) {
@@ -409,8 +431,120 @@ public class ReferenceConfidenceModel {
                             referenceLikelihood + MathUtils.log10(j),
                             nonRefLikelihood + MathUtils.log10(i));
         }
-        if (isAlt && hqSoftClips != null && element.isNextToSoftClip()) {
-            hqSoftClips.add(AlignmentUtils.calcNumHighQualitySoftClips(element.getRead(), HQ_BASE_QUALITY_SOFTCLIP_THRESHOLD));
+    }
+
+    /**
+     * Whether {@link #calculateRefConfidence} may reuse the ref-vs-any likelihoods of the previous position when a
+     * pileup's composition is unchanged, instead of calling {@link #calcGenotypeLikelihoodsOfRefVsAny}.  Subclasses
+     * that override {@link #calcGenotypeLikelihoodsOfRefVsAny} must return false.
+     */
+    protected boolean reusesRefVsAnyLikelihoods() {
+        return true;
+    }
+
+    /**
+     * Computes the ref-vs-any likelihoods of consecutive positions of a single sample, the same way as
+     * {@link #calcGenotypeLikelihoodsOfRefVsAny} with realigned reads and no soft clip counting does.
+     *
+     * The likelihoods only depend on how many of the pileup elements that are used have each (base quality, is alt)
+     * combination, not on their order.  Each pileup is reduced to that histogram, and the likelihoods are the sum over
+     * its distinct combinations of the count times the (cached) contribution of a single element, so deep pileups cost
+     * a handful of multiplications rather than a log-sum per element.  If the histogram is the same as that of the
+     * previous position, which in homozygous reference stretches with uniform coverage is common, the previous
+     * likelihoods are copied.  The results agree with {@link #calcGenotypeLikelihoodsOfRefVsAny} up to floating-point
+     * rounding.
+     */
+    private static final class RefVsAnyRun {
+        // a (qual << 1 | isAlt) code for each possible unsigned byte quality
+        private static final int NUM_CODES = 512;
+
+        private final int likelihoodCount;
+        private final double log10Ploidy;
+
+        // the contribution of a single element with each code to the likelihoods, computed as needed
+        private final double[][] contributions = new double[NUM_CODES][];
+
+        // the histograms of codes of the current and previous pileups, and the distinct codes present in each
+        private int[] counts = new int[NUM_CODES];
+        private int[] previousCounts = new int[NUM_CODES];
+        private int[] codes = new int[NUM_CODES];
+        private int[] previousCodes = new int[NUM_CODES];
+        private int numCodes = 0;
+        private int previousNumCodes = -1;
+        private RefVsAnyResult previous;
+
+        private RefVsAnyRun(final int ploidy) {
+            likelihoodCount = ploidy + 1;
+            log10Ploidy = MathUtils.log10(ploidy);
+        }
+
+        private RefVsAnyResult calcGenotypeLikelihoodsOfRefVsAny(final ReadPileup pileup, final byte refBase) {
+            // the current histogram becomes the previous one, and the old previous one is cleared for reuse
+            for (int i = 0; i < previousNumCodes; i++) {
+                previousCounts[previousCodes[i]] = 0;
+            }
+            final int[] swapCounts = previousCounts;
+            previousCounts = counts;
+            counts = swapCounts;
+            final int[] swapCodes = previousCodes;
+            previousCodes = codes;
+            codes = swapCodes;
+            previousNumCodes = previous == null ? -1 : numCodes;
+            numCodes = 0;
+
+            for (final PileupElement p : pileup) {
+                final byte qual = p.isDeletion() ? REF_MODEL_DELETION_QUAL : p.getQual();
+                if (!p.isDeletion() && qual <= BASE_QUAL_THRESHOLD) {
+                    continue;
+                }
+                final int code = ((qual & 0xFF) << 1) | (isAltAfterAssembly(p, refBase) ? 1 : 0);
+                if (counts[code]++ == 0) {
+                    codes[numCodes++] = code;
+                }
+            }
+
+            boolean unchanged = numCodes == previousNumCodes;
+            for (int i = 0; unchanged && i < numCodes; i++) {
+                unchanged = counts[codes[i]] == previousCounts[codes[i]];
+            }
+
+            final RefVsAnyResult result = new RefVsAnyResult(likelihoodCount);
+            if (unchanged) {
+                System.arraycopy(previous.genotypeLikelihoods, 0, result.genotypeLikelihoods, 0, likelihoodCount);
+                result.refDepth = previous.refDepth;
+                result.nonRefDepth = previous.nonRefDepth;
+            } else {
+                int size = 0;
+                for (int i = 0; i < numCodes; i++) {
+                    final int code = codes[i];
+                    final int count = counts[code];
+                    final double[] contribution = contributionOf(code);
+                    for (int j = 0; j < likelihoodCount; j++) {
+                        result.genotypeLikelihoods[j] += count * contribution[j];
+                    }
+                    if ((code & 1) != 0) {
+                        result.nonRefDepth += count;
+                    } else {
+                        result.refDepth += count;
+                    }
+                    size += count;
+                }
+                final double denominator = size * log10Ploidy;
+                for (int i = 0; i < likelihoodCount; i++) {
+                    result.genotypeLikelihoods[i] -= denominator;
+                }
+            }
+            previous = result;
+            return result;
+        }
+
+        private double[] contributionOf(final int code) {
+            if (contributions[code] == null) {
+                final RefVsAnyResult single = new RefVsAnyResult(likelihoodCount);
+                applyRefVsNonRefLikelihoodAndCount(likelihoodCount, log10Ploidy, single, (code & 1) != 0, (byte) (code >> 1));
+                contributions[code] = single.genotypeLikelihoods;
+            }
+            return contributions[code];
         }
     }
 
@@ -0,0 +1,816 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.jgrapht.EdgeFactory;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A directed graph without multiple edges (but with self-loops) that keeps its structure in arrays.
+ *
+ * <p>
+ *     Each vertex and each edge gets an integer id when it's added, and ids are handed out in increasing order.
+ *     Each vertex has arrays of the ids of its incoming and outgoing edges, and each edge has the ids of its source
+ *     and target, so walking the graph doesn't touch any maps.  Vertices and edges are only found by value when
+ *     they're passed in by the caller, through an open-addressing index of ids.  The ids of removed vertices and
+ *     edges are left empty until the arrays fill up, when the live ids are renumbered in order.
+ * </p>
+ *
+ * <p>
+ *     This behaves like the JGraphT DefaultDirectedGraph it replaces: vertices are found by {@code equals()},
+ *     vertex and edge sets iterate in insertion order, the sets returned are unmodifiable live views, and adding an
+ *     edge between two vertices that are already connected does nothing.
+ * </p>
+ */
+public abstract class ArrayDirectedGraph<V, E> implements Cloneable, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int[] NO_EDGES = new int[0];
+    private static final int MIN_CAPACITY = 16;
+    private static final int NO_ID = -1;
+
+    private final EdgeFactory<V, E> edgeFactory;
+
+    private Object[] vertices; // indexed by vertex id; null if the vertex was removed
+    private int[][] outgoingEdgeIds;
+    private int[] outDegrees;
+    private int[][] incomingEdgeIds;
+    private int[] inDegrees;
+    private int vertexIdEnd; // the next vertex id to hand out
+    private int numVertices;
+    private IdIndex vertexIds;
+
+    private Object[] edges; // indexed by edge id; null if the edge was removed
+    private int[] edgeSources;
+    private int[] edgeTargets;
+    private int edgeIdEnd; // the next edge id to hand out
+    private int numEdges;
+    private IdIndex edgeIds;
+
+    // counts of changes, for failing fast when a vertex or edge set is changed while it's being iterated over
+    private int vertexModCount;
+    private int edgeModCount;
+    // count of times the vertices have been renumbered, so that views of a vertex's edges know to look up its id again
+    private int vertexRenumberings;
+
+    private transient Set<V> vertexSetView;
+    private transient Set<E> edgeSetView;
+
+    protected ArrayDirectedGraph(final EdgeFactory<V, E> edgeFactory) {
+        this.edgeFactory = Utils.nonNull(edgeFactory, "edge factory cannot be null");
+        vertices = new Object[MIN_CAPACITY];
+        outgoingEdgeIds = new int[MIN_CAPACITY][];
+        outDegrees = new int[MIN_CAPACITY];
+        incomingEdgeIds = new int[MIN_CAPACITY][];
+        inDegrees = new int[MIN_CAPACITY];
+        vertexIds = new IdIndex();
+        edges = new Object[MIN_CAPACITY];
+        edgeSources = new int[MIN_CAPACITY];
+        edgeTargets = new int[MIN_CAPACITY];
+        edgeIds = new IdIndex();
+    }
+
+    public final EdgeFactory<V, E> getEdgeFactory() {
+        return edgeFactory;
+    }
+
+    /**
+     * Adds a vertex, unless an equal one is already present.
+     * @return true if the vertex was added
+     */
+    public boolean addVertex(final V v) {
+        Utils.nonNull(v, "cannot add a null vertex");
+        if ( vertexIds.get(v) != NO_ID ) {
+            return false;
+        }
+        if ( vertexIdEnd == vertices.length ) {
+            makeRoomForVertex();
+        }
+        final int id = vertexIdEnd++;
+        vertices[id] = v;
+        outgoingEdgeIds[id] = NO_EDGES;
+        incomingEdgeIds[id] = NO_EDGES;
+        outDegrees[id] = 0;
+        inDegrees[id] = 0;
+        vertexIds.put(v, id);
+        numVertices += 1;
+        vertexModCount += 1;
+        return true;
+    }
+
+    /**
+     * Adds an edge from source to target created by the edge factory, unless the two are already connected.
+     * @return the new edge, or null if none was added
+     * @throws IllegalArgumentException if either vertex isn't in the graph
+     */
+    public E addEdge(final V source, final V target) {
+        final int sourceId = existingVertexId(source);
+        final int targetId = existingVertexId(target);
+        if ( findEdgeId(sourceId, targetId) != NO_ID ) {
+            return null;
+        }
+        final E e = edgeFactory.createEdge(source, target);
+        if ( edgeIds.get(e) != NO_ID ) {
+            return null;
+        }
+        connect(sourceId, targetId, e);
+        return e;
+    }
+
+    /**
+     * Adds the edge from source to target, unless the edge is already in the graph or the two are already connected.
+     * @return true if the edge was added
+     * @throws IllegalArgumentException if either vertex isn't in the graph
+     */
+    public boolean addEdge(final V source, final V target, final E e) {
+        Utils.nonNull(e, "cannot add a null edge");
+        if ( edgeIds.get(e) != NO_ID ) {
+            return false;
+        }
+        final int sourceId = existingVertexId(source);
+        final int targetId = existingVertexId(target);
+        if ( findEdgeId(sourceId, targetId) != NO_ID ) {
+            return false;
+        }
+        connect(sourceId, targetId, e);
+        return true;
+    }
+
+    public boolean containsVertex(final V v) {
+        return vertexIds.get(v) != NO_ID;
+    }
+
+    public boolean containsEdge(final E e) {
+        return edgeIds.get(e) != NO_ID;
+    }
+
+    public boolean containsEdge(final V source, final V target) {
+        return getEdge(source, target) != null;
+    }
+
+    /**
+     * @return the edge from source to target, or null if there's none (or either vertex isn't in the graph)
+     */
+    public E getEdge(final V source, final V target) {
+        final int sourceId = vertexIds.get(source);
+        final int targetId = vertexIds.get(target);
+        if ( sourceId == NO_ID || targetId == NO_ID ) {
+            return null;
+        }
+        final int edgeId = findEdgeId(sourceId, targetId);
+        return edgeId == NO_ID ? null : edgeAt(edgeId);
+    }
+
+    public V getEdgeSource(final E e) {
+        return vertexAt(edgeSources[existingEdgeId(e)]);
+    }
+
+    public V getEdgeTarget(final E e) {
+        return vertexAt(edgeTargets[existingEdgeId(e)]);
+    }
+
+    /**
+     * @return an unmodifiable live view of the vertices, in the order in which they were added
+     */
+    public Set<V> vertexSet() {
+        if ( vertexSetView == null ) {
+            vertexSetView = new VertexSetView();
+        }
+        return vertexSetView;
+    }
+
+    /**
+     * @return an unmodifiable live view of the edges, in the order in which they were added
+     */
+    public Set<E> edgeSet() {
+        if ( edgeSetView == null ) {
+            edgeSetView = new EdgeSetView();
+        }
+        return edgeSetView;
+    }
+
+    /**
+     * @return an unmodifiable live view of the edges out of v, in the order in which they were added
+     * @throws IllegalArgumentException if v isn't in the graph
+     */
+    public Set<E> outgoingEdgesOf(final V v) {
+        return new AdjacentEdgeView(v, existingVertexId(v), true);
+    }
+
+    /**
+     * @return an unmodifiable live view of the edges into v, in the order in which they were added
+     * @throws IllegalArgumentException if v isn't in the graph
+     */
+    public Set<E> incomingEdgesOf(final V v) {
+        return new AdjacentEdgeView(v, existingVertexId(v), false);
+    }
+
+    /**
+     * @return a new set of the edges into v followed by those out of v, with each self-loop appearing once
+     * @throws IllegalArgumentException if v isn't in the graph
+     */
+    public Set<E> edgesOf(final V v) {
+        final int id = existingVertexId(v);
+        final Set<E> result = new LinkedHashSet<>();
+        for ( int i = 0; i < inDegrees[id]; i++ ) {
+            final int edgeId = incomingEdgeIds[id][i];
+            if ( edgeSources[edgeId] != id ) {
+                result.add(edgeAt(edgeId));
+            }
+        }
+        for ( int i = 0; i < outDegrees[id]; i++ ) {
+            result.add(edgeAt(outgoingEdgeIds[id][i]));
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    public int inDegreeOf(final V v) {
+        return inDegrees[existingVertexId(v)];
+    }
+
+    public int outDegreeOf(final V v) {
+        return outDegrees[existingVertexId(v)];
+    }
+
+    /**
+     * Removes a vertex and all of its edges, through {@link #removeEdge(Object)}.
+     * @return true if the vertex was in the graph
+     */
+    public boolean removeVertex(final V v) {
+        final int id = vertexIds.get(v);
+        if ( id == NO_ID ) {
+            return false;
+        }
+        removeAllEdges(new ArrayList<>(edgesOf(v)));
+        vertexIds.remove(v);
+        vertices[id] = null;
+        outgoingEdgeIds[id] = NO_EDGES;
+        incomingEdgeIds[id] = NO_EDGES;
+        numVertices -= 1;
+        vertexModCount += 1;
+        return true;
+    }
+
+    /**
+     * Removes each of the vertices through {@link #removeVertex(Object)}.
+     * @return true if any vertex was removed
+     */
+    public boolean removeAllVertices(final Collection<? extends V> verticesToRemove) {
+        boolean modified = false;
+        for ( final V v : verticesToRemove ) {
+            modified |= removeVertex(v);
+        }
+        return modified;
+    }
+
+    /**
+     * @return true if the edge was in the graph
+     */
+    public boolean removeEdge(final E e) {
+        final int edgeId = edgeIds.get(e);
+        if ( edgeId == NO_ID ) {
+            return false;
+        }
+        disconnect(edgeId);
+        return true;
+    }
+
+    /**
+     * Removes the edge from source to target, if there is one.
+     * @return the removed edge, or null if there was none
+     */
+    public E removeEdge(final V source, final V target) {
+        final E e = getEdge(source, target);
+        if ( e != null ) {
+            disconnect(edgeIds.get(e));
+        }
+        return e;
+    }
+
+    /**
+     * Removes each of the edges through {@link #removeEdge(Object)}.
+     * @return true if any edge was removed
+     */
+    public boolean removeAllEdges(final Collection<? extends E> edgesToRemove) {
+        boolean modified = false;
+        for ( final E e : edgesToRemove ) {
+            modified |= removeEdge(e);
+        }
+        return modified;
+    }
+
+    /**
+     * Looks for a directed cycle (including a self-loop) with an iterative depth-first search.
+     */
+    protected final boolean detectCycles() {
+        final byte unvisited = 0;
+        final byte onStack = 1;
+        final byte finished = 2;
+        final byte[] states = new byte[vertexIdEnd];
+        final int[] stack = new int[numVertices];
+        final int[] nextEdgeIndices = new int[vertexIdEnd];
+        for ( int root = 0; root < vertexIdEnd; root++ ) {
+            if ( vertices[root] == null || states[root] != unvisited ) {
+                continue;
+            }
+            int depth = 0;
+            stack[depth++] = root;
+            states[root] = onStack;
+            while ( depth > 0 ) {
+                final int id = stack[depth - 1];
+                if ( nextEdgeIndices[id] == outDegrees[id] ) {
+                    states[id] = finished;
+                    depth--;
+                    continue;
+                }
+                final int targetId = edgeTargets[outgoingEdgeIds[id][nextEdgeIndices[id]++]];
+                if ( states[targetId] == onStack ) {
+                    return true;
+                } else if ( states[targetId] == unvisited ) {
+                    states[targetId] = onStack;
+                    stack[depth++] = targetId;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ArrayDirectedGraph<V, E> clone() {
+        final ArrayDirectedGraph<V, E> result;
+        try {
+            result = (ArrayDirectedGraph<V, E>) super.clone();
+        } catch ( final CloneNotSupportedException e ) {
+            throw new IllegalStateException("graphs are cloneable", e);
+        }
+        result.vertices = vertices.clone();
+        result.outgoingEdgeIds = copyRows(outgoingEdgeIds, outDegrees, vertexIdEnd);
+        result.outDegrees = outDegrees.clone();
+        result.incomingEdgeIds = copyRows(incomingEdgeIds, inDegrees, vertexIdEnd);
+        result.inDegrees = inDegrees.clone();
+        result.vertexIds = vertexIds.copy();
+        result.edges = edges.clone();
+        result.edgeSources = edgeSources.clone();
+        result.edgeTargets = edgeTargets.clone();
+        result.edgeIds = edgeIds.copy();
+        result.vertexSetView = null;
+        result.edgeSetView = null;
+        return result;
+    }
+
+    /**
+     * Two graphs are equal if they're of the same class and have equal vertex sets and the same edges between
+     * equal vertices (as for JGraphT graphs).
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean equals(final Object obj) {
+        if ( this == obj ) {
+            return true;
+        }
+        if ( obj == null || getClass() != obj.getClass() ) {
+            return false;
+        }
+        final ArrayDirectedGraph<V, E> other = (ArrayDirectedGraph<V, E>) obj;
+        if ( !vertexSet().equals(other.vertexSet()) || numEdges != other.numEdges ) {
+            return false;
+        }
+        for ( int edgeId = 0; edgeId < edgeIdEnd; edgeId++ ) {
+            if ( edges[edgeId] != null ) {
+                final int otherEdgeId = other.edgeIds.get(edges[edgeId]);
+                if ( otherEdgeId == NO_ID
+                        || !other.vertices[other.edgeSources[otherEdgeId]].equals(vertices[edgeSources[edgeId]])
+                        || !other.vertices[other.edgeTargets[otherEdgeId]].equals(vertices[edgeTargets[edgeId]]) ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = vertexSet().hashCode();
+        for ( int edgeId = 0; edgeId < edgeIdEnd; edgeId++ ) {
+            if ( edges[edgeId] != null ) {
+                final int source = vertices[edgeSources[edgeId]].hashCode();
+                final int target = vertices[edgeTargets[edgeId]].hashCode();
+                final int pairing = ((source + target) * (source + target + 1) / 2) + target;
+                hash += 27 * (27 * edges[edgeId].hashCode() + pairing) + 1;
+            }
+        }
+        return hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V vertexAt(final int id) {
+        return (V) vertices[id];
+    }
+
+    @SuppressWarnings("unchecked")
+    private E edgeAt(final int id) {
+        return (E) edges[id];
+    }
+
+    private int existingVertexId(final V v) {
+        Utils.nonNull(v, "vertex cannot be null");
+        final int id = vertexIds.get(v);
+        Utils.validateArg(id != NO_ID, () -> "no such vertex in graph: " + v);
+        return id;
+    }
+
+    private int existingEdgeId(final E e) {
+        Utils.nonNull(e, "edge cannot be null");
+        final int id = edgeIds.get(e);
+        Utils.validateArg(id != NO_ID, () -> "no such edge in graph: " + e);
+        return id;
+    }
+
+    private int findEdgeId(final int sourceId, final int targetId) {
+        final int[] outgoing = outgoingEdgeIds[sourceId];
+        for ( int i = 0; i < outDegrees[sourceId]; i++ ) {
+            if ( edgeTargets[outgoing[i]] == targetId ) {
+                return outgoing[i];
+            }
+        }
+        return NO_ID;
+    }
+
+    private void connect(final int sourceId, final int targetId, final E e) {
+        if ( edgeIdEnd == edges.length ) {
+            makeRoomForEdge();
+        }
+        final int edgeId = edgeIdEnd++;
+        edges[edgeId] = e;
+        edgeSources[edgeId] = sourceId;
+        edgeTargets[edgeId] = targetId;
+        edgeIds.put(e, edgeId);
+        outgoingEdgeIds[sourceId] = append(outgoingEdgeIds[sourceId], outDegrees[sourceId]++, edgeId);
+        incomingEdgeIds[targetId] = append(incomingEdgeIds[targetId], inDegrees[targetId]++, edgeId);
+        numEdges += 1;
+        edgeModCount += 1;
+    }
+
+    private void disconnect(final int edgeId) {
+        final int sourceId = edgeSources[edgeId];
+        final int targetId = edgeTargets[edgeId];
+        outDegrees[sourceId] = delete(outgoingEdgeIds[sourceId], outDegrees[sourceId], edgeId);
+        inDegrees[targetId] = delete(incomingEdgeIds[targetId], inDegrees[targetId], edgeId);
+        edgeIds.remove(edges[edgeId]);
+        edges[edgeId] = null;
+        numEdges -= 1;
+        edgeModCount += 1;
+    }
+
+    private static int[] append(final int[] ids, final int size, final int id) {
+        final int[] result = size < ids.length ? ids : Arrays.copyOf(ids, Math.max(2, 2 * size));
+        result[size] = id;
+        return result;
+    }
+
+    // removes the id while keeping the others in order, and returns the new size
+    private static int delete(final int[] ids, final int size, final int id) {
+        for ( int i = 0; i < size; i++ ) {
+            if ( ids[i] == id ) {
+                System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                return size - 1;
+            }
+        }
+        return size;
+    }
+
+    private static int[][] copyRows(final int[][] rows, final int[] sizes, final int numRows) {
+        final int[][] result = new int[rows.length][];
+        for ( int i = 0; i < numRows; i++ ) {
+            result[i] = sizes[i] == 0 ? NO_EDGES : Arrays.copyOf(rows[i], sizes[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Renumbers the live vertices in order if at least half the ids are unused, and grows the arrays otherwise.
+     */
+    private void makeRoomForVertex() {
+        if ( 2 * numVertices > vertices.length ) {
+            final int capacity = 2 * vertices.length;
+            vertices = Arrays.copyOf(vertices, capacity);
+            outgoingEdgeIds = Arrays.copyOf(outgoingEdgeIds, capacity);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+            incomingEdgeIds = Arrays.copyOf(incomingEdgeIds, capacity);
+            inDegrees = Arrays.copyOf(inDegrees, capacity);
+            return;
+        }
+        final int[] newIds = new int[vertexIdEnd];
+        int newId = 0;
+        for ( int id = 0; id < vertexIdEnd; id++ ) {
+            if ( vertices[id] != null ) {
+                newIds[id] = newId;
+                vertices[newId] = vertices[id];
+                outgoingEdgeIds[newId] = outgoingEdgeIds[id];
+                outDegrees[newId] = outDegrees[id];
+                incomingEdgeIds[newId] = incomingEdgeIds[id];
+                inDegrees[newId] = inDegrees[id];
+                newId++;
+            }
+        }
+        Arrays.fill(vertices, newId, vertexIdEnd, null);
+        Arrays.fill(outgoingEdgeIds, newId, vertexIdEnd, null);
+        Arrays.fill(incomingEdgeIds, newId, vertexIdEnd, null);
+        vertexIdEnd = newId;
+        for ( int edgeId = 0; edgeId < edgeIdEnd; edgeId++ ) {
+            if ( edges[edgeId] != null ) {
+                edgeSources[edgeId] = newIds[edgeSources[edgeId]];
+                edgeTargets[edgeId] = newIds[edgeTargets[edgeId]];
+            }
+        }
+        vertexIds.renumber(newIds);
+        vertexRenumberings += 1;
+    }
+
+    /**
+     * Renumbers the live edges in order if at least half the ids are unused, and grows the arrays otherwise.
+     */
+    private void makeRoomForEdge() {
+        if ( 2 * numEdges > edges.length ) {
+            final int capacity = 2 * edges.length;
+            edges = Arrays.copyOf(edges, capacity);
+            edgeSources = Arrays.copyOf(edgeSources, capacity);
+            edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+            return;
+        }
+        final int[] newIds = new int[edgeIdEnd];
+        int newId = 0;
+        for ( int edgeId = 0; edgeId < edgeIdEnd; edgeId++ ) {
+            if ( edges[edgeId] != null ) {
+                newIds[edgeId] = newId;
+                edges[newId] = edges[edgeId];
+                edgeSources[newId] = edgeSources[edgeId];
+                edgeTargets[newId] = edgeTargets[edgeId];
+                newId++;
+            }
+        }
+        Arrays.fill(edges, newId, edgeIdEnd, null);
+        edgeIdEnd = newId;
+        for ( int id = 0; id < vertexIdEnd; id++ ) {
+            for ( int i = 0; i < outDegrees[id]; i++ ) {
+                outgoingEdgeIds[id][i] = newIds[outgoingEdgeIds[id][i]];
+            }
+            for ( int i = 0; i < inDegrees[id]; i++ ) {
+                incomingEdgeIds[id][i] = newIds[incomingEdgeIds[id][i]];
+            }
+        }
+        edgeIds.renumber(newIds);
+    }
+
+    private final class VertexSetView extends AbstractSet<V> {
+        @Override
+        public int size() { return numVertices; }
+
+        @Override
+        public boolean contains(final Object o) { return vertexIds.get(o) != NO_ID; }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+                private final int expectedModCount = vertexModCount;
+                private int nextId = skipRemoved(0);
+
+                private int skipRemoved(int id) {
+                    while ( id < vertexIdEnd && vertices[id] == null ) {
+                        id++;
+                    }
+                    return id;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    checkForComodification();
+                    return nextId < vertexIdEnd;
+                }
+
+                @Override
+                public V next() {
+                    if ( !hasNext() ) {
+                        throw new NoSuchElementException();
+                    }
+                    final V v = vertexAt(nextId);
+                    nextId = skipRemoved(nextId + 1);
+                    return v;
+                }
+
+                private void checkForComodification() {
+                    if ( vertexModCount != expectedModCount ) {
+                        throw new ConcurrentModificationException("the vertices of the graph changed during iteration");
+                    }
+                }
+            };
+        }
+    }
+
+    private final class EdgeSetView extends AbstractSet<E> {
+        @Override
+        public int size() { return numEdges; }
+
+        @Override
+        public boolean contains(final Object o) { return edgeIds.get(o) != NO_ID; }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private final int expectedModCount = edgeModCount;
+                private int nextId = skipRemoved(0);
+
+                private int skipRemoved(int id) {
+                    while ( id < edgeIdEnd && edges[id] == null ) {
+                        id++;
+                    }
+                    return id;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    checkForComodification();
+                    return nextId < edgeIdEnd;
+                }
+
+                @Override
+                public E next() {
+                    if ( !hasNext() ) {
+                        throw new NoSuchElementException();
+                    }
+                    final E e = edgeAt(nextId);
+                    nextId = skipRemoved(nextId + 1);
+                    return e;
+                }
+
+                private void checkForComodification() {
+                    if ( edgeModCount != expectedModCount ) {
+                        throw new ConcurrentModificationException("the edges of the graph changed during iteration");
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * The incoming or outgoing edges of a vertex.  The vertex's id is looked up again if the vertices are renumbered.
+     */
+    private final class AdjacentEdgeView extends AbstractSet<E> {
+        private final V vertex;
+        private final boolean outgoing;
+        private int vertexId;
+        private int renumberings;
+
+        AdjacentEdgeView(final V vertex, final int vertexId, final boolean outgoing) {
+            this.vertex = vertex;
+            this.vertexId = vertexId;
+            this.outgoing = outgoing;
+            this.renumberings = vertexRenumberings;
+        }
+
+        private int currentVertexId() {
+            if ( renumberings != vertexRenumberings ) {
+                vertexId = vertexIds.get(vertex);
+                renumberings = vertexRenumberings;
+            }
+            return vertexId;
+        }
+
+        @Override
+        public int size() {
+            final int id = currentVertexId();
+            return id == NO_ID ? 0 : outgoing ? outDegrees[id] : inDegrees[id];
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+            final int id = currentVertexId();
+            final int edgeId = edgeIds.get(o);
+            return id != NO_ID && edgeId != NO_ID && (outgoing ? edgeSources[edgeId] : edgeTargets[edgeId]) == id;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < size();
+                }
+
+                @Override
+                public E next() {
+                    if ( !hasNext() ) {
+                        throw new NoSuchElementException();
+                    }
+                    final int id = currentVertexId();
+                    return edgeAt((outgoing ? outgoingEdgeIds : incomingEdgeIds)[id][index++]);
+                }
+            };
+        }
+    }
+
+    /**
+     * Open-addressing map from vertices or edges (by {@code equals()}) to their ids, with linear probing.
+     */
+    private static final class IdIndex implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Object[] keys = new Object[2 * MIN_CAPACITY];
+        private int[] ids = new int[2 * MIN_CAPACITY];
+        private int size;
+
+        int get(final Object key) {
+            if ( key == null ) {
+                return NO_ID;
+            }
+            final int mask = keys.length - 1;
+            for ( int bucket = homeBucket(key, mask); keys[bucket] != null; bucket = (bucket + 1) & mask ) {
+                if ( keys[bucket].equals(key) ) {
+                    return ids[bucket];
+                }
+            }
+            return NO_ID;
+        }
+
+        // the key must not be present already
+        void put(final Object key, final int id) {
+            if ( 2 * (size + 1) > keys.length ) {
+                resize();
+            }
+            final int mask = keys.length - 1;
+            int bucket = homeBucket(key, mask);
+            while ( keys[bucket] != null ) {
+                bucket = (bucket + 1) & mask;
+            }
+            keys[bucket] = key;
+            ids[bucket] = id;
+            size += 1;
+        }
+
+        void remove(final Object key) {
+            final int mask = keys.length - 1;
+            int bucket = homeBucket(key, mask);
+            while ( keys[bucket] != null && !keys[bucket].equals(key) ) {
+                bucket = (bucket + 1) & mask;
+            }
+            if ( keys[bucket] == null ) {
+                return;
+            }
+            // move later entries in the run back into the hole whenever that keeps them reachable from their home
+            int hole = bucket;
+            int next = bucket;
+            while ( true ) {
+                next = (next + 1) & mask;
+                if ( keys[next] == null ) {
+                    break;
+                }
+                final int home = homeBucket(keys[next], mask);
+                if ( ((next - home) & mask) >= ((next - hole) & mask) ) {
+                    keys[hole] = keys[next];
+                    ids[hole] = ids[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = null;
+            size -= 1;
+        }
+
+        void renumber(final int[] newIds) {
+            for ( int bucket = 0; bucket < keys.length; bucket++ ) {
+                if ( keys[bucket] != null ) {
+                    ids[bucket] = newIds[ids[bucket]];
+                }
+            }
+        }
+
+        IdIndex copy() {
+            final IdIndex result = new IdIndex();
+            result.keys = keys.clone();
+            result.ids = ids.clone();
+            result.size = size;
+            return result;
+        }
+
+        private static int homeBucket(final Object key, final int mask) {
+            final int hash = key.hashCode() * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private void resize() {
+            final Object[] oldKeys = keys;
+            final int[] oldIds = ids;
+            keys = new Object[2 * oldKeys.length];
+            ids = new int[2 * oldKeys.length];
+            size = 0;
+            for ( int bucket = 0; bucket < oldKeys.length; bucket++ ) {
+                if ( oldKeys[bucket] != null ) {
+                    put(oldKeys[bucket], oldIds[bucket]);
+                }
+            }
+        }
+    }
+}
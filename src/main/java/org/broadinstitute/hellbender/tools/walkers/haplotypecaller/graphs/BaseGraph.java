@@ -5,8 +5,6 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.jgrapht.EdgeFactory;
-import org.jgrapht.alg.CycleDetector;
-import org.jgrapht.graph.DefaultDirectedGraph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -19,7 +17,7 @@ import java.util.stream.Collectors;
 /**
  * Common code for graphs used for local assembly.
  */
-public abstract class BaseGraph<V extends BaseVertex, E extends BaseEdge> extends DefaultDirectedGraph<V, E> {
+public abstract class BaseGraph<V extends BaseVertex, E extends BaseEdge> extends ArrayDirectedGraph<V, E> {
     private static final long serialVersionUID = 1l;
     protected final int kmerSize;
 
@@ -679,7 +677,7 @@ public abstract class BaseGraph<V extends BaseVertex, E extends BaseEdge> extend
      * @return {@code true} if the graph has cycles, {@code false} otherwise.
      */
     public final boolean hasCycles() {
-        return new CycleDetector<>(this).detectCycles();
+        return detectCycles();
     }
 
     @Override
@@ -2,7 +2,6 @@ package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
 
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.broadinstitute.hellbender.utils.Utils;
-import org.jgrapht.alg.CycleDetector;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -41,7 +40,7 @@ public final class KBestHaplotypeFinder {
         //TODO Once that is solve, the if-else below should be substituted by a throw if there is any cycles,
         //TODO just the line commented out below if you want to trade early-bug-fail for speed.
         //this.graph = graph;
-        this.graph = new CycleDetector<>(graph).detectCycles() ? removeCyclesAndVerticesThatDontLeadToSinks(graph,sources,sinks) : graph;
+        this.graph = graph.hasCycles() ? removeCyclesAndVerticesThatDontLeadToSinks(graph,sources,sinks) : graph;
 
         this.sinks = sinks;
         this.sources = sources;
@@ -0,0 +1,165 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.PackedKmerUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Map from the kmers of a read threading graph onto values, for kmers that are looked up far more often than they're
+ * stored.
+ *
+ * <p>
+ *     Kmers that {@link PackedKmerUtils} can pack are held in a {@link PackedKmerUtils.Table} of primitive keys, so
+ *     finding one neither allocates a {@link Kmer} nor hashes its bases.  Callers that walk along a sequence can keep
+ *     the packed kmer up to date one base at a time with a {@link PackedKmerUtils.RollingKmer}.  Kmers that can't be
+ *     packed (longer kmers, or those with any other base) are kept in an ordinary map keyed by {@link Kmer}.
+ * </p>
+ */
+final class PackedKmerMap<V> extends PackedKmerUtils.Table {
+    private final int kmerSize;
+    private Object[] values = new Object[capacity()];
+    private final Map<Kmer, V> unpackedKmers = new HashMap<>();
+
+    PackedKmerMap(final int kmerSize) {
+        Utils.validateArg(kmerSize > 0, () -> "bad kmerSize " + kmerSize);
+        this.kmerSize = kmerSize;
+    }
+
+    int kmerSize() { return kmerSize; }
+
+    int size() { return numPackedKmers() + unpackedKmers.size(); }
+
+    boolean isEmpty() { return size() == 0; }
+
+    void clear() {
+        if ( numPackedKmers() > 0 ) {
+            clearPackedKmers();
+            Arrays.fill(values, null);
+        }
+        unpackedKmers.clear();
+    }
+
+    /**
+     * Packs the kmer starting at start in sequence, returning {@link PackedKmerUtils#UNPACKABLE} if it can't be packed.
+     */
+    long pack( final byte[] sequence, final int start ) {
+        return PackedKmerUtils.pack(sequence, start, kmerSize);
+    }
+
+    /**
+     * Get the value for the kmer starting at start in sequence, whose packed value (or
+     * {@link PackedKmerUtils#UNPACKABLE}) is given.
+     */
+    V get( final byte[] sequence, final int start, final long packedKmer ) {
+        return packedKmer == PackedKmerUtils.UNPACKABLE ? unpackedKmers.get(new Kmer(sequence, start, kmerSize)) : getPacked(packedKmer);
+    }
+
+    V get( final Kmer kmer ) {
+        Utils.nonNull(kmer);
+        if ( kmer.length() != kmerSize ) {
+            return null;
+        }
+        final byte[] bases = kmer.bases();
+        return get(bases, 0, pack(bases, 0));
+    }
+
+    boolean containsKey( final byte[] sequence, final int start, final long packedKmer ) {
+        return packedKmer == PackedKmerUtils.UNPACKABLE ? unpackedKmers.containsKey(new Kmer(sequence, start, kmerSize)) : bucketOf(packedKmer) >= 0;
+    }
+
+    /**
+     * Associates the kmer starting at start in sequence with value, returning the previous value, if any.
+     */
+    V put( final byte[] sequence, final int start, final long packedKmer, final V value ) {
+        if ( packedKmer == PackedKmerUtils.UNPACKABLE ) {
+            return unpackedKmers.put(new Kmer(sequence, start, kmerSize), value);
+        }
+        final int bucket = addPackedKmer(packedKmer);
+        final V oldValue = valueAt(bucket);
+        values[bucket] = value;
+        return oldValue;
+    }
+
+    /**
+     * Removes the kmer, returning its value, if any.
+     */
+    V remove( final Kmer kmer ) {
+        Utils.nonNull(kmer);
+        if ( kmer.length() != kmerSize ) {
+            return null;
+        }
+        final byte[] bases = kmer.bases();
+        final long packedKmer = pack(bases, 0);
+        if ( packedKmer == PackedKmerUtils.UNPACKABLE ) {
+            return unpackedKmers.remove(kmer);
+        }
+        final int bucket = bucketOf(packedKmer);
+        if ( bucket < 0 ) {
+            return null;
+        }
+        final V oldValue = valueAt(bucket);
+        removeAtBucket(bucket);
+        return oldValue;
+    }
+
+    /**
+     * Passes each value to the consumer, in no particular order
+     */
+    void forEachValue( final Consumer<? super V> consumer ) {
+        for ( int bucket = 0; bucket < capacity(); bucket++ ) {
+            if ( kmerAt(bucket) != PackedKmerUtils.UNPACKABLE ) {
+                consumer.accept(valueAt(bucket));
+            }
+        }
+        unpackedKmers.values().forEach(consumer);
+    }
+
+    /**
+     * Returns a new set holding every kmer in the map.  Meant for testing and debugging, since it creates every kmer.
+     */
+    Set<Kmer> kmerSet() {
+        final Set<Kmer> kmers = new LinkedHashSet<>(size());
+        for ( int bucket = 0; bucket < capacity(); bucket++ ) {
+            final long packedKmer = kmerAt(bucket);
+            if ( packedKmer != PackedKmerUtils.UNPACKABLE ) {
+                kmers.add(new Kmer(PackedKmerUtils.unpack(packedKmer, kmerSize)));
+            }
+        }
+        kmers.addAll(unpackedKmers.keySet());
+        return kmers;
+    }
+
+    private V getPacked( final long packedKmer ) {
+        final int bucket = bucketOf(packedKmer);
+        return bucket < 0 ? null : valueAt(bucket);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt( final int bucket ) {
+        return (V)values[bucket];
+    }
+
+    @Override
+    protected void rehashValues( final int[] newBuckets, final int newCapacity ) {
+        final Object[] oldValues = values;
+        values = new Object[newCapacity];
+        for ( int idx = 0; idx < oldValues.length; idx++ ) {
+            if ( newBuckets[idx] >= 0 ) {
+                values[newBuckets[idx]] = oldValues[idx];
+            }
+        }
+    }
+
+    @Override
+    protected void moveValue( final int fromBucket, final int toBucket ) {
+        values[toBucket] = values[fromBucket];
+    }
+
+    @Override
+    protected void clearValue( final int bucket ) {
+        values[bucket] = null;
+    }
+}
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.samtools.Cigar;
 import htsjdk.samtools.CigarOperator;
 import htsjdk.samtools.SAMFileHeader;
@@ -9,6 +10,7 @@ import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResult;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
@@ -21,12 +23,20 @@ import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.read.CigarUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public final class ReadThreadingAssembler {
     private static final Logger logger = LogManager.getLogger(ReadThreadingAssembler.class);
@@ -65,6 +75,9 @@ public final class ReadThreadingAssembler {
     private File debugGraphOutputPath = null;  //Where to write debug graphs, if unset it defaults to the current working dir
     private File graphOutputPath = null;
 
+    private int numAssemblyThreads = 1;
+    private ExecutorService assemblyExecutor = null; // null unless graphs are to be assembled concurrently
+
     public ReadThreadingAssembler(final int maxAllowedPathsForReadThreadingAssembler, final List<Integer> kmerSizes,
                                   final boolean dontIncreaseKmerSizesForCycles, final boolean allowNonUniqueKmersInRef,
                                   final int numPruningSamples, final int pruneFactor, final boolean useAdaptivePruning,
@@ -166,12 +179,19 @@ public final class ReadThreadingAssembler {
         final int activeRegionStart = refHaplotype.getAlignmentStartHapwrtRef();
         int failedCigars = 0;
 
+        // the searches of the graphs are independent, but the haplotypes they find are collected in graph order
+        final List<List<KBestHaplotype>> kBestHaplotypesByGraph = runConcurrently(graphs.stream()
+                .map(graph -> (Supplier<List<KBestHaplotype>>) () -> {
+                    final SeqVertex source = graph.getReferenceSourceVertex();
+                    final SeqVertex sink = graph.getReferenceSinkVertex();
+                    Utils.validateArg( source != null && sink != null, () -> "Both source and sink cannot be null but got " + source + " and sink " + sink + " for graph " + graph);
+                    return new KBestHaplotypeFinder(graph,source,sink).findBestHaplotypes(numBestHaplotypesPerGraph);
+                })
+                .collect(Collectors.toList()));
+
+        final Iterator<List<KBestHaplotype>> kBestHaplotypesIterator = kBestHaplotypesByGraph.iterator();
         for( final SeqGraph graph : graphs ) {
-            final SeqVertex source = graph.getReferenceSourceVertex();
-            final SeqVertex sink = graph.getReferenceSinkVertex();
-            Utils.validateArg( source != null && sink != null, () -> "Both source and sink cannot be null but got " + source + " and sink " + sink + " for graph " + graph);
-
-            for (final KBestHaplotype kBestHaplotype : new KBestHaplotypeFinder(graph,source,sink).findBestHaplotypes(numBestHaplotypesPerGraph)) {
+            for (final KBestHaplotype kBestHaplotype : kBestHaplotypesIterator.next()) {
                 final Haplotype h = kBestHaplotype.haplotype();
                 if( !returnHaplotypes.contains(h) ) {
                     if (kBestHaplotype.isReference()) {
@@ -342,10 +362,23 @@ public final class ReadThreadingAssembler {
     @VisibleForTesting
     List<AssemblyResult> assemble(final List<GATKRead> reads, final Haplotype refHaplotype, final SAMFileHeader header, final SmithWatermanAligner aligner) {
         final List<AssemblyResult> results = new LinkedList<>();
+        final SmithWatermanAligner graphAligner = assemblyExecutor == null ? aligner : synchronizedAligner(aligner);
+        if ( assemblyExecutor != null ) {
+            // the graphs only read the reads, but some reads decode their bases and attributes on first access,
+            // so make sure that has happened before they're shared between threads
+            for ( final GATKRead read : reads ) {
+                read.getBases();
+                read.getBaseQualities();
+                ReadUtils.getSampleName(read, header);
+            }
+        }
 
         // first, try using the requested kmer sizes
-        for ( final int kmerSize : kmerSizes ) {
-            addResult(results, createGraph(reads, refHaplotype, kmerSize, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner));
+        final List<Supplier<AssemblyResult>> requestedAttempts = kmerSizes.stream()
+                .map(kmerSize -> (Supplier<AssemblyResult>) () -> createGraph(reads, refHaplotype, kmerSize, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, graphAligner))
+                .collect(Collectors.toList());
+        for ( final AssemblyResult result : runConcurrently(requestedAttempts) ) {
+            addResult(results, result);
         }
 
         // if none of those worked, iterate over larger sizes if allowed to do so
@@ -353,17 +386,72 @@ public final class ReadThreadingAssembler {
             int kmerSize = arrayMaxInt(kmerSizes) + KMER_SIZE_ITERATION_INCREASE;
             int numIterations = 1;
             while ( results.isEmpty() && numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT ) {
-                // on the last attempt we will allow low complexity graphs
-                final boolean lastAttempt = numIterations == MAX_KMER_ITERATIONS_TO_ATTEMPT;
-                addResult(results, createGraph(reads, refHaplotype, kmerSize, lastAttempt, lastAttempt, header, aligner));
-                kmerSize += KMER_SIZE_ITERATION_INCREASE;
-                numIterations++;
+                // try as many sizes at once as we have threads, but keep only the first one that works,
+                // just as if they had been tried one at a time
+                final int numAttempts = Math.min(numAssemblyThreads, MAX_KMER_ITERATIONS_TO_ATTEMPT - numIterations + 1);
+                final List<Supplier<AssemblyResult>> attempts = new ArrayList<>(numAttempts);
+                for ( int i = 0; i < numAttempts; i++ ) {
+                    final int attemptKmerSize = kmerSize + i * KMER_SIZE_ITERATION_INCREASE;
+                    // on the last attempt we will allow low complexity graphs
+                    final boolean lastAttempt = numIterations + i == MAX_KMER_ITERATIONS_TO_ATTEMPT;
+                    attempts.add(() -> createGraph(reads, refHaplotype, attemptKmerSize, lastAttempt, lastAttempt, header, graphAligner));
+                }
+                for ( final AssemblyResult result : runConcurrently(attempts) ) {
+                    addResult(results, result);
+                    if ( ! results.isEmpty() ) {
+                        break;
+                    }
+                }
+                kmerSize += numAttempts * KMER_SIZE_ITERATION_INCREASE;
+                numIterations += numAttempts;
             }
         }
 
         return results;
     }
 
+    /**
+     * Runs independent tasks, on the assembly threads if there are any, and returns their results in order.
+     */
+    private <T> List<T> runConcurrently(final List<Supplier<T>> tasks) {
+        if ( assemblyExecutor == null || tasks.size() < 2 ) {
+            return tasks.stream().map(Supplier::get).collect(Collectors.toList());
+        }
+
+        final List<Future<T>> futures = tasks.stream().map(task -> assemblyExecutor.submit(task::get)).collect(Collectors.toList());
+        final List<T> results = new ArrayList<>(futures.size());
+        try {
+            for ( final Future<T> future : futures ) {
+                results.add(future.get());
+            }
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for assembly graphs", e);
+        } catch ( final ExecutionException e ) {
+            final Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            } else if ( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw new GATKException("Failed to assemble graphs", cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    /**
+     * Graphs assembled concurrently share one aligner, which isn't necessarily thread-safe, so they take turns using it.
+     */
+    private static SmithWatermanAligner synchronizedAligner(final SmithWatermanAligner aligner) {
+        return (ref, alt, parameters, overhangStrategy) -> {
+            synchronized ( aligner ) {
+                return aligner.align(ref, alt, parameters, overhangStrategy);
+            }
+        };
+    }
+
     private static int arrayMaxInt(final List<Integer> array) {
         return array.stream().mapToInt(Integer::intValue).max().orElseThrow(() -> new IllegalArgumentException("Array size cannot be 0!"));
     }
@@ -569,6 +657,34 @@ public final class ReadThreadingAssembler {
         this.minDanglingBranchLength = minDanglingBranchLength;
     }
 
+    /**
+     * Set the number of threads used to assemble the graphs for different kmer sizes, and to find their best paths,
+     * concurrently within each region.  With a single thread (the default), everything runs on the calling thread.
+     */
+    public void setNumAssemblyThreads( final int numAssemblyThreads ) {
+        ParamUtils.isPositive(numAssemblyThreads, "Number of assembly threads must be positive");
+        shutdown();
+        this.numAssemblyThreads = numAssemblyThreads;
+        if ( numAssemblyThreads > 1 ) {
+            final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setNameFormat("assembly-thread-%d")
+                    .setDaemon(true)
+                    .build();
+            assemblyExecutor = Executors.newFixedThreadPool(numAssemblyThreads, threadFactory);
+        }
+    }
+
+    /**
+     * Release the assembly threads, if any.  The assembler runs on the calling thread afterwards.
+     */
+    public void shutdown() {
+        if ( assemblyExecutor != null ) {
+            assemblyExecutor.shutdownNow();
+            assemblyExecutor = null;
+        }
+        numAssemblyThreads = 1;
+    }
+
     @VisibleForTesting
     void setJustReturnRawGraph(final boolean justReturnRawGraph) {
         this.justReturnRawGraph = justReturnRawGraph;
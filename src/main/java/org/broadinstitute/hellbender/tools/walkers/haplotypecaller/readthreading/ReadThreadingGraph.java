@@ -9,6 +9,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.PackedKmerUtils;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.BaseGraph;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.KmerSearchableGraph;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.MultiSampleEdge;
@@ -58,12 +59,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     /**
      * A set of non-unique kmers that cannot be used as merge points in the graph
      */
-    private Set<Kmer> nonUniqueKmers;
+    private PackedKmerMap<Boolean> nonUniqueKmers;
 
     /**
      * A map from kmers -> their corresponding vertex in the graph
      */
-    private final Map<Kmer, MultiDeBruijnVertex> uniqueKmers = new LinkedHashMap<>();
+    private final PackedKmerMap<MultiDeBruijnVertex> uniqueKmers;
 
     private final boolean debugGraphTransformations;
     private final byte minBaseQualityToUseInAssembly;
@@ -75,6 +76,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     // state variables, initialized in resetToInitialState()
     // --------------------------------------------------------------------------------
     private Kmer refSource;
+    private long packedRefSource = PackedKmerUtils.UNPACKABLE;
 
     /**
      * Constructs an empty read-threading-grpah provided the kmerSize.
@@ -97,6 +99,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     @VisibleForTesting
     protected ReadThreadingGraph(final int kmerSizeFromString, final EdgeFactory<MultiDeBruijnVertex, MultiSampleEdge> edgeFactory) {
         super(kmerSizeFromString, new MyEdgeFactory(1));
+        uniqueKmers = new PackedKmerMap<>(kmerSizeFromString);
         debugGraphTransformations = false;
         minBaseQualityToUseInAssembly = 0;
     }
@@ -144,6 +147,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         super(kmerSize, new MyEdgeFactory(numPruningSamples));
 
         Utils.validateArg( kmerSize > 0, () -> "bad minkKmerSize " + kmerSize);
+        uniqueKmers = new PackedKmerMap<>(kmerSize);
 
         this.debugGraphTransformations = debugGraphTransformations;
         this.minBaseQualityToUseInAssembly = minBaseQualityToUseInAssembly;
@@ -159,6 +163,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         nonUniqueKmers = null;
         uniqueKmers.clear();
         refSource = null;
+        packedRefSource = PackedKmerUtils.UNPACKABLE;
         alreadyBuilt = false;
     }
 
@@ -227,7 +232,8 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
             return;
         }
 
-        final MultiDeBruijnVertex startingVertex = getOrCreateKmerVertex(seqForKmers.sequence, uniqueStartPos);
+        final byte[] sequence = seqForKmers.sequence;
+        final MultiDeBruijnVertex startingVertex = getOrCreateKmerVertex(sequence, uniqueStartPos);
 
         // increase the counts of all edges incoming into the starting vertex supported by going back in sequence
         if (INCREASE_COUNTS_BACKWARDS) {
@@ -243,13 +249,20 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
             if ( refSource != null ) {
                 throw new IllegalStateException("Found two refSources! prev: " + refSource + ", new: " + startingVertex);
             }
-            refSource = new Kmer(seqForKmers.sequence, seqForKmers.start, kmerSize);
+            refSource = new Kmer(sequence, seqForKmers.start, kmerSize);
+            packedRefSource = uniqueKmers.pack(sequence, seqForKmers.start);
         }
 
-        // loop over all of the bases in sequence, extending the graph by one base at each point, as appropriate
+        // loop over all of the bases in sequence, extending the graph by one base at each point, as appropriate,
+        // rolling the packed kmer along with it
+        final PackedKmerUtils.RollingKmer rollingKmer = new PackedKmerUtils.RollingKmer(kmerSize);
+        for ( int i = uniqueStartPos + 1; i < uniqueStartPos + kmerSize; i++ ) {
+            rollingKmer.next(sequence[i]);
+        }
         MultiDeBruijnVertex vertex = startingVertex;
         for ( int i = uniqueStartPos + 1; i <= seqForKmers.stop - kmerSize; i++ ) {
-            vertex = extendChainByOne(vertex, seqForKmers.sequence, i, seqForKmers.count, seqForKmers.isRef);
+            final long packedKmer = rollingKmer.next(sequence[i + kmerSize - 1]);
+            vertex = extendChainByOne(vertex, sequence, i, packedKmer, seqForKmers.count, seqForKmers.isRef);
             if ( debugGraphTransformations ) {
                 vertex.addRead(seqForKmers.name);
             }
@@ -267,9 +280,14 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
             return 0;
         }
 
+        final byte[] sequence = seqForKmers.sequence;
+        final PackedKmerUtils.RollingKmer rollingKmer = new PackedKmerUtils.RollingKmer(kmerSize);
+        for ( int i = seqForKmers.start; i < seqForKmers.start + kmerSize - 1 && i < seqForKmers.stop; i++ ) {
+            rollingKmer.next(sequence[i]);
+        }
         for ( int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++ ) {
-            final Kmer kmer1 = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if ( isThreadingStart(kmer1) ) {
+            final long packedKmer = rollingKmer.next(sequence[i + kmerSize - 1]);
+            if ( isThreadingStart(sequence, i, packedKmer) ) {
                 return i;
             }
         }
@@ -283,12 +301,14 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @see #setThreadingStartOnlyAtExistingVertex(boolean)
      * @see #getThreadingStartOnlyAtExistingVertex()
      *
-     * @param kmer the query kmer.
+     * @param sequence the sequence holding the query kmer.
+     * @param start the start of the query kmer in sequence.
+     * @param packedKmer the packed query kmer, or {@link PackedKmerUtils#UNPACKABLE}.
      * @return {@code true} if we can start thread the sequence at this kmer, {@code false} otherwise.
      */
-    private boolean isThreadingStart(final Kmer kmer) {
-        Utils.nonNull(kmer);
-        return startThreadingOnlyAtExistingVertex ? uniqueKmers.containsKey(kmer) : !nonUniqueKmers.contains(kmer);
+    private boolean isThreadingStart(final byte[] sequence, final int start, final long packedKmer) {
+        Utils.nonNull(sequence);
+        return startThreadingOnlyAtExistingVertex ? uniqueKmers.containsKey(sequence, start, packedKmer) : !nonUniqueKmers.containsKey(sequence, start, packedKmer);
     }
 
     /**
@@ -336,9 +356,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         // clear
         pending.clear();
         alreadyBuilt = true;
-        for (final MultiDeBruijnVertex v : uniqueKmers.values()) {
-            v.setAdditionalInfo(v.getAdditionalInfo() + '+');
-        }
+        uniqueKmers.forEachValue(v -> v.setAdditionalInfo(v.getAdditionalInfo() + '+'));
     }
 
 
@@ -347,8 +365,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         final boolean result = super.removeVertex(V);
         if (result) {
             final byte[] sequence = V.getSequence();
-            final Kmer kmer = new Kmer(sequence);
-            uniqueKmers.remove(kmer);
+            uniqueKmers.remove(new Kmer(sequence));
         }
         return result;
     }
@@ -431,9 +448,9 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
 
     /** structure that keeps track of the non-unique kmers for a given kmer size */
     private static final class NonUniqueResult {
-        final Set<Kmer> nonUniques;
+        final PackedKmerMap<Boolean> nonUniques;
 
-        private NonUniqueResult(final Set<Kmer> nonUniques) {
+        private NonUniqueResult(final PackedKmerMap<Boolean> nonUniques) {
             this.nonUniques = nonUniques;
         }
     }
@@ -998,26 +1015,24 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     private NonUniqueResult determineKmerSizeAndNonUniques(final int minKmerSize, final int maxKmerSize) {
         final Collection<SequenceForKmers> withNonUniques = getAllPendingSequences();
-        final Set<Kmer> nonUniqueKmers = new HashSet<>();
+        PackedKmerMap<Boolean> nonUniqueKmers = null;
 
         // go through the sequences and determine which kmers aren't unique within each read
         for (int kmerSize = minKmerSize ; kmerSize <= maxKmerSize; kmerSize++) {
-            // clear out set of non-unique kmers
-            nonUniqueKmers.clear();
+            // start a new set of non-unique kmers, and reuse one set of all kmers across the sequences
+            nonUniqueKmers = new PackedKmerMap<>(kmerSize);
+            final PackedKmerMap<Boolean> allKmers = new PackedKmerMap<>(kmerSize);
 
             // loop over all sequences that have non-unique kmers in them from the previous iterator
             final Iterator<SequenceForKmers> it = withNonUniques.iterator();
             while ( it.hasNext() ) {
                 final SequenceForKmers sequenceForKmers = it.next();
 
-                // determine the non-unique kmers for this sequence
-                final Collection<Kmer> nonUniquesFromSeq = determineNonUniqueKmers(sequenceForKmers, kmerSize);
-                if ( nonUniquesFromSeq.isEmpty() ) {
+                // determine the non-unique kmers for this sequence, keeping track of the non-uniques for this kmerSize
+                allKmers.clear();
+                if ( ! addNonUniqueKmers(sequenceForKmers, allKmers, nonUniqueKmers) ) {
                     // remove this sequence from future consideration
                     it.remove();
-                } else {
-                    // keep track of the non-uniques for this kmerSize, and keep it in the list of sequences that have non-uniques
-                    nonUniqueKmers.addAll(nonUniquesFromSeq);
                 }
             }
 
@@ -1047,17 +1062,36 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @return a non-null collection of non-unique kmers in sequence
      */
     static Collection<Kmer> determineNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
-        // count up occurrences of kmers within each read
-        final Set<Kmer> allKmers = new LinkedHashSet<>();
-        final List<Kmer> nonUniqueKmers = new ArrayList<>();
+        final PackedKmerMap<Boolean> nonUniqueKmers = new PackedKmerMap<>(kmerSize);
+        addNonUniqueKmers(seqForKmers, new PackedKmerMap<>(kmerSize), nonUniqueKmers);
+        return nonUniqueKmers.kmerSet();
+    }
+
+    /**
+     * Add the non-unique kmers of a sequence to a set, using the kmer size of the sets
+     * @param seqForKmers a sequence to get kmers from
+     * @param allKmers an empty set, used to count up occurrences of kmers within the sequence
+     * @param nonUniqueKmers the set to which non-unique kmers in sequence are added
+     * @return true if the sequence has any non-unique kmers
+     */
+    private static boolean addNonUniqueKmers(final SequenceForKmers seqForKmers, final PackedKmerMap<Boolean> allKmers,
+                                             final PackedKmerMap<Boolean> nonUniqueKmers) {
+        final int kmerSize = allKmers.kmerSize();
+        final byte[] sequence = seqForKmers.sequence;
+        final PackedKmerUtils.RollingKmer rollingKmer = new PackedKmerUtils.RollingKmer(kmerSize);
+        boolean foundNonUnique = false;
         final int stopPosition = seqForKmers.stop - kmerSize;
+        for (int i = 0; i < kmerSize - 1 && i < seqForKmers.stop; i++) {
+            rollingKmer.next(sequence[i]);
+        }
         for (int i = 0; i <= stopPosition; i++) {
-            final Kmer kmer = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if (!allKmers.add(kmer)) {
-                nonUniqueKmers.add(kmer);
+            final long packedKmer = rollingKmer.next(sequence[i + kmerSize - 1]);
+            if (allKmers.put(sequence, i, packedKmer, Boolean.TRUE) != null) {
+                nonUniqueKmers.put(sequence, i, packedKmer, Boolean.TRUE);
+                foundNonUnique = true;
             }
         }
-        return nonUniqueKmers;
+        return foundNonUnique;
     }
 
     @Override
@@ -1092,23 +1126,31 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @return a non-null vertex
      */
     private MultiDeBruijnVertex getOrCreateKmerVertex(final byte[] sequence, final int start) {
-        final Kmer kmer = new Kmer(sequence, start, kmerSize);
-        final MultiDeBruijnVertex vertex = getUniqueKmerVertex(kmer, true);
-        return ( vertex != null ) ? vertex : createVertex(kmer);
+        final long packedKmer = uniqueKmers.pack(sequence, start);
+        final MultiDeBruijnVertex vertex = getUniqueKmerVertex(sequence, start, packedKmer, true);
+        return ( vertex != null ) ? vertex : createVertex(sequence, start, packedKmer);
     }
 
     /**
-     * Get the unique vertex for kmer, or null if not possible.
+     * Get the unique vertex for the kmer in sequence starting at start, or null if not possible.
      *
+     * @param packedKmer the packed kmer, or {@link PackedKmerUtils#UNPACKABLE} if it can't be packed
      * @param allowRefSource if true, we will allow kmer to match the reference source vertex
      * @return a vertex for kmer, or null if it's not unique
      */
-    private MultiDeBruijnVertex getUniqueKmerVertex(final Kmer kmer, final boolean allowRefSource) {
-        if ( ! allowRefSource && kmer.equals(refSource) ) {
+    private MultiDeBruijnVertex getUniqueKmerVertex(final byte[] sequence, final int start, final long packedKmer, final boolean allowRefSource) {
+        if ( ! allowRefSource && isRefSource(sequence, start, packedKmer) ) {
             return null;
         }
 
-        return uniqueKmers.get(kmer);
+        return uniqueKmers.get(sequence, start, packedKmer);
+    }
+
+    private boolean isRefSource(final byte[] sequence, final int start, final long packedKmer) {
+        if ( packedKmer != PackedKmerUtils.UNPACKABLE ) {
+            return packedKmer == packedRefSource;
+        }
+        return refSource != null && refSource.equals(new Kmer(sequence, start, kmerSize));
     }
 
 
@@ -1117,11 +1159,13 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      *
      * kmer must not have a entry in unique kmers, or an error will be thrown
      *
-     * @param kmer the kmer we want to create a vertex for
+     * @param sequence the sequence holding the kmer we want to create a vertex for
+     * @param start the start of the kmer in sequence
+     * @param packedKmer the packed kmer, or {@link PackedKmerUtils#UNPACKABLE} if it can't be packed
      * @return the non-null created vertex
      */
-    private MultiDeBruijnVertex createVertex(final Kmer kmer) {
-        final MultiDeBruijnVertex newVertex = new MultiDeBruijnVertex(kmer.bases());
+    private MultiDeBruijnVertex createVertex(final byte[] sequence, final int start, final long packedKmer) {
+        final MultiDeBruijnVertex newVertex = new MultiDeBruijnVertex(Arrays.copyOfRange(sequence, start, start + kmerSize));
         final int prevSize = vertexSet().size();
         addVertex(newVertex);
 
@@ -1131,9 +1175,9 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // add the vertex to the unique kmer map, if it is in fact unique
-        if ( ! nonUniqueKmers.contains(kmer) && ! uniqueKmers.containsKey(kmer) ) // TODO -- not sure this last test is necessary
+        if ( ! nonUniqueKmers.containsKey(sequence, start, packedKmer) && ! uniqueKmers.containsKey(sequence, start, packedKmer) ) // TODO -- not sure this last test is necessary
         {
-            uniqueKmers.put(kmer, newVertex);
+            uniqueKmers.put(sequence, start, packedKmer, newVertex);
         }
 
         return newVertex;
@@ -1146,11 +1190,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @param prevVertex a non-null vertex where sequence was last anchored in the graph
      * @param sequence the sequence we're threading through the graph
      * @param kmerStart the start of the current kmer in graph we'd like to add
+     * @param packedKmer the packed current kmer, or {@link PackedKmerUtils#UNPACKABLE} if it can't be packed
      * @param count the number of observations of this kmer in graph (can be > 1 for GGA)
      * @param isRef is this the reference sequence?
      * @return a non-null vertex connecting prevVertex to in the graph based on sequence
      */
-    private MultiDeBruijnVertex extendChainByOne(final MultiDeBruijnVertex prevVertex, final byte[] sequence, final int kmerStart, final int count, final boolean isRef) {
+    private MultiDeBruijnVertex extendChainByOne(final MultiDeBruijnVertex prevVertex, final byte[] sequence, final int kmerStart, final long packedKmer, final int count, final boolean isRef) {
         final Set<MultiSampleEdge> outgoingEdges = outgoingEdgesOf(prevVertex);
 
         final int nextPos = kmerStart + kmerSize - 1;
@@ -1164,15 +1209,14 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // none of our outgoing edges had our unique suffix base, so we check for an opportunity to merge back in
-        final Kmer kmer = new Kmer(sequence, kmerStart, kmerSize);
-        final MultiDeBruijnVertex uniqueMergeVertex = getUniqueKmerVertex(kmer, false);
+        final MultiDeBruijnVertex uniqueMergeVertex = getUniqueKmerVertex(sequence, kmerStart, packedKmer, false);
 
         if ( isRef && uniqueMergeVertex != null ) {
             throw new IllegalStateException("Found a unique vertex to merge into the reference graph " + prevVertex + " -> " + uniqueMergeVertex);
         }
 
         // either use our unique merge vertex, or create a new one in the chain
-        final MultiDeBruijnVertex nextVertex = uniqueMergeVertex == null ? createVertex(kmer) : uniqueMergeVertex;
+        final MultiDeBruijnVertex nextVertex = uniqueMergeVertex == null ? createVertex(sequence, kmerStart, packedKmer) : uniqueMergeVertex;
         addEdge(prevVertex, nextVertex, ((MyEdgeFactory)getEdgeFactory()).createEdge(isRef, count));
         return nextVertex;
     }
@@ -1227,7 +1271,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     @VisibleForTesting
     Set<Kmer> getNonUniqueKmers() {
-        return nonUniqueKmers;
+        return nonUniqueKmers.kmerSet();
     }
 
     @Override
@@ -0,0 +1,495 @@
+package org.broadinstitute.hellbender.tools.walkers.markduplicates;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.metrics.MetricsFile;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.SortingCollection;
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.MarkDuplicatesSparkArgumentCollection;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.OpticalDuplicatesArgumentCollection;
+import org.broadinstitute.hellbender.engine.GATKTool;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSpark;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils.DuplicateGroup;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils.IndexPair;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
+import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+import org.broadinstitute.hellbender.utils.read.markduplicates.GATKDuplicationMetrics;
+import org.broadinstitute.hellbender.utils.read.markduplicates.LibraryIdGenerator;
+import org.broadinstitute.hellbender.utils.read.markduplicates.ReadsKey;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.MarkDuplicatesSparkRecord;
+import picard.cmdline.programgroups.ReadDataManipulationProgramGroup;
+import picard.sam.markduplicates.MarkDuplicates;
+import picard.sam.markduplicates.util.OpticalDuplicateFinder;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * MarkDuplicates using the duplicate marking logic of {@link MarkDuplicatesSpark} without Spark
+ *
+ * <p>This tool runs the same read keying, scoring and optical duplicate detection as MarkDuplicatesSpark, and produces
+ * identical duplicate flags, "DT" tags and metrics, but does so with a pool of threads in a single JVM. This avoids the
+ * cost of starting Spark for small inputs such as exomes or small samples.</p>
+ *
+ * <p>The reads are processed in batches of templates: the first pass over the input keys the templates of each batch
+ * in parallel and aggregates them into compact duplicate sets, the sets are then resolved in parallel, and a second
+ * pass over the input marks the reads of each batch. The reads themselves are never materialized beyond the batches
+ * being processed.</p>
+ *
+ * <p>The number of duplicate sets and of non-duplicate templates grows with the input, so rather than holding them all
+ * in memory they are sorted on disk in the temporary directory: the duplicate sets by their key, which brings together
+ * the partial sets of each key from different batches, and the names of the non-duplicate templates by batch, so that
+ * the second pass only loads the names of the batches it is marking. At most a few hundred thousand of each are held in
+ * memory at once, but the temporary directory needs room for roughly one compact record per template.</p>
+ *
+ * <p>The tool is optimized to run on queryname-grouped alignments. Inputs in any other order are first queryname sorted
+ * into a temporary file. As with MarkDuplicatesSpark, the output is coordinate sorted.</p>
+ *
+ * <h3>Usage example</h3>
+ *     <pre>
+ *      gatk MarkDuplicatesGATK \
+ *            -I input.bam \
+ *            -O marked_duplicates.bam \
+ *            -M marked_dup_metrics.txt \
+ *            --threads 8
+ *     </pre>
+ */
+@BetaFeature
+@DocumentedFeature
+@CommandLineProgramProperties(
+        summary ="Marks duplicates using the MarkDuplicatesSpark engine on multiple threads without Spark",
+        oneLineSummary ="Multi-threaded MarkDuplicates that does not require Spark",
+        programGroup = ReadDataManipulationProgramGroup.class)
+public final class MarkDuplicatesGATK extends GATKTool {
+    public static final String THREADS_LONG_NAME = "threads";
+    public static final String READS_PER_BATCH_LONG_NAME = "reads-per-batch";
+
+    // number of duplicate sets resolved by each task once all of the reads have been keyed
+    private static final int DUPLICATE_GROUPS_PER_TASK = 10000;
+
+    // number of keyed duplicate sets, and of non-duplicate template names, held in memory before spilling to disk
+    private static final int MAX_RECORDS_IN_RAM = 500000;
+
+    @Override
+    public boolean requiresReads() { return true; }
+
+    @Argument(doc = "the output bam", shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
+            fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, optional = false)
+    protected String output;
+
+    @Argument(doc = "Path to write duplication metrics to.", optional=true,
+            shortName = StandardArgumentDefinitions.METRICS_FILE_SHORT_NAME,
+            fullName = StandardArgumentDefinitions.METRICS_FILE_LONG_NAME)
+    protected String metricsFile;
+
+    @Argument(doc = "Number of threads used to key and mark the reads.", optional = true, minValue = 1,
+            fullName = THREADS_LONG_NAME)
+    protected int threads = 4;
+
+    @Advanced
+    @Argument(doc = "Approximate number of reads processed by each task. Reads sharing a name are never split across batches.", optional = true, minValue = 1,
+            fullName = READS_PER_BATCH_LONG_NAME)
+    protected int readsPerBatch = 100000;
+
+    @ArgumentCollection
+    protected MarkDuplicatesSparkArgumentCollection markDuplicatesSparkArgumentCollection = new MarkDuplicatesSparkArgumentCollection();
+
+    @ArgumentCollection
+    protected OpticalDuplicatesArgumentCollection opticalDuplicatesArgumentCollection = new OpticalDuplicatesArgumentCollection();
+
+    // queryname sorted copy of the input, only used if the input is not grouped by read name
+    private File querynameSortedReads = null;
+
+    @Override
+    public List<ReadFilter> getDefaultReadFilters() {
+        return Collections.singletonList(ReadFilterLibrary.ALLOW_ALL_READS);
+    }
+
+    @Override
+    public void onTraversalStart() {
+        // If we need to remove optical duplicates, set the engine to mark optical duplicates using the DT tag.
+        if (markDuplicatesSparkArgumentCollection.removeSequencingDuplicates && markDuplicatesSparkArgumentCollection.taggingPolicy == MarkDuplicates.DuplicateTaggingPolicy.DontTag) {
+            markDuplicatesSparkArgumentCollection.taggingPolicy = MarkDuplicates.DuplicateTaggingPolicy.OpticalOnly;
+        }
+    }
+
+    @Override
+    public void traverse() {
+        final SAMFileHeader header = getHeaderForReads();
+        if (!ReadUtils.isReadNameGroupedBam(header)) {
+            logger.info("Input reads are sorted in " + header.getSortOrder() + " order so they will be queryname sorted before marking duplicates.");
+            querynameSortedReads = querynameSortReads(header);
+        }
+
+        final Map<String, Short> headerReadGroupIndexMap = MarkDuplicatesSparkUtils.getHeaderReadGroupIndexMap(header);
+        final Map<String, Byte> libraryIndex = MarkDuplicatesSparkUtils.constructLibraryIndex(header);
+        final boolean markOpticalDups = (markDuplicatesSparkArgumentCollection.taggingPolicy != MarkDuplicates.DuplicateTaggingPolicy.DontTag);
+
+        // Key the templates of each batch into partial duplicate groups, sorted on disk so that groups sharing a key are adjacent
+        final SortingCollection<KeyedDuplicateGroup> keyedGroups = SortingCollection.newInstance(KeyedDuplicateGroup.class,
+                new KryoCodec<>(KeyedDuplicateGroup.class), Comparator.comparing((KeyedDuplicateGroup keyedGroup) -> keyedGroup.key, ReadsKey.ORDER), MAX_RECORDS_IN_RAM);
+        try (final Stream<GATKRead> reads = streamReads()) {
+            final Iterator<List<KeyedDuplicateGroup>> batchGroups = Utils.transformParallel(batchReadsByName(reads.iterator()),
+                    batch -> keyDuplicateGroups(batch, header, headerReadGroupIndexMap, libraryIndex), threads);
+            int numBatches = 0;
+            while (batchGroups.hasNext()) {
+                batchGroups.next().forEach(keyedGroups::add);
+                numBatches++;
+            }
+            logger.info("Keyed " + numBatches + " batches of reads");
+        }
+        keyedGroups.doneAdding();
+
+        // Merge and resolve the groups into the names of the non-duplicate templates, sorted on disk by the batch they came from
+        final SortingCollection<NonDuplicate> nonDuplicates = SortingCollection.newInstance(NonDuplicate.class,
+                new KryoCodec<>(NonDuplicate.class), Comparator.comparingInt((NonDuplicate nonDuplicate) -> nonDuplicate.batchIndex), MAX_RECORDS_IN_RAM);
+        try (final CloseableIterator<KeyedDuplicateGroup> sortedGroups = keyedGroups.iterator()) {
+            Utils.transformParallel(Iterators.partition(mergeDuplicateGroups(sortedGroups), DUPLICATE_GROUPS_PER_TASK),
+                    groups -> markDuplicateGroups(groups, markOpticalDups), threads)
+                    .forEachRemaining(names -> names.forEach(nonDuplicates::add));
+        }
+        keyedGroups.cleanup();
+        nonDuplicates.doneAdding();
+
+        // Mark the reads of each batch, then collect metrics and write them in the original order (the writer sorts them)
+        final Map<String, GATKDuplicationMetrics> metricsByLibrary = new LinkedHashMap<>();
+        try (final Stream<GATKRead> reads = streamReads();
+             final CloseableIterator<NonDuplicate> sortedNonDuplicates = nonDuplicates.iterator();
+             final SAMFileGATKReadWriter writer = createSAMWriter(IOUtils.getPath(output), false)) {
+            // the names of each batch are loaded as the batch is read, before it is handed to a marking task
+            final PeekingIterator<NonDuplicate> nonDuplicatesByBatch = Iterators.peekingIterator(sortedNonDuplicates);
+            final Iterator<Tuple2<ReadBatch, Map<String, Integer>>> batchesWithNames = Iterators.transform(batchReadsByName(reads.iterator()),
+                    batch -> new Tuple2<>(batch, namesOfNonDuplicates(batch.index, nonDuplicatesByBatch)));
+            Utils.transformParallel(batchesWithNames, batchWithNames -> markBatch(batchWithNames._1(), batchWithNames._2()), threads)
+                    .forEachRemaining(batch -> {
+                        for (final GATKRead read : batch.reads) {
+                            if (metricsFile != null) {
+                                final String library = LibraryIdGenerator.getLibraryName(header, read.getReadGroup());
+                                MarkDuplicatesSparkUtils.updateMetricsForRead(metricsByLibrary.computeIfAbsent(library, MarkDuplicatesGATK::newMetrics), read);
+                            }
+                            if (shouldWriteRead(read)) {
+                                writer.addRead(read);
+                            }
+                        }
+                    });
+        }
+        nonDuplicates.cleanup();
+
+        if (metricsFile != null) {
+            metricsByLibrary.replaceAll((library, metrics) -> MarkDuplicatesSparkUtils.finalizeMetrics(metrics));
+            final MetricsFile<GATKDuplicationMetrics, Double> resultMetrics = getMetricsFile();
+            MarkDuplicatesSparkUtils.saveMetrics(resultMetrics, header, metricsByLibrary, metricsFile);
+        }
+    }
+
+    @Override
+    protected SAMFileHeader getHeaderForSAMWriter() {
+        final SAMFileHeader header = super.getHeaderForSAMWriter().clone();
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        return header;
+    }
+
+    /**
+     * A batch of consecutive reads, the index of the batch serves the same purpose as the partition index in MarkDuplicatesSpark
+     */
+    private static final class ReadBatch {
+        private final int index;
+        private final List<GATKRead> reads;
+
+        private ReadBatch(final int index, final List<GATKRead> reads) {
+            this.index = index;
+            this.reads = reads;
+        }
+    }
+
+    /**
+     * Groups the reads into batches of at least {@link #readsPerBatch} reads, never separating reads that share a name.
+     */
+    private Iterator<ReadBatch> batchReadsByName(final Iterator<GATKRead> reads) {
+        final PeekingIterator<GATKRead> peekableReads = Iterators.peekingIterator(reads);
+        return new AbstractIterator<ReadBatch>() {
+            private int batchIndex = 0;
+
+            @Override
+            protected ReadBatch computeNext() {
+                if (!peekableReads.hasNext()) {
+                    return endOfData();
+                }
+                final List<GATKRead> batch = new ArrayList<>();
+                while (peekableReads.hasNext() &&
+                        (batch.size() < readsPerBatch || Objects.equals(peekableReads.peek().getName(), batch.get(batch.size() - 1).getName()))) {
+                    batch.add(peekableReads.next());
+                }
+                return new ReadBatch(batchIndex++, batch);
+            }
+        };
+    }
+
+    /**
+     * A partial duplicate group of a single batch together with its key
+     */
+    private static final class KeyedDuplicateGroup {
+        private final ReadsKey key;
+        private final DuplicateGroup group;
+
+        private KeyedDuplicateGroup(final ReadsKey key, final DuplicateGroup group) {
+            this.key = key;
+            this.group = group;
+        }
+    }
+
+    /**
+     * The name of a non-duplicate template, with the batch it is in and its optical duplicate count or marker
+     */
+    private static final class NonDuplicate {
+        private final int batchIndex;
+        private final String name;
+        private final int opticalDuplicates;
+
+        private NonDuplicate(final int batchIndex, final String name, final int opticalDuplicates) {
+            this.batchIndex = batchIndex;
+            this.name = name;
+            this.opticalDuplicates = opticalDuplicates;
+        }
+    }
+
+    /**
+     * Keys the templates of the batch and combines them into partial duplicate groups, the equivalent of the
+     * map side of the combineByKey() in {@code MarkDuplicatesSparkUtils.transformToDuplicateNames()}.
+     */
+    private List<KeyedDuplicateGroup> keyDuplicateGroups(final ReadBatch batch, final SAMFileHeader header,
+                                                         final Map<String, Short> headerReadGroupIndexMap, final Map<String, Byte> libraryIndex) {
+        // the optical duplicate finder is not thread safe so each task gets its own
+        final OpticalDuplicateFinder finder = makeOpticalDuplicateFinder();
+        final Map<ReadsKey, DuplicateGroup> batchGroups = new HashMap<>();
+
+        // we treat unmapped reads specially and don't mark them as duplicates
+        final PeekingIterator<IndexPair<GATKRead>> mappedReads = Iterators.peekingIterator(batch.reads.stream()
+                .filter(ReadFilterLibrary.MAPPED)
+                .map(read -> new IndexPair<>(read, batch.index))
+                .iterator());
+        while (mappedReads.hasNext()) {
+            final List<IndexPair<GATKRead>> readsWithSameName = new ArrayList<>(2);
+            readsWithSameName.add(mappedReads.next());
+            while (mappedReads.hasNext() && Objects.equals(mappedReads.peek().getValue().getName(), readsWithSameName.get(0).getValue().getName())) {
+                readsWithSameName.add(mappedReads.next());
+            }
+
+            for (final Tuple2<String, Iterable<IndexPair<GATKRead>>> template : MarkDuplicatesSparkUtils.splitByReadsKey(readsWithSameName)) {
+                for (final Tuple2<ReadsKey, MarkDuplicatesSparkRecord> keyedRecord : MarkDuplicatesSparkUtils.makeRecordsForTemplate(
+                        header, markDuplicatesSparkArgumentCollection.duplicatesScoringStrategy, template._2(), headerReadGroupIndexMap, libraryIndex)) {
+                    batchGroups.computeIfAbsent(keyedRecord._1(), key -> new DuplicateGroup()).add(keyedRecord._2(), finder);
+                }
+            }
+        }
+
+        final List<KeyedDuplicateGroup> keyedGroups = new ArrayList<>(batchGroups.size());
+        batchGroups.forEach((key, group) -> keyedGroups.add(new KeyedDuplicateGroup(key, group)));
+        return keyedGroups;
+    }
+
+    /**
+     * Merges the adjacent partial groups sharing a key, the equivalent of the reduce side of the combineByKey() in
+     * {@code MarkDuplicatesSparkUtils.transformToDuplicateNames()}.
+     */
+    private Iterator<DuplicateGroup> mergeDuplicateGroups(final Iterator<KeyedDuplicateGroup> sortedGroups) {
+        final OpticalDuplicateFinder finder = makeOpticalDuplicateFinder();
+        final PeekingIterator<KeyedDuplicateGroup> peekableGroups = Iterators.peekingIterator(sortedGroups);
+        return new AbstractIterator<DuplicateGroup>() {
+            @Override
+            protected DuplicateGroup computeNext() {
+                if (!peekableGroups.hasNext()) {
+                    return endOfData();
+                }
+                final KeyedDuplicateGroup first = peekableGroups.next();
+                while (peekableGroups.hasNext() && peekableGroups.peek().key.equals(first.key)) {
+                    first.group.merge(peekableGroups.next().group, finder);
+                }
+                return first.group;
+            }
+        };
+    }
+
+    /**
+     * Resolves a chunk of duplicate groups into the names of their non-duplicate templates.
+     */
+    private List<NonDuplicate> markDuplicateGroups(final List<DuplicateGroup> groups, final boolean markOpticalDups) {
+        final OpticalDuplicateFinder finder = makeOpticalDuplicateFinder();
+        final List<NonDuplicate> nonDuplicates = new ArrayList<>();
+        for (final DuplicateGroup group : groups) {
+            for (final Tuple2<IndexPair<String>, Integer> nonDuplicate : MarkDuplicatesSparkUtils.markDuplicateGroup(group, finder, markOpticalDups)) {
+                nonDuplicates.add(new NonDuplicate(nonDuplicate._1().getIndex(), nonDuplicate._1().getValue(), nonDuplicate._2()));
+            }
+        }
+        return nonDuplicates;
+    }
+
+    /**
+     * Takes the names of the non-duplicate templates of a batch from the front of the names sorted by batch.
+     */
+    private static Map<String, Integer> namesOfNonDuplicates(final int batchIndex, final PeekingIterator<NonDuplicate> nonDuplicatesByBatch) {
+        final Map<String, Integer> namesOfNonDuplicates = new HashMap<>();
+        while (nonDuplicatesByBatch.hasNext() && nonDuplicatesByBatch.peek().batchIndex <= batchIndex) {
+            final NonDuplicate nonDuplicate = nonDuplicatesByBatch.next();
+            Utils.validate(nonDuplicate.batchIndex == batchIndex, () -> "non-duplicate template " + nonDuplicate.name + " is in a batch that has already been marked");
+            MarkDuplicatesSpark.addNonDuplicateName(namesOfNonDuplicates, nonDuplicate.name, nonDuplicate.opticalDuplicates);
+        }
+        return namesOfNonDuplicates;
+    }
+
+    /**
+     * Sets the duplicate flags of the reads in the batch given the names of its non-duplicate templates.
+     */
+    private ReadBatch markBatch(final ReadBatch batch, final Map<String, Integer> namesOfNonDuplicates) {
+        for (final GATKRead read : batch.reads) {
+            MarkDuplicatesSpark.markRead(read, namesOfNonDuplicates, !markDuplicatesSparkArgumentCollection.dontMarkUnmappedMates,
+                    markDuplicatesSparkArgumentCollection.taggingPolicy);
+        }
+        return batch;
+    }
+
+    private boolean shouldWriteRead(final GATKRead read) {
+        if (markDuplicatesSparkArgumentCollection.removeAllDuplicates) {
+            return !read.isDuplicate();
+        } else if (markDuplicatesSparkArgumentCollection.removeSequencingDuplicates) {
+            return !MarkDuplicates.DUPLICATE_TYPE_SEQUENCING.equals(read.getAttributeAsString(MarkDuplicates.DUPLICATE_TYPE_TAG));
+        }
+        return true;
+    }
+
+    private OpticalDuplicateFinder makeOpticalDuplicateFinder() {
+        return opticalDuplicatesArgumentCollection.READ_NAME_REGEX != null ?
+                new OpticalDuplicateFinder(opticalDuplicatesArgumentCollection.READ_NAME_REGEX, opticalDuplicatesArgumentCollection.OPTICAL_DUPLICATE_PIXEL_DISTANCE, null) : null;
+    }
+
+    private static GATKDuplicationMetrics newMetrics(final String library) {
+        final GATKDuplicationMetrics metrics = new GATKDuplicationMetrics();
+        metrics.LIBRARY = library;
+        return metrics;
+    }
+
+    /**
+     * Returns a stream over the (possibly queryname sorted) input reads, which must be closed once consumed.
+     */
+    private Stream<GATKRead> streamReads() {
+        if (querynameSortedReads == null) {
+            return getTransformedReadStream(makeReadFilter());
+        }
+        final SamReader reader = SamReaderFactory.makeDefault()
+                .validationStringency(readArguments.getReadValidationStringency())
+                .open(querynameSortedReads);
+        return Utils.stream(reader).<GATKRead>map(SAMRecordToGATKReadAdapter::new).onClose(() -> CloserUtil.close(reader));
+    }
+
+    /**
+     * Writes a queryname sorted copy of the input to a temporary file, spilling to disk while sorting.
+     */
+    private File querynameSortReads(final SAMFileHeader header) {
+        final File sortedReads = IOUtils.createTempFile("MarkDuplicatesGATK.queryname", ".bam");
+        final SAMFileHeader sortedHeader = header.clone();
+        sortedHeader.setSortOrder(SAMFileHeader.SortOrder.queryname);
+        try (final SAMFileWriter writer = new SAMFileWriterFactory().makeBAMWriter(sortedHeader, false, sortedReads);
+             final Stream<GATKRead> reads = getTransformedReadStream(makeReadFilter())) {
+            reads.forEach(read -> writer.addAlignment(read.convertToSAMRecord(sortedHeader)));
+        }
+        return sortedReads;
+    }
+
+    /**
+     * Codec spilling the records of this tool to disk with their kryo serializers
+     */
+    private static final class KryoCodec<T> implements SortingCollection.Codec<T> {
+        private final Class<T> type;
+        private final Kryo kryo = new Kryo();
+        private Output output;
+        private Input input;
+
+        private KryoCodec(final Class<T> type) {
+            this.type = type;
+            kryo.setReferences(false);
+            kryo.register(ReadsKey.KeyForFragment.class);
+            kryo.register(ReadsKey.KeyForPair.class);
+            kryo.register(KeyedDuplicateGroup.class, new com.esotericsoftware.kryo.Serializer<KeyedDuplicateGroup>() {
+                @Override
+                public void write(final Kryo kryo, final Output output, final KeyedDuplicateGroup keyedGroup) {
+                    kryo.writeClassAndObject(output, keyedGroup.key);
+                    kryo.writeObject(output, keyedGroup.group);
+                }
+
+                @Override
+                public KeyedDuplicateGroup read(final Kryo kryo, final Input input, final Class<KeyedDuplicateGroup> klass) {
+                    final ReadsKey key = (ReadsKey) kryo.readClassAndObject(input);
+                    return new KeyedDuplicateGroup(key, kryo.readObject(input, DuplicateGroup.class));
+                }
+            });
+            kryo.register(NonDuplicate.class, new com.esotericsoftware.kryo.Serializer<NonDuplicate>() {
+                @Override
+                public void write(final Kryo kryo, final Output output, final NonDuplicate nonDuplicate) {
+                    output.writeInt(nonDuplicate.batchIndex, true);
+                    output.writeString(nonDuplicate.name);
+                    output.writeInt(nonDuplicate.opticalDuplicates);
+                }
+
+                @Override
+                public NonDuplicate read(final Kryo kryo, final Input input, final Class<NonDuplicate> klass) {
+                    return new NonDuplicate(input.readInt(true), input.readString(), input.readInt());
+                }
+            });
+        }
+
+        @Override
+        public void setOutputStream(final OutputStream os) {
+            output = new Output(os);
+        }
+
+        @Override
+        public void setInputStream(final InputStream is) {
+            input = new Input(is);
+        }
+
+        @Override
+        public void encode(final T value) {
+            kryo.writeObject(output, value);
+            // the sorting collection flushes the stream it gave us, not our buffer
+            output.flush();
+        }
+
+        @Override
+        public T decode() {
+            return input.eof() ? null : kryo.readObject(input, type);
+        }
+
+        @Override
+        public KryoCodec<T> clone() {
+            return new KryoCodec<>(type);
+        }
+    }
+}
@@ -350,6 +350,7 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
     public void shutdown() {
         likelihoodCalculationEngine.close();
         aligner.close();
+        assemblyEngine.shutdown();
         haplotypeBAMWriter.ifPresent(writer -> writer.close());
         referenceReader.close();
     }
@@ -1106,6 +1106,9 @@ public final class Utils {
      * Like Guava's {@link Iterators#transform(Iterator, com.google.common.base.Function)}, but runs a fixed number
      * ({@code numThreads}) of transformations in parallel, while maintaining ordering of the output iterator.
      * This is useful if the transformations are CPU intensive.
+     *
+     * If a transformation throws an unchecked exception the remaining transformations are cancelled and the exception
+     * is rethrown as is, so that {@link org.broadinstitute.hellbender.exceptions.UserException}s reach the user intact.
      */
     public static <F, T> Iterator<T> transformParallel(final Iterator<F> fromIterator, final Function<F, T> function, final int numThreads) {
         Utils.nonNull(fromIterator, "fromIterator");
@@ -1142,6 +1145,10 @@ public final class Utils {
                     executorService.shutdown();
                     return endOfData();
                 } catch (InterruptedException | ExecutionException e) {
+                    executorService.shutdownNow();
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
                     throw new GATKException("Problem running task", e);
                 }
             }
@@ -1,18 +1,38 @@
 package org.broadinstitute.hellbender.utils.bwa;
 
 import org.apache.spark.api.java.JavaSparkContext;
-import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manage a global collection of {@link BwaMemIndex} instances.
  */
 public class BwaMemIndexCache {
+    private static final Logger logger = LogManager.getLogger(BwaMemIndexCache.class);
 
     private final static Map<String, BwaMemIndex> instances = new HashMap<>();
 
+    // shared image for each private image and shared directory, so that each is linked once per JVM.  this is not
+    // guarded by the class lock, so that setting up one image doesn't hold up the use of the others
+    private final static Map<String, String> sharedImages = new ConcurrentHashMap<>();
+
+    // number and size of the evenly spaced blocks of an image that are digested to tell it apart from the images of
+    // other references, which reads a few MB rather than the whole image
+    private final static int FINGERPRINT_BLOCKS = 64;
+    private final static int FINGERPRINT_BLOCK_SIZE = 1 << 16;
+
     /**
      * Returns a {@link BwaMemIndex} instance that corresponds to  given index image file.
      * @param indexImageFile the target image file.
@@ -26,6 +46,102 @@ public class BwaMemIndexCache {
         return instances.get(indexImageFile);
     }
 
+    /**
+     * Returns a {@link BwaMemIndex} instance for a private copy of an index image file (e.g., the copy that Spark
+     * makes in each executor's work directory), opened through a link in a directory that all the JVMs on the host
+     * can see.
+     * <p>
+     *     The native code memory-maps the image read-only, so every JVM that opens the same file shares one copy of
+     *     it in the page cache, whereas each private copy would be paged in separately.  The first JVM to get here
+     *     hard-links (or, failing that, copies) its private copy into the shared directory, and later ones reuse it.
+     *     Shared files are named by the image's file name, its size and the MD5 digest of a sample of evenly spaced
+     *     blocks of it, so that an image of a different reference is never mistaken for it, and are left in place
+     *     for later runs.  The sample is a few MB however large the image, so naming the shared file doesn't page in
+     *     a second copy of the image, and it is read without holding the lock on the cache.
+     * </p>
+     * <p>
+     *     If the shared file can't be created, the private copy is used.
+     * </p>
+     *
+     * @param privateImageFile the local image file.
+     * @param sharedDir a node-local directory that all the JVMs on the host can write.
+     * @return never {@code null}.
+     */
+    public static BwaMemIndex getNodeSharedInstance( final String privateImageFile, final String sharedDir ) {
+        Utils.nonNull(privateImageFile, "the index image file name provided cannot be null");
+        Utils.nonNull(sharedDir, "the shared directory provided cannot be null");
+        final Path privateImage = Paths.get(privateImageFile);
+        final Path sharedDirPath = Paths.get(sharedDir);
+        final String sharedImage = sharedImages.computeIfAbsent(privateImage.toAbsolutePath() + File.pathSeparator + sharedDirPath.toAbsolutePath(),
+                k -> linkIntoSharedDir(privateImage, sharedDirPath).toString());
+        return getInstance(sharedImage);
+    }
+
+    private static Path linkIntoSharedDir( final Path privateImage, final Path sharedDir ) {
+        try {
+            final Path sharedImage =
+                    sharedDir.resolve(privateImage.getFileName().toString() + "." + calculateFingerprint(privateImage));
+            if ( Files.isReadable(sharedImage) && Files.size(sharedImage) == Files.size(privateImage) ) {
+                return sharedImage;
+            }
+            Files.createDirectories(sharedDir);
+            // build the file under a name no other JVM will use, then hard-link it into place, which fails rather
+            // than replacing the file if another JVM got there first, so that no one ever opens a partial image and
+            // the page cache only ever holds one copy.  if another JVM won the race, its file is just as good.
+            final Path tmpImage = Files.createTempFile(sharedDir, privateImage.getFileName().toString(), ".tmp");
+            try {
+                Files.delete(tmpImage);
+                try {
+                    Files.createLink(tmpImage, privateImage);
+                } catch ( final IOException | UnsupportedOperationException e ) {
+                    Files.copy(privateImage, tmpImage);
+                }
+                try {
+                    Files.createLink(sharedImage, tmpImage);
+                } catch ( final FileAlreadyExistsException e ) {
+                    // the other JVM's file will do
+                }
+            } finally {
+                Files.deleteIfExists(tmpImage);
+            }
+            return sharedImage;
+        } catch ( final IOException | UnsupportedOperationException e ) {
+            logger.warn("Unable to share BWA index image " + privateImage + " in " + sharedDir +
+                    ".  Using a private copy.", e);
+            return privateImage;
+        }
+    }
+
+    private static String calculateFingerprint( final Path path ) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch ( final NoSuchAlgorithmException e ) {
+            throw new IllegalStateException("MD5 digest algorithm not present", e);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(FINGERPRINT_BLOCK_SIZE);
+        try ( final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ) ) {
+            final long size = channel.size();
+            // a small image is digested whole.  in a larger one, the first block starts at its beginning and the last
+            // one ends at its end
+            final boolean sampled = size > (long)FINGERPRINT_BLOCKS * FINGERPRINT_BLOCK_SIZE;
+            final long nBlocks = sampled ? FINGERPRINT_BLOCKS : (size + FINGERPRINT_BLOCK_SIZE - 1) / FINGERPRINT_BLOCK_SIZE;
+            for ( long block = 0; block != nBlocks; ++block ) {
+                final long start = sampled ? (size - FINGERPRINT_BLOCK_SIZE) * block / (FINGERPRINT_BLOCKS - 1) :
+                        block * FINGERPRINT_BLOCK_SIZE;
+                buffer.clear();
+                while ( buffer.hasRemaining() ) {
+                    if ( channel.read(buffer, start + buffer.position()) < 0 ) {
+                        break;
+                    }
+                }
+                buffer.flip();
+                digest.update(buffer);
+            }
+            return size + "." + String.format("%032x", new BigInteger(1, digest.digest()));
+        }
+    }
+
     /**
      * Closes an index instance in the cache given its index file name.
      * <p>
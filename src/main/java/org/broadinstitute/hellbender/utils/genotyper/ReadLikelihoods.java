@@ -52,12 +52,16 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
     protected final GATKRead[][] readsBySampleIndex;
 
     /**
-     * Indexed per sample, allele and finally read (within sample).
+     * Indexed per sample; the likelihoods of each sample are held in a single array, allele after allele, with as many
+     * entries per allele as the sample has reads.
      * <p>
-     *     valuesBySampleIndex[s][a][r] == lnLk(R_r | A_a) where R_r comes from Sample s.
+     *     valuesBySampleIndex[s][a * R + r] == lnLk(R_r | A_a) where R_r comes from Sample s, which has R reads.
+     * </p>
+     * <p>
+     *     The array may be longer than needed, so that removing reads doesn't need a new one.
      * </p>
      */
-    protected final double[][][] valuesBySampleIndex;
+    protected final double[][] valuesBySampleIndex;
 
     /**
      * Sample list
@@ -141,7 +145,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
 
         readsBySampleIndex = new GATKRead[sampleCount][];
         readListBySampleIndex = (List<GATKRead>[])new List[sampleCount];
-        valuesBySampleIndex = new double[sampleCount][][];
+        valuesBySampleIndex = new double[sampleCount][];
         referenceAlleleIndex = findReferenceAllele(alleles);
 
         readIndexBySampleIndex = new Object2IntMap[sampleCount];
@@ -158,7 +162,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
                             final SampleList samples,
                             final GATKRead[][] readsBySampleIndex,
                             final Object2IntMap<GATKRead>[] readIndex,
-                            final double[][][] values) {
+                            final double[][] values) {
         this.samples = samples;
         this.alleles = alleles;
         this.readsBySampleIndex = readsBySampleIndex;
@@ -190,8 +194,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
                 : reads.toArray(new GATKRead[reads.size()]);
         final int sampleReadCount = readsBySampleIndex[sampleIndex].length;
 
-        final double[][] sampleValues = new double[alleleCount][sampleReadCount];
-        valuesBySampleIndex[sampleIndex] = sampleValues;
+        valuesBySampleIndex[sampleIndex] = new double[alleleCount * sampleReadCount];
     }
 
     /**
@@ -213,7 +216,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final int sampleCount = samples.numberOfSamples();
         final int alleleCount = alleles.numberOfAlleles();
 
-        final double[][][] newLikelihoodValues = new double[sampleCount][alleleCount][];
+        final double[][] newLikelihoodValues = new double[sampleCount][];
 
         @SuppressWarnings({"unchecked", "rawtypes"})
         final Object2IntMap<GATKRead>[] newReadIndexBySampleIndex = new Object2IntMap[sampleCount];
@@ -221,8 +224,9 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
 
         for (int s = 0; s < sampleCount; s++) {
             newReadsBySampleIndex[s] = readsBySampleIndex[s].clone();
-            for (int a = 0; a < alleleCount; a++) {
-                newLikelihoodValues[s][a] = MathUtils.applyToArrayInPlace(valuesBySampleIndex[s][a].clone(), x -> x * conversionFactor);
+            newLikelihoodValues[s] = Arrays.copyOf(valuesBySampleIndex[s], alleleCount * newReadsBySampleIndex[s].length);
+            if (switchToNaturalLog) {
+                MathUtils.applyToArrayInPlace(newLikelihoodValues[s], x -> x * conversionFactor);
             }
         }
 
@@ -378,17 +382,17 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         }
 
         for (int s = 0; s < valuesBySampleIndex.length; s++) {
-            final double[][] sampleValues = valuesBySampleIndex[s];
+            final double[] sampleValues = valuesBySampleIndex[s];
             final int readCount = readsBySampleIndex[s].length;
             for (int r = 0; r < readCount; r++) {
-                normalizeLikelihoodsPerRead(maximumLikelihoodDifferenceCap, sampleValues, s, r);
+                normalizeLikelihoodsPerRead(maximumLikelihoodDifferenceCap, sampleValues, readCount, s, r);
             }
         }
     }
 
     // Does the normalizeLikelihoods job for each read.
     private void normalizeLikelihoodsPerRead(final double maximumBestAltLikelihoodDifference,
-                                             final double[][] sampleValues, final int sampleIndex, final int readIndex) {
+                                             final double[] sampleValues, final int readCount, final int sampleIndex, final int readIndex) {
 
         final BestAllele bestAlternativeAllele = searchBestAllele(sampleIndex,readIndex,false);
 
@@ -397,9 +401,9 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final int alleleCount = alleles.numberOfAlleles();
 
         // Guarantee to be the case by enclosing code.
-        for (int a = 0; a < alleleCount; a++) {
-            if (sampleValues[a][readIndex] < worstLikelihoodCap) {
-                sampleValues[a][readIndex] = worstLikelihoodCap;
+        for (int a = 0, i = readIndex; a < alleleCount; a++, i += readCount) {
+            if (sampleValues[i] < worstLikelihoodCap) {
+                sampleValues[i] = worstLikelihoodCap;
             }
         }
 
@@ -456,18 +460,19 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             return new BestAllele(sampleIndex, readIndex, -1, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
         }
 
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int readCount = readsBySampleIndex[sampleIndex].length;
         int bestAlleleIndex = canBeReference || referenceAlleleIndex != 0 ? 0 : 1;
 
         int secondBestIndex = 0;
-        double bestLikelihood = sampleValues[bestAlleleIndex][readIndex];
+        double bestLikelihood = sampleValues[bestAlleleIndex * readCount + readIndex];
         double secondBestLikelihood = Double.NEGATIVE_INFINITY;
 
         for (int a = bestAlleleIndex + 1; a < alleleCount; a++) {
             if (!canBeReference && referenceAlleleIndex == a) {
                 continue;
             }
-            final double candidateLikelihood = sampleValues[a][readIndex];
+            final double candidateLikelihood = sampleValues[a * readCount + readIndex];
             if (candidateLikelihood > bestLikelihood) {
                 secondBestIndex = bestAlleleIndex;
                 bestAlleleIndex = a;
@@ -483,7 +488,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             double bestPriority = priorities.get()[bestAlleleIndex];
             double secondBestPriority = priorities.get()[secondBestIndex];
             for (int a = 0; a < alleleCount; a++) {
-                final double candidateLikelihood = sampleValues[a][readIndex];
+                final double candidateLikelihood = sampleValues[a * readCount + readIndex];
                 if (a == bestAlleleIndex || (!canBeReference && a == referenceAlleleIndex) || bestLikelihood - candidateLikelihood > getInformativeThreshold()) {
                     continue;
                 }
@@ -501,8 +506,8 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             }
         }
 
-        bestLikelihood = sampleValues[bestAlleleIndex][readIndex];
-        secondBestLikelihood = secondBestIndex != bestAlleleIndex ? sampleValues[secondBestIndex][readIndex] : Double.NEGATIVE_INFINITY;
+        bestLikelihood = sampleValues[bestAlleleIndex * readCount + readIndex];
+        secondBestLikelihood = secondBestIndex != bestAlleleIndex ? sampleValues[secondBestIndex * readCount + readIndex] : Double.NEGATIVE_INFINITY;
 
         return new BestAllele(sampleIndex, readIndex, bestAlleleIndex, bestLikelihood, secondBestLikelihood);
     }
@@ -577,17 +582,13 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             referenceAlleleIndex = oldAlleleCount + indexOfReferenceInAllelesToAdd.getAsInt();
         }
 
-        //copy old allele likelihoods and set new allele likelihoods to the default value
+        //keep the old allele likelihoods, growing the array if need be, and set new allele likelihoods to the default value
         for (int s = 0; s < samples.numberOfSamples(); s++) {
             final int sampleReadCount = readsBySampleIndex[s].length;
-            final double[][] newValuesBySampleIndex = Arrays.copyOf(valuesBySampleIndex[s], newAlleleCount);
-            for (int a = oldAlleleCount; a < newAlleleCount; a++) {
-                newValuesBySampleIndex[a] = new double[sampleReadCount];
-                if (defaultLikelihood != 0.0) {
-                    Arrays.fill(newValuesBySampleIndex[a], defaultLikelihood);
-                }
+            if (valuesBySampleIndex[s].length < newAlleleCount * sampleReadCount) {
+                valuesBySampleIndex[s] = Arrays.copyOf(valuesBySampleIndex[s], newAlleleCount * sampleReadCount);
             }
-            valuesBySampleIndex[s] = newValuesBySampleIndex;
+            Arrays.fill(valuesBySampleIndex[s], oldAlleleCount * sampleReadCount, newAlleleCount * sampleReadCount, defaultLikelihood);
         }
         return true;
     }
@@ -618,7 +619,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final int[] oldToNewAlleleIndexMap = oldToNewAlleleIndexMap(newToOldAlleleMap, oldAlleleCount, newAlleles);
 
         // We calculate the marginal likelihoods.
-        final double[][][] newLikelihoodValues = marginalLikelihoods(oldAlleleCount, newAlleleCount, oldToNewAlleleIndexMap, null);
+        final double[][] newLikelihoodValues = marginalLikelihoods(oldAlleleCount, newAlleleCount, oldToNewAlleleIndexMap, null);
 
         final int sampleCount = samples.numberOfSamples();
 
@@ -674,7 +675,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final int[][] readsToKeep = overlappingReadIndicesBySampleIndex(overlap);
         // We calculate the marginal likelihoods.
 
-        final double[][][] newLikelihoodValues = marginalLikelihoods(oldAlleleCount, newAlleleCount, oldToNewAlleleIndexMap, readsToKeep);
+        final double[][] newLikelihoodValues = marginalLikelihoods(oldAlleleCount, newAlleleCount, oldToNewAlleleIndexMap, readsToKeep);
 
         final int sampleCount = samples.numberOfSamples();
 
@@ -729,32 +730,33 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
     }
 
     // Calculate the marginal likelihoods considering the old -> new allele index mapping.
-    private double[][][] marginalLikelihoods(final int oldAlleleCount, final int newAlleleCount, final int[] oldToNewAlleleIndexMap, final int[][] readsToKeep) {
+    private double[][] marginalLikelihoods(final int oldAlleleCount, final int newAlleleCount, final int[] oldToNewAlleleIndexMap, final int[][] readsToKeep) {
 
         final int sampleCount = samples.numberOfSamples();
-        final double[][][] result = new double[sampleCount][][];
+        final double[][] result = new double[sampleCount][];
 
         for (int s = 0; s < sampleCount; s++) {
             final int sampleReadCount = readsBySampleIndex[s].length;
-            final double[][] oldSampleValues = valuesBySampleIndex[s];
+            final double[] oldSampleValues = valuesBySampleIndex[s];
             final int[] sampleReadToKeep = readsToKeep == null || readsToKeep[s].length == sampleReadCount ? null : readsToKeep[s];
             final int newSampleReadCount = sampleReadToKeep == null ? sampleReadCount : sampleReadToKeep.length;
-            final double[][] newSampleValues = result[s] = new double[newAlleleCount][newSampleReadCount];
+            final double[] newSampleValues = result[s] = new double[newAlleleCount * newSampleReadCount];
             // We initiate all likelihoods to -Inf.
-            for (int a = 0; a < newAlleleCount; a++) {
-                Arrays.fill(newSampleValues[a], Double.NEGATIVE_INFINITY);
-            }
-            // For each old allele and read we update the new table keeping the maximum likelihood.
-            for (int r = 0; r < newSampleReadCount; r++) {
-                for (int a = 0; a < oldAlleleCount; a++) {
-                    final int oldReadIndex = newSampleReadCount == sampleReadCount ? r : sampleReadToKeep[r];
-                    final int newAlleleIndex = oldToNewAlleleIndexMap[a];
-                    if (newAlleleIndex == -1) {
-                        continue;
-                    }
-                    final double likelihood = oldSampleValues[a][oldReadIndex];
-                    if (likelihood > newSampleValues[newAlleleIndex][r]) {
-                        newSampleValues[newAlleleIndex][r] = likelihood;
+            Arrays.fill(newSampleValues, Double.NEGATIVE_INFINITY);
+            // For each old allele and read we update the new table keeping the maximum likelihood, going through
+            // each old allele's likelihoods in order.
+            for (int a = 0; a < oldAlleleCount; a++) {
+                final int newAlleleIndex = oldToNewAlleleIndexMap[a];
+                if (newAlleleIndex == -1) {
+                    continue;
+                }
+                final int oldOffset = a * sampleReadCount;
+                final int newOffset = newAlleleIndex * newSampleReadCount;
+                for (int r = 0; r < newSampleReadCount; r++) {
+                    final int oldReadIndex = sampleReadToKeep == null ? r : sampleReadToKeep[r];
+                    final double likelihood = oldSampleValues[oldOffset + oldReadIndex];
+                    if (likelihood > newSampleValues[newOffset + r]) {
+                        newSampleValues[newOffset + r] = likelihood;
                     }
                 }
             }
@@ -820,9 +822,10 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final double log10MaxLikelihoodForTrueAllele = maxErrorsForRead * log10QualPerBase;
 
         final int alleleCount = alleles.numberOfAlleles();
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int readCount = readsBySampleIndex[sampleIndex].length;
         for (int a = 0; a < alleleCount; a++) {
-            if (sampleValues[a][readIndex] >= log10MaxLikelihoodForTrueAllele) {
+            if (sampleValues[a * readCount + readIndex] >= log10MaxLikelihoodForTrueAllele) {
                 return false;
             }
         }
@@ -862,19 +865,18 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         }
     }
 
-    // Extends the likelihood arrays-matrices.
+    // Extends the likelihood arrays-matrices, spreading out the likelihoods of each allele to make room for the new reads.
     private void extendsLikelihoodArrays(final double initialLikelihood, final int sampleIndex, final int sampleReadCount, final int newSampleReadCount) {
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
         final int alleleCount = alleles.numberOfAlleles();
+        final double[] newSampleValues = new double[alleleCount * newSampleReadCount];
         for (int a = 0; a < alleleCount; a++) {
-            sampleValues[a] = Arrays.copyOf(sampleValues[a], newSampleReadCount);
-        }
-        if (initialLikelihood != 0.0) // the default array new value.
-        {
-            for (int a = 0; a < alleleCount; a++) {
-                Arrays.fill(sampleValues[a], sampleReadCount, newSampleReadCount, initialLikelihood);
+            System.arraycopy(sampleValues, a * sampleReadCount, newSampleValues, a * newSampleReadCount, sampleReadCount);
+            if (initialLikelihood != 0.0) { // the default array new value.
+                Arrays.fill(newSampleValues, a * newSampleReadCount + sampleReadCount, (a + 1) * newSampleReadCount, initialLikelihood);
             }
         }
+        valuesBySampleIndex[sampleIndex] = newSampleValues;
     }
 
     // Append the new read reference into the structure per-sample.
@@ -952,13 +954,13 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final double[] qualifiedAlleleLikelihoods = new double[nonSymbolicAlleleCount];
         final Median medianCalculator = new Median();
         for (int s = 0; s < samples.numberOfSamples(); s++) {
-            final double[][] sampleValues = valuesBySampleIndex[s];
-            final int readCount = sampleValues[0].length;
+            final double[] sampleValues = valuesBySampleIndex[s];
+            final int readCount = readsBySampleIndex[s].length;
             for (int r = 0; r < readCount; r++) {
                 final BestAllele bestAllele = searchBestAllele(s, r, true);
                 int numberOfQualifiedAlleleLikelihoods = 0;
                 for (int i = 0; i < alleleCount; i++) {
-                    final double alleleLikelihood = sampleValues[i][r];
+                    final double alleleLikelihood = sampleValues[i * readCount + r];
                     if (i != nonRefAlleleIndex && alleleLikelihood < bestAllele.likelihood
                             && !Double.isNaN(alleleLikelihood) && allelesToConsider.indexOfAllele(alleles.getAllele(i)) != -1) {
                         qualifiedAlleleLikelihoods[numberOfQualifiedAlleleLikelihoods++] = alleleLikelihood;
@@ -969,7 +971,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
                 // so the read is not informative at all given the existing alleles. Unless there is only one (or zero) concrete
                 // alleles with give the same (the best) likelihood to the NON-REF. When there is only one (or zero) concrete
                 // alleles we set the NON-REF likelihood to NaN.
-                sampleValues[nonRefAlleleIndex][r] = !Double.isNaN(nonRefLikelihood) ? nonRefLikelihood
+                sampleValues[nonRefAlleleIndex * readCount + r] = !Double.isNaN(nonRefLikelihood) ? nonRefLikelihood
                         : nonSymbolicAlleleCount <= 1 ? Double.NaN : bestAllele.likelihood;
             }
         }
@@ -1272,13 +1274,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         Utils.skimArray(oldSampleReads,firstDeleted, newSampleReads, firstDeleted, removeIndex, firstDeleted);
 
         // Then we skim out the likelihoods of the removed reads.
-        final double[][] oldSampleValues = valuesBySampleIndex[sampleIndex];
-        final double[][] newSampleValues = new double[alleleCount][newSampleReadCount];
-        for (int a = 0; a < alleleCount; a++) {
-            System.arraycopy(oldSampleValues[a], 0, newSampleValues[a], 0, firstDeleted);
-            Utils.skimArray(oldSampleValues[a], firstDeleted, newSampleValues[a], firstDeleted, removeIndex, firstDeleted);
-        }
-        valuesBySampleIndex[sampleIndex] = newSampleValues;
+        skimSampleLikelihoods(sampleIndex, alleleCount, sampleReadCount, removeIndex);
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
     }
@@ -1330,17 +1326,26 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         }
 
         // Then we skim out the likelihoods of the removed reads.
-        final double[][] oldSampleValues = valuesBySampleIndex[sampleIndex];
-        final double[][] newSampleValues = new double[alleleCount][newSampleReadCount];
-        for (int a = 0; a < alleleCount; a++) {
-            System.arraycopy(oldSampleValues[a],0,newSampleValues[a],0,firstDeleted);
-            Utils.skimArray(oldSampleValues[a], firstDeleted, newSampleValues[a], firstDeleted, removeIndex, firstDeleted);
-        }
-        valuesBySampleIndex[sampleIndex] = newSampleValues;
+        skimSampleLikelihoods(sampleIndex, alleleCount, sampleReadCount, removeIndex);
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
     }
 
+    // Removes the likelihoods of the reads to remove in place, moving each kept likelihood to its place in the layout
+    // for the remaining reads.  No likelihood is moved to a later position, so a single forward pass suffices.
+    private void skimSampleLikelihoods(final int sampleIndex, final int alleleCount, final int sampleReadCount, final boolean[] removeIndex) {
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        int next = 0;
+        for (int a = 0; a < alleleCount; a++) {
+            final int offset = a * sampleReadCount;
+            for (int r = 0; r < sampleReadCount; r++) {
+                if (!removeIndex[r]) {
+                    sampleValues[next++] = sampleValues[offset + r];
+                }
+            }
+        }
+    }
+
 
     private Object2IntMap<GATKRead> readIndexBySampleIndex(final int sampleIndex) {
         if (readIndexBySampleIndex[sampleIndex] == null) {
@@ -1389,16 +1394,20 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
 
         @Override
         public void set(final int alleleIndex, final int readIndex, final double value) {
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            Utils.validIndex(readIndex, valuesBySampleIndex[sampleIndex][alleleIndex].length);
-            valuesBySampleIndex[sampleIndex][alleleIndex][readIndex] = value;
+            valuesBySampleIndex[sampleIndex][valueIndex(alleleIndex, readIndex)] = value;
         }
 
         @Override
         public double get(final int alleleIndex, final int readIndex) {
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            Utils.validIndex(readIndex, valuesBySampleIndex[sampleIndex][alleleIndex].length);
-            return valuesBySampleIndex[sampleIndex][alleleIndex][readIndex];
+            return valuesBySampleIndex[sampleIndex][valueIndex(alleleIndex, readIndex)];
+        }
+
+        // The position of a likelihood in the sample's array
+        private int valueIndex(final int alleleIndex, final int readIndex) {
+            final int readCount = readsBySampleIndex[sampleIndex].length;
+            Utils.validIndex(alleleIndex, alleles.numberOfAlleles());
+            Utils.validIndex(readIndex, readCount);
+            return alleleIndex * readCount + readIndex;
         }
 
         @Override
@@ -1438,8 +1447,9 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         @Override
         public void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset) {
             Utils.nonNull(dest);
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            System.arraycopy(valuesBySampleIndex[sampleIndex][alleleIndex], 0, dest, offset, numberOfReads());
+            Utils.validIndex(alleleIndex, alleles.numberOfAlleles());
+            final int readCount = numberOfReads();
+            System.arraycopy(valuesBySampleIndex[sampleIndex], alleleIndex * readCount, dest, offset, readCount);
         }
     }
 }
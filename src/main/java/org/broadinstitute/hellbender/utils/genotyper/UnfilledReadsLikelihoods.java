@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -50,7 +51,7 @@ public class UnfilledReadsLikelihoods<A extends Allele> extends ReadLikelihoods<
                             final SampleList samples,
                             final GATKRead[][] readsBySampleIndex,
                             final Object2IntMap<GATKRead>[] readIndex,
-                            final double[][][] values) {
+                            final double[][] values) {
        super(alleles, samples, readsBySampleIndex, readIndex, values);
     }
 
@@ -90,7 +91,7 @@ public class UnfilledReadsLikelihoods<A extends Allele> extends ReadLikelihoods<
         final int sampleCount = samples.numberOfSamples();
         final int alleleCount = alleles.numberOfAlleles();
 
-        final double[][][] newLikelihoodValues = new double[sampleCount][alleleCount][];
+        final double[][] newLikelihoodValues = new double[sampleCount][];
 
         @SuppressWarnings({"unchecked", "rawtypes"})
         final Object2IntMap<GATKRead>[] newReadIndexBySampleIndex = new Object2IntMap[sampleCount];
@@ -98,9 +99,7 @@ public class UnfilledReadsLikelihoods<A extends Allele> extends ReadLikelihoods<
 
         for (int s = 0; s < sampleCount; s++) {
             newReadsBySampleIndex[s] = readsBySampleIndex[s].clone();
-            for (int a = 0; a < alleleCount; a++) {
-                newLikelihoodValues[s][a] = valuesBySampleIndex[s][a].clone();
-            }
+            newLikelihoodValues[s] = Arrays.copyOf(valuesBySampleIndex[s], alleleCount * newReadsBySampleIndex[s].length);
         }
 
         // Finally we create the new read-likelihood
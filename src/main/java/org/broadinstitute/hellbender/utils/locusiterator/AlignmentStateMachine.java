@@ -22,10 +22,10 @@ public final class AlignmentStateMachine {
     /**
      * Our read
      */
-    private final GATKRead read;
-    private final Cigar cigar;
-    private final int nCigarElements;
-    private int currentCigarElementOffset = -1;
+    private GATKRead read;
+    private Cigar cigar;
+    private int nCigarElements;
+    private int currentCigarElementOffset;
 
     /**
      * how far are we offset from the start of the read bases?
@@ -48,12 +48,33 @@ public final class AlignmentStateMachine {
     private int offsetIntoCurrentCigarElement;
 
     public AlignmentStateMachine(final GATKRead read) {
+        reset(read);
+    }
+
+    /**
+     * Point this machine at a new read, one bp before the start of its alignment, as if it had just been constructed
+     * for it.  Lets {@link LocusIteratorByState} recycle the machines of reads it is done with.
+     *
+     * @param read the new read
+     */
+    void reset(final GATKRead read) {
         this.read = read;
         this.cigar = read.getCigar();
         this.nCigarElements = cigar.numCigarElements();
+        this.currentCigarElementOffset = -1;
         initializeAsLeftEdge();
     }
 
+    /**
+     * Drop the references to the read of a machine that is put aside for {@link #reset}, so that a pooled machine
+     * doesn't keep its last read reachable.  The machine must be reset before it is used again.
+     */
+    void release() {
+        this.read = null;
+        this.cigar = null;
+        this.currentElement = null;
+    }
+
     /**
      * Initialize the state variables to put this machine one bp before the
      * start of the alignment, so that a call to stepForwardOnGenome() will advance
@@ -7,6 +7,8 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.Downsampler;
 import org.broadinstitute.hellbender.utils.downsampling.LevelingDownsampler;
 
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -24,7 +26,7 @@ final class PerSampleReadStateManager implements Iterable<AlignmentStateMachine>
      * The state machines must be ordered by the alignment start of their underlying reads, with the
      * lowest alignment starts on the left, and the largest on the right
      */
-    private List<AlignmentStateMachine> readStatesByAlignmentStart = new LinkedList<>();
+    private List<AlignmentStateMachine> readStatesByAlignmentStart = new ArrayList<>();
 
     private final Downsampler<LinkedList<AlignmentStateMachine>> levelingDownsampler;
     private final int downsamplingTarget;
@@ -82,8 +84,8 @@ final class PerSampleReadStateManager implements Iterable<AlignmentStateMachine>
      * Flattens the grouped list of list of alignment state machines into a single list in order
      * @return a non-null list contains the state machines
      */
-    private LinkedList<AlignmentStateMachine> flattenByAlignmentStart(final List<LinkedList<AlignmentStateMachine>> grouped) {
-        final LinkedList<AlignmentStateMachine> flat = new LinkedList<>();
+    private List<AlignmentStateMachine> flattenByAlignmentStart(final List<LinkedList<AlignmentStateMachine>> grouped) {
+        final List<AlignmentStateMachine> flat = new ArrayList<>(readStatesByAlignmentStart.size());
         for ( final List<AlignmentStateMachine> l : grouped ) {
             flat.addAll(l);
         }
@@ -178,24 +180,31 @@ final class PerSampleReadStateManager implements Iterable<AlignmentStateMachine>
     /**
      * Advances all read states forward by one element, removing states that are
      * no long aligned to the current position.
+     *
+     * The remaining states are compacted in place, and removed states are handed to recycledStates for reuse.
+     *
+     * @param recycledStates where to put the removed states
      * @return the number of states we're removed after advancing
      */
-    public int updateReadStates() {
-        int nRemoved = 0;
-        final Iterator<AlignmentStateMachine> it = iterator();
-        while (it.hasNext()) {
-            final AlignmentStateMachine state = it.next();
+    public int updateReadStates(final Deque<AlignmentStateMachine> recycledStates) {
+        final int nStates = readStatesByAlignmentStart.size();
+        int nKept = 0;
+        for (int i = 0; i < nStates; i++) {
+            final AlignmentStateMachine state = readStatesByAlignmentStart.get(i);
             final CigarOperator op = state.stepForwardOnGenome();
             if (op == null) {
                 // we discard the read only when we are past its end AND indel at the end of the read (if any) was
                 // already processed. Keeping the read state that returned null upon stepForwardOnGenome() is safe
                 // as the next call to stepForwardOnGenome() will return null again AND will clear hadIndel() flag.
-                it.remove();                                                // we've stepped off the end of the object
-                nRemoved++;
+                state.release();                                            // we've stepped off the end of the object
+                recycledStates.push(state);
+            } else {
+                readStatesByAlignmentStart.set(nKept++, state);
             }
         }
+        readStatesByAlignmentStart.subList(nKept, nStates).clear();
 
-        return nRemoved;
+        return nStates - nKept;
     }
 
     /**
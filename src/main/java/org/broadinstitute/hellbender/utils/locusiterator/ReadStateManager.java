@@ -36,6 +36,11 @@ final class ReadStateManager implements Iterable<Map.Entry<String, PerSampleRead
 
     private int totalReadStates = 0;
 
+    /**
+     * State machines of reads that have been stepped past, ready to be reset for new reads
+     */
+    private final Deque<AlignmentStateMachine> recycledStates = new ArrayDeque<>();
+
     public ReadStateManager(final Iterator<GATKRead> source,
                             final List<String> samples,
                             final LIBSDownsamplingInfo info,
@@ -115,7 +120,7 @@ final class ReadStateManager implements Iterable<Map.Entry<String, PerSampleRead
      */
     public void updateReadStates() {
         for (final PerSampleReadStateManager perSampleReadStateManager : readStatesBySample.values() ) {
-            totalReadStates -= perSampleReadStateManager.updateReadStates();
+            totalReadStates -= perSampleReadStateManager.updateReadStates(recycledStates);
         }
     }
 
@@ -240,6 +245,18 @@ final class ReadStateManager implements Iterable<Map.Entry<String, PerSampleRead
         return submittedReads;
     }
 
+    /**
+     * Get a state machine for a read, reusing one of a read we are done with if there is one
+     */
+    private AlignmentStateMachine newAlignmentStateMachine(final GATKRead read) {
+        final AlignmentStateMachine state = recycledStates.poll();
+        if ( state == null ) {
+            return new AlignmentStateMachine(read);
+        }
+        state.reset(read);
+        return state;
+    }
+
     /**
      * Add reads with the given sample name to the given hanger entry.
      *
@@ -251,13 +268,16 @@ final class ReadStateManager implements Iterable<Map.Entry<String, PerSampleRead
             return;
         }
 
-        final LinkedList<AlignmentStateMachine> newReadStates = new LinkedList<>();
+        final List<AlignmentStateMachine> newReadStates = new ArrayList<>(reads.size());
 
         for (final GATKRead read : reads) {
-            final AlignmentStateMachine state = new AlignmentStateMachine(read);
+            final AlignmentStateMachine state = newAlignmentStateMachine(read);
             if ( state.stepForwardOnGenome() != null ){ // todo -- should be an assertion not a skip
                 // explicitly filter out reads that are all insertions / soft clips
                 newReadStates.add(state);
+            } else {
+                state.release();
+                recycledStates.push(state);
             }
         }
 
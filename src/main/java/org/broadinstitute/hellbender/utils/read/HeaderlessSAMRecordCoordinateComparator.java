@@ -58,6 +58,15 @@ public final class HeaderlessSAMRecordCoordinateComparator implements Comparator
         }
     }
 
+    /**
+     * Returns a key that orders records the same way as the coordinate and strand tests in {@link #compare}.
+     * See {@link ReadCoordinateComparator#packSortKey}, and check {@link ReadCoordinateComparator#canPackSortKeys} first.
+     */
+    public long getPackedSortKey( final SAMRecord samRecord ) {
+        return ReadCoordinateComparator.packSortKey(header.getSequenceIndex(samRecord.getReferenceName()),
+                samRecord.getAlignmentStart(), samRecord.getReadNegativeStrandFlag());
+    }
+
     /**
      * Compare the coordinates of two reads. If a read is paired and unmapped, use its mate mapping
      * as its position.
@@ -21,6 +21,9 @@ import java.util.Comparator;
 public final class ReadCoordinateComparator implements Comparator<GATKRead>, Serializable {
     private static final long serialVersionUID = 1L;
 
+    // contig field of the packed sort key for reads that aren't on any contig; the largest value that fits in 30 bits
+    private static final int UNPLACED_PACKED_CONTIG = (1 << 30) - 1;
+
     private final SAMFileHeader header;
 
     public ReadCoordinateComparator( final SAMFileHeader header ) {
@@ -61,6 +64,37 @@ public final class ReadCoordinateComparator implements Comparator<GATKRead>, Ser
         return result;
     }
 
+    /**
+     * Returns a key that orders reads the same way as {@link #compareCoordinates} followed by the strand test in
+     * {@link #compare}, so that a sort can compare packed longs and fall back on the full comparison only for ties.
+     * Requires {@link #canPackSortKeys} to be true for the header.
+     */
+    public long getPackedSortKey( final GATKRead read ) {
+        return packSortKey(ReadUtils.getAssignedReferenceIndex(read, header), read.getAssignedStart(), read.isReverseStrand());
+    }
+
+    /**
+     * Whether the header's sequence dictionary is small enough for its contig indices to fit in a packed sort key.
+     */
+    public static boolean canPackSortKeys( final SAMFileHeader header ) {
+        return header.getSequenceDictionary().size() < UNPLACED_PACKED_CONTIG;
+    }
+
+    /**
+     * Packs a position into a long whose natural order is coordinate order: the contig index in the upper 30 bits
+     * (with reads that aren't on any contig after all the others, and all at the same position), then the start, and
+     * then the strand, with the forward strand first.
+     */
+    public static long packSortKey( final int refIndex, final int start, final boolean isReverseStrand ) {
+        final long strandBit = isReverseStrand ? 1L : 0L;
+        if ( refIndex == -1 ) {
+            return (long)UNPLACED_PACKED_CONTIG << 33 | strandBit;
+        }
+        // flipping the sign bit makes the signed order of starts agree with the unsigned order of their bits
+        final long startBits = (start ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+        return (long)refIndex << 33 | startBits << 1 | strandBit;
+    }
+
     public static int compareCoordinates( final GATKRead first, final GATKRead second, final SAMFileHeader header ) {
         final int firstRefIndex = ReadUtils.getAssignedReferenceIndex(first, header);
         final int secondRefIndex = ReadUtils.getAssignedReferenceIndex(second, header);
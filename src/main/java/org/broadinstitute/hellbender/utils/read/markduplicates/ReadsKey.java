@@ -1,10 +1,15 @@
 package org.broadinstitute.hellbender.utils.read.markduplicates;
 
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import htsjdk.samtools.SAMFileHeader;
 import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
 
@@ -16,6 +21,20 @@ import java.util.Objects;
  */
 public abstract class ReadsKey {
 
+    /**
+     * Orders keys so that equal keys are adjacent: fragment keys come before pair keys, and keys of the same kind are
+     * ordered by their packed values, whose high bits hold the stranded unclipped start of the first read.
+     */
+    public static final Comparator<ReadsKey> ORDER = (first, second) -> {
+        if (first instanceof KeyForFragment && second instanceof KeyForFragment) {
+            return Long.compare(((KeyForFragment) first).keyValue, ((KeyForFragment) second).keyValue);
+        } else if (first instanceof KeyForPair && second instanceof KeyForPair) {
+            final int result = Long.compare(((KeyForPair) first).firstReadKeyValue, ((KeyForPair) second).firstReadKeyValue);
+            return result != 0 ? result : Long.compare(((KeyForPair) first).secondReadKeyValue, ((KeyForPair) second).secondReadKeyValue);
+        }
+        return first instanceof KeyForFragment ? -1 : 1;
+    };
+
     /**
      * Makes a unique key for the read.
      */
@@ -51,6 +70,7 @@ public abstract class ReadsKey {
      * Note: This class is intended for internal MarkDuplicatesSpark key purposes, it is only exposed so it can
      *       be accessed by {@link org.broadinstitute.hellbender.engine.spark.GATKRegistrator} for kryo serialization
      */
+    @DefaultSerializer(KeyForFragment.Serializer.class)
     public static class KeyForFragment extends ReadsKey {
         final long keyValue;
 
@@ -74,6 +94,21 @@ public abstract class ReadsKey {
         public String toString() {
             return Long.toString(keyValue);
         }
+
+        /**
+         * Writes the packed key as a fixed width long, the high bits hold the start position so variable length
+         * encoding would not save any space.
+         */
+        public static final class Serializer extends com.esotericsoftware.kryo.Serializer<KeyForFragment> {
+            @Override
+            public void write(final Kryo kryo, final Output output, final KeyForFragment key) {
+                output.writeLong(key.keyValue);
+            }
+            @Override
+            public KeyForFragment read(final Kryo kryo, final Input input, final Class<KeyForFragment> klass) {
+                return new KeyForFragment(input.readLong());
+            }
+        }
     }
 
     /**
@@ -82,6 +117,7 @@ public abstract class ReadsKey {
      * Note: This class is intended for internal MarkDuplicatesSpark key purposes, it is only exposed so it can
      *       be accessed by {@link org.broadinstitute.hellbender.engine.spark.GATKRegistrator} for kryo serialization
      */
+    @DefaultSerializer(KeyForPair.Serializer.class)
     public static class KeyForPair extends ReadsKey {
         final long firstReadKeyValue;
         final long secondReadKeyValue;
@@ -109,6 +145,18 @@ public abstract class ReadsKey {
         public String toString() {
             return firstReadKeyValue + " " + secondReadKeyValue;
         }
+
+        public static final class Serializer extends com.esotericsoftware.kryo.Serializer<KeyForPair> {
+            @Override
+            public void write(final Kryo kryo, final Output output, final KeyForPair key) {
+                output.writeLong(key.firstReadKeyValue);
+                output.writeLong(key.secondReadKeyValue);
+            }
+            @Override
+            public KeyForPair read(final Kryo kryo, final Input input, final Class<KeyForPair> klass) {
+                return new KeyForPair(input.readLong(), input.readLong());
+            }
+        }
     }
 
     // Helper methods for generating summary longs
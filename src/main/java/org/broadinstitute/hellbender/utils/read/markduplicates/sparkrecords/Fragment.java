@@ -1,5 +1,9 @@
 package org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords;
 
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import htsjdk.samtools.SAMFileHeader;
 import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -17,6 +21,7 @@ import java.util.Map;
  * This class holds onto as little information as possible in an attempt to prevent excessive serialization of
  * during the processing step of MarkDuplicatesSpark
  */
+@DefaultSerializer(Fragment.Serializer.class)
 public class Fragment extends TransientFieldPhysicalLocation {
     protected transient ReadsKey key;
 
@@ -35,6 +40,24 @@ public class Fragment extends TransientFieldPhysicalLocation {
                 headerLibraryMap.get(MarkDuplicatesSparkUtils.getLibraryForRead(first, header, LibraryIdGenerator.UNKNOWN_LIBRARY)));
     }
 
+    // Constructor for serialization purposes
+    protected Fragment(Kryo kryo, Input input){
+        super(input.readInt(true), input.readString());
+
+        score = input.readShort();
+        R1R = input.readBoolean();
+        readGroupIndex = input.readShort();
+    }
+
+    protected void serialize(Kryo kryo, Output output) {
+        output.writeInt(partitionIndex, true);
+        output.writeAscii(name);
+
+        output.writeShort(score);
+        output.writeBoolean(R1R);
+        output.writeShort(readGroupIndex);
+    }
+
     @Override
     public Type getType() {
       return Type.FRAGMENT;
@@ -60,4 +83,19 @@ public class Fragment extends TransientFieldPhysicalLocation {
     public String toString() {
         return "fragment: " + name;
     }
+
+    /**
+     * Serializer which writes only the fields needed for duplicate marking, the key and physical location fields are
+     * recomputed after the shuffle
+     */
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<Fragment> {
+        @Override
+        public void write(final Kryo kryo, final Output output, final Fragment fragment ) {
+            fragment.serialize(kryo, output);
+        }
+        @Override
+        public Fragment read(final Kryo kryo, final Input input, final Class<Fragment> klass ) {
+            return new Fragment(kryo, input);
+        }
+    }
 }
@@ -17,6 +17,7 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction2;
+import org.apache.spark.api.java.function.Function;
 import org.apache.spark.broadcast.Broadcast;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSink;
 import org.broadinstitute.hellbender.exceptions.GATKException;
@@ -137,7 +138,11 @@ public final class SparkUtils {
         final SAMFileHeader.SortOrder order = header.getSortOrder();
         switch (order){
             case coordinate:
-                return sortUsingElementsAsKeys(reads, new ReadCoordinateComparator(header), numReducers);
+                final ReadCoordinateComparator comparator = new ReadCoordinateComparator(header);
+                if ( ReadCoordinateComparator.canPackSortKeys(header) ) {
+                    return sortUsingPackedKeys(reads, comparator::getPackedSortKey, comparator, numReducers);
+                }
+                return sortUsingElementsAsKeys(reads, comparator, numReducers);
             case queryname:
                 final JavaRDD<GATKRead> sortedReads = sortUsingElementsAsKeys(reads, new ReadQueryNameComparator(), numReducers);
                 return putReadsWithTheSameNameInTheSamePartition(header, sortedReads, JavaSparkContext.fromSparkContext(reads.context()));
@@ -168,6 +173,53 @@ public final class SparkUtils {
         return readVoidPairs.keys();
     }
 
+    /**
+     *   Do a global sort of an RDD by a primitive key extracted from each element, using the comparator only to order
+     *   elements that have equal keys.
+     *   The key must agree with the comparator, i.e., if the key of a is less than the key of b, the comparator must
+     *   put a before b.  The keys are extracted once per element, so most of the comparisons made by the shuffle while
+     *   sampling, range-partitioning and sorting are of longs rather than calls to the comparator on decoded elements.
+     *   Elements that share a key are still ordered by the comparator within the shuffle, so large runs of them (deep
+     *   pileups, or the reads that aren't on any contig) are split between partitions and spilled to disk like any
+     *   other elements, and the result is the same as {@link #sortUsingElementsAsKeys}.
+     */
+    public static <T> JavaRDD<T> sortUsingPackedKeys(final JavaRDD<T> elements, final Function<T, Long> keyFunction,
+                                                     final Comparator<T> comparator, final int numReducers) {
+        Utils.nonNull(elements);
+        Utils.nonNull(keyFunction);
+        Utils.nonNull(comparator);
+
+        // Values are null so the element only goes through the shuffle once, next to its key
+        final JavaPairRDD<Tuple2<Long, T>, Void> keyedElements = elements.mapToPair(element -> new Tuple2<>(new Tuple2<>(keyFunction.call(element), element), (Void) null));
+        final PackedKeyComparator<T> keyComparator = new PackedKeyComparator<>(comparator);
+        final JavaPairRDD<Tuple2<Long, T>, Void> sortedElements;
+        if (numReducers > 0) {
+            sortedElements = keyedElements.sortByKey(keyComparator, true, numReducers);
+        } else {
+            sortedElements = keyedElements.sortByKey(keyComparator);
+        }
+        return sortedElements.keys().map(keyedElement -> keyedElement._2());
+    }
+
+    /**
+     * Orders elements paired with their packed keys by the keys, and by the element comparator if the keys are equal
+     */
+    private static final class PackedKeyComparator<T> implements Comparator<Tuple2<Long, T>>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Comparator<T> comparator;
+
+        private PackedKeyComparator(final Comparator<T> comparator) {
+            this.comparator = comparator;
+        }
+
+        @Override
+        public int compare(final Tuple2<Long, T> first, final Tuple2<Long, T> second) {
+            final int result = Long.compare(first._1(), second._1());
+            return result != 0 ? result : comparator.compare(first._2(), second._2());
+        }
+    }
+
     /**
      * Ensure all reads with the same name appear in the same partition of a queryname sorted RDD.
      * This avoids a global shuffle and only transfers the leading elements from each partition which is fast in most
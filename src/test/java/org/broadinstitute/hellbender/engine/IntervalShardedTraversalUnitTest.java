@@ -0,0 +1,119 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class IntervalShardedTraversalUnitTest {
+
+    @Test
+    public void testSmallContigsAreBinned() {
+        final SimpleInterval a = new SimpleInterval("20", 1, 100);
+        final SimpleInterval b = new SimpleInterval("21", 1, 100);
+        final SimpleInterval c = new SimpleInterval("decoy1", 1, 10);
+        final SimpleInterval d = new SimpleInterval("decoy2", 1, 10);
+        final List<IntervalShardedTraversal.Shard> shards = IntervalShardedTraversal.makeShardsOfSize(Arrays.asList(a, b, c, d), 150, false);
+        Assert.assertEquals(getIntervals(shards), Arrays.asList(Arrays.asList(a, b), Arrays.asList(c, d)));
+        for (final IntervalShardedTraversal.Shard shard : shards) {
+            Assert.assertEquals(shard.getLeadIn(), Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void testContigsAreNotSplitUnlessAllowed() {
+        final SimpleInterval a1 = new SimpleInterval("20", 1, 1000);
+        final SimpleInterval a2 = new SimpleInterval("20", 2001, 3000);
+        final SimpleInterval b = new SimpleInterval("21", 1, 500);
+        final List<IntervalShardedTraversal.Shard> shards = IntervalShardedTraversal.makeShardsOfSize(Arrays.asList(a1, a2, b), 100, false);
+        Assert.assertEquals(getIntervals(shards), Arrays.asList(Arrays.asList(a1, a2), Collections.singletonList(b)));
+    }
+
+    @Test
+    public void testContigIsSplitWithLeadIns() {
+        final List<IntervalShardedTraversal.Shard> shards = IntervalShardedTraversal.makeShardsOfSize(
+                Collections.singletonList(new SimpleInterval("20", 1, 35_000)), 15_000, true);
+        Assert.assertEquals(getIntervals(shards), Arrays.asList(
+                Collections.singletonList(new SimpleInterval("20", 1, 15_000)),
+                Collections.singletonList(new SimpleInterval("20", 15_001, 30_000)),
+                Collections.singletonList(new SimpleInterval("20", 30_001, 35_000))));
+
+        // lead-ins reach LEAD_IN_SIZE bases back from the start of the shard, trimmed to that window
+        Assert.assertEquals(shards.get(0).getLeadIn(), Collections.emptyList());
+        Assert.assertEquals(shards.get(1).getLeadIn(), Collections.singletonList(new SimpleInterval("20", 5_001, 15_000)));
+        Assert.assertEquals(shards.get(2).getLeadIn(), Collections.singletonList(new SimpleInterval("20", 20_001, 30_000)));
+        Assert.assertEquals(shards.get(1).getLeadInAndIntervals(), Arrays.asList(
+                new SimpleInterval("20", 5_001, 15_000), new SimpleInterval("20", 15_001, 30_000)));
+
+        Assert.assertFalse(shards.get(0).isLastShard());
+        Assert.assertFalse(shards.get(1).isLastShard());
+        Assert.assertTrue(shards.get(2).isLastShard());
+    }
+
+    @Test
+    public void testLeadInSpansSeveralIntervals() {
+        final SimpleInterval a1 = new SimpleInterval("20", 1, 100);
+        final SimpleInterval a2 = new SimpleInterval("20", 9_001, 9_100);
+        final SimpleInterval a3 = new SimpleInterval("20", 10_001, 10_100);
+        final List<IntervalShardedTraversal.Shard> shards = IntervalShardedTraversal.makeShardsOfSize(Arrays.asList(a1, a2, a3), 200, true);
+        Assert.assertEquals(getIntervals(shards), Arrays.asList(Arrays.asList(a1, a2), Collections.singletonList(a3)));
+        Assert.assertEquals(shards.get(1).getLeadIn(), Arrays.asList(new SimpleInterval("20", 1, 100), a2));
+    }
+
+    @Test
+    public void testStartsInPrecedingShard() {
+        final List<IntervalShardedTraversal.Shard> shards = IntervalShardedTraversal.makeShardsOfSize(
+                Arrays.asList(new SimpleInterval("20", 1, 200), new SimpleInterval("21", 1, 50)), 100, true);
+        Assert.assertEquals(shards.size(), 3);
+
+        Assert.assertFalse(shards.get(0).startsInPrecedingShard(new SimpleInterval("20", 1, 1)));
+
+        // a deletion spanning the boundary belongs to the shard it starts in
+        Assert.assertTrue(shards.get(1).startsInPrecedingShard(new SimpleInterval("20", 100, 100)));
+        Assert.assertTrue(shards.get(1).startsInPrecedingShard(new SimpleInterval("20", 95, 105)));
+        Assert.assertFalse(shards.get(1).startsInPrecedingShard(new SimpleInterval("20", 101, 101)));
+
+        // nothing on a new contig belongs to the preceding shard
+        Assert.assertEquals(shards.get(2).getLeadIn(), Collections.emptyList());
+        Assert.assertFalse(shards.get(2).startsInPrecedingShard(new SimpleInterval("21", 1, 1)));
+    }
+
+    @Test
+    public void testShardCountIsBoundedByThreads() {
+        final int numThreads = 4;
+        final List<SimpleInterval> intervals = new ArrayList<>();
+        intervals.add(new SimpleInterval("1", 1, 100_000_000));
+        for (int i = 0; i < 3000; i++) {
+            intervals.add(new SimpleInterval("decoy" + i, 1, 1000));
+        }
+        final long territory = 103_000_000;
+
+        final List<IntervalShardedTraversal.Shard> split = IntervalShardedTraversal.makeShards(intervals, numThreads, true);
+        Assert.assertTrue(split.size() <= numThreads * IntervalShardedTraversal.SHARDS_PER_THREAD + 1, "too many shards: " + split.size());
+        Assert.assertTrue(split.size() >= numThreads, "too few shards: " + split.size());
+        Assert.assertEquals(getTerritory(split), territory);
+
+        // the large contig gets a shard of its own and the decoys all share the other
+        final List<IntervalShardedTraversal.Shard> unsplit = IntervalShardedTraversal.makeShards(intervals, numThreads, false);
+        Assert.assertEquals(unsplit.size(), 2);
+        Assert.assertEquals(unsplit.get(0).getIntervals(), intervals.subList(0, 1));
+        Assert.assertEquals(getTerritory(unsplit), territory);
+    }
+
+    @Test
+    public void testShardsAreNoSmallerThanMinimum() {
+        final List<SimpleInterval> intervals = Collections.singletonList(new SimpleInterval("20", 1, IntervalShardedTraversal.MIN_SHARD_SIZE));
+        Assert.assertEquals(IntervalShardedTraversal.makeShards(intervals, 16, true).size(), 1);
+        Assert.assertEquals(IntervalShardedTraversal.makeShards(Collections.emptyList(), 16, true), Collections.emptyList());
+    }
+
+    private static List<List<SimpleInterval>> getIntervals(final List<IntervalShardedTraversal.Shard> shards) {
+        return shards.stream().map(IntervalShardedTraversal.Shard::getIntervals).collect(Collectors.toList());
+    }
+
+    private static long getTerritory(final List<IntervalShardedTraversal.Shard> shards) {
+        return shards.stream().flatMap(shard -> shard.getIntervals().stream()).mapToLong(SimpleInterval::size).sum();
+    }
+}
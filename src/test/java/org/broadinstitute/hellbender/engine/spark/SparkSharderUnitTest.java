@@ -13,6 +13,7 @@ import org.broadinstitute.hellbender.engine.Shard;
 import org.broadinstitute.hellbender.engine.ShardBoundary;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.annotations.Test;
 import scala.Tuple2;
@@ -311,6 +312,70 @@ public class SparkSharderUnitTest extends GATKBaseTest implements Serializable {
 
     }
 
+    @Test
+    public void testSplitHotShards() {
+        // Four partitions, the middle two of which cover very little of the contig
+        List<SparkSharder.PartitionLocatable<SimpleInterval>> partitionReadExtents = ImmutableList.of(
+                new SparkSharder.PartitionLocatable<>(0, new SimpleInterval("1", 1, 10)),
+                new SparkSharder.PartitionLocatable<>(1, new SimpleInterval("1", 7, 14)),
+                new SparkSharder.PartitionLocatable<>(2, new SimpleInterval("1", 11, 18)),
+                new SparkSharder.PartitionLocatable<>(3, new SimpleInterval("1", 15, 100)));
+
+        ShardBoundary hotShard = new ShardBoundary(new SimpleInterval("1", 5, 20), new SimpleInterval("1", 3, 22));
+        ShardBoundary coldShard = new ShardBoundary(new SimpleInterval("1", 30, 40), new SimpleInterval("1", 28, 42));
+        List<ShardBoundary> shards = ImmutableList.of(hotShard, coldShard);
+
+        assertEquals(SparkSharder.splitHotShards(shards, partitionReadExtents, 4), shards);
+
+        assertEquals(SparkSharder.splitHotShards(shards, partitionReadExtents, 2), ImmutableList.of(
+                new ShardBoundary(new SimpleInterval("1", 5, 10), new SimpleInterval("1", 3, 12)),
+                new ShardBoundary(new SimpleInterval("1", 11, 20), new SimpleInterval("1", 9, 22)),
+                coldShard));
+
+        assertEquals(SparkSharder.splitHotShards(shards, partitionReadExtents, 1), ImmutableList.of(
+                new ShardBoundary(new SimpleInterval("1", 5, 6), new SimpleInterval("1", 3, 8)),
+                new ShardBoundary(new SimpleInterval("1", 7, 10), new SimpleInterval("1", 5, 12)),
+                new ShardBoundary(new SimpleInterval("1", 11, 14), new SimpleInterval("1", 9, 16)),
+                new ShardBoundary(new SimpleInterval("1", 15, 20), new SimpleInterval("1", 13, 22)),
+                coldShard));
+    }
+
+    @Test
+    public void testShardWithHotShardSplitting() {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+
+        // The same reads as in testSingleContig, with a single shard over all of them
+        List<TestRead> readList = ImmutableList.of(
+                new TestRead(1, 3), new TestRead(5, 7), new TestRead(7, 9),
+                new TestRead(7, 9), new TestRead(7, 9), new TestRead(7, 9),
+                new TestRead(7, 9), new TestRead(11, 13), new TestRead(12, 14),
+                new TestRead(17, 19), new TestRead(21, 23), new TestRead(25, 27));
+        JavaRDD<TestRead> reads = ctx.parallelize(readList, 4);
+        List<ShardBoundary> shardBoundaries = ImmutableList.of(
+                new ShardBoundary(new SimpleInterval("1", 2, 26), new SimpleInterval("1", 1, 27)));
+
+        for (boolean useShuffle : new boolean[]{false, true}) {
+            List<Shard<TestRead>> shards = SparkSharder.shard(ctx, reads, TestRead.class, sequenceDictionary, shardBoundaries,
+                    STANDARD_READ_LENGTH, useShuffle, 1).collect();
+            assertTrue(shards.size() > 1, "The shard should have been split");
+            shards = shards.stream().sorted(Comparator.comparingInt(Shard::getStart)).collect(Collectors.toList());
+
+            // the split shards' intervals tile the original interval, and each has every read overlapping its padding
+            int nextStart = 2;
+            for (Shard<TestRead> shard : shards) {
+                assertEquals(shard.getStart(), nextStart);
+                assertEquals(shard.getPaddedInterval().getStart(), shard.getStart() - 1);
+                SimpleInterval paddedInterval = shard.getPaddedInterval();
+                List<String> expectedReads = readList.stream()
+                        .filter(read -> read.getStart() <= paddedInterval.getEnd() && read.getEnd() >= paddedInterval.getStart())
+                        .map(TestRead::toString).collect(Collectors.toList());
+                assertEquals(Utils.stream(shard).map(TestRead::toString).collect(Collectors.toList()), expectedReads);
+                nextStart = shard.getEnd() + 1;
+            }
+            assertEquals(nextStart, 27);
+        }
+    }
+
     @Test
     public void testPartitionReadExtents() throws IOException {
         JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
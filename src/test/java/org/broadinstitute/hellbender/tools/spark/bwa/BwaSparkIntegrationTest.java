@@ -59,4 +59,30 @@ public final class BwaSparkIntegrationTest extends CommandLineProgramTest {
 
         SamAssertionUtils.assertSamsEqual(new File(output, "part-r-00000.bam"), expectedSam);
     }
+
+    @Test
+    public void testSingleEndSharedImageInBatches() throws Exception {
+        final File expectedSam = getTestFile("seBwa.bam");
+
+        final File ref = getTestFile("ref.fa");
+        final File input = getTestFile("seR.bam");
+        final File output = createTempFile("bwa", ".bam");
+        Assert.assertTrue(output.delete());
+        final File sharedDir = createTempDir("bwaSharedImage");
+
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addFileArgument(StandardArgumentDefinitions.REFERENCE_LONG_NAME, ref);
+        args.addFileArgument(StandardArgumentDefinitions.INPUT_LONG_NAME, input);
+        args.addBooleanArgument(GATKSparkTool.SHARDED_OUTPUT_LONG_NAME, true);
+        args.addArgument(GATKSparkTool.NUM_REDUCERS_LONG_NAME,"1");
+        args.addOutput(output);
+        args.add("--" + BwaArgumentCollection.SINGLE_END_ALIGNMENT_FULL_NAME);
+        args.addFileArgument(BwaArgumentCollection.SHARED_INDEX_IMAGE_DIR_FULL_NAME, sharedDir);
+        args.addArgument(BwaArgumentCollection.BWA_THREADS_FULL_NAME, "2");
+        args.addArgument(BwaArgumentCollection.BWA_BATCH_SIZE_FULL_NAME, "7");
+        this.runCommandLine(args.getArgsArray());
+
+        SamAssertionUtils.assertSamsEqual(new File(output, "part-r-00000.bam"), expectedSam);
+        Assert.assertEquals(sharedDir.listFiles().length, 1);
+    }
 }
@@ -14,7 +14,10 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class ContainsKmerReadFilterTest extends GATKBaseTest {
 
@@ -76,4 +79,28 @@ public class ContainsKmerReadFilterTest extends GATKBaseTest {
         ContainsKmerReadFilter.closeKmerLib();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testBatch() {
+        final Object[][] cases = getSequenceStrings();
+        for (final int kmerCountThreshold : new int[]{1, 2, 3}) {
+            final List<GATKRead> reads = new ArrayList<>(cases.length);
+            for (final Object[] testCase : cases) {
+                final byte[] bases = ((String) testCase[0]).getBytes();
+                final byte[] quals = new byte[bases.length];
+                Arrays.fill(quals, (byte) 30);
+                reads.add(ArtificialReadUtils.createArtificialRead(bases, quals, "*"));
+            }
+            final ContainsKmerReadFilter filter = new ContainsKmerReadFilter(kmerSetFile.getAbsolutePath(), kmerCountThreshold);
+            final boolean[] result = filter.test(reads);
+            for (int i = 0; i < reads.size(); i++) {
+                Assert.assertEquals(result[i], filter.test(reads.get(i)));
+            }
+            final List<GATKRead> expected = reads.stream().filter(filter).collect(Collectors.toList());
+            final List<GATKRead> actual = new ArrayList<>();
+            new ContainsKmerReadFilterSpark(kmerSetFile.getAbsolutePath(), kmerCountThreshold).apply(reads.iterator()).forEachRemaining(actual::add);
+            Assert.assertEquals(actual, expected);
+            ContainsKmerReadFilter.closeKmerLib();
+        }
+    }
+
+}
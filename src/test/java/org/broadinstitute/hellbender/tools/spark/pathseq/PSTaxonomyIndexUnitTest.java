@@ -0,0 +1,120 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class PSTaxonomyIndexUnitTest extends GATKBaseTest {
+
+    private static PSTree buildTree() {
+        final PSTree tree = new PSTree(1);
+        tree.addNode(2, "n2", 1, 0, PSTaxonomyConstants.KINGDOM_RANK_NAME);
+        tree.addNode(3, "n3", 2, 100, "species");
+        tree.addNode(4, "n4", 1, 0, PSTaxonomyConstants.SUPERKINGDOM_RANK_NAME);
+        tree.addNode(5, "n5", 2, 100, "species");
+        tree.addNode(6, "n6", 4, 100, "species");
+        tree.addNode(7, "n7", 4, 100, "species");
+        tree.addNode(8, "n8", 6, 50, "strain");
+        return tree;
+    }
+
+    private static <T> T kryoRoundTrip(final T object, final Class<T> klass) {
+        final Kryo kryo = new Kryo();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final Output output = new Output(bytes);
+        kryo.writeObject(output, object);
+        output.close();
+        return kryo.readObject(new Input(bytes.toByteArray()), klass);
+    }
+
+    private static void checkIndex(final PSTaxonomyIndex index, final PSTree tree) {
+        Assert.assertEquals(index.size(), tree.getNodeIDs().size());
+        for (final int taxId : tree.getNodeIDs()) {
+            final int node = index.indexOf(taxId);
+            Assert.assertEquals(index.getTaxIdOf(node), taxId);
+            Assert.assertEquals(index.getLengthOf(node), tree.getLengthOf(taxId));
+            final List<Integer> path = tree.getPathOf(taxId);
+            Assert.assertEquals(index.getDepthOf(node), path.size() - 1);
+            final int parent = index.getParentOf(node);
+            if (path.size() == 1) {
+                Assert.assertEquals(parent, PSTaxonomyIndex.NO_NODE);
+            } else {
+                Assert.assertEquals(index.getTaxIdOf(parent), (int) path.get(1));
+            }
+        }
+        Assert.assertEquals(index.indexOf(9), PSTaxonomyIndex.NO_NODE);
+        Assert.assertEquals(index.indexOf(PSTree.NULL_NODE), PSTaxonomyIndex.NO_NODE);
+    }
+
+    @Test
+    public void testIndex() {
+        final PSTree tree = buildTree();
+        final PSTaxonomyIndex index = new PSTaxonomyIndex(tree);
+        checkIndex(index, tree);
+        checkIndex(kryoRoundTrip(index, PSTaxonomyIndex.class), tree);
+    }
+
+    @Test
+    public void testLCA() {
+        final PSTree tree = buildTree();
+        final PSTaxonomyIndex index = new PSTaxonomyIndex(tree);
+        final List<List<Integer>> nodeSets = Arrays.asList(Arrays.asList(3), Arrays.asList(3, 5), Arrays.asList(8, 7),
+                Arrays.asList(8, 6), Arrays.asList(6, 8), Arrays.asList(3, 8), Arrays.asList(5, 2, 3), Arrays.asList(1, 8));
+        for (final List<Integer> nodeSet : nodeSets) {
+            final int[] nodes = nodeSet.stream().mapToInt(index::indexOf).toArray();
+            Assert.assertEquals(index.getTaxIdOf(index.getLCA(nodes, nodes.length)), tree.getLCA(nodeSet));
+        }
+    }
+
+    @Test
+    public void testAccumulatorMerge() {
+        final PSTree tree = buildTree();
+        final PSTaxonomyIndex index = new PSTaxonomyIndex(tree);
+        final List<PSPathogenAlignmentHit> hits = Arrays.asList(
+                new PSPathogenAlignmentHit(Arrays.asList(4), 2), //Invalid hit, ref length 0
+                new PSPathogenAlignmentHit(Arrays.asList(3), 2),
+                new PSPathogenAlignmentHit(Arrays.asList(3, 6, 3), 2),
+                new PSPathogenAlignmentHit(Arrays.asList(5, 8), 2),
+                new PSPathogenAlignmentHit(Arrays.asList(6), 1),
+                new PSPathogenAlignmentHit(Arrays.asList(9), 2)); //Invalid hit, not in tree
+
+        final PSTaxonScoreAccumulator whole = new PSTaxonScoreAccumulator(index.size());
+        hits.forEach(hit -> whole.add(hit, index, true));
+
+        final PSTaxonScoreAccumulator first = new PSTaxonScoreAccumulator(index.size());
+        final PSTaxonScoreAccumulator second = new PSTaxonScoreAccumulator(index.size());
+        hits.subList(0, 3).forEach(hit -> first.add(hit, index, true));
+        hits.subList(3, hits.size()).forEach(hit -> second.add(hit, index, true));
+        final PSTaxonScoreAccumulator merged = kryoRoundTrip(first, PSTaxonScoreAccumulator.class)
+                .merge(kryoRoundTrip(second, PSTaxonScoreAccumulator.class));
+
+        Assert.assertEquals(merged.getInvalidTaxIds(), whole.getInvalidTaxIds());
+        Assert.assertEquals(whole.getInvalidTaxIds().size(), 2);
+        final Map<Integer, PSPathogenTaxonScore> expected = whole.toTaxonScores(index);
+        final Map<Integer, PSPathogenTaxonScore> actual = merged.toTaxonScores(index);
+        Assert.assertEquals(actual.keySet(), expected.keySet());
+        Assert.assertFalse(actual.containsKey(7));
+        for (final Map.Entry<Integer, PSPathogenTaxonScore> entry : expected.entrySet()) {
+            final PSPathogenTaxonScore score = actual.get(entry.getKey());
+            Assert.assertEquals(score.getSelfScore(), entry.getValue().getSelfScore(), 1e-9);
+            Assert.assertEquals(score.getDescendentScore(), entry.getValue().getDescendentScore(), 1e-9);
+            Assert.assertEquals(score.getTotalReads(), entry.getValue().getTotalReads());
+            Assert.assertEquals(score.getUnambiguousReads(), entry.getValue().getUnambiguousReads());
+            Assert.assertEquals(score.getReferenceLength(), entry.getValue().getReferenceLength());
+        }
+
+        //The duplicated hit on 3 only counts once, and the root is on the path of every valid hit
+        Assert.assertEquals(expected.get(3).getTotalReads(), 4);
+        Assert.assertEquals(expected.get(1).getTotalReads(), 7);
+        Assert.assertEquals(expected.get(1).getUnambiguousReads(), 7);
+        Assert.assertEquals(expected.get(6).getUnambiguousReads(), 1);
+    }
+}
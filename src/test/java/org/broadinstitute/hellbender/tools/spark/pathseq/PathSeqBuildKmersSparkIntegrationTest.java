@@ -115,6 +115,47 @@ public class PathSeqBuildKmersSparkIntegrationTest extends CommandLineProgramTes
         Assert.assertEquals(testKmerLib, expectedKmerLib);
     }
 
+    @Test
+    public void testMemoryMappedSetFromFasta() throws Exception {
+        final File expectedFile = getTestFile("hg19mini.mask_4_15.hss");
+        final File ref = new File(hg19MiniReference);
+        // the extension is matched regardless of case when writing and reading
+        final File output = createTempFile("test", PSKmerUtils.MAPPED_SET_EXTENSION.toUpperCase());
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addFileArgument(PathSeqBuildKmers.REFERENCE_LONG_NAME, ref);
+        args.addArgument(PathSeqBuildKmers.KMER_MASK_LONG_NAME, "4,15");
+        args.addBooleanArgument(PathSeqBuildKmers.MEMORY_MAPPED_LONG_NAME, true);
+        args.addOutput(output);
+        this.runCommandLine(args.getArgsArray());
+
+        final Input inputExpected = new Input(FileUtils.openInputStream(expectedFile));
+        final PSKmerSet expectedKmerLib = new Kryo().readObject(inputExpected, PSKmerSet.class);
+        final PSKmerMappedSet testKmerLib = (PSKmerMappedSet) PSKmerUtils.readKmerFilter(output.getAbsolutePath());
+
+        Assert.assertEquals(testKmerLib.kmerSize(), expectedKmerLib.kmerSize());
+        Assert.assertEquals(testKmerLib.getMask(), expectedKmerLib.getMask());
+        Assert.assertEquals(testKmerLib.setSize(), expectedKmerLib.setSize());
+        final LongIterator itr = expectedKmerLib.iterator();
+        while (itr.hasNext()) {
+            Assert.assertTrue(testKmerLib.contains(new SVKmerShort(itr.next())));
+        }
+        final Random rand = new Random(72939);
+        for (int i = 0; i < NUM_FPP_TRIALS; i++) {
+            final SVKmerShort randomKmer = new SVKmerShort(rand.nextLong() >>> 2);
+            Assert.assertEquals(testKmerLib.contains(randomKmer), expectedKmerLib.contains(randomKmer));
+        }
+    }
+
+    @Test(expectedExceptions = Exception.class)
+    public void testMemoryMappedBloomFilter() throws Exception {
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addFileArgument(PathSeqBuildKmers.REFERENCE_LONG_NAME, new File(hg19MiniReference));
+        args.addArgument(PathSeqBuildKmers.BLOOM_FILTER_FALSE_POSITIVE_P_LONG_NAME, Double.toString(BLOOM_FPP));
+        args.addBooleanArgument(PathSeqBuildKmers.MEMORY_MAPPED_LONG_NAME, true);
+        args.addOutput(createTempFile("test", PSKmerUtils.MAPPED_SET_EXTENSION));
+        this.runCommandLine(args.getArgsArray());
+    }
+
     @DataProvider(name = "badArgs")
     public Object[][] getBadArguments() {
         return new Object[][]{
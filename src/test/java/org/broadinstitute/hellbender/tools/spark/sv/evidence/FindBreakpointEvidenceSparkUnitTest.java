@@ -11,7 +11,9 @@ import org.broadinstitute.hellbender.tools.spark.sv.utils.*;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchSet;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
 import org.broadinstitute.hellbender.tools.spark.utils.IntHistogram;
+import org.broadinstitute.hellbender.tools.spark.utils.LongPairIntMultiMap;
 import org.broadinstitute.hellbender.utils.IntHistogramTest;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
@@ -50,7 +52,8 @@ public final class FindBreakpointEvidenceSparkUnitTest extends GATKBaseTest {
                         { new ReadMetadata.PartitionBounds(0, 1, 1, 10000, 9999)},
                     100, 10, 30);
     private final Broadcast<ReadMetadata> broadcastMetadata = ctx.broadcast(readMetadataExpected);
-    private final Broadcast<SVIntervalTree<SVInterval>> broadcastRegionsToIgnore = ctx.broadcast(new SVIntervalTree<>());
+    private final Broadcast<FlatSVIntervalTree<SVInterval>> broadcastRegionsToIgnore =
+            ctx.broadcast(new FlatSVIntervalTree<>(new SVIntervalTree<>()));
     private final List<List<BreakpointEvidence>> externalEvidence =
             FindBreakpointEvidenceSpark.readExternalEvidence(null, readMetadataExpected,
                                                     params.externalEvidenceWeight, params.externalEvidenceUncertainty);
@@ -124,11 +127,10 @@ public final class FindBreakpointEvidenceSparkUnitTest extends GATKBaseTest {
     @Test(groups = "sv")
     public void getAssemblyQNamesTest() {
         final Set<SVKmer> expectedKmers = SVFileUtils.readKmersFile(kmersFile, params.kSize);
-        final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerAndIntervalSet =
-                new HopscotchUniqueMultiMap<>(expectedKmers.size());
-        expectedKmers.stream().
-                map(kmer -> new KmerAndInterval(kmer, 0))
-                .forEach(kmerAndIntervalSet::add);
+        final LongPairIntMultiMap kmerAndIntervalSet =
+                FindBreakpointEvidenceSpark.toKmerMultiMap(expectedKmers.stream()
+                        .map(kmer -> new KmerAndInterval(kmer, 0))
+                        .collect(Collectors.toList()));
         final Set<String> actualAssemblyQNames = new HashSet<>();
         FindBreakpointEvidenceSpark.getAssemblyQNames(params, ctx, kmerAndIntervalSet, reads, filter)
                 .stream()
@@ -144,7 +146,68 @@ public final class FindBreakpointEvidenceSparkUnitTest extends GATKBaseTest {
         expectedAssemblyQNames.stream()
                 .map(qName -> new QNameAndInterval(qName, 0))
                 .forEach(qNameMultiMap::add);
-        FindBreakpointEvidenceSpark.handleAssemblies(ctx,qNameMultiMap,reads,filter,2,true,new LocalAssemblyComparator(fastqFile));
+        FindBreakpointEvidenceSpark.handleAssemblies(ctx,qNameMultiMap,reads,filter,2,true,params.maxFASTQSize,new LocalAssemblyComparator(fastqFile));
+    }
+
+    @Test(groups = "sv")
+    public void downsampleOversizedIntervalsTest() {
+        final int maxTemplates = 100;
+        final HopscotchUniqueMultiMap<String, Integer, QNameAndInterval> qNameMultiMap = new HopscotchUniqueMultiMap<>(3000);
+        for ( int idx = 0; idx != 2000; ++idx ) {
+            qNameMultiMap.add(new QNameAndInterval("big" + idx, 0));
+        }
+        for ( int idx = 0; idx != 50; ++idx ) {
+            qNameMultiMap.add(new QNameAndInterval("small" + idx, 1));
+        }
+        final int[] counts = FindBreakpointEvidenceSpark.countTemplatesPerInterval(qNameMultiMap, 3);
+        Assert.assertEquals(counts, new int[]{2000, 50, 0});
+        Assert.assertEquals(FindBreakpointEvidenceSpark.downsampleOversizedIntervals(qNameMultiMap, counts, maxTemplates), 1);
+        Assert.assertEquals(FindBreakpointEvidenceSpark.countTemplatesPerInterval(qNameMultiMap, 3), counts);
+        Assert.assertEquals(counts[1], 50);
+        Assert.assertTrue(counts[0] > maxTemplates / 2 && counts[0] < 2 * maxTemplates);
+
+        // downsampling is reproducible
+        final HopscotchUniqueMultiMap<String, Integer, QNameAndInterval> qNameMultiMap2 = new HopscotchUniqueMultiMap<>(3000);
+        for ( int idx = 0; idx != 2000; ++idx ) {
+            qNameMultiMap2.add(new QNameAndInterval("big" + idx, 0));
+        }
+        FindBreakpointEvidenceSpark.downsampleOversizedIntervals(qNameMultiMap2,
+                FindBreakpointEvidenceSpark.countTemplatesPerInterval(qNameMultiMap2, 3), maxTemplates);
+        final Set<String> qNames = qNameMultiMap.stream().map(QNameAndInterval::getQName).collect(Collectors.toSet());
+        Assert.assertTrue(qNameMultiMap2.stream().map(QNameAndInterval::getQName).allMatch(qNames::contains));
+        Assert.assertEquals(qNameMultiMap2.size(), counts[0]);
+    }
+
+    @Test(groups = "sv")
+    public void assemblyReadsTest() {
+        final SAMFileHeader artificialHeader = ArtificialReadUtils.createArtificialSamHeader();
+        final List<SVFastqUtils.FastqRead> tenBaseReads = new ArrayList<>();
+        for ( int idx = 0; idx != 3; ++idx ) {
+            final byte[] bases = "ACGTACGTAC".getBytes();
+            tenBaseReads.add(new SVFastqUtils.FastqRead(
+                    ArtificialReadUtils.createArtificialUnmappedRead(artificialHeader, bases, new byte[bases.length])));
+        }
+
+        final FindBreakpointEvidenceSpark.AssemblyReads assemblyReads =
+                new FindBreakpointEvidenceSpark.AssemblyReads(60).add(tenBaseReads);
+        Assert.assertFalse(assemblyReads.isTooBig());
+        assemblyReads.merge(new FindBreakpointEvidenceSpark.AssemblyReads(60).add(tenBaseReads));
+        Assert.assertFalse(assemblyReads.isTooBig());
+        Assert.assertEquals(assemblyReads.getReads().size(), 6);
+        Assert.assertEquals(assemblyReads.getFastqSize(), 60);
+
+        // one read too many, and the reads are dropped, though their size is still tracked
+        assemblyReads.add(tenBaseReads.subList(0, 1));
+        Assert.assertTrue(assemblyReads.isTooBig());
+        Assert.assertNull(assemblyReads.getReads());
+        assemblyReads.add(tenBaseReads);
+        Assert.assertEquals(assemblyReads.getFastqSize(), 100);
+
+        final FindBreakpointEvidenceSpark.AssemblyReads smallReads =
+                new FindBreakpointEvidenceSpark.AssemblyReads(60).add(tenBaseReads);
+        smallReads.merge(assemblyReads);
+        Assert.assertTrue(smallReads.isTooBig());
+        Assert.assertEquals(smallReads.getFastqSize(), 130);
     }
 
     @Test(groups = "sv")
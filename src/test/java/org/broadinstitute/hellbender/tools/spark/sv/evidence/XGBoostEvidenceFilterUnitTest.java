@@ -171,6 +171,25 @@ public class XGBoostEvidenceFilterUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(groups = "sv")
+    protected void testBatchPrediction() {
+        final XGBoostEvidenceFilter evidenceFilter = new XGBoostEvidenceFilter(
+                evidenceList.iterator(), readMetadata, params, emptyCrossingChecker
+        );
+        final double[] expectedProbabilities =
+                evidenceList.stream().mapToDouble(evidenceFilter::predictProbability).toArray();
+        // score the whole list at once, and again in odd-sized blocks that reuse the feature matrix
+        assertArrayEquals(evidenceFilter.predictProbabilities(evidenceList), expectedProbabilities, 0.0,
+                "Probabilities predicted in a batch differ from those predicted one at a time");
+        final int blockSize = 7;
+        for(int blockStart = 0; blockStart < evidenceList.size(); blockStart += blockSize) {
+            final int blockEnd = Math.min(evidenceList.size(), blockStart + blockSize);
+            assertArrayEquals(evidenceFilter.predictProbabilities(evidenceList.subList(blockStart, blockEnd)),
+                    Arrays.copyOfRange(expectedProbabilities, blockStart, blockEnd), 0.0,
+                    "Probabilities predicted in a block differ from those predicted one at a time");
+        }
+    }
+
     @Test(groups = "sv")
     protected void testFilter() {
         final XGBoostEvidenceFilter evidenceFilter = new XGBoostEvidenceFilter(
@@ -0,0 +1,176 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class FlatSVIntervalTreeTest extends GATKBaseTest {
+    private static SVInterval[] intervals = {
+            new SVInterval(0, 100, 200),
+            new SVInterval(0, 150, 250),
+            new SVInterval(0, 200, 300),
+            new SVInterval(0, 250, 350),
+            new SVInterval(0, 300, 400),
+            new SVInterval(0, 350, 450),
+            new SVInterval(0, 400, 500),
+            new SVInterval(0, 450, 550),
+            new SVInterval(0, 500, 600),
+            new SVInterval(0, 550, 650),
+            new SVInterval(0, 600, 700),
+            new SVInterval(0, 650, 750),
+            new SVInterval(0, 700, 800),
+            new SVInterval(0, 750, 850),
+            new SVInterval(0, 800, 900),
+            new SVInterval(0, 850, 950),
+            new SVInterval(0, 900, 1000),
+            new SVInterval(1, 0, 100)
+    };
+
+    private static FlatSVIntervalTree<Integer> initTree() {
+        final SVIntervalTree<Integer> tree = new SVIntervalTree<>();
+        for ( int idx = 0; idx != intervals.length; ++idx ) {
+            tree.put(intervals[idx], idx);
+        }
+        return new FlatSVIntervalTree<>(tree);
+    }
+
+    private static List<SVInterval> toIntervals( final Iterator<SVIntervalTree.Entry<Integer>> itr ) {
+        final List<SVInterval> result = new ArrayList<>();
+        while ( itr.hasNext() ) {
+            result.add(itr.next().getInterval());
+        }
+        return result;
+    }
+
+    private static SVInterval randomInterval( final Random rng ) {
+        final int start = rng.nextInt(100000);
+        return new SVInterval(rng.nextInt(3), start, start + rng.nextInt(2000));
+    }
+
+    @Test(groups = "sv")
+    public void iteratorTest() {
+        final FlatSVIntervalTree<Integer> testTree = initTree();
+        Assert.assertEquals(testTree.size(), intervals.length);
+        int idx = 0;
+        for ( final SVIntervalTree.Entry<Integer> entry : testTree ) {
+            Assert.assertEquals(entry.getInterval(), intervals[idx]);
+            Assert.assertEquals(entry.getValue().intValue(), idx);
+            idx += 1;
+        }
+        Assert.assertEquals(idx, intervals.length);
+    }
+
+    @Test(groups = "sv")
+    public void minOverlapperTest() {
+        final FlatSVIntervalTree<Integer> testTree = initTree();
+        Assert.assertEquals(testTree.minOverlapper(intervals[0]).getInterval(), intervals[0]);
+        final int lastIdx = intervals.length - 1;
+        for ( int idx = 1; idx != lastIdx; ++idx ) {
+            Assert.assertEquals(testTree.minOverlapper(intervals[idx]).getInterval(), intervals[idx-1]);
+        }
+        Assert.assertEquals(testTree.minOverlapper(intervals[lastIdx]).getInterval(), intervals[lastIdx]);
+        Assert.assertNull(testTree.minOverlapper(new SVInterval(0, 0, 1)));
+        Assert.assertNull(testTree.minOverlapper(new SVInterval(2, 0, 1)));
+        Assert.assertFalse(testTree.hasOverlapper(new SVInterval(0, 0, 100)));
+        Assert.assertTrue(testTree.hasOverlapper(new SVInterval(0, 0, 101)));
+        Assert.assertEquals(testTree.minOverlapper(new SVInterval(0, 201, 201)).getInterval(), intervals[1]);
+    }
+
+    @Test(groups = "sv")
+    public void overlappersTest() {
+        final FlatSVIntervalTree<Integer> testTree = initTree();
+        final Iterator<SVIntervalTree.Entry<Integer>> itr1 = testTree.overlappers(new SVInterval(0, 240, 260));
+        int idx = 1;
+        while ( itr1.hasNext() ) {
+            Assert.assertEquals(itr1.next().getInterval(), intervals[idx++]);
+        }
+        Assert.assertEquals(idx, 4);
+
+        // test overlappers in the presence of an element in the middle that isn't an overlapper
+        final SVIntervalTree<Integer> tree = new SVIntervalTree<>();
+        tree.put(new SVInterval(0, 100, 1000), 0);
+        tree.put(new SVInterval(0, 200, 1000), 0);
+        tree.put(new SVInterval(0, 300, 1000), 0);
+        tree.put(new SVInterval(0, 350, 450), 0);
+        tree.put(new SVInterval(0, 400, 1000), 0);
+        tree.put(new SVInterval(0, 500, 1000), 0);
+        final Iterator<SVIntervalTree.Entry<Integer>> itr2 =
+                new FlatSVIntervalTree<>(tree).overlappers(new SVInterval(0, 500, 600));
+        int start = 100;
+        while ( itr2.hasNext() ) {
+            Assert.assertEquals(itr2.next().getInterval().getStart(), start);
+            start += 100;
+        }
+        Assert.assertEquals(start, 600);
+
+        Assert.assertFalse(new FlatSVIntervalTree<>(new SVIntervalTree<Integer>()).overlappers(intervals[0]).hasNext());
+    }
+
+    @Test(groups = "sv")
+    public void randomQueriesTest() {
+        final Random rng = new Random(0xdeadbeef);
+        // sizes on either side of each level of the implicit tree
+        for ( final int size : new int[]{1, 2, 3, 7, 8, 15, 16, 17, 31, 33, 100, 255, 257, 1000, 5000} ) {
+            final SVIntervalTree<Integer> tree = new SVIntervalTree<>();
+            while ( tree.size() < size ) {
+                tree.put(randomInterval(rng), tree.size());
+            }
+            final FlatSVIntervalTree<Integer> flatTree = new FlatSVIntervalTree<>(tree);
+            Assert.assertEquals(toIntervals(flatTree.iterator()), toIntervals(tree.iterator()));
+            for ( int queryId = 0; queryId != 200; ++queryId ) {
+                final SVInterval query = randomInterval(rng);
+                Assert.assertEquals(toIntervals(flatTree.overlappers(query)), toIntervals(tree.overlappers(query)));
+                Assert.assertEquals(flatTree.hasOverlapper(query), tree.hasOverlapper(query));
+                final SVIntervalTree.Entry<Integer> minOverlapper = tree.minOverlapper(query);
+                final SVIntervalTree.Entry<Integer> flatMinOverlapper = flatTree.minOverlapper(query);
+                if ( minOverlapper == null ) {
+                    Assert.assertNull(flatMinOverlapper);
+                } else {
+                    Assert.assertEquals(flatMinOverlapper.getInterval(), minOverlapper.getInterval());
+                    Assert.assertEquals(flatMinOverlapper.getValue(), minOverlapper.getValue());
+                }
+            }
+        }
+    }
+
+    @Test(groups = "sv")
+    public void serializationTest() {
+        final Random rng = new Random(0xdeadbeef);
+        final SVIntervalTree<Integer> tree = new SVIntervalTree<>();
+        while ( tree.size() < 1000 ) {
+            tree.put(randomInterval(rng), tree.size());
+        }
+        final FlatSVIntervalTree<Integer> flatTree = new FlatSVIntervalTree<>(tree);
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final Output out = new Output(bos);
+        final Kryo kryo = new Kryo();
+        kryo.writeClassAndObject(out, flatTree);
+        out.flush();
+
+        final ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+        final Input in = new Input(bis);
+        @SuppressWarnings("unchecked")
+        final FlatSVIntervalTree<Integer> flatTree2 = (FlatSVIntervalTree<Integer>)kryo.readClassAndObject(in);
+
+        final Iterator<SVIntervalTree.Entry<Integer>> itr = flatTree2.iterator();
+        for ( final SVIntervalTree.Entry<Integer> entry : tree ) {
+            final SVIntervalTree.Entry<Integer> entry2 = itr.next();
+            Assert.assertEquals(entry2.getInterval(), entry.getInterval());
+            Assert.assertEquals(entry2.getValue(), entry.getValue());
+        }
+        Assert.assertFalse(itr.hasNext());
+        final SVInterval query = new SVInterval(1, 5000, 9000);
+        Assert.assertEquals(toIntervals(flatTree2.overlappers(query)), toIntervals(tree.overlappers(query)));
+    }
+}
@@ -10,6 +10,7 @@ import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.serializer.KryoRegistrator;
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.spark.GATKRegistrator;
 import org.broadinstitute.hellbender.engine.spark.SAMRecordSerializer;
 import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
 import org.broadinstitute.hellbender.exceptions.UserException;
@@ -18,6 +19,10 @@ import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.EmptyFragment;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.Fragment;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.MarkDuplicatesSparkRecord;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.Pair;
 import org.broadinstitute.hellbender.utils.spark.SparkUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -167,6 +172,90 @@ public class MarkDuplicatesSparkUtilsUnitTest extends GATKBaseTest {
         return ctx.parallelize(records, numPartitions).map(SAMRecordToGATKReadAdapter::new);
     }
 
+    @Test
+    public void testDuplicateGroupRetainsOnlyBestFragment() {
+        final SAMRecordSetBuilder samRecordSetBuilder = new SAMRecordSetBuilder(true, SAMFileHeader.SortOrder.queryname,
+                true, SAMRecordSetBuilder.DEFAULT_CHROMOSOME_LENGTH, SAMRecordSetBuilder.DEFAULT_DUPLICATE_SCORING_STRATEGY);
+        final SAMFileHeader header = samRecordSetBuilder.getHeader();
+        final Map<String, Byte> libraryIndex = MarkDuplicatesSparkUtils.constructLibraryIndex(header);
+        final OpticalDuplicateFinder finder = new OpticalDuplicateFinder();
+
+        final List<Fragment> fragments = new ArrayList<>();
+        final int[] qualities = {10, 30, 20, 15};
+        for (int i = 0; i < qualities.length; i++) {
+            final SAMRecord record = samRecordSetBuilder.addFrag("READ" + i, 0, 10000, false, false, "50M", null, qualities[i]);
+            fragments.add(MarkDuplicatesSparkRecord.newFragment(new SAMRecordToGATKReadAdapter(record), header, i, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, libraryIndex));
+        }
+
+        // aggregate the fragments on two "partitions" and then merge the partial groups, as combineByKey would
+        final MarkDuplicatesSparkUtils.DuplicateGroup group1 = new MarkDuplicatesSparkUtils.DuplicateGroup().add(fragments.get(0), finder).add(fragments.get(1), finder);
+        final MarkDuplicatesSparkUtils.DuplicateGroup group2 = new MarkDuplicatesSparkUtils.DuplicateGroup().add(fragments.get(2), finder).add(fragments.get(3), finder);
+        final MarkDuplicatesSparkUtils.DuplicateGroup merged = group2.merge(group1, finder);
+        Assert.assertEquals(merged.getBestFragment().getName(), "READ1");
+        Assert.assertNull(merged.getBestPair());
+        Assert.assertTrue(merged.getPassthroughs().isEmpty());
+
+        // an empty fragment at the site means every fragment is a duplicate, regardless of the order they are seen in
+        final SAMRecord mated = samRecordSetBuilder.addFrag("MATED", 0, 10000, false, false, "50M", null, 30);
+        final EmptyFragment emptyFragment = MarkDuplicatesSparkRecord.newEmptyFragment(new SAMRecordToGATKReadAdapter(mated), header, libraryIndex);
+        Assert.assertNull(new MarkDuplicatesSparkUtils.DuplicateGroup().add(emptyFragment, finder).add(fragments.get(1), finder).getBestFragment());
+        Assert.assertNull(merged.merge(new MarkDuplicatesSparkUtils.DuplicateGroup().add(emptyFragment, finder), finder).getBestFragment());
+    }
+
+    @Test
+    public void testDuplicateGroupWithoutOpticalFinderKeepsBestPair() {
+        final SAMRecordSetBuilder samRecordSetBuilder = new SAMRecordSetBuilder(true, SAMFileHeader.SortOrder.queryname,
+                true, SAMRecordSetBuilder.DEFAULT_CHROMOSOME_LENGTH, SAMRecordSetBuilder.DEFAULT_DUPLICATE_SCORING_STRATEGY);
+        final SAMFileHeader header = samRecordSetBuilder.getHeader();
+        final Map<String, Byte> libraryIndex = MarkDuplicatesSparkUtils.constructLibraryIndex(header);
+
+        final MarkDuplicatesSparkUtils.DuplicateGroup withFinder = new MarkDuplicatesSparkUtils.DuplicateGroup();
+        final MarkDuplicatesSparkUtils.DuplicateGroup withoutFinder = new MarkDuplicatesSparkUtils.DuplicateGroup();
+        final int[] qualities = {10, 30, 20};
+        for (int i = 0; i < qualities.length; i++) {
+            final List<SAMRecord> records = samRecordSetBuilder.addPair("PAIR" + i, 0, 10000, 10200, false, false, "50M", "50M", false, true, qualities[i]);
+            final Pair pair = MarkDuplicatesSparkRecord.newPair(new SAMRecordToGATKReadAdapter(records.get(0)), new SAMRecordToGATKReadAdapter(records.get(1)),
+                    header, i, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, libraryIndex);
+            withFinder.add(pair, new OpticalDuplicateFinder());
+            withoutFinder.add(pair, null);
+        }
+
+        // every pair is an optical duplicate candidate when optical duplicates are being detected, but only the best is kept whole
+        Assert.assertEquals(withFinder.getBestPair().getName(), "PAIR1");
+        Assert.assertEquals(withFinder.getOpticalDuplicateCandidates().size(), qualities.length);
+        Assert.assertEquals(withFinder.getBestOpticalDuplicateCandidate().getName(), "PAIR1");
+        Assert.assertEquals(withoutFinder.getBestPair().getName(), "PAIR1");
+        Assert.assertTrue(withoutFinder.getOpticalDuplicateCandidates().isEmpty());
+    }
+
+    @Test
+    public void testDuplicateGroupKryoRoundTrip() {
+        final SAMRecordSetBuilder samRecordSetBuilder = new SAMRecordSetBuilder(true, SAMFileHeader.SortOrder.queryname,
+                true, SAMRecordSetBuilder.DEFAULT_CHROMOSOME_LENGTH, SAMRecordSetBuilder.DEFAULT_DUPLICATE_SCORING_STRATEGY);
+        final SAMFileHeader header = samRecordSetBuilder.getHeader();
+        final Map<String, Byte> libraryIndex = MarkDuplicatesSparkUtils.constructLibraryIndex(header);
+
+        final List<SAMRecord> pairRecords = samRecordSetBuilder.addPair("PAIR", 0, 10000, 10200, false, false, "50M", "50M", false, true, 20);
+        final SAMRecord fragmentRecord = samRecordSetBuilder.addFrag("FRAGMENT", 0, 10000, false, false, "50M", null, 20);
+        final MarkDuplicatesSparkUtils.DuplicateGroup group = new MarkDuplicatesSparkUtils.DuplicateGroup()
+                .add(MarkDuplicatesSparkRecord.newPair(new SAMRecordToGATKReadAdapter(pairRecords.get(0)), new SAMRecordToGATKReadAdapter(pairRecords.get(1)),
+                        header, 1, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, libraryIndex), new OpticalDuplicateFinder())
+                .add(MarkDuplicatesSparkRecord.newFragment(new SAMRecordToGATKReadAdapter(fragmentRecord), header, 2, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, libraryIndex), null)
+                .add(MarkDuplicatesSparkRecord.getPassthrough(new SAMRecordToGATKReadAdapter(fragmentRecord), 3), null);
+
+        final SparkConf conf = new SparkConf().set("spark.kryo.registrator", GATKRegistrator.class.getName());
+        final MarkDuplicatesSparkUtils.DuplicateGroup roundTripped = SparkTestUtils.roundTripInKryo(group, MarkDuplicatesSparkUtils.DuplicateGroup.class, conf);
+        Assert.assertEquals(roundTripped.getBestFragment().getName(), "FRAGMENT");
+        Assert.assertEquals(roundTripped.getBestFragment().getPartitionIndex(), 2);
+        Assert.assertEquals(roundTripped.getBestPair().getName(), "PAIR");
+        Assert.assertEquals(roundTripped.getBestPair().getScore(), group.getBestPair().getScore());
+        Assert.assertEquals(roundTripped.getOpticalDuplicateCandidates().size(), 1);
+        Assert.assertEquals(roundTripped.getBestOpticalDuplicateCandidate().getName(), "PAIR");
+        Assert.assertEquals(roundTripped.getBestOpticalDuplicateCandidate().getPartitionIndex(), 1);
+        Assert.assertEquals(roundTripped.getPassthroughs().size(), 1);
+        Assert.assertEquals(roundTripped.getPassthroughs().get(0).getPartitionIndex(), 3);
+    }
+
     @Test
     public void testChangingContigsOnHeaderlessSAMRecord() {
         final SparkConf conf = new SparkConf().set("spark.kryo.registrator",
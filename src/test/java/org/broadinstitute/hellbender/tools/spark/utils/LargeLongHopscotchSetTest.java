@@ -70,6 +70,26 @@ public final class LargeLongHopscotchSetTest extends GATKBaseTest {
         Assert.assertFalse(hopscotchSet.containsAll(notAllTestVals));
     }
 
+    @Test
+    void containsEachTest() {
+        final Random rng = new Random(RAND_SEED);
+        final LargeLongHopscotchSet hopscotchSet = new LargeLongHopscotchSet(HHASH_NVALS);
+        final long[] queries = new long[2 * HHASH_NVALS + 1];
+        for (int i = 0; i < HHASH_NVALS; i++) {
+            queries[2 * i] = randomLong(rng);
+            queries[2 * i + 1] = randomLong(rng);
+            hopscotchSet.add(queries[2 * i]);
+        }
+        queries[2 * HHASH_NVALS] = queries[0];
+        final boolean[] result = new boolean[queries.length + 1];
+        result[queries.length] = true;
+        hopscotchSet.containsEach(queries, queries.length, result);
+        for (int i = 0; i < queries.length; i++) {
+            Assert.assertEquals(result[i], hopscotchSet.contains(queries[i]));
+        }
+        Assert.assertTrue(result[queries.length]);
+    }
+
     @Test
     void isEmptyTest() {
         final LargeLongHopscotchSet hopscotchSet = new LargeLongHopscotchSet(1);
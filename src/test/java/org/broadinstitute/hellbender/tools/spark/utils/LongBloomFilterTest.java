@@ -106,6 +106,26 @@ public final class LongBloomFilterTest {
         Assert.assertTrue(num_false_pos <= num_total * theoreticalFpp * 1.1);
     }
 
+    @Test
+    void containsEachTest() {
+        final Random rng = new Random(RAND_SEED);
+        final LongBloomFilter bloomFilter = new LongBloomFilter(FPR_NVALS, FPP);
+        final long[] queries = new long[2 * FPR_NVALS + 1];
+        for (int i = 0; i < FPR_NVALS; i++) {
+            queries[2 * i] = randomLong(rng);
+            queries[2 * i + 1] = randomLong(rng);
+            bloomFilter.add(queries[2 * i]);
+        }
+        queries[2 * FPR_NVALS] = queries[0];
+        final boolean[] result = new boolean[queries.length + 1];
+        result[queries.length] = true;
+        bloomFilter.containsEach(queries, queries.length, result);
+        for (int i = 0; i < queries.length; i++) {
+            Assert.assertEquals(result[i], bloomFilter.contains(queries[i]));
+        }
+        Assert.assertTrue(result[queries.length]);
+    }
+
     @Test
     void serializationTest() {
         final Random rng = new Random(RAND_SEED);
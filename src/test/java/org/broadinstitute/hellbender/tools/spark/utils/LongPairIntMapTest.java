@@ -0,0 +1,109 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+public final class LongPairIntMapTest extends GATKBaseTest {
+    private static final int RAND_SEED = 0xdeadf00;
+    private static final int N_VALS = 100000;
+
+    private static long randomHigh( final Random rng ) {
+        return rng.nextLong() & Long.MAX_VALUE;
+    }
+
+    @Test
+    void putAndGetTest() {
+        final LongPairIntMap map = new LongPairIntMap(3);
+        Assert.assertTrue(map.isEmpty());
+        map.put(0L, 0L, 7);
+        map.put(0L, 1L, 8);
+        map.put(1L, 0L, 9);
+        map.put(Long.MAX_VALUE, -1L, 10);
+        Assert.assertEquals(map.size(), 4);
+        Assert.assertEquals(map.get(0L, 0L, -1), 7);
+        Assert.assertEquals(map.get(0L, 1L, -1), 8);
+        Assert.assertEquals(map.get(1L, 0L, -1), 9);
+        Assert.assertEquals(map.get(Long.MAX_VALUE, -1L, -1), 10);
+        Assert.assertEquals(map.get(1L, 1L, -1), -1);
+        Assert.assertEquals(map.get(-1L, 0L, -1), -1);
+        map.put(0L, 1L, 11);
+        Assert.assertEquals(map.size(), 4);
+        Assert.assertEquals(map.get(0L, 1L, -1), 11);
+        Assert.assertTrue(map.containsKey(1L, 0L));
+        Assert.assertFalse(map.containsKey(1L, 1L));
+        map.clear();
+        Assert.assertEquals(map.size(), 0);
+        Assert.assertFalse(map.containsKey(1L, 0L));
+    }
+
+    @Test
+    void addToTest() {
+        final LongPairIntMap map = new LongPairIntMap();
+        Assert.assertEquals(map.addTo(5L, 6L, 1), 1);
+        Assert.assertEquals(map.addTo(5L, 6L, 1), 2);
+        Assert.assertEquals(map.addTo(5L, 6L, 3), 5);
+        Assert.assertEquals(map.addTo(6L, 5L, 1), 1);
+        Assert.assertEquals(map.size(), 2);
+        Assert.assertEquals(map.get(5L, 6L, 0), 5);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    void negativeKeyTest() {
+        new LongPairIntMap().addTo(-1L, 0L, 1);
+    }
+
+    @Test
+    void randomValuesTest() {
+        final Random rng = new Random(RAND_SEED);
+        final LongPairIntMap map = new LongPairIntMap(10);
+        final Map<List<Long>, Integer> expected = new HashMap<>();
+        for ( int valNo = 0; valNo != N_VALS; ++valNo ) {
+            // a narrow range of keys, so that many of them are counted more than once
+            final long keyHigh = rng.nextInt(100);
+            final long keyLow = rng.nextInt(1000);
+            map.addTo(keyHigh, keyLow, 1);
+            expected.merge(Arrays.asList(keyHigh, keyLow), 1, Integer::sum);
+        }
+        Assert.assertEquals(map.size(), expected.size());
+        Assert.assertTrue(map.capacity() >= map.size() / LongPairIntMap.LOAD_FACTOR);
+        final Map<List<Long>, Integer> actual = new HashMap<>();
+        map.forEach((keyHigh, keyLow, value) -> Assert.assertNull(actual.put(Arrays.asList(keyHigh, keyLow), value)));
+        Assert.assertEquals(actual, expected);
+        for ( int valNo = 0; valNo != N_VALS; ++valNo ) {
+            final long keyHigh = rng.nextInt(200);
+            final long keyLow = rng.nextInt(1000);
+            Assert.assertEquals(map.get(keyHigh, keyLow, 0), (int)expected.getOrDefault(Arrays.asList(keyHigh, keyLow), 0));
+        }
+    }
+
+    @Test
+    void serializationTest() {
+        final Random rng = new Random(RAND_SEED);
+        final LongPairIntMap map = new LongPairIntMap(N_VALS);
+        for ( int valNo = 0; valNo != N_VALS; ++valNo ) {
+            map.put(randomHigh(rng), rng.nextLong(), rng.nextInt());
+        }
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final Output out = new Output(bos);
+        final Kryo kryo = new Kryo();
+        kryo.writeClassAndObject(out, map);
+        out.flush();
+
+        final ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+        final Input in = new Input(bis);
+        final LongPairIntMap map2 = (LongPairIntMap)kryo.readClassAndObject(in);
+
+        Assert.assertEquals(map2.size(), map.size());
+        Assert.assertEquals(map2.capacity(), map.capacity());
+        map.forEach((keyHigh, keyLow, value) -> Assert.assertEquals(map2.get(keyHigh, keyLow, ~value), value));
+    }
+}
@@ -0,0 +1,115 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import org.broadinstitute.hellbender.tools.spark.sv.evidence.KmerAndInterval;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.KmerAndCount;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
+
+import java.util.Random;
+
+/**
+ * Memory and timing comparison of the primitive LongPairIntMap and LongPairIntMultiMap with the generic
+ * HopscotchMap and HopscotchUniqueMultiMap they replace for counting kmers and mapping kmers onto intervals.
+ */
+public final class LongPairIntMapTimingTest {
+
+    @FunctionalInterface
+    public interface Action {
+        void execute();
+    }
+    private static double time( final Action action ) {
+        final long nanosecs = System.nanoTime();
+        action.execute();
+        return (System.nanoTime() - nanosecs)/1.E9;
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for ( int idx = 0; idx != 3; ++idx ) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final int N_KMERS = 10000000;
+    private static final int N_LOOKUPS = 3 * N_KMERS;
+    private static final int N_INTERVALS = 1000;
+    private static final int K_SIZE = 51;
+
+    public static void main( final String[] args ) {
+        final Random rng = new Random(0xdeadbeef);
+        final long mask = (1L << K_SIZE) - 1L;
+        final SVKmerLong[] kmers = new SVKmerLong[N_KMERS];
+        for ( int kmerId = 0; kmerId != N_KMERS; ++kmerId ) {
+            kmers[kmerId] = new SVKmerLong(rng.nextLong() & mask, rng.nextLong() & mask);
+        }
+        // draw lookups from the kmers, so that each kmer is counted about N_LOOKUPS/N_KMERS times
+        final int[] lookups = new int[N_LOOKUPS];
+        for ( int lookupId = 0; lookupId != N_LOOKUPS; ++lookupId ) {
+            lookups[lookupId] = rng.nextInt(N_KMERS);
+        }
+
+        long baseline = usedMemory();
+        final HopscotchMap<SVKmer, Integer, KmerAndCount> hopscotchCounts = new HopscotchMap<>(N_KMERS);
+        System.out.println("HopscotchMap counting: "+time( () -> {
+            for ( final int lookup : lookups ) {
+                final KmerAndCount kmerAndCount = hopscotchCounts.find(kmers[lookup]);
+                if ( kmerAndCount != null ) kmerAndCount.bumpCount();
+                else hopscotchCounts.add(new KmerAndCount(kmers[lookup]));
+            }
+        }));
+        System.out.println("HopscotchMap bytes: "+(usedMemory() - baseline));
+
+        baseline = usedMemory();
+        final LongPairIntMap primitiveCounts = new LongPairIntMap(N_KMERS);
+        System.out.println("LongPairIntMap counting: "+time( () -> {
+            for ( final int lookup : lookups ) {
+                final SVKmerLong kmer = kmers[lookup];
+                primitiveCounts.addTo(kmer.getValHigh(), kmer.getValLow(), 1);
+            }
+        }));
+        System.out.println("LongPairIntMap bytes: "+(usedMemory() - baseline));
+        if ( primitiveCounts.size() != hopscotchCounts.size() ) throw new IllegalStateException("sizes differ");
+
+        baseline = usedMemory();
+        final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> hopscotchMultiMap =
+                new HopscotchUniqueMultiMap<>(N_KMERS);
+        System.out.println("HopscotchUniqueMultiMap construction: "+time( () -> {
+            for ( int kmerId = 0; kmerId != N_KMERS; ++kmerId ) {
+                hopscotchMultiMap.add(new KmerAndInterval(kmers[kmerId], kmerId % N_INTERVALS));
+            }
+        }));
+        System.out.println("HopscotchUniqueMultiMap bytes: "+(usedMemory() - baseline));
+
+        baseline = usedMemory();
+        final LongPairIntMultiMap primitiveMultiMap = new LongPairIntMultiMap(N_KMERS);
+        System.out.println("LongPairIntMultiMap construction: "+time( () -> {
+            for ( int kmerId = 0; kmerId != N_KMERS; ++kmerId ) {
+                final SVKmerLong kmer = kmers[kmerId];
+                primitiveMultiMap.add(kmer.getValHigh(), kmer.getValLow(), kmerId % N_INTERVALS);
+            }
+        }));
+        System.out.println("LongPairIntMultiMap bytes: "+(usedMemory() - baseline));
+
+        // half the lookups are for absent kmers
+        final SVKmerLong[] queries = new SVKmerLong[N_LOOKUPS];
+        for ( int lookupId = 0; lookupId != N_LOOKUPS; ++lookupId ) {
+            queries[lookupId] = (lookupId & 1) == 0 ? kmers[lookups[lookupId]] :
+                    new SVKmerLong(rng.nextLong() & mask, rng.nextLong() & mask);
+        }
+        System.out.println("HopscotchUniqueMultiMap retrieval: "+time( () -> {
+            int nFound = 0;
+            for ( final SVKmerLong query : queries ) {
+                if ( hopscotchMultiMap.contains(query) ) nFound += 1;
+            }
+            System.out.println("found: "+nFound);
+        }));
+        System.out.println("LongPairIntMultiMap retrieval: "+time( () -> {
+            int nFound = 0;
+            for ( final SVKmerLong query : queries ) {
+                if ( primitiveMultiMap.contains(query.getValHigh(), query.getValLow()) ) nFound += 1;
+            }
+            System.out.println("found: "+nFound);
+        }));
+    }
+}
@@ -0,0 +1,126 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+public final class LongPairIntMultiMapTest extends GATKBaseTest {
+    private static final int RAND_SEED = 0xdeadf00;
+    private static final int N_VALS = 100000;
+
+    private static Set<Integer> valuesOf( final LongPairIntMultiMap multiMap, final long keyHigh, final long keyLow ) {
+        final Set<Integer> values = new HashSet<>();
+        multiMap.findEach(keyHigh, keyLow, value -> Assert.assertTrue(values.add(value)));
+        Assert.assertEquals(multiMap.count(keyHigh, keyLow), values.size());
+        return values;
+    }
+
+    @Test
+    void addAndFindTest() {
+        final LongPairIntMultiMap multiMap = new LongPairIntMultiMap(2);
+        Assert.assertTrue(multiMap.add(1L, 2L, 3));
+        Assert.assertFalse(multiMap.add(1L, 2L, 3));
+        Assert.assertTrue(multiMap.add(1L, 2L, 4));
+        Assert.assertTrue(multiMap.add(2L, 1L, 3));
+        Assert.assertEquals(multiMap.size(), 3);
+        Assert.assertTrue(multiMap.contains(1L, 2L));
+        Assert.assertTrue(multiMap.contains(1L, 2L, 4));
+        Assert.assertFalse(multiMap.contains(1L, 2L, 5));
+        Assert.assertFalse(multiMap.contains(2L, 2L));
+        Assert.assertFalse(multiMap.contains(-1L, 2L));
+        Assert.assertEquals(valuesOf(multiMap, 1L, 2L), new HashSet<>(Arrays.asList(3, 4)));
+        Assert.assertEquals(valuesOf(multiMap, 2L, 1L), Collections.singleton(3));
+        Assert.assertEquals(valuesOf(multiMap, 3L, 3L), Collections.emptySet());
+    }
+
+    @Test
+    void removeEachTest() {
+        final LongPairIntMultiMap multiMap = new LongPairIntMultiMap();
+        multiMap.add(1L, 2L, 3);
+        multiMap.add(1L, 2L, 4);
+        multiMap.add(2L, 1L, 3);
+        Assert.assertEquals(multiMap.removeEach(1L, 2L), 2);
+        Assert.assertEquals(multiMap.removeEach(1L, 2L), 0);
+        Assert.assertEquals(multiMap.size(), 1);
+        Assert.assertFalse(multiMap.contains(1L, 2L));
+        Assert.assertTrue(multiMap.contains(2L, 1L, 3));
+        multiMap.clear();
+        Assert.assertTrue(multiMap.isEmpty());
+        Assert.assertFalse(multiMap.contains(2L, 1L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    void negativeKeyTest() {
+        new LongPairIntMultiMap().add(-1L, 0L, 1);
+    }
+
+    @Test
+    void randomValuesTest() {
+        final Random rng = new Random(RAND_SEED);
+        final LongPairIntMultiMap multiMap = new LongPairIntMultiMap(10);
+        final Map<List<Long>, Set<Integer>> expected = new HashMap<>();
+        int expectedSize = 0;
+        for ( int valNo = 0; valNo != N_VALS; ++valNo ) {
+            // a narrow range of keys and values, so that keys have several values, and some pairs are repeated
+            final long keyHigh = rng.nextInt(100);
+            final long keyLow = rng.nextInt(100);
+            final int value = rng.nextInt(20);
+            final boolean added = expected.computeIfAbsent(Arrays.asList(keyHigh, keyLow), key -> new HashSet<>()).add(value);
+            Assert.assertEquals(multiMap.add(keyHigh, keyLow, value), added);
+            if ( added ) expectedSize += 1;
+        }
+        Assert.assertEquals(multiMap.size(), expectedSize);
+
+        // remove about half the keys, which shuffles the entries that share their runs of buckets
+        final Iterator<Map.Entry<List<Long>, Set<Integer>>> expectedItr = expected.entrySet().iterator();
+        while ( expectedItr.hasNext() ) {
+            final Map.Entry<List<Long>, Set<Integer>> entry = expectedItr.next();
+            if ( rng.nextBoolean() ) {
+                Assert.assertEquals(multiMap.removeEach(entry.getKey().get(0), entry.getKey().get(1)), entry.getValue().size());
+                expectedSize -= entry.getValue().size();
+                expectedItr.remove();
+            }
+        }
+        Assert.assertEquals(multiMap.size(), expectedSize);
+        for ( long keyHigh = 0; keyHigh != 100; ++keyHigh ) {
+            for ( long keyLow = 0; keyLow != 100; ++keyLow ) {
+                Assert.assertEquals(valuesOf(multiMap, keyHigh, keyLow),
+                        expected.getOrDefault(Arrays.asList(keyHigh, keyLow), Collections.emptySet()));
+            }
+        }
+
+        final Map<List<Long>, Set<Integer>> actual = new HashMap<>();
+        multiMap.forEach((keyHigh, keyLow, value) ->
+                Assert.assertTrue(actual.computeIfAbsent(Arrays.asList(keyHigh, keyLow), key -> new HashSet<>()).add(value)));
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    void serializationTest() {
+        final Random rng = new Random(RAND_SEED);
+        final LongPairIntMultiMap multiMap = new LongPairIntMultiMap(N_VALS);
+        for ( int valNo = 0; valNo != N_VALS; ++valNo ) {
+            multiMap.add(rng.nextInt(1000), rng.nextLong(), rng.nextInt(10));
+        }
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final Output out = new Output(bos);
+        final Kryo kryo = new Kryo();
+        kryo.writeClassAndObject(out, multiMap);
+        out.flush();
+
+        final ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+        final Input in = new Input(bis);
+        final LongPairIntMultiMap multiMap2 = (LongPairIntMultiMap)kryo.readClassAndObject(in);
+
+        Assert.assertEquals(multiMap2.size(), multiMap.size());
+        multiMap.forEach((keyHigh, keyLow, value) -> Assert.assertTrue(multiMap2.contains(keyHigh, keyLow, value)));
+    }
+}
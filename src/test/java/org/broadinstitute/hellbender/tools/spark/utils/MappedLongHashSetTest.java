@@ -0,0 +1,170 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public final class MappedLongHashSetTest extends GATKBaseTest {
+    private static final long[] testVals = {0, 1, 2, 8, 16, 42, 97, 100, 2894765, Long.MAX_VALUE};
+    private static final long[] notInTestVals = {3, 7, 22, 61, Long.MAX_VALUE - 1};
+    private static final int RAND_SEED = 0xdeadf00;
+    private static final int HHASH_NVALS = 100000;
+
+    private static long randomLong(Random rng) {
+        return (((long) rng.nextInt()) | (((long) rng.nextInt()) << 31)) & ~Long.MIN_VALUE;
+    }
+
+    private Path createSet(final int offset, final long[] values) {
+        final Path path = createTempFile("mapped", ".set").toPath();
+        try (final MappedLongHashSet set = MappedLongHashSet.create(path, offset, values.length)) {
+            for (final long val : values) {
+                set.add(val);
+            }
+        }
+        return path;
+    }
+
+    @Test
+    void addAndContainsTest() {
+        final MappedLongHashSet set = MappedLongHashSet.create(createTempFile("mapped", ".set").toPath(), 0, testVals.length);
+        for (final long val : testVals) {
+            Assert.assertTrue(set.add(val));
+        }
+        Assert.assertFalse(set.add(testVals[3]));
+        Assert.assertEquals(set.size(), testVals.length);
+        for (final long val : testVals) {
+            Assert.assertTrue(set.contains(val));
+        }
+        for (final long val : notInTestVals) {
+            Assert.assertFalse(set.contains(val));
+        }
+        Assert.assertFalse(set.contains(-1));
+        set.close();
+    }
+
+    @Test
+    void containsEachTest() {
+        final Random rng = new Random(RAND_SEED);
+        final long[] values = new long[HHASH_NVALS];
+        final long[] queries = new long[2 * HHASH_NVALS + 2];
+        for (int i = 0; i < HHASH_NVALS; i++) {
+            values[i] = queries[2 * i] = randomLong(rng);
+            queries[2 * i + 1] = randomLong(rng);
+        }
+        queries[2 * HHASH_NVALS] = queries[0];
+        queries[2 * HHASH_NVALS + 1] = -1;
+        final MappedLongHashSet set = MappedLongHashSet.open(createSet(0, values), 0);
+        final boolean[] result = new boolean[queries.length + 1];
+        result[queries.length] = true;
+        set.containsEach(queries, queries.length, result);
+        for (int i = 0; i < queries.length; i++) {
+            Assert.assertEquals(result[i], set.contains(queries[i]));
+        }
+        Assert.assertTrue(result[queries.length]);
+    }
+
+    @Test
+    void capacityTest() {
+        for (final int size : new int[]{1, 2, 1000, 12000}) {
+            final MappedLongHashSet set = MappedLongHashSet.create(createTempFile("mapped", ".set").toPath(), 0, size);
+            Assert.assertTrue(set.capacity() > size);
+            Assert.assertTrue(set.capacity() <= size / MappedLongHashSet.LOAD_FACTOR + 1);
+            set.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    void addNegativeTest() {
+        MappedLongHashSet.create(createTempFile("mapped", ".set").toPath(), 0, 1).add(-1);
+    }
+
+    @Test
+    void fullTest() {
+        final MappedLongHashSet set = MappedLongHashSet.create(createTempFile("mapped", ".set").toPath(), 0, 1);
+        final Random rng = new Random(RAND_SEED);
+        int added = 0;
+        try {
+            while (true) {
+                if (set.add(randomLong(rng))) added++;
+            }
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals(added, set.capacity());
+        }
+    }
+
+    @Test
+    void openTest() {
+        for (final int offset : new int[]{0, 20}) {
+            final MappedLongHashSet set = MappedLongHashSet.open(createSet(offset, testVals), offset);
+            Assert.assertEquals(set.size(), testVals.length);
+            for (final long val : testVals) {
+                Assert.assertTrue(set.contains(val));
+            }
+            for (final long val : notInTestVals) {
+                Assert.assertFalse(set.contains(val));
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    void addReadOnlyTest() {
+        MappedLongHashSet.open(createSet(0, testVals), 0).add(3);
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    void openWrongOffsetTest() {
+        MappedLongHashSet.open(createSet(0, testVals), 8);
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    void openTruncatedTest() throws Exception {
+        final File file = createSet(0, testVals).toFile();
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 8));
+        MappedLongHashSet.open(file.toPath(), 0);
+    }
+
+    @Test
+    void iteratorTest() {
+        final MappedLongHashSet set = MappedLongHashSet.open(createSet(0, testVals), 0);
+        final Set<Long> found = new HashSet<>();
+        final LongIterator itr = set.iterator();
+        while (itr.hasNext()) {
+            Assert.assertTrue(found.add(itr.next()));
+        }
+        Assert.assertEquals(found.size(), testVals.length);
+        for (final long val : testVals) {
+            Assert.assertTrue(found.contains(val));
+        }
+        Assert.assertEquals(MappedLongHashSet.open(createSet(0, new long[]{5}), 0).iterator().next(), 5);
+    }
+
+    @Test
+    void randomValuesTest() {
+        final Random rng = new Random(RAND_SEED);
+        final Set<Long> expected = new HashSet<>(HHASH_NVALS);
+        final long[] values = new long[HHASH_NVALS];
+        for (int i = 0; i < HHASH_NVALS; i++) {
+            values[i] = randomLong(rng);
+            expected.add(values[i]);
+        }
+        final MappedLongHashSet set = MappedLongHashSet.open(createSet(0, values), 0);
+        Assert.assertEquals(set.size(), expected.size());
+        for (final long val : values) {
+            Assert.assertTrue(set.contains(val));
+        }
+        for (int i = 0; i < HHASH_NVALS; i++) {
+            final long val = randomLong(rng);
+            Assert.assertEquals(set.contains(val), expected.contains(val));
+        }
+    }
+}
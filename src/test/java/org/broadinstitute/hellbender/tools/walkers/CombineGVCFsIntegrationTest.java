@@ -10,6 +10,7 @@ import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.commons.collections.IteratorUtils;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.IntervalShardedTraversal;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.runtime.ProcessController;
@@ -138,6 +139,15 @@ public class CombineGVCFsIntegrationTest extends CommandLineProgramTest {
         assertVariantContextsMatch(Arrays.asList(inputs), outputFile, extraArgs, reference, ATTRIBUTES_TO_IGNORE);
     }
 
+    @Test
+    public void testWorkerThreadsMatchesExpected() throws IOException {
+        // the inputs span three contigs, which are combined in shards that end at contig boundaries
+        assertVariantContextsMatch(Arrays.asList(getTestFile("gvcfExample1WithTrailingReferenceBlocks.g.vcf"), getTestFile("gvcfExample2WithTrailingReferenceBlocks.g.vcf")),
+                getTestFile("gvcfWithTrailingReferenceBlocksExpected.g.vcf"),
+                Arrays.asList("--" + IntervalShardedTraversal.WORKER_THREADS_LONG_NAME, "2"),
+                b38_reference_20_21, ATTRIBUTES_TO_IGNORE);
+    }
+
     public static void runProcess(ProcessController processController, String[] command) {
         final ProcessSettings prs = new ProcessSettings(command);
         prs.getStderrSettings().printStandard(true);
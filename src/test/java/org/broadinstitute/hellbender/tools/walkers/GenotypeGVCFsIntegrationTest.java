@@ -14,6 +14,7 @@ import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.IntervalShardedTraversal;
 import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBImport;
 import org.broadinstitute.hellbender.utils.GATKProtectedVariantContextUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
@@ -289,6 +290,14 @@ public class GenotypeGVCFsIntegrationTest extends CommandLineProgramTest {
         assertVariantContextsMatch(input, expected, extraArgs, reference);
     }
 
+    @Test
+    public void testWorkerThreadsMatchesExpected() throws IOException {
+        // chromosomes 20 and 21 are each cut into several interval shards, whose output must join up seamlessly
+        assertVariantContextsMatch(CEUTRIO_20_21_GATK3_4_G_VCF, getTestFile(CEUTRIO_20_21_EXPECTED_VCF),
+                Arrays.asList("--dbsnp", largeFileTestDir + "dbsnp_138.b37.20.21.vcf", "--" + IntervalShardedTraversal.WORKER_THREADS_LONG_NAME, "2"),
+                b37_reference_20_21);
+    }
+
     private void assertVariantContextsMatch(File input, File expected, List<String> extraArgs, String reference) throws IOException {
         try {
             final VCFHeader header = VCFHeaderReader.readHeaderFrom(new SeekablePathStream(IOUtils.getPath(expected.getAbsolutePath())));
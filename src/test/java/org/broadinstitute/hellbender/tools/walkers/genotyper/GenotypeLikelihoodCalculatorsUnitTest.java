@@ -1,6 +1,11 @@
 package org.broadinstitute.hellbender.tools.walkers.genotyper;
 
+import htsjdk.variant.variantcontext.Allele;
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoodsUnitTester;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
@@ -9,6 +14,9 @@ import org.testng.annotations.Test;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class GenotypeLikelihoodCalculatorsUnitTest extends GATKBaseTest {
 
@@ -99,4 +107,40 @@ public final class GenotypeLikelihoodCalculatorsUnitTest extends GATKBaseTest {
         Assert.assertEquals(3, GenotypeLikelihoodCalculators.computeMaxAcceptableAlleleCount(20, 1024));
         Assert.assertEquals(2, GenotypeLikelihoodCalculators.computeMaxAcceptableAlleleCount(100, 1024));
     }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        final int[][] ploidyAndAlleleCounts = {{1, 3}, {2, 2}, {2, 4}, {3, 5}, {4, 3}, {6, 4}, {20, 3}};
+        final List<LikelihoodMatrix<Allele>> matrices = new ArrayList<>();
+        final List<double[]> expected = new ArrayList<>();
+        for (final int[] ploidyAndAlleleCount : ploidyAndAlleleCounts) {
+            final ReadLikelihoods<Allele> readLikelihoods = ReadLikelihoodsUnitTester.readLikelihoods(ploidyAndAlleleCount[1], new int[]{30});
+            matrices.add(readLikelihoods.sampleMatrix(0));
+            expected.add(calcs.getInstance(ploidyAndAlleleCount[0], ploidyAndAlleleCount[1]).genotypeLikelihoods(matrices.get(matrices.size() - 1)).getAsVector());
+        }
+
+        // each task requests a different larger capacity so that the shared tables are expanded while others read them.
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int task = 0; task < 16; task++) {
+                final int largerPloidy = 21 + task;
+                final int largerAlleleCount = 2 + task % 4;
+                futures.add(executor.submit(() -> {
+                    final GenotypeLikelihoodCalculators calculators = new GenotypeLikelihoodCalculators();
+                    for (int i = 0; i < ploidyAndAlleleCounts.length; i++) {
+                        final GenotypeLikelihoodCalculator calculator = calculators.getInstance(ploidyAndAlleleCounts[i][0], ploidyAndAlleleCounts[i][1]);
+                        Assert.assertEquals(calculator.genotypeLikelihoods(matrices.get(i)).getAsVector(), expected.get(i));
+                    }
+                    Assert.assertEquals(calculators.getInstance(largerPloidy, largerAlleleCount).genotypeCount(),
+                            (int) Math.round(MathUtils.binomialCoefficient(largerPloidy + largerAlleleCount - 1, largerAlleleCount - 1)));
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,228 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class GapFreePrescreenUnitTest extends GATKBaseTest {
+
+    private static final String SAMPLE = "sample1";
+
+    @DataProvider(name = "pcrErrorModels")
+    public Object[][] pcrErrorModels() {
+        return new Object[][]{ {PairHMMLikelihoodCalculationEngine.PCRErrorModel.NONE}, {PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE} };
+    }
+
+    @Test(dataProvider = "pcrErrorModels")
+    public void testMatchesPairHMM(final PairHMMLikelihoodCalculationEngine.PCRErrorModel pcrErrorModel) {
+        final Random random = Utils.getRandomGenerator();
+        final StringBuilder reference = new StringBuilder();
+        while ( reference.length() < 400 ) {
+            // random sequence with some homopolymers and short tandem repeats
+            final int kind = random.nextInt(10);
+            final String unit = kind == 0 ? randomBases(random, 1) : kind == 1 ? randomBases(random, 2) : randomBases(random, 10);
+            for ( int i = kind < 2 ? 4 + random.nextInt(8) : 1; i > 0; i-- ) {
+                reference.append(unit);
+            }
+        }
+        final String ref = reference.toString();
+        final String snp = ref.substring(0, 200) + (ref.charAt(200) == 'A' ? 'C' : 'A') + ref.substring(201);
+        final String deletion = ref.substring(0, 150) + ref.substring(153);
+        final List<String> haplotypes = Arrays.asList(ref, snp, deletion);
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < 300; i++ ) {
+            final String haplotype = haplotypes.get(random.nextInt(haplotypes.size()));
+            final int readLength = 50 + random.nextInt(101);
+            final int start = random.nextInt(haplotype.length() - 250);
+            final byte[] bases = haplotype.substring(start, start + readLength).getBytes();
+            final byte[] quals = new byte[readLength];
+            for ( int j = 0; j < readLength; j++ ) {
+                quals[j] = (byte)(10 + random.nextInt(31));
+                if ( random.nextInt(100) == 0 ) {
+                    bases[j] = (byte)(bases[j] == 'A' ? 'C' : 'A');
+                }
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, quals, readLength + "M");
+            read.setName("read" + i);
+            read.setMappingQuality(60);
+            reads.add(read);
+        }
+
+        assertMatchesPairHMM(haplotypes, reads, pcrErrorModel);
+    }
+
+    @Test
+    public void testMatchesPairHMMWithReadsEndingInHomopolymers() {
+        // the CONSERVATIVE PCR error model lowers the indel qualities in long homopolymers, where a read that starts or
+        // ends in one has an alternative alignment for a gap at each of its bases in the homopolymer
+        final Random random = Utils.getRandomGenerator();
+        final StringBuilder reference = new StringBuilder();
+        final List<Integer> homopolymerStarts = new ArrayList<>();
+        final List<Integer> homopolymerEnds = new ArrayList<>();
+        reference.append(randomBases(random, 60));
+        while ( reference.length() < 600 ) {
+            homopolymerStarts.add(reference.length());
+            final char base = "ACGT".charAt(random.nextInt(4));
+            for ( int i = 10 + random.nextInt(11); i > 0; i-- ) {
+                reference.append(base);
+            }
+            homopolymerEnds.add(reference.length());
+            // so that the homopolymer doesn't run on into the random bases
+            reference.append(randomBases(random, 40 + random.nextInt(40)).replace(base, base == 'A' ? 'C' : 'A'));
+        }
+        final String ref = reference.toString();
+        final String snp = ref.substring(0, 300) + (ref.charAt(300) == 'A' ? 'C' : 'A') + ref.substring(301);
+        final List<String> haplotypes = Arrays.asList(ref, snp);
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ ) {
+            final int homopolymer = random.nextInt(homopolymerStarts.size() - 1);
+            final int homopolymerStart = homopolymerStarts.get(homopolymer);
+            final int homopolymerEnd = homopolymerEnds.get(homopolymer);
+            final int readLength = 50 + random.nextInt(51);
+            // start a few bases before the end of the homopolymer, or end a few bases after its start
+            final int start = random.nextBoolean() ? homopolymerEnd - 10 - random.nextInt(homopolymerEnd - homopolymerStart - 9)
+                    : homopolymerStart + 10 + random.nextInt(homopolymerEnd - homopolymerStart - 9) - readLength;
+            if ( start < 0 || start + readLength > ref.length() ) {
+                continue;
+            }
+            final byte[] bases = ref.substring(start, start + readLength).getBytes();
+            final byte[] quals = new byte[readLength];
+            for ( int j = 0; j < readLength; j++ ) {
+                quals[j] = (byte)(20 + random.nextInt(21));
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, quals, readLength + "M");
+            read.setName("read" + i);
+            read.setMappingQuality(60);
+            reads.add(read);
+        }
+
+        assertMatchesPairHMM(haplotypes, reads, PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE);
+        assertMatchesPairHMM(haplotypes, reads, PairHMMLikelihoodCalculationEngine.PCRErrorModel.NONE);
+    }
+
+    @Test
+    public void testAlternativeAlignmentWeight() {
+        final String ref = "TTGACCTAGGCATCGATCGGATCCAGTACGATTACAGGCTACCAGTAGGCATCAGCATTTAGCCCAGT";
+        final byte[] readBases = (ref.substring(5, 45) + "AAAAAAAAAAAA").getBytes();
+        final GapFreePrescreen prescreen = new GapFreePrescreen(Collections.singletonList(
+                new Haplotype((ref.substring(0, 45) + "AAAAAAAAAAAAAAAAAAAA" + ref.substring(45)).getBytes(), true)));
+        final double[] likelihoods = new double[1];
+
+        // with the default indel qualities the gaps in the homopolymer add little
+        final GATKRead read = makeRead(readBases);
+        Assert.assertTrue(GapFreePrescreen.alternativeAlignmentWeight(readBases, ReadUtils.getBaseInsertionQualities(read),
+                ReadUtils.getBaseDeletionQualities(read), makeGCP(readBases)) <= GapFreePrescreen.MAX_ALTERNATIVE_WEIGHT);
+        Assert.assertTrue(prescreen.computeLog10Likelihoods(read, makeGCP(readBases), likelihoods));
+
+        // but with the indel qualities the CONSERVATIVE PCR error model gives a homopolymer of 12 they add too much
+        final byte[] indelQuals = Utils.dupBytes((byte)40, readBases.length);
+        Arrays.fill(indelQuals, 40, readBases.length, (byte)37);
+        ReadUtils.setInsertionBaseQualities(read, indelQuals);
+        ReadUtils.setDeletionBaseQualities(read, indelQuals);
+        Assert.assertTrue(GapFreePrescreen.alternativeAlignmentWeight(readBases, indelQuals, indelQuals, makeGCP(readBases))
+                > GapFreePrescreen.MAX_ALTERNATIVE_WEIGHT);
+        Assert.assertFalse(prescreen.computeLog10Likelihoods(read, makeGCP(readBases), likelihoods));
+    }
+
+    private static void assertMatchesPairHMM(final List<String> haplotypes, final List<GATKRead> reads,
+                                             final PairHMMLikelihoodCalculationEngine.PCRErrorModel pcrErrorModel) {
+        final ReadLikelihoods<Haplotype> expected = computeLikelihoods(haplotypes, reads, false, pcrErrorModel);
+        final ReadLikelihoods<Haplotype> actual = computeLikelihoods(haplotypes, reads, true, pcrErrorModel);
+        final LikelihoodMatrix<Haplotype> expectedMatrix = expected.sampleMatrix(0);
+        final LikelihoodMatrix<Haplotype> actualMatrix = actual.sampleMatrix(0);
+        Assert.assertEquals(actualMatrix.reads(), expectedMatrix.reads());
+        for ( int r = 0; r < expectedMatrix.numberOfReads(); r++ ) {
+            for ( int h = 0; h < haplotypes.size(); h++ ) {
+                Assert.assertEquals(actualMatrix.get(h, r), expectedMatrix.get(h, r), GapFreePrescreen.MAX_LOG10_DIFFERENCE);
+            }
+        }
+
+        // the verifying engine fails if any prescreened likelihood is off
+        computeLikelihoods(haplotypes, reads, null, pcrErrorModel);
+    }
+
+    @Test
+    public void testPrescreen() {
+        final String ref = "TTGACCTAGGCATCGATCGGATCCAGTACGATTACAGGCTACCAGTAGGCATCAGCATTTAGCCCAGT";
+        final byte[] readBases = ref.substring(5, 55).getBytes();
+        final byte[] mismatched = readBases.clone();
+        mismatched[20] = 'A';
+        mismatched[30] = 'G';
+        final byte[] endMismatch = readBases.clone();
+        endMismatch[readBases.length - 1] = 'A';
+        final String duplicatedAnchor = ref.substring(0, 60) + ref.substring(5, 5 + GapFreePrescreen.ANCHOR_LENGTH);
+
+        final double[] likelihoods = new double[2];
+        final GapFreePrescreen prescreen = new GapFreePrescreen(Arrays.asList(new Haplotype(ref.getBytes(), true),
+                new Haplotype(ref.substring(1).getBytes(), false)));
+        Assert.assertTrue(prescreen.computeLog10Likelihoods(makeRead(readBases), makeGCP(readBases), likelihoods));
+        final double expected = readBases.length * QualityUtils.qualToProbLog10((byte)30) + QualityUtils.qualToProbLog10((byte)10)
+                + (readBases.length - 1) * Math.log10(1.0 - 2 * QualityUtils.qualToErrorProb((byte)45));
+        Assert.assertEquals(likelihoods[0], expected - Math.log10(ref.length()), 1e-6);
+        Assert.assertEquals(likelihoods[1], expected - Math.log10(ref.length() - 1), 1e-6);
+
+        Assert.assertTrue(prescreen.computeLog10Likelihoods(makeRead(mismatched), makeGCP(mismatched), likelihoods));
+        final double mismatch = QualityUtils.qualToErrorProbLog10((byte)30) - Math.log10(3) - QualityUtils.qualToProbLog10((byte)30);
+        Assert.assertEquals(likelihoods[0], expected - Math.log10(ref.length()) + 2 * mismatch, 1e-6);
+
+        // a mismatch in an anchor, a gap, a read shorter than an anchor and a duplicated anchor all need the PairHMM
+        Assert.assertFalse(prescreen.computeLog10Likelihoods(makeRead(endMismatch), makeGCP(endMismatch), likelihoods));
+        final byte[] gapped = (ref.substring(5, 30) + ref.substring(31, 56)).getBytes();
+        Assert.assertFalse(prescreen.computeLog10Likelihoods(makeRead(gapped), makeGCP(gapped), likelihoods));
+        final byte[] shortRead = ref.substring(5, 5 + GapFreePrescreen.ANCHOR_LENGTH - 1).getBytes();
+        Assert.assertFalse(prescreen.computeLog10Likelihoods(makeRead(shortRead), makeGCP(shortRead), likelihoods));
+        Assert.assertFalse(new GapFreePrescreen(Collections.singletonList(new Haplotype(duplicatedAnchor.getBytes(), true)))
+                .computeLog10Likelihoods(makeRead(readBases), makeGCP(readBases), likelihoods));
+    }
+
+    private static ReadLikelihoods<Haplotype> computeLikelihoods(final List<String> haplotypes, final List<GATKRead> reads, final Boolean prescreen,
+                                                                 final PairHMMLikelihoodCalculationEngine.PCRErrorModel pcrErrorModel) {
+        final PairHMMLikelihoodCalculationEngine engine = new PairHMMLikelihoodCalculationEngine((byte)10, new PairHMMNativeArguments(),
+                PairHMM.Implementation.LOGLESS_CACHING, -4.5, pcrErrorModel,
+                PairHMM.BASE_QUALITY_SCORE_THRESHOLD, prescreen == null || prescreen, prescreen == null);
+        final AssemblyResultSet assemblyResultSet = new AssemblyResultSet();
+        for ( final String haplotype : haplotypes ) {
+            final Haplotype h = new Haplotype(haplotype.getBytes(), assemblyResultSet.getHaplotypeCount() == 0);
+            h.setGenomeLocation(reads.get(0));
+            assemblyResultSet.add(h);
+        }
+        final ReadLikelihoods<Haplotype> result = engine.computeReadLikelihoods(assemblyResultSet, new IndexedSampleList(SAMPLE),
+                Collections.singletonMap(SAMPLE, reads));
+        engine.close();
+        return result;
+    }
+
+    private static GATKRead makeRead(final byte[] bases) {
+        final byte[] quals = new byte[bases.length];
+        Arrays.fill(quals, (byte)30);
+        return ArtificialReadUtils.createArtificialRead(bases, quals, bases.length + "M");
+    }
+
+    private static byte[] makeGCP(final byte[] bases) {
+        return Utils.dupBytes((byte)10, bases.length);
+    }
+
+    private static String randomBases(final Random random, final int length) {
+        final StringBuilder bases = new StringBuilder();
+        for ( int i = 0; i < length; i++ ) {
+            bases.append("ACGT".charAt(random.nextInt(4)));
+        }
+        return bases.toString();
+    }
+}
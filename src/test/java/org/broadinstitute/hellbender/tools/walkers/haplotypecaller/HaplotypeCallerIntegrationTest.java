@@ -637,6 +637,94 @@ public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
         Assert.assertEquals(calculateConcordance(output, expected), 1.0);
     }
 
+    // re-running with cached assembly results, including with different genotyping arguments, must not change the calls
+    // and must serve every region from the cache, which writes an entry only for a region that isn't in it
+    @Test
+    public void testAssemblyResultCache() throws Exception {
+        final File testCaseFilesDir = new File(TEST_FILES_DIR, "issue3466_gatk_cigar_error");
+        final File cacheDir = createTempDir("assemblyResultCache");
+        final List<String> inputArgs = Arrays.asList(
+                "-I", new File(testCaseFilesDir, "culprit.bam").getAbsolutePath(),
+                "-R", new File(testCaseFilesDir, "GRCh37_MTonly.fa").getAbsolutePath(),
+                "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false");
+
+        // the first run fills the cache
+        runWithAssemblyResultCache(inputArgs, Collections.emptyList(), cacheDir);
+        // give every entry an old modification time, so that one rewritten later, however soon, is seen to change
+        for ( final File entry : cacheDir.listFiles() ) {
+            Assert.assertTrue(entry.setLastModified(1_000_000_000_000L), "could not set the modification time of " + entry);
+        }
+        final Map<String, Long> entries = getModificationTimes(cacheDir);
+        Assert.assertTrue(entries.keySet().stream().anyMatch(f -> f.endsWith(".assembly")));
+        Assert.assertTrue(entries.keySet().stream().anyMatch(f -> f.endsWith(".likelihoods")));
+
+        // re-running, alone or with different genotyping arguments, neither adds nor rewrites an entry
+        final List<List<String>> genotypingArgs = Arrays.asList(
+                Collections.emptyList(),
+                Collections.singletonList("--" + HaplotypeCallerArgumentCollection.DO_NOT_RUN_PHYSICAL_PHASING_LONG_NAME),
+                Arrays.asList("-stand-call-conf", "10"));
+        for ( final List<String> args : genotypingArgs ) {
+            runWithAssemblyResultCache(inputArgs, args, cacheDir);
+            Assert.assertEquals(getModificationTimes(cacheDir), entries, "cache entries changed with " + args);
+        }
+
+        // the reference confidence mode may trim regions differently and so add entries, but only the first time
+        runWithAssemblyResultCache(inputArgs, Arrays.asList("-ERC", "GVCF"), cacheDir);
+        final Map<String, Long> gvcfEntries = getModificationTimes(cacheDir);
+        runWithAssemblyResultCache(inputArgs, Arrays.asList("-ERC", "GVCF"), cacheDir);
+        Assert.assertEquals(getModificationTimes(cacheDir), gvcfEntries);
+        Assert.assertTrue(Arrays.stream(cacheDir.list()).noneMatch(f -> f.endsWith(".tmp")));
+    }
+
+    /**
+     * Runs the HaplotypeCaller with and without the assembly result cache, and checks that the outputs match
+     */
+    private void runWithAssemblyResultCache(final List<String> inputArgs, final List<String> genotypingArgs, final File cacheDir) throws IOException {
+        final File uncachedOutput = createTempFile("uncached", ".vcf");
+        final List<String> uncachedArgs = new ArrayList<>(inputArgs);
+        uncachedArgs.addAll(genotypingArgs);
+        uncachedArgs.addAll(Arrays.asList("-O", uncachedOutput.getAbsolutePath()));
+        runCommandLine(uncachedArgs);
+
+        final File cachedOutput = createTempFile("cached", ".vcf");
+        final List<String> cachedArgs = new ArrayList<>(inputArgs);
+        cachedArgs.addAll(genotypingArgs);
+        cachedArgs.addAll(Arrays.asList("-O", cachedOutput.getAbsolutePath(),
+                "--" + HaplotypeCallerArgumentCollection.ASSEMBLY_RESULT_CACHE_LONG_NAME, cacheDir.getAbsolutePath()));
+        runCommandLine(cachedArgs);
+        IntegrationTestSpec.assertEqualTextFiles(cachedOutput, uncachedOutput);
+    }
+
+    private static Map<String, Long> getModificationTimes(final File dir) {
+        final Map<String, Long> modificationTimes = new TreeMap<>();
+        for ( final File file : dir.listFiles() ) {
+            modificationTimes.put(file.getName(), file.lastModified());
+        }
+        return modificationTimes;
+    }
+
+    // with the default threshold the activity prescreen only skips sites the full model would find inactive anyway
+    @Test
+    public void testActivityPrescreenDoesNotChangeCalls() throws Exception {
+        final List<File> outputs = new ArrayList<>();
+        for ( final int minAltEvidence : Arrays.asList(0, 1) ) {
+            final File output = createTempFile("testActivityPrescreen", ".g.vcf");
+            final String[] args = {
+                    "-I", NA12878_20_21_WGS_bam,
+                    "-R", b37_reference_20_21,
+                    "-L", "20:10000000-10010000",
+                    "-O", output.getAbsolutePath(),
+                    "-ERC", "GVCF",
+                    "--" + HaplotypeCallerArgumentCollection.ACTIVITY_PRESCREEN_MIN_ALT_EVIDENCE_LONG_NAME, String.valueOf(minAltEvidence),
+                    "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+            };
+            Utils.resetRandomGenerator();
+            runCommandLine(args);
+            outputs.add(output);
+        }
+        IntegrationTestSpec.assertEqualTextFiles(outputs.get(1), outputs.get(0));
+    }
+
     // Test fix for https://github.com/broadinstitute/gatk/issues/3845
     // This specifically tests the case of a read at the start of a contig (position == 1)
     // that becomes completely clipped after a call to ReadClipper.revertSoftClippedBases()
@@ -0,0 +1,51 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class PackedKMerCounterUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "kmerLengths")
+    public Object[][] kmerLengths() {
+        return new Object[][]{ {1}, {5}, {25}, {31}, {32}, {40} };
+    }
+
+    @Test(dataProvider = "kmerLengths")
+    public void testAgainstKMerCounter(final int kmerLength) {
+        final Random random = Utils.getRandomGenerator();
+        final PackedKMerCounter counter = new PackedKMerCounter(kmerLength);
+        final KMerCounter expected = new KMerCounter(kmerLength);
+        final String alphabet = "ACGTACGTACGTACGTACGTACGTACGTACGTACGTACGTNa";
+        final byte[] template = new byte[200];
+        for ( int i = 0; i < template.length; i++ ) {
+            template[i] = (byte)"ACGT".charAt(random.nextInt(4));
+        }
+
+        final long[] packedKmers = new long[template.length];
+        for ( int read = 0; read < 100; read++ ) {
+            // reads with a few errors, and a few reads shorter than the kmer length
+            final int start = random.nextInt(template.length / 2);
+            final byte[] bases = Arrays.copyOfRange(template, start, start + 1 + random.nextInt(template.length / 2));
+            bases[random.nextInt(bases.length)] = (byte)alphabet.charAt(random.nextInt(alphabet.length()));
+            counter.addKmers(bases, packedKmers);
+            for ( int offset = 0; offset + kmerLength <= bases.length; offset++ ) {
+                expected.addKmer(new Kmer(bases, offset, kmerLength), 1);
+            }
+        }
+
+        final Map<Kmer, Integer> expectedCounts = new HashMap<>();
+        expected.getCountedKmers().forEach(k -> expectedCounts.put(k.getKmer(), k.getCount()));
+        final Map<Kmer, Integer> actualCounts = new HashMap<>();
+        counter.getCountedKmers().forEach(k -> actualCounts.put(k.getKmer(), k.getCount()));
+        Assert.assertEquals(actualCounts, expectedCounts);
+        for ( final Kmer kmer : expectedCounts.keySet() ) {
+            Assert.assertEquals(counter.getKmerCount(kmer), (int)expectedCounts.get(kmer));
+        }
+        Assert.assertEquals(counter.getKmerCount(new Kmer(Utils.dupString("A", kmerLength + 1))), 0);
+    }
+}
@@ -0,0 +1,68 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class PackedKmerUtilsUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "kmerLengths")
+    public Object[][] kmerLengths() {
+        return new Object[][]{ {1}, {3}, {10}, {31}, {32}, {45} };
+    }
+
+    @Test(dataProvider = "kmerLengths")
+    public void testRollingKmerMatchesPack(final int kmerLength) {
+        final Random random = Utils.getRandomGenerator();
+        final String alphabet = "ACGTACGTACGTACGTACGTACGTACGTACGTNa";
+        final byte[] sequence = new byte[500];
+        for ( int i = 0; i < sequence.length; i++ ) {
+            sequence[i] = (byte)alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        final PackedKmerUtils.RollingKmer rollingKmer = new PackedKmerUtils.RollingKmer(kmerLength);
+        for ( int i = 0; i < sequence.length; i++ ) {
+            final long rolled = rollingKmer.next(sequence[i]);
+            if ( i + 1 >= kmerLength ) {
+                final int start = i + 1 - kmerLength;
+                final long packed = PackedKmerUtils.pack(sequence, start, kmerLength);
+                Assert.assertEquals(rolled, packed);
+                if ( packed != PackedKmerUtils.UNPACKABLE ) {
+                    Assert.assertEquals(PackedKmerUtils.unpack(packed, kmerLength), Arrays.copyOfRange(sequence, start, start + kmerLength));
+                }
+            } else {
+                Assert.assertEquals(rolled, PackedKmerUtils.UNPACKABLE);
+            }
+        }
+    }
+
+    @Test
+    public void testPackKmers() {
+        final byte[] bases = "ACGTNACGa".getBytes();
+        final long[] packedKmers = new long[bases.length];
+        Assert.assertEquals(PackedKmerUtils.packKmers(bases, 3, packedKmers), 7);
+        Assert.assertEquals(PackedKmerUtils.unpack(packedKmers[0], 3), "ACG".getBytes());
+        Assert.assertEquals(PackedKmerUtils.unpack(packedKmers[1], 3), "CGT".getBytes());
+        Assert.assertEquals(packedKmers[2], PackedKmerUtils.UNPACKABLE);
+        Assert.assertEquals(packedKmers[4], PackedKmerUtils.UNPACKABLE);
+        Assert.assertEquals(PackedKmerUtils.unpack(packedKmers[5], 3), "ACG".getBytes());
+        Assert.assertEquals(packedKmers[6], PackedKmerUtils.UNPACKABLE);
+        Assert.assertEquals(PackedKmerUtils.packKmers("AC".getBytes(), 3, packedKmers), 0);
+    }
+
+    @Test
+    public void testDifferingBases() {
+        final long kmer = PackedKmerUtils.pack("ACGTA".getBytes(), 0, 5);
+        final long other = PackedKmerUtils.pack("TCGAA".getBytes(), 0, 5);
+        final long differingBases = PackedKmerUtils.differingBases(kmer, other);
+        Assert.assertEquals(Long.bitCount(differingBases), 2);
+        // the first and fourth bases differ
+        Assert.assertEquals(differingBases, (1L << 8) | (1L << 2));
+        Assert.assertEquals(PackedKmerUtils.baseAt(other, 5, 0), (byte)'T');
+        Assert.assertEquals(PackedKmerUtils.baseAt(other, 5, 3), (byte)'A');
+        Assert.assertEquals(PackedKmerUtils.differingBases(kmer, kmer), 0L);
+    }
+}
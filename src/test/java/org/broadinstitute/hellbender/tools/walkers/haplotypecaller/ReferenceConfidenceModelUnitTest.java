@@ -583,6 +583,38 @@ public final class ReferenceConfidenceModelUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testRefConfidenceReusedAcrossUnchangedPileups() {
+        final RefConfData data = new RefConfData("ACGTAACCGGTTACGTAACCGGTTACGTAACCGG", 0);
+        final PloidyModel ploidyModel = new HomogeneousPloidyModel(samples, 2);
+        final Random random = new Random(13);
+        for ( int i = 0; i < 20; i++ ) {
+            final int start = random.nextInt(data.getRefLength() / 2);
+            final GATKRead read = data.makeRead(start, data.getRefLength() / 2);
+            final byte[] bases = read.getBases();
+            final byte[] quals = read.getBaseQualities();
+            // a few mismatches and low quality bases so that some, but not all, pileups change composition
+            bases[random.nextInt(bases.length)] = (byte) 'N';
+            quals[random.nextInt(quals.length)] = (byte) random.nextInt(40);
+            read.setBases(bases);
+            read.setBaseQualities(quals);
+            data.getActiveRegion().add(read);
+        }
+
+        final ReadLikelihoods<Haplotype> likelihoods = createDummyStratifiedReadMap(data.getRefHap(), samples, data.getActiveRegion());
+        final List<VariantContext> contexts = model.calculateRefConfidence(data.getRefHap(), Arrays.asList(data.getRefHap()), data.getPaddedRefLoc(), data.getActiveRegion(), likelihoods, ploidyModel, Collections.emptyList());
+
+        final List<ReadPileup> pileups = AssemblyBasedCallerUtils.getPileupsOverReference(header, data.getActiveRegion().getSpan(), likelihoods, samples);
+        Assert.assertEquals(contexts.size(), pileups.size());
+        for ( int i = 0; i < pileups.size(); i++ ) {
+            final Genotype expected = model.makeReferenceConfidenceVariantContext(2, data.getRefHap().getBases(), sample, 0, pileups.get(i), pileups.get(i).getLocation(), i, false, Collections.emptyList()).getGenotype(sample);
+            final Genotype actual = contexts.get(i).getGenotype(sample);
+            Assert.assertEquals(actual.getPL(), expected.getPL());
+            Assert.assertEquals(actual.getAD(), expected.getAD());
+            Assert.assertEquals(actual.getGQ(), expected.getGQ());
+        }
+    }
+
     /**
      * Create a context that maps each read to the reference haplotype with log10 L of 0
      * @param refHaplotype a non-null reference haplotype
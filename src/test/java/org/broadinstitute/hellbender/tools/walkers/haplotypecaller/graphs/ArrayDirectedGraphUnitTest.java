@@ -0,0 +1,144 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.jgrapht.alg.CycleDetector;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class ArrayDirectedGraphUnitTest extends GATKBaseTest {
+
+    private static final class IntegerGraph extends ArrayDirectedGraph<Integer, BaseEdge> {
+        private static final long serialVersionUID = 1L;
+
+        IntegerGraph() {
+            super((source, target) -> new BaseEdge(false, 1));
+        }
+    }
+
+    private static void assertSameGraph(final IntegerGraph actual, final DefaultDirectedGraph<Integer, BaseEdge> expected) {
+        Assert.assertEquals(new ArrayList<>(actual.vertexSet()), new ArrayList<>(expected.vertexSet()));
+        Assert.assertEquals(new ArrayList<>(actual.edgeSet()), new ArrayList<>(expected.edgeSet()));
+        for ( final Integer v : expected.vertexSet() ) {
+            Assert.assertEquals(new ArrayList<>(actual.outgoingEdgesOf(v)), new ArrayList<>(expected.outgoingEdgesOf(v)));
+            Assert.assertEquals(new ArrayList<>(actual.incomingEdgesOf(v)), new ArrayList<>(expected.incomingEdgesOf(v)));
+            Assert.assertEquals(actual.edgesOf(v), expected.edgesOf(v));
+            Assert.assertEquals(actual.outDegreeOf(v), expected.outDegreeOf(v));
+            Assert.assertEquals(actual.inDegreeOf(v), expected.inDegreeOf(v));
+        }
+        for ( final BaseEdge e : expected.edgeSet() ) {
+            Assert.assertEquals(actual.getEdgeSource(e), expected.getEdgeSource(e));
+            Assert.assertEquals(actual.getEdgeTarget(e), expected.getEdgeTarget(e));
+            Assert.assertTrue(actual.containsEdge(e));
+        }
+        Assert.assertEquals(actual.detectCycles(), new CycleDetector<>(expected).detectCycles());
+    }
+
+    @Test
+    public void testAgainstJGraphT() {
+        final Random random = Utils.getRandomGenerator();
+        final IntegerGraph actual = new IntegerGraph();
+        final DefaultDirectedGraph<Integer, BaseEdge> expected = new DefaultDirectedGraph<>(BaseEdge.class);
+        final int numVertices = 60;
+        for ( int i = 0; i < 5000; i++ ) {
+            final Integer u = random.nextInt(numVertices);
+            final Integer v = random.nextInt(numVertices);
+            switch ( random.nextInt(6) ) {
+                case 0:
+                    Assert.assertEquals(actual.addVertex(u), expected.addVertex(u));
+                    break;
+                case 1:
+                    Assert.assertEquals(actual.removeVertex(u), expected.removeVertex(u));
+                    break;
+                case 2:
+                case 3:
+                    if ( expected.containsVertex(u) && expected.containsVertex(v) ) {
+                        final BaseEdge e = new BaseEdge(false, 1);
+                        Assert.assertEquals(actual.addEdge(u, v, e), expected.addEdge(u, v, e));
+                    }
+                    break;
+                case 4:
+                    Assert.assertEquals(actual.getEdge(u, v), expected.getEdge(u, v));
+                    Assert.assertEquals(actual.removeEdge(u, v), expected.removeEdge(u, v));
+                    break;
+                default:
+                    if ( !expected.edgeSet().isEmpty() ) {
+                        final List<BaseEdge> edges = new ArrayList<>(expected.edgeSet());
+                        final BaseEdge e = edges.get(random.nextInt(edges.size()));
+                        Assert.assertEquals(actual.removeEdge(e), expected.removeEdge(e));
+                    }
+            }
+            if ( i % 100 == 0 ) {
+                assertSameGraph(actual, expected);
+                final IntegerGraph copy = (IntegerGraph) actual.clone();
+                Assert.assertEquals(copy, actual);
+                Assert.assertEquals(copy.hashCode(), actual.hashCode());
+                copy.addVertex(numVertices);
+                Assert.assertFalse(actual.containsVertex(numVertices));
+            }
+        }
+        assertSameGraph(actual, expected);
+    }
+
+    @Test
+    public void testEdgeViewsFollowRenumbering() {
+        final IntegerGraph graph = new IntegerGraph();
+        graph.addVertex(0);
+        final Set<BaseEdge> outgoing = graph.outgoingEdgesOf(0);
+        final List<BaseEdge> expected = new ArrayList<>();
+        for ( int i = 1; i < 200; i++ ) {
+            graph.addVertex(i);
+            expected.add(graph.addEdge(0, i));
+            if ( i % 2 == 0 ) {
+                graph.removeVertex(i - 1);
+                expected.remove(expected.size() - 2);
+            }
+        }
+        Assert.assertEquals(new ArrayList<>(outgoing), expected);
+        Assert.assertTrue(outgoing.contains(expected.get(0)));
+    }
+
+    @Test
+    public void testCycles() {
+        final IntegerGraph graph = new IntegerGraph();
+        for ( int i = 0; i < 4; i++ ) {
+            graph.addVertex(i);
+        }
+        graph.addEdge(0, 1);
+        graph.addEdge(1, 2);
+        graph.addEdge(0, 2);
+        graph.addEdge(2, 3);
+        Assert.assertFalse(graph.detectCycles());
+        graph.addEdge(3, 1);
+        Assert.assertTrue(graph.detectCycles());
+        graph.removeEdge(3, 1);
+        graph.addEdge(3, 3);
+        Assert.assertTrue(graph.detectCycles());
+    }
+
+    @Test(expectedExceptions = ConcurrentModificationException.class)
+    public void testVertexSetFailsFast() {
+        final IntegerGraph graph = new IntegerGraph();
+        graph.addVertex(0);
+        graph.addVertex(1);
+        for ( final Integer v : graph.vertexSet() ) {
+            graph.removeVertex(v);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEdgeToMissingVertex() {
+        final IntegerGraph graph = new IntegerGraph();
+        graph.addVertex(0);
+        graph.addEdge(0, 1);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testViewsAreUnmodifiable() {
+        final IntegerGraph graph = new IntegerGraph();
+        graph.vertexSet().add(0);
+    }
+}
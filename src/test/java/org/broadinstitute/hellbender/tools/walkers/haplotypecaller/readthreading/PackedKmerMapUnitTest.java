@@ -0,0 +1,78 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class PackedKmerMapUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "kmerSizes")
+    public Object[][] kmerSizes() {
+        return new Object[][]{ {1}, {3}, {10}, {31}, {32}, {45} };
+    }
+
+    private static byte[] randomSequence(final Random random, final int length, final String alphabet) {
+        final byte[] sequence = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            sequence[i] = (byte)alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return sequence;
+    }
+
+    @Test(dataProvider = "kmerSizes")
+    public void testAgainstHashMap(final int kmerSize) {
+        final Random random = Utils.getRandomGenerator();
+        final PackedKmerMap<Integer> map = new PackedKmerMap<>(kmerSize);
+        final Map<Kmer, Integer> expected = new HashMap<>();
+        final byte[] sequence = randomSequence(random, 3000, "ACGTACGTACGTACGTACGTACGTACGTACGTN");
+        final List<Kmer> kmers = new ArrayList<>();
+        for ( int start = 0; start + kmerSize <= sequence.length; start++ ) {
+            final Kmer kmer = new Kmer(sequence, start, kmerSize);
+            kmers.add(kmer);
+            final Integer value = random.nextInt(10);
+            Assert.assertEquals(map.put(sequence, start, map.pack(sequence, start), value), expected.put(kmer, value));
+        }
+        Assert.assertEquals(map.size(), expected.size());
+        Assert.assertEquals(map.kmerSet(), expected.keySet());
+
+        // remove about half of the kmers, some of them more than once
+        for ( final Kmer kmer : kmers ) {
+            if ( random.nextBoolean() ) {
+                Assert.assertEquals(map.remove(kmer), expected.remove(kmer));
+            }
+        }
+        Assert.assertEquals(map.size(), expected.size());
+        for ( int start = 0; start + kmerSize <= sequence.length; start++ ) {
+            final Kmer kmer = kmers.get(start);
+            final long packed = map.pack(sequence, start);
+            Assert.assertEquals(map.get(sequence, start, packed), expected.get(kmer));
+            Assert.assertEquals(map.get(kmer), expected.get(kmer));
+            Assert.assertEquals(map.containsKey(sequence, start, packed), expected.containsKey(kmer));
+        }
+        final List<Integer> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        final List<Integer> expectedValues = new ArrayList<>(expected.values());
+        Collections.sort(values);
+        Collections.sort(expectedValues);
+        Assert.assertEquals(values, expectedValues);
+
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(kmers.get(0)));
+    }
+
+    @Test
+    public void testKmerOfTheWrongSize() {
+        final PackedKmerMap<Integer> map = new PackedKmerMap<>(3);
+        map.put("ACGT".getBytes(), 0, map.pack("ACGT".getBytes(), 0), 1);
+        Assert.assertEquals(map.get(new Kmer("ACG")), Integer.valueOf(1));
+        Assert.assertNull(map.get(new Kmer("ACGT")));
+        Assert.assertNull(map.remove(new Kmer("AC")));
+        Assert.assertEquals(map.size(), 1);
+    }
+}
@@ -232,6 +232,60 @@ public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
         Assert.assertEquals(haplotypes.get(1), altHaplotype);
     }
 
+    @DataProvider(name = "ConcurrentAssemblyData")
+    public Object[][] makeConcurrentAssemblyData() {
+        final List<Object[]> tests = new ArrayList<>();
+        final String contig = "1";
+        for ( int start = 100000; start < 102000; start += 400 ) {
+            final SimpleInterval refLoc = new SimpleInterval(contig, start, start + 200);
+            final String ref = new String(seq.getSubsequenceAt(contig, refLoc.getStart(), refLoc.getEnd()).getBases());
+            tests.add(new Object[]{refLoc, ref});
+        }
+
+        // a reference with a repeat longer than the requested kmer sizes, so that larger sizes have to be tried
+        final String flank = new String(seq.getSubsequenceAt(contig, 150000, 150069).getBases());
+        final String repeatUnit = new String(seq.getSubsequenceAt(contig, 160000, 160029).getBases());
+        final String repetitiveRef = flank.substring(0, 35) + repeatUnit + repeatUnit + flank.substring(35);
+        tests.add(new Object[]{new SimpleInterval(contig, 150000, 150000 + repetitiveRef.length() - 1), repetitiveRef});
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "ConcurrentAssemblyData")
+    public void testConcurrentAssemblyMatchesSerialAssembly(final SimpleInterval loc, final String ref) {
+        final byte[] refBases = ref.getBytes();
+        final byte[] snpBases = refBases.clone();
+        snpBases[refBases.length / 3] = snpBases[refBases.length / 3] == 'A' ? (byte)'C' : (byte)'A';
+        final byte[] insertionBases = (ref.substring(0, 2 * refBases.length / 3) + "TTG" + ref.substring(2 * refBases.length / 3)).getBytes();
+
+        final List<GATKRead> reads = new LinkedList<>();
+        for ( final byte[] bases : Arrays.asList(refBases, snpBases, insertionBases) ) {
+            for ( int i = 0; i < 10; i++ ) {
+                final byte[] quals = Utils.dupBytes((byte) 30, bases.length);
+                reads.add(ArtificialReadUtils.createArtificialRead(header, loc.getContig(), loc.getContig(), loc.getStart(), bases.clone(), quals, bases.length + "M"));
+            }
+        }
+
+        final List<Haplotype> serialHaplotypes = assemble(makeMultiKmerAssembler(1), refBases, loc, reads);
+        final ReadThreadingAssembler concurrentAssembler = makeMultiKmerAssembler(4);
+        try {
+            final List<Haplotype> concurrentHaplotypes = assemble(concurrentAssembler, refBases, loc, reads);
+            Assert.assertTrue(serialHaplotypes.size() > 1, "Failed to find any alt haplotypes");
+            Assert.assertEquals(concurrentHaplotypes, serialHaplotypes);
+            for ( int i = 0; i < serialHaplotypes.size(); i++ ) {
+                Assert.assertEquals(concurrentHaplotypes.get(i).getCigar(), serialHaplotypes.get(i).getCigar());
+            }
+        } finally {
+            concurrentAssembler.shutdown();
+        }
+    }
+
+    private static ReadThreadingAssembler makeMultiKmerAssembler(final int numAssemblyThreads) {
+        final ReadThreadingAssembler assembler = new ReadThreadingAssembler(128, Arrays.asList(10, 25),
+                false, false, 1, 2, false, 0.001, 2, Integer.MAX_VALUE);
+        assembler.setNumAssemblyThreads(numAssemblyThreads);
+        return assembler;
+    }
+
     private static class TestAssembler {
         final ReadThreadingAssembler assembler;
         private final SAMFileHeader header;
@@ -0,0 +1,116 @@
+package org.broadinstitute.hellbender.tools.walkers.markduplicates;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.metrics.MetricsFile;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.MarkDuplicatesSparkArgumentCollection;
+import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
+import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
+import org.broadinstitute.hellbender.testutils.testers.MarkDuplicatesSparkTester;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSpark;
+import org.broadinstitute.hellbender.utils.read.markduplicates.GATKDuplicationMetrics;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import picard.sam.markduplicates.MarkDuplicates;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MarkDuplicatesGATKIntegrationTest extends AbstractMarkDuplicatesCommandLineProgramTest {
+
+    private static final class MarkDuplicatesGATKTester extends MarkDuplicatesSparkTester {
+        @Override
+        protected CommandLineProgram getProgram() { return new MarkDuplicatesGATK(); }
+    }
+
+    @Override
+    public String getToolTestDataDir() {
+        // shares its test inputs with MarkDuplicatesSpark
+        return toolsTestDir + "spark/pipelines/MarkDuplicatesSpark/";
+    }
+
+    @Override
+    protected MarkDuplicatesSparkTester getTester() {
+        final MarkDuplicatesSparkTester markDuplicatesTester = new MarkDuplicatesGATKTester();
+        markDuplicatesTester.addArg("--"+ MarkDuplicatesSparkArgumentCollection.DO_NOT_MARK_UNMAPPED_MATES_LONG_NAME);
+        return markDuplicatesTester;
+    }
+
+    @Override
+    protected CommandLineProgram getCommandLineProgramInstance() {
+        return new MarkDuplicatesGATK();
+    }
+
+    @Override
+    protected boolean markSecondaryAndSupplementaryRecordsLikeTheCanonical() { return true; }
+
+    @DataProvider(name = "matchesSpark")
+    public Object[][] matchesSpark() {
+        final List<Object[]> tests = new ArrayList<>();
+        final String[] inputs = {"example.chr1.1-1K.unmarkedDups.bam", "example.chr1.1-1K.markedDups.queryname.bam",
+                "example.chr1.1-1K.markedDups.querygrouped.bam", "optical_dupes.bam", "optical_dupes_casava.bam"};
+        for (final String input : inputs) {
+            // small batches so that the templates of a duplicate set are keyed by different tasks
+            tests.add(new Object[]{new File(TEST_DATA_DIR, input), 1, 100000, MarkDuplicates.DuplicateTaggingPolicy.DontTag});
+            tests.add(new Object[]{new File(TEST_DATA_DIR, input), 4, 3, MarkDuplicates.DuplicateTaggingPolicy.DontTag});
+            tests.add(new Object[]{new File(TEST_DATA_DIR, input), 4, 3, MarkDuplicates.DuplicateTaggingPolicy.All});
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "matchesSpark")
+    public void testMatchesMarkDuplicatesSpark(final File input, final int threads, final int readsPerBatch,
+                                               final MarkDuplicates.DuplicateTaggingPolicy taggingPolicy) throws IOException {
+        final File sparkOutput = createTempFile("markdups.spark", ".bam");
+        final File sparkMetrics = createTempFile("markdups.spark", ".metrics");
+        final ArgumentsBuilder sparkArgs = getArguments(input, sparkOutput, sparkMetrics, taggingPolicy);
+        sparkArgs.add("--" + GATKSparkTool.SHARDED_OUTPUT_LONG_NAME + " false");
+        new MarkDuplicatesSpark().instanceMain(sparkArgs.getArgsArray());
+
+        final File output = createTempFile("markdups", ".bam");
+        final File metrics = createTempFile("markdups", ".metrics");
+        final ArgumentsBuilder args = getArguments(input, output, metrics, taggingPolicy);
+        args.addArgument(MarkDuplicatesGATK.THREADS_LONG_NAME, String.valueOf(threads));
+        args.addArgument(MarkDuplicatesGATK.READS_PER_BATCH_LONG_NAME, String.valueOf(readsPerBatch));
+        new MarkDuplicatesGATK().instanceMain(args.getArgsArray());
+
+        Assert.assertEquals(readSummaries(output), readSummaries(sparkOutput));
+
+        final MetricsFile<GATKDuplicationMetrics, Comparable<?>> sparkMetricsOutput = new MetricsFile<>();
+        sparkMetricsOutput.read(new FileReader(sparkMetrics));
+        final MetricsFile<GATKDuplicationMetrics, Comparable<?>> metricsOutput = new MetricsFile<>();
+        metricsOutput.read(new FileReader(metrics));
+        Assert.assertEquals(metricsOutput.getMetrics(), sparkMetricsOutput.getMetrics());
+    }
+
+    private static ArgumentsBuilder getArguments(final File input, final File output, final File metrics,
+                                                 final MarkDuplicates.DuplicateTaggingPolicy taggingPolicy) {
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addArgument(StandardArgumentDefinitions.INPUT_LONG_NAME, input.getAbsolutePath());
+        args.addArgument(StandardArgumentDefinitions.OUTPUT_LONG_NAME, output.getAbsolutePath());
+        args.addArgument(StandardArgumentDefinitions.METRICS_FILE_LONG_NAME, metrics.getAbsolutePath());
+        args.addArgument(MarkDuplicatesSparkArgumentCollection.DUPLICATE_TAGGING_POLICY_LONG_NAME, taggingPolicy.name());
+        return args;
+    }
+
+    // the reads in output order, along with the fields duplicate marking may change
+    private static List<String> readSummaries(final File bam) throws IOException {
+        final List<String> summaries = new ArrayList<>();
+        try (final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(bam)) {
+            for (final SAMRecord record : reader) {
+                summaries.add(String.join("\t", record.getReadName(), String.valueOf(record.getFlags()),
+                        record.getContig(), String.valueOf(record.getAlignmentStart()),
+                        String.valueOf(record.getAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG))));
+            }
+        }
+        return summaries;
+    }
+}
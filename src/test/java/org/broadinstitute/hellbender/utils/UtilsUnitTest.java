@@ -10,6 +10,7 @@ import htsjdk.samtools.util.Log.LogLevel;
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.Level;
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -71,6 +72,17 @@ public final class UtilsUnitTest extends GATKBaseTest {
         assertEquals(Lists.newArrayList(integers), ImmutableList.of(5, 4, 3, 2, 1));
     }
 
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testTransformParallelRethrowsUncheckedExceptions() {
+        final Iterator<Integer> integers = Utils.transformParallel(ImmutableList.of(1, 2, 3, 4).iterator(), i -> {
+            if (i == 3) {
+                throw new UserException.BadInput("bad input " + i);
+            }
+            return i;
+        }, 2);
+        Lists.newArrayList(integers);
+    }
+
     @Test
     public void testIteratorConcat() throws Exception {
         final List<Integer> ints1 = Arrays.asList(0, 1, 2);
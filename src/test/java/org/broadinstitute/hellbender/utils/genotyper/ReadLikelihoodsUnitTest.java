@@ -196,6 +196,42 @@ public final class ReadLikelihoodsUnitTest {
         testLikelihoodMatrixQueries(samples,result,newLikelihoods);
     }
 
+    @Test(dataProvider = "dataSets")
+    public void testAddAllelesAndReadsAfterFiltering(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
+        final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        final SimpleInterval evenReadOverlap = new SimpleInterval(SAM_HEADER.getSequenceDictionary().getSequences().get(0).getSequenceName(), EVEN_READ_START, EVEN_READ_START);
+        fillWithRandomLikelihoods(samples,alleles,original);
+        final ReadLikelihoods<Allele> result = original.copy();
+
+        // filtering leaves the likelihoods of the remaining reads in place, so they must be laid out again correctly
+        // before growing the collection
+        result.filterToOnlyOverlappingReads(evenReadOverlap);
+        final Allele newAllele = Allele.create("ACCCCCAAAATTTAAAGGG".getBytes(), false);
+        result.addMissingAlleles(Collections.singletonList(newAllele), -12345.6);
+        final Map<String,List<GATKRead>> newReads = new LinkedHashMap<>();
+        for (final String sample : samples) {
+            newReads.put(sample, Collections.singletonList(ArtificialReadUtils.createArtificialRead(SAM_HEADER, "new_" + sample, 0, EVEN_READ_START, 100)));
+        }
+        result.addReads(newReads, -6.54321);
+
+        final double[][][] newLikelihoods = new double[samples.length][alleles.length + 1][];
+        for (int s = 0; s < samples.length ; s++) {
+            final int keptReadCount = (original.sampleReadCount(s) + 1) / 2;
+            final LikelihoodMatrix<Allele> sampleMatrix = original.sampleMatrix(s);
+            for (int a = 0; a <= alleles.length; a++) {
+                newLikelihoods[s][a] = new double[keptReadCount + 1];
+                for (int r = 0; r < keptReadCount; r++) {
+                    newLikelihoods[s][a][r] = a < alleles.length ? sampleMatrix.get(a, r << 1) : -12345.6;
+                }
+                newLikelihoods[s][a][keptReadCount] = -6.54321;
+                final double[] copied = new double[keptReadCount + 2];
+                result.sampleMatrix(s).copyAlleleLikelihoods(a, copied, 1);
+                Assert.assertEquals(Arrays.copyOfRange(copied, 1, keptReadCount + 2), newLikelihoods[s][a]);
+            }
+        }
+        testLikelihoodMatrixQueries(samples,result,newLikelihoods);
+    }
+
     @Test(dataProvider = "marginalizationDataSets")
     public void testMarginalizationWithOverlap(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads, final Map<Allele,List<Allele>> newToOldAlleleMapping) {
         final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.utils.locusiterator;
 
+import htsjdk.samtools.CigarOperator;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -74,4 +75,30 @@ public final class AlignmentStateMachineUnitTest extends LocusIteratorByStateBas
         Assert.assertEquals(state.getCurrentCigarElement(), null);
         Assert.assertNotNull(state.toString());
     }
+
+    @Test(dataProvider = "AlignmentStateMachineTest")
+    public void testResetMatchesNewStateMachine(LIBSTest params) {
+        final GATKRead read = params.makeRead();
+        final AlignmentStateMachine fresh = new AlignmentStateMachine(read);
+
+        // run a machine off the end of another read, then reuse it
+        final AlignmentStateMachine recycled = new AlignmentStateMachine(params.makeRead());
+        while ( recycled.stepForwardOnGenome() != null ) { }
+        recycled.reset(read);
+
+        Assert.assertSame(recycled.getRead(), read);
+        Assert.assertTrue(recycled.isLeftEdge());
+        Assert.assertEquals(recycled.getCurrentCigarElementOffset(), -1);
+        while ( true ) {
+            final CigarOperator op = fresh.stepForwardOnGenome();
+            Assert.assertEquals(recycled.stepForwardOnGenome(), op);
+            Assert.assertEquals(recycled.getReadOffset(), fresh.getReadOffset());
+            Assert.assertEquals(recycled.getGenomeOffset(), fresh.getGenomeOffset());
+            Assert.assertEquals(recycled.getCurrentCigarElementOffset(), fresh.getCurrentCigarElementOffset());
+            Assert.assertEquals(recycled.getOffsetIntoCurrentCigarElement(), fresh.getOffsetIntoCurrentCigarElement());
+            if ( op == null ) {
+                break;
+            }
+        }
+    }
 }
@@ -55,6 +55,44 @@ public final class ReadCoordinateComparatorUnitTest extends GATKBaseTest {
         }
     }
 
+    /**
+     * Tests that packed sort keys never disagree with the comparator: reads with different keys must be ordered by their
+     * keys, and reads with the same key are left for the comparator to order.
+     */
+    @Test
+    public void testPackedSortKeysAgreeWithComparator() throws IOException {
+        final String inputBam = publicTestDir + "org/broadinstitute/hellbender/utils/read/comparator_test_with_unmapped.bam";
+        final List<GATKRead> reads = new ArrayList<>();
+        SAMFileHeader header = null;
+
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(IOUtils.getPath(inputBam)) ) {
+            header = readsSource.getHeader();
+
+            for ( GATKRead read : readsSource ) {
+                reads.add(read);
+            }
+        }
+        reads.add(ArtificialReadUtils.createArtificialRead(header, "negativeStrand", 0, 1, 10));
+        reads.get(reads.size() - 1).setIsReverseStrand(true);
+        reads.add(ArtificialReadUtils.createArtificialRead(header, "positiveStrand", 0, 1, 10));
+
+        Assert.assertTrue(ReadCoordinateComparator.canPackSortKeys(header));
+        final ReadCoordinateComparator comparator = new ReadCoordinateComparator(header);
+        final HeaderlessSAMRecordCoordinateComparator samComparator = new HeaderlessSAMRecordCoordinateComparator(header);
+        for ( final GATKRead first : reads ) {
+            final SAMRecord firstRecord = first.convertToSAMRecord(header);
+            for ( final GATKRead second : reads ) {
+                final SAMRecord secondRecord = second.convertToSAMRecord(header);
+                final int keyOrder = Long.compare(comparator.getPackedSortKey(first), comparator.getPackedSortKey(second));
+                if ( keyOrder != 0 ) {
+                    Assert.assertEquals(Integer.signum(comparator.compare(first, second)), keyOrder,
+                            "Packed key disagrees with comparator for " + first + " and " + second);
+                }
+                Assert.assertEquals(Long.compare(samComparator.getPackedSortKey(firstRecord), samComparator.getPackedSortKey(secondRecord)), keyOrder);
+            }
+        }
+    }
+
     @Test
     public void testEqual() throws Exception {
         final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
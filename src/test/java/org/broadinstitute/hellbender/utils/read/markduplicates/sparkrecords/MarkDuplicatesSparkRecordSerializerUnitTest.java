@@ -0,0 +1,147 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.apache.spark.SparkConf;
+import org.apache.spark.serializer.KryoSerializer;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.spark.GATKRegistrator;
+import org.broadinstitute.hellbender.testutils.SparkTestUtils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.markduplicates.LibraryIdGenerator;
+import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
+import org.broadinstitute.hellbender.utils.read.markduplicates.ReadsKey;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class MarkDuplicatesSparkRecordSerializerUnitTest extends GATKBaseTest {
+    private static final String READ_NAME = "HWI-ST1122:210:C3K7GACXX:7:1101:10017:90147";
+
+    private final SparkConf conf = new SparkConf().set("spark.kryo.registrator", GATKRegistrator.class.getName());
+
+    private SAMFileHeader getHeader() {
+        final SAMFileHeader header = hg19Header.clone();
+        header.setReadGroups(Collections.singletonList(new SAMReadGroupRecord("1")));
+        return header;
+    }
+
+    private GATKRead createRead(final int start, final boolean reverse, final boolean firstOfPair) {
+        final GATKRead read = ArtificialReadUtils.createSamBackedRead(READ_NAME, "1", start, 100);
+        read.setReadGroup("1");
+        read.setIsPaired(true);
+        read.setIsReverseStrand(reverse);
+        if (firstOfPair) {
+            read.setIsFirstOfPair();
+        } else {
+            read.setIsSecondOfPair();
+        }
+        return read;
+    }
+
+    private Map<String, Byte> getLibraryIndex() {
+        return Collections.singletonMap(LibraryIdGenerator.UNKNOWN_LIBRARY, (byte) 0);
+    }
+
+    @Test
+    public void testFragmentRoundTrip() {
+        final SAMFileHeader header = getHeader();
+        final Fragment fragment = MarkDuplicatesSparkRecord.newFragment(createRead(100000, true, true), header, 7, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, getLibraryIndex());
+        fragment.setReadGroup((short) 3);
+
+        final Fragment roundTripped = SparkTestUtils.roundTripInKryo(fragment, Fragment.class, conf);
+        Assert.assertEquals(roundTripped.getName(), fragment.getName());
+        Assert.assertEquals(roundTripped.getPartitionIndex(), fragment.getPartitionIndex());
+        Assert.assertEquals(roundTripped.getScore(), fragment.getScore());
+        Assert.assertEquals(roundTripped.isRead1ReverseStrand(), fragment.isRead1ReverseStrand());
+        Assert.assertEquals(roundTripped.getReadGroup(), fragment.getReadGroup());
+        Assert.assertEquals(roundTripped.getType(), MarkDuplicatesSparkRecord.Type.FRAGMENT);
+    }
+
+    @Test
+    public void testEmptyFragmentRoundTrip() {
+        final SAMFileHeader header = getHeader();
+        for (final boolean reverse : new boolean[]{true, false}) {
+            final EmptyFragment emptyFragment = MarkDuplicatesSparkRecord.newEmptyFragment(createRead(100000, reverse, true), header, getLibraryIndex());
+            final EmptyFragment roundTripped = SparkTestUtils.roundTripInKryo(emptyFragment, EmptyFragment.class, conf);
+            Assert.assertEquals(roundTripped.isRead1ReverseStrand(), reverse);
+            Assert.assertEquals(roundTripped.getType(), MarkDuplicatesSparkRecord.Type.EMPTY_FRAGMENT);
+        }
+    }
+
+    @Test
+    public void testPassthroughRoundTrip() {
+        final Passthrough passthrough = MarkDuplicatesSparkRecord.getPassthrough(createRead(100000, false, true), 12);
+        final Passthrough roundTripped = SparkTestUtils.roundTripInKryo(passthrough, Passthrough.class, conf);
+        Assert.assertEquals(roundTripped.getName(), passthrough.getName());
+        Assert.assertEquals(roundTripped.getPartitionIndex(), passthrough.getPartitionIndex());
+    }
+
+    @Test
+    public void testReadsKeyRoundTrip() {
+        final SAMFileHeader header = getHeader();
+        final GATKRead read1 = createRead(100000, false, true);
+        final GATKRead read2 = createRead(100300, true, false);
+        final ReadsKey fragmentKey = MarkDuplicatesSparkRecord.newFragment(read1, header, 0, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, getLibraryIndex()).key();
+        final ReadsKey pairKey = MarkDuplicatesSparkRecord.newPair(read1, read2, header, 0, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, getLibraryIndex()).key();
+
+        Assert.assertEquals(SparkTestUtils.roundTripInKryo(fragmentKey, ReadsKey.KeyForFragment.class, conf), fragmentKey);
+        Assert.assertEquals(SparkTestUtils.roundTripInKryo(pairKey, ReadsKey.KeyForPair.class, conf), pairKey);
+    }
+
+    @Test
+    public void testSerializedRecordsCarryLittleMoreThanTheReadName() {
+        final SAMFileHeader header = getHeader();
+        final KryoSerializer serializer = new KryoSerializer(conf);
+        final Fragment fragment = MarkDuplicatesSparkRecord.newFragment(createRead(100000, false, true), header, 100, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, getLibraryIndex());
+        final Pair pair = MarkDuplicatesSparkRecord.newPair(createRead(100000, false, true), createRead(100300, true, false), header, 100, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, getLibraryIndex());
+
+        // class id + partition index + read name + score/strand/read group fields
+        Assert.assertTrue(serializedSize(serializer.newKryo(), fragment) <= READ_NAME.length() + 10);
+        Assert.assertTrue(serializedSize(serializer.newKryo(), pair) <= READ_NAME.length() + 10);
+        Assert.assertTrue(serializedSize(serializer.newKryo(), fragment.key()) <= 10);
+    }
+
+    @Test
+    public void testCompactSerializersAreSmallerThanFieldSerializer() {
+        // compares against the reflection based FieldSerializer that was previously registered for these classes
+        final SAMFileHeader header = getHeader();
+        final Map<String, Byte> libraryIndex = getLibraryIndex();
+        final Kryo compact = new KryoSerializer(conf).newKryo();
+        final Kryo reflective = new KryoSerializer(new SparkConf()).newKryo();
+        reflective.register(Fragment.class, new FieldSerializer<>(reflective, Fragment.class));
+        reflective.register(EmptyFragment.class, new FieldSerializer<>(reflective, EmptyFragment.class));
+        reflective.register(ReadsKey.KeyForFragment.class, new FieldSerializer<>(reflective, ReadsKey.KeyForFragment.class));
+        reflective.register(ReadsKey.KeyForPair.class, new FieldSerializer<>(reflective, ReadsKey.KeyForPair.class));
+        reflective.register(Pair.class, new Pair.Serializer());
+
+        final GATKRead read1 = createRead(100000, false, true);
+        final GATKRead read2 = createRead(100300, true, false);
+        final Fragment fragment = MarkDuplicatesSparkRecord.newFragment(read1, header, 100, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, libraryIndex);
+        final EmptyFragment emptyFragment = MarkDuplicatesSparkRecord.newEmptyFragment(read1, header, libraryIndex);
+        final Pair pair = MarkDuplicatesSparkRecord.newPair(read1, read2, header, 100, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, libraryIndex);
+
+        for (final Object record : new Object[]{fragment, emptyFragment, fragment.key(), pair.key()}) {
+            Assert.assertTrue(serializedSize(compact, record) < serializedSize(reflective, record), record.getClass().getSimpleName());
+        }
+
+        // a properly paired template ships one pair and two empty fragments, each with their key
+        Assert.assertTrue(serializedTemplateSize(compact, pair, emptyFragment) < serializedTemplateSize(reflective, pair, emptyFragment));
+    }
+
+    private static int serializedTemplateSize(final Kryo kryo, final Pair pair, final EmptyFragment emptyFragment) {
+        return serializedSize(kryo, pair) + serializedSize(kryo, pair.key()) + 2 * (serializedSize(kryo, emptyFragment) + serializedSize(kryo, emptyFragment.key()));
+    }
+
+    private static int serializedSize(final Kryo kryo, final Object object) {
+        final Output output = new Output(1024, -1);
+        kryo.writeClassAndObject(output, object);
+        return output.position();
+    }
+}
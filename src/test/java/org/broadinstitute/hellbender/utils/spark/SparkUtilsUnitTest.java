@@ -259,4 +259,47 @@ public class SparkUtilsUnitTest extends GATKBaseTest {
         final JavaRDD<Integer> sorted = SparkUtils.sortUsingElementsAsKeys(unsortedRDD, Comparator.naturalOrder(), 2);
         assertSorted(sorted.collect(), Comparator.naturalOrder());
     }
+
+    @Test
+    public void testSortUsingPackedKeysMatchesComparatorSort() {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < 2000; i++ ) {
+            //create lots of reads that share a position, on both strands, plus some without one
+            final GATKRead read = i % 97 == 0 ?
+                    ArtificialReadUtils.createArtificialUnmappedRead(header, new byte[]{'A'}, new byte[]{30}) :
+                    ArtificialReadUtils.createArtificialRead(header, "READ" + (i * 7919) % 2000, i % header.getSequenceDictionary().size(), 1 + i % 13, 100);
+            read.setName("READ" + (i * 7919) % 2000);
+            read.setIsReverseStrand(i % 3 == 0);
+            reads.add(read);
+        }
+        final ReadCoordinateComparator comparator = new ReadCoordinateComparator(header);
+        final JavaRDD<GATKRead> readsRDD = ctx.parallelize(reads, 5);
+        final List<GATKRead> expected = SparkUtils.sortUsingElementsAsKeys(readsRDD, comparator, 7).collect();
+        final List<GATKRead> actual = SparkUtils.sortUsingPackedKeys(readsRDD, comparator::getPackedSortKey, comparator, 7).collect();
+        Assert.assertEquals(actual, expected);
+        assertSorted(actual, comparator);
+    }
+
+    @Test
+    public void testSortUsingPackedKeysSplitsPileups() {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < 1000; i++ ) {
+            //every read shares a single key, either all at one position or all without one
+            final GATKRead read = i < 500 ?
+                    ArtificialReadUtils.createArtificialRead(header, "PILEUP" + i, 0, 1, 100) :
+                    ArtificialReadUtils.createArtificialUnmappedRead(header, new byte[]{'A'}, new byte[]{30});
+            read.setName("READ" + (i * 7919) % 1000);
+            reads.add(read);
+        }
+        final ReadCoordinateComparator comparator = new ReadCoordinateComparator(header);
+        final JavaRDD<GATKRead> sorted = SparkUtils.sortUsingPackedKeys(ctx.parallelize(reads, 5), comparator::getPackedSortKey, comparator, 4);
+        for ( final List<GATKRead> partition : sorted.glom().collect() ) {
+            Assert.assertTrue(partition.size() < 500, "a run of reads with the same key was not split between partitions");
+        }
+        assertSorted(sorted.collect(), comparator);
+    }
 }